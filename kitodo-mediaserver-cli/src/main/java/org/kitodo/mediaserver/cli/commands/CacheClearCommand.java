@@ -17,6 +17,7 @@ import java.nio.file.Paths;
 import java.util.concurrent.Callable;
 import org.kitodo.mediaserver.cli.converter.TimespanConverter;
 import org.kitodo.mediaserver.core.config.FileserverProperties;
+import org.kitodo.mediaserver.core.conversion.PageFragmentCache;
 import org.kitodo.mediaserver.core.util.FileDeleter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,6 +66,8 @@ public class CacheClearCommand implements Callable, Runnable {
 
     private TaskScheduler taskScheduler;
 
+    private PageFragmentCache pageFragmentCache;
+
     @Autowired
     public void setFileserverProperties(FileserverProperties fileserverProperties) {
         this.fileserverProperties = fileserverProperties;
@@ -75,6 +78,11 @@ public class CacheClearCommand implements Callable, Runnable {
         this.taskScheduler = taskScheduler;
     }
 
+    @Autowired
+    public void setPageFragmentCache(PageFragmentCache pageFragmentCache) {
+        this.pageFragmentCache = pageFragmentCache;
+    }
+
     /**
      * Clear files cache.
      */
@@ -88,6 +96,12 @@ public class CacheClearCommand implements Callable, Runnable {
         FileDeleter fileDeleter = new FileDeleter();
         fileDeleter.delete(path, fileserverProperties.getCacheClearSince(), true);
 
+        // rendered PDF pages outside of the cache path
+        Path fragmentFolder = pageFragmentCache.getFolder();
+        if (fragmentFolder != null && !fragmentFolder.toAbsolutePath().startsWith(path.toAbsolutePath())) {
+            pageFragmentCache.deleteOld(fileserverProperties.getCacheClearSince());
+        }
+
         LOGGER.info("Finished cache clearing.");
     }
 
@@ -13,6 +13,7 @@ package org.kitodo.mediaserver.cli.commands;
 
 import java.util.concurrent.Callable;
 import org.kitodo.mediaserver.core.config.ImporterProperties;
+import org.kitodo.mediaserver.importer.control.HotfolderWatcher;
 import org.kitodo.mediaserver.importer.control.ImporterFlowControl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -91,6 +92,8 @@ public class ImportCommand implements Callable, Runnable {
 
     private TaskScheduler taskScheduler;
 
+    private HotfolderWatcher hotfolderWatcher;
+
     @Autowired
     public void setImporterProperties(ImporterProperties importerProperties) {
         this.importerProperties = importerProperties;
@@ -106,6 +109,11 @@ public class ImportCommand implements Callable, Runnable {
         this.taskScheduler = taskScheduler;
     }
 
+    @Autowired
+    public void setHotfolderWatcher(HotfolderWatcher hotfolderWatcher) {
+        this.hotfolderWatcher = hotfolderWatcher;
+    }
+
     /**
      * Clear files cache.
      */
@@ -163,6 +171,10 @@ public class ImportCommand implements Callable, Runnable {
             // start scheduling
             isScheduler = false;
             taskScheduler.schedule(this, new CronTrigger(importerProperties.getCron()));
+            // the scheduled import remains to import works missed by the watcher
+            if (importerProperties.isWatchHotfolder()) {
+                hotfolderWatcher.start();
+            }
         } else {
             // run command immediately
             importWorks();
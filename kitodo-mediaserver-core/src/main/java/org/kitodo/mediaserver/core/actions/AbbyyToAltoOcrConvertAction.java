@@ -11,20 +11,15 @@
 
 package org.kitodo.mediaserver.core.actions;
 
-import java.io.File;
 import java.nio.file.Path;
-import java.util.AbstractMap;
-import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import org.kitodo.mediaserver.core.api.IAction;
-import org.kitodo.mediaserver.core.api.IMetsReader;
 import org.kitodo.mediaserver.core.api.IOcrConverter;
-import org.kitodo.mediaserver.core.api.IReadResultParser;
-import org.kitodo.mediaserver.core.config.MetsProperties;
 import org.kitodo.mediaserver.core.conversion.FileEntry;
 import org.kitodo.mediaserver.core.db.entities.Work;
 import org.kitodo.mediaserver.core.util.MediaServerUtils;
+import org.kitodo.mediaserver.core.util.MetsIndexCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -37,9 +32,7 @@ public class AbbyyToAltoOcrConvertAction implements IAction {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbbyyToAltoOcrConvertAction.class);
 
     private MediaServerUtils mediaServerUtils;
-    private MetsProperties metsProperties;
-    private IMetsReader metsReader;
-    private IReadResultParser readResultParser;
+    private MetsIndexCache metsIndexCache;
     private IOcrConverter ocrConverter;
 
     @Autowired
@@ -48,16 +41,8 @@ public class AbbyyToAltoOcrConvertAction implements IAction {
     }
 
     @Autowired
-    public void setMetsProperties(MetsProperties metsProperties) {
-        this.metsProperties = metsProperties;
-    }
-
-    public void setMetsReader(IMetsReader metsReader) {
-        this.metsReader = metsReader;
-    }
-
-    public void setReadResultParser(IReadResultParser readResultParser) {
-        this.readResultParser = readResultParser;
+    public void setMetsIndexCache(MetsIndexCache metsIndexCache) {
+        this.metsIndexCache = metsIndexCache;
     }
 
     public void setOcrConverter(IOcrConverter ocrConverter) {
@@ -67,16 +52,8 @@ public class AbbyyToAltoOcrConvertAction implements IAction {
     @Override
     public Object perform(Work work, Map<String, String> parameter) throws Exception {
 
-        File metsFile = mediaServerUtils.getMetsFileForWork(work);
-
         // Get all OCR files of this work
-        List<String> lines = metsReader.read(
-            metsFile,
-            new AbstractMap.SimpleEntry<>("sourceGrpId", metsProperties.getOriginalFileGrp()),
-            new AbstractMap.SimpleEntry<>("fulltextGrpId", metsProperties.getFulltextFileGrp())
-        );
-        Map<String, String> metsResult = (Map<String, String>) readResultParser.parse(lines);
-        TreeMap<Integer, Map<String, FileEntry>> pages = mediaServerUtils.parseMetsFilesResult(metsResult, work);
+        TreeMap<Integer, Map<String, FileEntry>> pages = mediaServerUtils.getPages(metsIndexCache.getIndex(work), work, null, null);
 
         // Convert every single OCR file
         pages.values().forEach(page -> {
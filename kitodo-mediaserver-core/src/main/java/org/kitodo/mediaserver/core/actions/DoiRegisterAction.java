@@ -29,6 +29,7 @@ import org.kitodo.mediaserver.core.api.IWorkDescriptor;
 import org.kitodo.mediaserver.core.config.IdentifierProperties;
 import org.kitodo.mediaserver.core.db.entities.Work;
 import org.kitodo.mediaserver.core.util.MediaServerUtils;
+import org.kitodo.mediaserver.core.util.MetsIndexCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -45,6 +46,7 @@ public class DoiRegisterAction implements IAction {
     private MediaServerUtils mediaServerUtils;
     private IMetsReader metsReader;
     private IWorkDescriptor workDescriptor;
+    private MetsIndexCache metsIndexCache;
 
     @Autowired
     public void setIdentifierProperties(IdentifierProperties identifierProperties) {
@@ -64,8 +66,14 @@ public class DoiRegisterAction implements IAction {
         this.metsReader = metsReader;
     }
 
+    @Autowired
+    public void setMetsIndexCache(MetsIndexCache metsIndexCache) {
+        this.metsIndexCache = metsIndexCache;
+    }
+
     /**
      * Looks for a DOI and an Id in the METS/MODS file. Registers the DOI if found.
+     * The DOI is taken from the METS index, or read with the METS reader if one is set.
      *
      * @param work      a work entity
      * @param parameter a map of parameter
@@ -75,8 +83,13 @@ public class DoiRegisterAction implements IAction {
     @Override
     public Object perform(Work work, Map<String, String> parameter) throws Exception {
 
-        File metsFile = mediaServerUtils.getMetsFileForWork(work);
-        List<String> metsResult = metsReader.read(metsFile);
+        List<String> metsResult;
+        if (metsReader != null) {
+            File metsFile = mediaServerUtils.getMetsFileForWork(work);
+            metsResult = metsReader.read(metsFile);
+        } else {
+            metsResult = metsIndexCache.getIndex(work).getWorkData().getDois();
+        }
 
         if (CollectionUtils.isEmpty(metsResult)) {
             LOGGER.info("No DOI found for work " + work.getId());
@@ -11,16 +11,18 @@
 
 package org.kitodo.mediaserver.core.actions;
 
-import java.io.File;
-import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
 import org.kitodo.mediaserver.core.api.IAction;
-import org.kitodo.mediaserver.core.api.IMetsReader;
-import org.kitodo.mediaserver.core.api.IReadResultParser;
 import org.kitodo.mediaserver.core.db.entities.Work;
+import org.kitodo.mediaserver.core.processors.MetsFile;
+import org.kitodo.mediaserver.core.processors.MetsIndex;
 import org.kitodo.mediaserver.core.util.MediaServerUtils;
+import org.kitodo.mediaserver.core.util.MetsIndexCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -35,32 +37,23 @@ public class PreproduceDerivativesAction implements IAction {
     private static final Logger LOGGER = LoggerFactory.getLogger(PreproduceDerivativesAction.class);
 
     private MediaServerUtils mediaServerUtils;
-    private IMetsReader metsReader;
-    private IReadResultParser readResultParser;
+    private MetsIndexCache metsIndexCache;
     private IAction convertAction;
-    private String valueConcatSeparator;
 
     @Autowired
     public void setMediaServerUtils(MediaServerUtils mediaServerUtils) {
         this.mediaServerUtils = mediaServerUtils;
     }
 
-    public void setMetsReader(IMetsReader metsReader) {
-        this.metsReader = metsReader;
-    }
-
-    public void setReadResultParser(IReadResultParser readResultParser) {
-        this.readResultParser = readResultParser;
+    @Autowired
+    public void setMetsIndexCache(MetsIndexCache metsIndexCache) {
+        this.metsIndexCache = metsIndexCache;
     }
 
     public void setConvertAction(IAction convertAction) {
         this.convertAction = convertAction;
     }
 
-    public void setValueConcatSeparator(String valueConcatSeparator) {
-        this.valueConcatSeparator = valueConcatSeparator;
-    }
-
     /**
      * Performs the action of preproducing derivatives.
      *
@@ -81,28 +74,36 @@ public class PreproduceDerivativesAction implements IAction {
         String fileId = parameter.get("fileId");
         String workIdRegex = ".*?(" + work.getId() + "/.*)";
 
-        File metsFile = mediaServerUtils.getMetsFileForWork(work);
+        MetsIndex index = metsIndexCache.getIndex(work);
 
         // Gets the request url(s) from the mets file
-        List<String> lines = metsReader.read(
-                metsFile,
-                new AbstractMap.SimpleEntry<>("fileGrp", fileGrp),
-                new AbstractMap.SimpleEntry<>("fileId", fileId != null ? fileId : "")
-        );
-        Map<String, String> metsResult = (Map<String, String>) readResultParser.parse(lines);
-
-        String requestUrlString = metsResult.get("request_url");
-        if (requestUrlString != null) {
-            for (String requestUrl : requestUrlString.split(valueConcatSeparator)) {
+        List<MetsFile> files = index.getFiles(fileGrp);
+        if (StringUtils.isNotEmpty(fileId)) {
+            files = files.stream().filter(file -> fileId.equals(file.getId())).collect(Collectors.toList());
+        }
+
+        if (!files.isEmpty()) {
+            List<Map<String, String>> convertParamsList = new ArrayList<>();
+            for (MetsFile file : files) {
+                String requestUrl = file.getUrl();
                 LOGGER.info("Preproducing file " + requestUrl);
 
                 Map<String, String> convertParams = new HashMap<>();
                 convertParams.put("requestUrl", requestUrl);
                 convertParams.put("derivativePath", requestUrl.replaceFirst(workIdRegex, "$1"));
-                try {
-                    convertAction.perform(work, convertParams);
-                } catch (Exception e) {
-                    throw new Exception("Error converting file " + requestUrl + ": " + e, e);
+                convertParamsList.add(convertParams);
+            }
+
+            if (convertAction instanceof SingleFileConvertAction) {
+                // all sizes of a master file are produced from a single read of the master
+                ((SingleFileConvertAction) convertAction).performAll(work, convertParamsList);
+            } else {
+                for (Map<String, String> convertParams : convertParamsList) {
+                    try {
+                        convertAction.perform(work, convertParams);
+                    } catch (Exception e) {
+                        throw new Exception("Error converting file " + convertParams.get("requestUrl") + ": " + e, e);
+                    }
                 }
             }
         }
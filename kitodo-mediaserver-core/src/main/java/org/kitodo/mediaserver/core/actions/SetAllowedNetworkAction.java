@@ -15,16 +15,17 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.nio.file.Files;
 import java.util.Map;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import org.kitodo.mediaserver.core.api.IAction;
 import org.kitodo.mediaserver.core.config.MetsProperties;
 import org.kitodo.mediaserver.core.db.entities.Work;
 import org.kitodo.mediaserver.core.db.repositories.WorkRepository;
+import org.kitodo.mediaserver.core.processors.XsltTemplates;
+import org.kitodo.mediaserver.core.services.WorkChangedEvent;
 import org.kitodo.mediaserver.core.util.MediaServerUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
@@ -40,6 +41,10 @@ public class SetAllowedNetworkAction implements IAction {
 
     private MetsProperties metsProperties;
 
+    private ApplicationEventPublisher eventPublisher;
+
+    private XsltTemplates xsltTemplates;
+
     @Autowired
     public void setWorkRepository(WorkRepository workRepository) {
         this.workRepository = workRepository;
@@ -55,6 +60,16 @@ public class SetAllowedNetworkAction implements IAction {
         this.metsProperties = metsProperties;
     }
 
+    @Autowired
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Autowired
+    public void setXsltTemplates(XsltTemplates xsltTemplates) {
+        this.xsltTemplates = xsltTemplates;
+    }
+
     /**
      * Sets the allowedNetwork on a work, sets a comment and optionally creates a reduced METS/MODS file.
      *
@@ -95,10 +110,8 @@ public class SetAllowedNetworkAction implements IAction {
 
                 // create reduced METS file
                 try {
-                    TransformerFactory factory = TransformerFactory.newInstance();
                     ClassPathResource resource = new ClassPathResource(metsProperties.getWorkLockReduceMetsXsl());
-                    Transformer transformer = factory.newTransformer(new StreamSource(resource.getInputStream()));
-                    transformer.transform(new StreamSource(originalMets), new StreamResult(mets));
+                    xsltTemplates.transform(resource, new StreamSource(originalMets), new StreamResult(mets), null);
                 } catch (Exception ex) {
                     Files.move(originalMets.toPath(), mets.toPath());
                     throw ex;
@@ -108,6 +121,7 @@ public class SetAllowedNetworkAction implements IAction {
 
         work.setAllowedNetwork(network);
         workRepository.save(work);
+        eventPublisher.publishEvent(new WorkChangedEvent(this, work.getId()));
 
         return null;
     }
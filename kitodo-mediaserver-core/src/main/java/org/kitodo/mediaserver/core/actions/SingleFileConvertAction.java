@@ -11,23 +11,23 @@
 
 package org.kitodo.mediaserver.core.actions;
 
-import java.io.File;
 import java.io.InputStream;
-import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.stream.Collectors;
 import org.kitodo.mediaserver.core.api.IAction;
 import org.kitodo.mediaserver.core.api.IConverter;
 import org.kitodo.mediaserver.core.api.IExtractor;
-import org.kitodo.mediaserver.core.api.IMetsReader;
-import org.kitodo.mediaserver.core.api.IReadResultParser;
-import org.kitodo.mediaserver.core.config.MetsProperties;
 import org.kitodo.mediaserver.core.conversion.FileEntry;
 import org.kitodo.mediaserver.core.db.entities.Work;
 import org.kitodo.mediaserver.core.exceptions.ConversionException;
+import org.kitodo.mediaserver.core.processors.MetsIndex;
 import org.kitodo.mediaserver.core.util.MediaServerUtils;
+import org.kitodo.mediaserver.core.util.MetsIndexCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,24 +39,14 @@ public class SingleFileConvertAction implements IAction {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SingleFileConvertAction.class);
 
-    private MetsProperties metsProperties;
-    private IMetsReader metsReader;
-    private IReadResultParser readResultParser;
+    private MetsIndexCache metsIndexCache;
     private Map<String, IConverter> converters = new HashMap<>();
     private IExtractor patternExtractor;
     private MediaServerUtils mediaServerUtils;
 
     @Autowired
-    public void setMetsProperties(MetsProperties metsProperties) {
-        this.metsProperties = metsProperties;
-    }
-
-    public void setMetsReader(IMetsReader metsReader) {
-        this.metsReader = metsReader;
-    }
-
-    public void setReadResultParser(IReadResultParser readResultParser) {
-        this.readResultParser = readResultParser;
+    public void setMetsIndexCache(MetsIndexCache metsIndexCache) {
+        this.metsIndexCache = metsIndexCache;
     }
 
     public Map<String, IConverter> getConverters() {
@@ -82,21 +72,51 @@ public class SingleFileConvertAction implements IAction {
      */
     public InputStream perform(Work work, Map<String, String> parameter) throws Exception {
 
+        Conversion conversion = prepare(work, metsIndexCache.getIndex(work), parameter);
+
+        return conversion.converter.convert(conversion.pages, conversion.parameter);
+    }
+
+    /**
+     * Performes the conversion of several requested urls of a given work. Requested urls with the same master file
+     * and target format are converted together, so the master file is read only once.
+     *
+     * @param work the work entity
+     * @param parameterList conversion parameter for every requested url
+     * @throws Exception if anything goes wrong
+     */
+    public void performAll(Work work, List<Map<String, String>> parameterList) throws Exception {
+
+        MetsIndex index = metsIndexCache.getIndex(work);
+
+        Map<String, List<Conversion>> conversionsByMaster = new LinkedHashMap<>();
+        for (Map<String, String> parameter : parameterList) {
+            Conversion conversion = prepare(work, index, parameter);
+            String key = conversion.sourceFile.getFile().getAbsolutePath() + "|" + conversion.parameter.get("target_mime");
+            conversionsByMaster.computeIfAbsent(key, k -> new ArrayList<>()).add(conversion);
+        }
+
+        for (List<Conversion> conversions : conversionsByMaster.values()) {
+            Conversion first = conversions.get(0);
+            try {
+                first.converter.convertAll(first.pages,
+                    conversions.stream().map(conversion -> conversion.parameter).collect(Collectors.toList()));
+            } catch (Exception e) {
+                throw new Exception("Error converting file " + first.sourceFile.getFile() + ": " + e, e);
+            }
+        }
+    }
+
+    /**
+     * Gets the files of the requested url from the index of the mets file and selects the converter.
+     */
+    private Conversion prepare(Work work, MetsIndex index, Map<String, String> parameter) throws Exception {
+
         mediaServerUtils.checkForRequiredParameter(parameter, "requestUrl");
         String requestUrl = parameter.get("requestUrl");
 
-        File metsFile = mediaServerUtils.getMetsFileForWork(work);
-
         /* Gets the path of the original file for the requested file from the mets file */
-        List<String> lines = metsReader.read(
-                metsFile,
-                new AbstractMap.SimpleEntry<>("requestUrl", requestUrl),
-                new AbstractMap.SimpleEntry<>("sourceGrpId", metsProperties.getOriginalFileGrp()),
-                new AbstractMap.SimpleEntry<>("fulltextGrpId", metsProperties.getFulltextFileGrp())
-        );
-        Map<String, String> metsResult = (Map<String, String>) readResultParser.parse(lines);
-
-        TreeMap<Integer, Map<String, FileEntry>> pages = mediaServerUtils.parseMetsFilesResult(metsResult, work);
+        TreeMap<Integer, Map<String, FileEntry>> pages = mediaServerUtils.getPages(index, work, requestUrl, null);
 
         FileEntry sourceFile = null;
         if (!pages.isEmpty()) {
@@ -104,7 +124,7 @@ public class SingleFileConvertAction implements IAction {
         }
         if (sourceFile == null) {
             throw new ConversionException("No source url for requested url " + requestUrl
-                + " found in mets file " + metsFile.getAbsolutePath());
+                + " found in mets file of work " + work.getId());
         }
 
         parameter.put("target_mime", pages.firstEntry().getValue().get("target").getMimeType());
@@ -124,6 +144,25 @@ public class SingleFileConvertAction implements IAction {
             throw new ConversionException("No converter set for MIME type '" + parameter.getOrDefault("target_mime", "") + "'");
         }
 
-        return converter.convert(pages, convertParams);
+        return new Conversion(pages, sourceFile, convertParams, converter);
+    }
+
+    /**
+     * A prepared conversion of a requested url.
+     */
+    private static class Conversion {
+
+        private final TreeMap<Integer, Map<String, FileEntry>> pages;
+        private final FileEntry sourceFile;
+        private final Map<String, Object> parameter;
+        private final IConverter converter;
+
+        Conversion(TreeMap<Integer, Map<String, FileEntry>> pages, FileEntry sourceFile, Map<String, Object> parameter,
+                   IConverter converter) {
+            this.pages = pages;
+            this.sourceFile = sourceFile;
+            this.parameter = parameter;
+            this.converter = converter;
+        }
     }
 }
@@ -11,38 +11,35 @@
 
 package org.kitodo.mediaserver.core.actions;
 
-import java.io.File;
 import java.io.InputStream;
-import java.util.AbstractMap;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.regex.Pattern;
-import org.kitodo.mediaserver.core.api.IAction;
 import org.kitodo.mediaserver.core.api.IConverter;
-import org.kitodo.mediaserver.core.api.IMetsReader;
-import org.kitodo.mediaserver.core.api.IReadResultParser;
-import org.kitodo.mediaserver.core.api.ITocReader;
+import org.kitodo.mediaserver.core.api.IPageSelectionAction;
+import org.kitodo.mediaserver.core.config.ConversionProperties;
 import org.kitodo.mediaserver.core.config.MetsProperties;
 import org.kitodo.mediaserver.core.conversion.FileEntry;
 import org.kitodo.mediaserver.core.db.entities.Work;
 import org.kitodo.mediaserver.core.exceptions.ConversionException;
+import org.kitodo.mediaserver.core.exceptions.ValidationException;
+import org.kitodo.mediaserver.core.processors.MetsIndex;
+import org.kitodo.mediaserver.core.processors.PageRange;
 import org.kitodo.mediaserver.core.processors.Toc;
 import org.kitodo.mediaserver.core.util.MediaServerUtils;
+import org.kitodo.mediaserver.core.util.MetsIndexCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 
 /**
  * An action to convert all master images to one PDF file.
  */
-public class StandaloneFullPdfFileConvertAction implements IAction {
+public class StandaloneFullPdfFileConvertAction implements IPageSelectionAction {
 
     private MetsProperties metsProperties;
-    private IMetsReader metsReader;
-    private IMetsReader fullPdfMetsReader;
-    private ITocReader tocReader;
-    private IReadResultParser readResultParser;
+    private ConversionProperties.Pdf conversionPropertiesPdf;
+    private MetsIndexCache metsIndexCache;
     private Map<String, IConverter> converters = new HashMap<>();
     private MediaServerUtils mediaServerUtils;
 
@@ -51,20 +48,14 @@ public class StandaloneFullPdfFileConvertAction implements IAction {
         this.metsProperties = metsProperties;
     }
 
-    public void setMetsReader(IMetsReader metsReader) {
-        this.metsReader = metsReader;
-    }
-
-    public void setTocReader(ITocReader tocReader) {
-        this.tocReader = tocReader;
-    }
-
-    public void setReadResultParser(IReadResultParser readResultParser) {
-        this.readResultParser = readResultParser;
+    @Autowired
+    public void setConversionPropertiesPdf(ConversionProperties.Pdf conversionPropertiesPdf) {
+        this.conversionPropertiesPdf = conversionPropertiesPdf;
     }
 
-    public void setFullPdfReader(IMetsReader fullPdfMetsReader) {
-        this.fullPdfMetsReader = fullPdfMetsReader;
+    @Autowired
+    public void setMetsIndexCache(MetsIndexCache metsIndexCache) {
+        this.metsIndexCache = metsIndexCache;
     }
 
     public Map<String, IConverter> getConverters() {
@@ -79,9 +70,15 @@ public class StandaloneFullPdfFileConvertAction implements IAction {
     /**
      * Performes a conversion of a given work.
      *
+     * <p>
+     * With the parameter {@code pages} (e.g. "12-40") or {@code section} (the ID of a logical structure element),
+     * only these pages are converted and the bookmarks are trimmed to them. The file name of the full PDF file
+     * gets the page range as suffix.
+     *
      * @param work the work entity
      * @param parameter conversion parameter
      * @return an input stream with the conversion or null
+     * @throws ValidationException if the page range or section is invalid
      * @throws Exception if anything goes wrong
      */
     public InputStream perform(Work work, Map<String, String> parameter) throws Exception {
@@ -90,31 +87,21 @@ public class StandaloneFullPdfFileConvertAction implements IAction {
             parameter = new HashMap<>();
         }
 
-        File metsFile = mediaServerUtils.getMetsFileForWork(work);
-        String workIdRegex = ".*?(" + Pattern.quote(work.getId()) + "/.*)";
+        MetsIndex index = metsIndexCache.getIndex(work);
+        parameter.put("derivativePath", getFullPdfPath(work, index, parameter));
 
-        List<String> lines = fullPdfMetsReader.read(metsFile,
-            new AbstractMap.SimpleEntry<>("downloadGrpId", metsProperties.getDownloadFileGrp()));
-        Map<String, String> fullPdfResult = (Map<String, String>) readResultParser.parse(lines);
-        String fullPdfUrl = fullPdfResult.get("fullPdfUrl");
+        /* Gets the master files of all pages from the mets file */
+        TreeMap<Integer, Map<String, FileEntry>> pages = mediaServerUtils.getPages(index, work, null,
+            conversionPropertiesPdf.getJpegFileGrp());
+        Toc toc = index.getToc();
 
-        if (!StringUtils.hasText(fullPdfUrl)) {
-            throw new Exception("No full PDF file URL found in METS file.");
+        PageRange range = getPageRange(index, parameter);
+        if (range != null) {
+            pages = range.select(pages);
+            toc = range.trim(toc, pages);
+            parameter.put("derivativePath", getPageSelectionPath(parameter.get("derivativePath"), range));
         }
 
-        parameter.put("derivativePath", fullPdfUrl.replaceFirst(workIdRegex, "$1"));
-
-        /* Gets the path of the original file for the requested file from the mets file */
-        lines = metsReader.read(
-            metsFile,
-            new AbstractMap.SimpleEntry<>("sourceGrpId", metsProperties.getOriginalFileGrp()),
-            new AbstractMap.SimpleEntry<>("fulltextGrpId", metsProperties.getFulltextFileGrp())
-        );
-
-        final Map<String, String> metsResult = (Map<String, String>) readResultParser.parse(lines);
-        final TreeMap<Integer, Map<String, FileEntry>> pages = mediaServerUtils.parseMetsFilesResult(metsResult, work);
-        final Toc toc = tocReader.read(metsFile.toPath());
-
         parameter.put("target_mime", "application/pdf");
 
         Map<String, Object> convertParams = new HashMap<>(parameter);
@@ -127,4 +114,59 @@ public class StandaloneFullPdfFileConvertAction implements IAction {
 
         return converter.convert(pages, convertParams);
     }
+
+    /**
+     * Gets the path of the PDF file, with the page range as suffix if some pages or a section are requested.
+     *
+     * @param work the work entity
+     * @param parameter conversion parameter
+     * @return the path of the PDF file relative to the conversion target path
+     * @throws ValidationException if the page range or section is invalid
+     * @throws Exception if the METS file can't be read or contains no full PDF file URL
+     */
+    @Override
+    public String getDerivativePath(Work work, Map<String, String> parameter) throws Exception {
+        MetsIndex index = metsIndexCache.getIndex(work);
+        String path = getFullPdfPath(work, index, parameter);
+        PageRange range = getPageRange(index, parameter);
+        return range != null ? getPageSelectionPath(path, range) : path;
+    }
+
+    /**
+     * Gets the path of the full PDF file from the METS file. For page selections the requested path is used
+     * if the METS file contains no full PDF file URL.
+     */
+    private String getFullPdfPath(Work work, MetsIndex index, Map<String, String> parameter) throws Exception {
+        String fullPdfUrl = index.getWorkFileUrl(metsProperties.getDownloadFileGrp());
+        if (StringUtils.hasText(fullPdfUrl)) {
+            String workIdRegex = ".*?(" + Pattern.quote(work.getId()) + "/.*)";
+            return fullPdfUrl.replaceFirst(workIdRegex, "$1");
+        }
+        if (!isPageSelection(parameter) || !StringUtils.hasText(parameter.get("derivativePath"))) {
+            throw new Exception("No full PDF file URL found in METS file.");
+        }
+        return parameter.get("derivativePath");
+    }
+
+    /**
+     * Gets the requested pages, or null if the full PDF file is requested.
+     */
+    private PageRange getPageRange(MetsIndex index, Map<String, String> parameter) throws ValidationException {
+        if (!isPageSelection(parameter)) {
+            return null;
+        }
+        int lastPage = index.getPageOrders().isEmpty() ? 0 : index.getPageOrders().last();
+        return StringUtils.hasText(parameter.get("section"))
+            ? PageRange.ofSection(index.getToc(), parameter.get("section"), lastPage)
+            : PageRange.parse(parameter.get("pages"), lastPage);
+    }
+
+    private boolean isPageSelection(Map<String, String> parameter) {
+        return StringUtils.hasText(parameter.get("pages")) || StringUtils.hasText(parameter.get("section"));
+    }
+
+    private String getPageSelectionPath(String fullPdfPath, PageRange range) {
+        // the same pages requested as range or section share the derivative
+        return fullPdfPath.replaceFirst("(?i)(\\.pdf)?$", "_" + range + ".pdf");
+    }
 }
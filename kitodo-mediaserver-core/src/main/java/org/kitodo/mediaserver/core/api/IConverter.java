@@ -12,6 +12,7 @@
 package org.kitodo.mediaserver.core.api;
 
 import java.io.InputStream;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import org.kitodo.mediaserver.core.conversion.FileEntry;
@@ -30,4 +31,21 @@ public interface IConverter {
      * @throws Exception by fatal errors
      */
     InputStream convert(TreeMap<Integer, Map<String, FileEntry>> pages, Map<String, Object> parameter) throws Exception;
+
+    /**
+     * Converts the same files to several derivatives, e.g. different sizes of an image.
+     * Converters may override this to read the files only once for all derivatives.
+     *
+     * @param pages a map (key=sorting order of files) of maps (key={master,fulltext,...}) with work files
+     * @param parameterList a map of parameter for every derivative
+     * @throws Exception by fatal errors
+     */
+    default void convertAll(TreeMap<Integer, Map<String, FileEntry>> pages, List<Map<String, Object>> parameterList) throws Exception {
+        for (Map<String, Object> parameter : parameterList) {
+            InputStream inputStream = convert(pages, parameter);
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        }
+    }
 }
@@ -0,0 +1,30 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.api;
+
+import java.io.File;
+import org.kitodo.mediaserver.core.processors.MetsIndex;
+
+/**
+ * Reads the files, pages and table of content of a METS file into an index.
+ */
+public interface IMetsIndexReader {
+
+    /**
+     * Reads a METS file.
+     *
+     * @param mets the METS file
+     * @return the index of the METS file
+     * @throws Exception on errors
+     */
+    MetsIndex read(File mets) throws Exception;
+}
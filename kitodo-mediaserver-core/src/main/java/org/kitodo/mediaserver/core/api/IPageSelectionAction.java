@@ -0,0 +1,33 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.api;
+
+import java.util.Map;
+import org.kitodo.mediaserver.core.db.entities.Work;
+
+/**
+ * Interface of actions producing files of some pages or a section of a work, e.g. PDF files.
+ */
+public interface IPageSelectionAction extends IAction {
+
+    /**
+     * Gets the path of the file the action produces for the requested pages, relative to the conversion target path.
+     * Allows to find a saved file without performing the action.
+     *
+     * @param work a work entity
+     * @param parameter a map of parameter, the same as for performing the action
+     * @return the path of the file
+     * @throws Exception by fatal errors, e.g. invalid pages
+     */
+    String getDerivativePath(Work work, Map<String, String> parameter) throws Exception;
+
+}
@@ -14,7 +14,6 @@ package org.kitodo.mediaserver.core.config;
 import org.kitodo.mediaserver.core.actions.CleanMetsTitleEntriesAction;
 import org.kitodo.mediaserver.core.actions.DoiRegisterAction;
 import org.kitodo.mediaserver.core.api.IAction;
-import org.kitodo.mediaserver.core.api.IMetsReader;
 import org.kitodo.mediaserver.core.api.IMetsTransformer;
 import org.kitodo.mediaserver.core.api.IWorkDescriptor;
 import org.kitodo.mediaserver.core.processors.WorkPurlCreator;
@@ -24,6 +23,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StringUtils;
 
 /**
  * Bean configurations for common features.
@@ -34,13 +34,6 @@ public class CommonConfiguration {
     @Autowired
     private IdentifierProperties identifierProperties;
 
-    @Bean
-    public IMetsReader doiMetsReader() {
-        XsltMetsReader xsltMetsReader = new XsltMetsReader();
-        xsltMetsReader.setXslt(new ClassPathResource(identifierProperties.getDoiDataReaderXsl()));
-        return xsltMetsReader;
-    }
-
     @Bean
     public IWorkDescriptor workPurlCreator() {
         return new WorkPurlCreator();
@@ -50,7 +43,12 @@ public class CommonConfiguration {
     public IAction doiRegisterAction() {
         DoiRegisterAction doiRegisterAction = new DoiRegisterAction();
         doiRegisterAction.setWorkDescriptor(workPurlCreator());
-        doiRegisterAction.setMetsReader(doiMetsReader());
+        // DOIs are taken from the METS index, unless a stylesheet is configured
+        if (StringUtils.hasText(identifierProperties.getDoiDataReaderXsl())) {
+            XsltMetsReader doiMetsReader = new XsltMetsReader();
+            doiMetsReader.setXslt(new ClassPathResource(identifierProperties.getDoiDataReaderXsl()));
+            doiRegisterAction.setMetsReader(doiMetsReader);
+        }
         return doiRegisterAction;
     }
 
@@ -19,12 +19,10 @@ import org.kitodo.mediaserver.core.actions.StandaloneFullPdfFileConvertAction;
 import org.kitodo.mediaserver.core.api.IAction;
 import org.kitodo.mediaserver.core.api.IConverter;
 import org.kitodo.mediaserver.core.api.IExtractor;
-import org.kitodo.mediaserver.core.api.IMetsReader;
+import org.kitodo.mediaserver.core.api.IMetsIndexReader;
 import org.kitodo.mediaserver.core.api.IMetsTransformer;
 import org.kitodo.mediaserver.core.api.IOcrConverter;
 import org.kitodo.mediaserver.core.api.IOcrReader;
-import org.kitodo.mediaserver.core.api.IReadResultParser;
-import org.kitodo.mediaserver.core.api.ITocReader;
 import org.kitodo.mediaserver.core.api.IWatermarker;
 import org.kitodo.mediaserver.core.conversion.AwtImageFileConverter;
 import org.kitodo.mediaserver.core.conversion.PdfboxFileConverter;
@@ -32,9 +30,8 @@ import org.kitodo.mediaserver.core.conversion.SimpleIMSingleFileConverter;
 import org.kitodo.mediaserver.core.processors.AppendingWatermarker;
 import org.kitodo.mediaserver.core.processors.PatternExtractor;
 import org.kitodo.mediaserver.core.processors.ScalingWatermarker;
-import org.kitodo.mediaserver.core.processors.SimpleList2MapParser;
-import org.kitodo.mediaserver.core.processors.XsltMetsReader;
-import org.kitodo.mediaserver.core.processors.XsltMetsTocReader;
+import org.kitodo.mediaserver.core.processors.StaxMetsIndexReader;
+import org.kitodo.mediaserver.core.processors.XsltMetsIndexReader;
 import org.kitodo.mediaserver.core.processors.XsltMetsTransformer;
 import org.kitodo.mediaserver.core.processors.ocr.XsltOcrReader;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,6 +39,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * Bean configurations for conversions, used by fileserver, importer and ui.
@@ -50,11 +48,12 @@ import org.springframework.core.io.ClassPathResource;
 @ComponentScan("org.kitodo.mediaserver.core")
 public class ConversionConfiguration {
 
-    private static final String METS_READER_CONCAT_SEPARATOR = " ; ";
-
     @Autowired
     private ConversionProperties conversionProperties;
 
+    @Autowired
+    private ConversionProperties.Pdf conversionPropertiesPdf;
+
     @Autowired
     private ImporterProperties importerProperties;
 
@@ -62,28 +61,27 @@ public class ConversionConfiguration {
     private FileserverProperties fileserverProperties;
 
     @Autowired
-    private IOcrConverter abbyyToAltoOcrConverter;
+    private MetsProperties metsProperties;
 
-    @Bean
-    public IMetsReader masterFilesMetsReader() {
-        XsltMetsReader xsltMetsReader = new XsltMetsReader();
-        xsltMetsReader.setXslt(new ClassPathResource("xslt/filesFromMets.xsl"));
-        return xsltMetsReader;
-    }
-
-    @Bean
-    public IMetsReader requestUrlsMetsReader() {
-        XsltMetsReader xsltMetsReader = new XsltMetsReader();
-        xsltMetsReader.setXslt(new ClassPathResource("xslt/fileGrpRequestUrlsFromMets.xsl"));
-        return xsltMetsReader;
-    }
+    @Autowired
+    private IOcrConverter abbyyToAltoOcrConverter;
 
+    /**
+     * Executor to prepare the pages of PDF files in parallel. It is shared by all PDF conversions.
+     *
+     * @return the executor
+     */
     @Bean
-    public IReadResultParser listToMapParser() {
-        SimpleList2MapParser parser = new SimpleList2MapParser();
-        parser.setMapSeparator(":");
-        parser.setValueConcatSeparator(METS_READER_CONCAT_SEPARATOR);
-        return parser;
+    public ThreadPoolTaskExecutor pageRenderExecutor() {
+        int threads = conversionPropertiesPdf.getRenderThreads() > 0
+            ? conversionPropertiesPdf.getRenderThreads()
+            : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("page-render-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setDaemon(true);
+        return executor;
     }
 
     @Bean
@@ -121,27 +119,19 @@ public class ConversionConfiguration {
     }
 
     /**
-     * A reader using XSLT to read the table of content from a METS file.
-     *
-     * @return the reader
-     */
-    @Bean(name = "tocReader")
-    public ITocReader xsltMetsTocReader() {
-        XsltMetsTocReader tocReader = new XsltMetsTocReader();
-        tocReader.setXslt(new ClassPathResource("xslt/tocFromMets.xsl"));
-        return tocReader;
-    }
-
-    /**
-     * A reader using XSLT to get the fulltext URL from METS file.
+     * A reader to read the files, pages and table of content from a METS file in one pass. Depending on
+     * {@code mets.indexReader}, the METS file is streamed using StAX ("stax") or transformed using XSLT ("xslt").
      *
      * @return the reader
      */
     @Bean
-    public IMetsReader fullPdfUrlMetsreader() {
-        XsltMetsReader xsltMetsReader = new XsltMetsReader();
-        xsltMetsReader.setXslt(new ClassPathResource("xslt/fullPdfUrlFromMets.xsl"));
-        return xsltMetsReader;
+    public IMetsIndexReader metsIndexReader() {
+        if ("xslt".equalsIgnoreCase(metsProperties.getIndexReader())) {
+            XsltMetsIndexReader metsIndexReader = new XsltMetsIndexReader();
+            metsIndexReader.setXslt(new ClassPathResource("xslt/metsIndexFromMets.xsl"));
+            return metsIndexReader;
+        }
+        return new StaxMetsIndexReader();
     }
 
     /*
@@ -243,8 +233,6 @@ public class ConversionConfiguration {
     @Bean(name = "onDemandAwtPdfboxSingleFileConvertAction")
     public IAction onDemandAwtPdfboxSingleFileConvertAction() {
         SingleFileConvertAction convertAction = new SingleFileConvertAction();
-        convertAction.setMetsReader(masterFilesMetsReader());
-        convertAction.setReadResultParser(listToMapParser());
         convertAction.getConverters().put("image/jpeg", onDemandAwtFileConverter());
         convertAction.getConverters().put("application/pdf", onDemandPdfboxFileConverter());
         convertAction.setPatternExtractor(patternExtractor());
@@ -259,8 +247,6 @@ public class ConversionConfiguration {
     @Bean(name = "onDemandIMSingleFileConvertAction")
     public IAction appendingConversionAction() {
         SingleFileConvertAction singleFileConvertAction = new SingleFileConvertAction();
-        singleFileConvertAction.setMetsReader(masterFilesMetsReader());
-        singleFileConvertAction.setReadResultParser(listToMapParser());
         singleFileConvertAction.getConverters().put("application/pdf", onDemandIMConverterAppendingWatermarker());
         singleFileConvertAction.getConverters().put("image/jpeg", onDemandIMConverterAppendingWatermarker());
         singleFileConvertAction.setPatternExtractor(patternExtractor());
@@ -276,8 +262,6 @@ public class ConversionConfiguration {
     @Bean
     public IAction preproduceIMSingleFileConvertAction() {
         SingleFileConvertAction singleFileConvertAction = new SingleFileConvertAction();
-        singleFileConvertAction.setMetsReader(masterFilesMetsReader());
-        singleFileConvertAction.setReadResultParser(listToMapParser());
         singleFileConvertAction.getConverters().put("application/pdf", preproduceIMConverterScalingWatermarker());
         singleFileConvertAction.getConverters().put("image/jpeg", preproduceIMConverterScalingWatermarker());
         singleFileConvertAction.setPatternExtractor(patternExtractor());
@@ -293,8 +277,6 @@ public class ConversionConfiguration {
     @Bean
     public IAction preproduceAwtPdfboxSingleFileConvertAction() {
         SingleFileConvertAction convertAction = new SingleFileConvertAction();
-        convertAction.setMetsReader(masterFilesMetsReader());
-        convertAction.setReadResultParser(listToMapParser());
         convertAction.getConverters().put("image/jpeg", preproduceAwtFileConverter());
         convertAction.getConverters().put("application/pdf", preproducePdfboxFileConverter());
         convertAction.setPatternExtractor(patternExtractor());
@@ -311,9 +293,6 @@ public class ConversionConfiguration {
     public IAction preproduceDerivativesAction() {
         PreproduceDerivativesAction preproduceDerivativesAction = new PreproduceDerivativesAction();
         preproduceDerivativesAction.setConvertAction(preproduceAwtPdfboxSingleFileConvertAction());
-        preproduceDerivativesAction.setReadResultParser(listToMapParser());
-        preproduceDerivativesAction.setValueConcatSeparator(METS_READER_CONCAT_SEPARATOR);
-        preproduceDerivativesAction.setMetsReader(requestUrlsMetsReader());
         return preproduceDerivativesAction;
     }
 
@@ -327,9 +306,6 @@ public class ConversionConfiguration {
     public IAction preproduceIMDerivativesAction() {
         PreproduceDerivativesAction preproduceDerivativesAction = new PreproduceDerivativesAction();
         preproduceDerivativesAction.setConvertAction(preproduceIMSingleFileConvertAction());
-        preproduceDerivativesAction.setReadResultParser(listToMapParser());
-        preproduceDerivativesAction.setValueConcatSeparator(METS_READER_CONCAT_SEPARATOR);
-        preproduceDerivativesAction.setMetsReader(requestUrlsMetsReader());
         return preproduceDerivativesAction;
     }
 
@@ -341,22 +317,28 @@ public class ConversionConfiguration {
     @Bean(name = "preproduceFullPdfFileConvertAction")
     public IAction preproduceFullPdfFileConvertAction() {
         StandaloneFullPdfFileConvertAction convertAction = new StandaloneFullPdfFileConvertAction();
-        convertAction.setMetsReader(masterFilesMetsReader());
-        convertAction.setFullPdfReader(fullPdfUrlMetsreader());
-        convertAction.setTocReader(xsltMetsTocReader());
-        convertAction.setReadResultParser(listToMapParser());
         convertAction.getConverters().put("application/pdf", preproducePdfboxFileConverter());
         return convertAction;
     }
 
+    /**
+     * An on-demand action for pdf files containing some pages or a section of a work. Saves the file on the caching path.
+     *
+     * @return the action
+     */
+    @Bean(name = "onDemandPageSelectionPdfFileConvertAction")
+    public IAction onDemandPageSelectionPdfFileConvertAction() {
+        StandaloneFullPdfFileConvertAction convertAction = new StandaloneFullPdfFileConvertAction();
+        convertAction.getConverters().put("application/pdf", onDemandPdfboxFileConverter());
+        return convertAction;
+    }
+
     /**
      * A convert action to transform every OCR file of a work from ABBYY Finereader format to ALTO format.
      */
     @Bean
     public IAction abbyyToAltoOcrConvertAction() {
         AbbyyToAltoOcrConvertAction action = new AbbyyToAltoOcrConvertAction();
-        action.setMetsReader(masterFilesMetsReader());
-        action.setReadResultParser(listToMapParser());
         action.setOcrConverter(abbyyToAltoOcrConverter);
         return action;
     }
@@ -24,6 +24,9 @@ public class ConversionProperties {
 
     private List<String> pathExtractionPatterns;
     private boolean useGraphicsMagick;
+    private Long stagingCleanupAge;
+    private int decodeMemoryBudget;
+    private int decodeMemoryWait;
 
     public void setPathExtractionPatterns(List<String> pathExtractionPatterns) {
         this.pathExtractionPatterns = pathExtractionPatterns;
@@ -41,6 +44,30 @@ public class ConversionProperties {
         this.useGraphicsMagick = useGraphicsMagick;
     }
 
+    public Long getStagingCleanupAge() {
+        return stagingCleanupAge;
+    }
+
+    public void setStagingCleanupAge(Long stagingCleanupAge) {
+        this.stagingCleanupAge = stagingCleanupAge;
+    }
+
+    public int getDecodeMemoryBudget() {
+        return decodeMemoryBudget;
+    }
+
+    public void setDecodeMemoryBudget(int decodeMemoryBudget) {
+        this.decodeMemoryBudget = decodeMemoryBudget;
+    }
+
+    public int getDecodeMemoryWait() {
+        return decodeMemoryWait;
+    }
+
+    public void setDecodeMemoryWait(int decodeMemoryWait) {
+        this.decodeMemoryWait = decodeMemoryWait;
+    }
+
     @Configuration
     @ConfigurationProperties(prefix = "conversion.pdf")
     public static class Pdf {
@@ -49,6 +76,11 @@ public class ConversionProperties {
         private List<String> ocrDirs;
         private int maxMemory;
         private String iccProfile;
+        private int renderThreads;
+        private int renderWindow;
+        private int streamingThreshold;
+        private String jpegFileGrp;
+        private String fragmentCachePath;
 
         public int getDefaultSize() {
             return defaultSize;
@@ -89,6 +121,46 @@ public class ConversionProperties {
         public void setIccProfile(String iccProfile) {
             this.iccProfile = iccProfile;
         }
+
+        public int getRenderThreads() {
+            return renderThreads;
+        }
+
+        public void setRenderThreads(int renderThreads) {
+            this.renderThreads = renderThreads;
+        }
+
+        public int getRenderWindow() {
+            return renderWindow;
+        }
+
+        public void setRenderWindow(int renderWindow) {
+            this.renderWindow = renderWindow;
+        }
+
+        public int getStreamingThreshold() {
+            return streamingThreshold;
+        }
+
+        public void setStreamingThreshold(int streamingThreshold) {
+            this.streamingThreshold = streamingThreshold;
+        }
+
+        public String getJpegFileGrp() {
+            return jpegFileGrp;
+        }
+
+        public void setJpegFileGrp(String jpegFileGrp) {
+            this.jpegFileGrp = jpegFileGrp;
+        }
+
+        public String getFragmentCachePath() {
+            return fragmentCachePath;
+        }
+
+        public void setFragmentCachePath(String fragmentCachePath) {
+            this.fragmentCachePath = fragmentCachePath;
+        }
     }
 
     @Configuration
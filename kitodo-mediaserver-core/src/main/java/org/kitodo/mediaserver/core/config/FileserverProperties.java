@@ -13,6 +13,7 @@ package org.kitodo.mediaserver.core.config;
 
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Pattern;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
@@ -30,10 +31,16 @@ public class FileserverProperties {
     private String filePathPattern;
     private String rootUrl;
     private String convertAction;
+    private String pageSelectionAction;
     private Map<String, List<String>> allowedNetworks;
     private List<String> errorNotificationEmail;
     private String disabledWorkImagePath;
     private String ignoredExceptionByNotificationRegex;
+    private List<CacheControlPolicy> cacheControl;
+    private int maxConversions;
+    private int conversionQueueSize;
+    private int conversionRetryAfter;
+    private int conversionTimeout;
 
     public boolean isCaching() {
         return caching;
@@ -91,6 +98,14 @@ public class FileserverProperties {
         this.convertAction = convertAction;
     }
 
+    public String getPageSelectionAction() {
+        return pageSelectionAction;
+    }
+
+    public void setPageSelectionAction(String pageSelectionAction) {
+        this.pageSelectionAction = pageSelectionAction;
+    }
+
     public Map<String, List<String>> getAllowedNetworks() {
         return allowedNetworks;
     }
@@ -122,4 +137,112 @@ public class FileserverProperties {
     public void setIgnoredExceptionByNotificationRegex(String ignoredExceptionByNotificationRegex) {
         this.ignoredExceptionByNotificationRegex = ignoredExceptionByNotificationRegex;
     }
+
+    public int getMaxConversions() {
+        return maxConversions;
+    }
+
+    public void setMaxConversions(int maxConversions) {
+        this.maxConversions = maxConversions;
+    }
+
+    public int getConversionQueueSize() {
+        return conversionQueueSize;
+    }
+
+    public void setConversionQueueSize(int conversionQueueSize) {
+        this.conversionQueueSize = conversionQueueSize;
+    }
+
+    public int getConversionRetryAfter() {
+        return conversionRetryAfter;
+    }
+
+    public void setConversionRetryAfter(int conversionRetryAfter) {
+        this.conversionRetryAfter = conversionRetryAfter;
+    }
+
+    public int getConversionTimeout() {
+        return conversionTimeout;
+    }
+
+    public void setConversionTimeout(int conversionTimeout) {
+        this.conversionTimeout = conversionTimeout;
+    }
+
+    public List<CacheControlPolicy> getCacheControl() {
+        return cacheControl;
+    }
+
+    public void setCacheControl(List<CacheControlPolicy> cacheControl) {
+        this.cacheControl = cacheControl;
+    }
+
+    /**
+     * A Cache-Control header value for all files with a path matching a pattern.
+     */
+    public static class CacheControlPolicy {
+
+        private Pattern pattern;
+        private String value;
+
+        public String getPattern() {
+            return pattern != null ? pattern.pattern() : null;
+        }
+
+        public void setPattern(String pattern) {
+            this.pattern = Pattern.compile(pattern);
+        }
+
+        public String getValue() {
+            return value;
+        }
+
+        public void setValue(String value) {
+            this.value = value;
+        }
+
+        /**
+         * Checks if the policy applies to a path.
+         *
+         * @param path the path of the requested file
+         * @return true if the pattern matches the whole path
+         */
+        public boolean matches(String path) {
+            return pattern != null && pattern.matcher(path).matches();
+        }
+    }
+
+    @Configuration
+    @ConfigurationProperties(prefix = "fileserver.workcache")
+    public static class WorkCache {
+
+        private int maxSize;
+        private long ttl;
+        private long pollInterval;
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        public long getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(long ttl) {
+            this.ttl = ttl;
+        }
+
+        public long getPollInterval() {
+            return pollInterval;
+        }
+
+        public void setPollInterval(long pollInterval) {
+            this.pollInterval = pollInterval;
+        }
+    }
 }
@@ -33,7 +33,15 @@ public class ImporterProperties {
     private String fileUrlReaderXsl;
     private String cron;
     private boolean indexWorkAfterImport;
+    private int importThreads = 1;
+    private boolean watchHotfolder;
+    private int watchSettleTime = 10;
     private List<String> validationFileGrps;
+    private int validationThreads = 8;
+    private boolean validateChecksums;
+    private int moveThreads = 4;
+    private boolean workGenerations;
+    private int generationRetention = 600;
     private List<String> errorNotificationEmail;
     private List<String> reportNotificationEmail;
     private List<Map<String, Map<String, String>>> actionsBeforeIndexing;
@@ -128,6 +136,70 @@ public class ImporterProperties {
         this.reportNotificationEmail = reportNotificationEmail;
     }
 
+    public int getImportThreads() {
+        return importThreads;
+    }
+
+    public void setImportThreads(int importThreads) {
+        this.importThreads = importThreads;
+    }
+
+    public boolean isWatchHotfolder() {
+        return watchHotfolder;
+    }
+
+    public void setWatchHotfolder(boolean watchHotfolder) {
+        this.watchHotfolder = watchHotfolder;
+    }
+
+    public int getWatchSettleTime() {
+        return watchSettleTime;
+    }
+
+    public void setWatchSettleTime(int watchSettleTime) {
+        this.watchSettleTime = watchSettleTime;
+    }
+
+    public int getValidationThreads() {
+        return validationThreads;
+    }
+
+    public void setValidationThreads(int validationThreads) {
+        this.validationThreads = validationThreads;
+    }
+
+    public boolean isValidateChecksums() {
+        return validateChecksums;
+    }
+
+    public void setValidateChecksums(boolean validateChecksums) {
+        this.validateChecksums = validateChecksums;
+    }
+
+    public int getMoveThreads() {
+        return moveThreads;
+    }
+
+    public void setMoveThreads(int moveThreads) {
+        this.moveThreads = moveThreads;
+    }
+
+    public boolean isWorkGenerations() {
+        return workGenerations;
+    }
+
+    public void setWorkGenerations(boolean workGenerations) {
+        this.workGenerations = workGenerations;
+    }
+
+    public int getGenerationRetention() {
+        return generationRetention;
+    }
+
+    public void setGenerationRetention(int generationRetention) {
+        this.generationRetention = generationRetention;
+    }
+
     public String getCron() {
         return cron;
     }
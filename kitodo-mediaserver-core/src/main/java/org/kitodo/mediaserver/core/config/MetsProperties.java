@@ -26,6 +26,9 @@ public class MetsProperties {
     private String downloadFileGrp;
     private String workLockReduceMetsXsl;
     private String anchorSuffix;
+    private int indexCacheSize;
+    private String indexReader;
+    private boolean indexFiles;
 
     public String getOriginalFileGrp() {
         return originalFileGrp;
@@ -66,4 +69,28 @@ public class MetsProperties {
     public void setAnchorSuffix(String anchorSuffix) {
         this.anchorSuffix = anchorSuffix;
     }
+
+    public int getIndexCacheSize() {
+        return indexCacheSize;
+    }
+
+    public void setIndexCacheSize(int indexCacheSize) {
+        this.indexCacheSize = indexCacheSize;
+    }
+
+    public String getIndexReader() {
+        return indexReader;
+    }
+
+    public void setIndexReader(String indexReader) {
+        this.indexReader = indexReader;
+    }
+
+    public boolean isIndexFiles() {
+        return indexFiles;
+    }
+
+    public void setIndexFiles(boolean indexFiles) {
+        this.indexFiles = indexFiles;
+    }
 }
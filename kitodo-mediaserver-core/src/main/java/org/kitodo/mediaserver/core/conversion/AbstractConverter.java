@@ -13,24 +13,36 @@ package org.kitodo.mediaserver.core.conversion;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.AbstractMap;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.UUID;
+import javax.annotation.PostConstruct;
 import org.apache.commons.lang3.StringUtils;
 import org.kitodo.mediaserver.core.api.IConverter;
 import org.kitodo.mediaserver.core.config.ConversionProperties;
+import org.kitodo.mediaserver.core.util.FileDeleter;
 import org.kitodo.mediaserver.core.util.MediaServerUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
- * Abstract converter offering a synchronized method for creating cache file.
+ * Abstract converter offering methods for creating and cleaning derivative files.
  */
 public abstract class AbstractConverter implements IConverter {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractConverter.class);
 
+    /**
+     * Folder inside the conversion target path where derivatives are written before they are published.
+     */
+    public static final String STAGING_FOLDER = ".staging";
+
     protected boolean saveConvertedFile;
 
     protected String conversionTargetPath;
@@ -50,6 +62,12 @@ public abstract class AbstractConverter implements IConverter {
     @Autowired
     protected MediaServerUtils mediaServerUtils;
 
+    @Autowired
+    protected ConversionRegistry conversionRegistry;
+
+    @Autowired
+    protected FileDeleter fileDeleter;
+
     public void setSaveConvertedFile(boolean saveConvertedFile) {
         this.saveConvertedFile = saveConvertedFile;
     }
@@ -62,6 +80,14 @@ public abstract class AbstractConverter implements IConverter {
         this.mediaServerUtils = mediaServerUtils;
     }
 
+    public void setConversionRegistry(ConversionRegistry conversionRegistry) {
+        this.conversionRegistry = conversionRegistry;
+    }
+
+    public void setFileDeleter(FileDeleter fileDeleter) {
+        this.fileDeleter = fileDeleter;
+    }
+
     /**
      * Checks that all required parameter are present.
      *
@@ -111,23 +137,102 @@ public abstract class AbstractConverter implements IConverter {
     }
 
     /**
-     * Checks if derivative file not exists and creates it.
+     * Checks if a derivative file is already saved.
+     *
+     * @param derivativePath relative path to the file
+     * @return true if the file exists and is not empty
+     */
+    protected boolean isDerivativePresent(String derivativePath) {
+        return saveConvertedFile && ConversionRegistry.isComplete(new File(conversionTargetPath, derivativePath));
+    }
+
+    /**
+     * Gets the derivative file and writes it if it does not exist yet.
+     * Concurrent requests for the same derivative wait for a single conversion.
      *
      * @param derivativePath relative path to the file
-     * @return Map with key=file and value=alreadyExists
-     * @throws IOException if the file could not be created
+     * @param writer         the writer producing the file
+     * @return the complete derivative file
+     * @throws Exception by fatal errors
      */
-    protected synchronized Map.Entry<File, Boolean> createDerivativeFile(String derivativePath) throws IOException {
-        File file;
-        boolean exists = false;
-        if (saveConvertedFile) {
-            file = new File(conversionTargetPath, derivativePath);
-            file.getParentFile().mkdirs();
-            exists = !file.createNewFile();
-        } else {
-            file = File.createTempFile("derivative_", null);
+    protected File getDerivativeFile(String derivativePath, ConversionRegistry.DerivativeWriter writer) throws Exception {
+        if (!saveConvertedFile) {
+            File file = File.createTempFile("derivative_", null);
+            writeDerivative(file, writer);
+            return file;
+        }
+
+        File file = new File(conversionTargetPath, derivativePath);
+        return conversionRegistry.getOrConvert(file, target -> {
+            File stagingFile = createStagingFile(target);
+            writeDerivative(stagingFile, writer);
+            publishDerivative(stagingFile, target);
+        });
+    }
+
+    /**
+     * Creates a unique file in the staging folder. The file name ends with the name of the target file,
+     * so converters can still derive the output format from the file extension.
+     *
+     * @param target the derivative file
+     * @return the (not yet existing) staging file
+     * @throws IOException if the staging folder could not be created
+     */
+    private File createStagingFile(File target) throws IOException {
+        Path stagingPath = Files.createDirectories(Paths.get(conversionTargetPath, STAGING_FOLDER));
+        return stagingPath.resolve(UUID.randomUUID() + "_" + target.getName()).toFile();
+    }
+
+    /**
+     * Moves a complete staging file to its final location, so it becomes visible to other requests at once.
+     *
+     * @param stagingFile the written staging file
+     * @param target the derivative file
+     * @throws IOException if the file could not be moved
+     */
+    private void publishDerivative(File stagingFile, File target) throws IOException {
+        try {
+            Files.createDirectories(target.toPath().getParent());
+            try {
+                Files.move(stagingFile.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                LOGGER.warn("Atomic move not supported for " + target.getAbsolutePath()
+                    + ". The staging folder should be on the same file system as the target folder.");
+                Files.move(stagingFile.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(stagingFile.toPath());
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes leftover staging files of interrupted conversions. Only files older than the configured age are removed,
+     * so conversions currently running in other processes are not affected.
+     */
+    @PostConstruct
+    public void cleanStagingFolder() {
+        if (!saveConvertedFile || conversionTargetPath == null) {
+            return;
+        }
+        Path stagingPath = Paths.get(conversionTargetPath, STAGING_FOLDER);
+        if (!Files.isDirectory(stagingPath)) {
+            return;
+        }
+        try {
+            fileDeleter.delete(stagingPath, conversionProperties.getStagingCleanupAge(), true);
+        } catch (IOException e) {
+            LOGGER.warn("Could not clean staging folder " + stagingPath + ": " + e);
+        }
+    }
+
+    private void writeDerivative(File file, ConversionRegistry.DerivativeWriter writer) throws Exception {
+        try {
+            writer.write(file);
+        } catch (Exception e) {
+            file.delete();
+            throw e;
         }
-        return new AbstractMap.SimpleEntry<>(file, exists);
     }
 
     /**
@@ -135,7 +240,7 @@ public abstract class AbstractConverter implements IConverter {
      *
      * @param file derivative file
      */
-    protected synchronized void cleanDerivativeFile(File file) {
+    protected void cleanDerivativeFile(File file) {
         if (!saveConvertedFile) {
             if (file == null) {
                 throw new IllegalArgumentException("Argument file must not be null.");
@@ -67,6 +67,11 @@ public abstract class AbstractPage implements IPage {
      */
     protected Dimension pageSize = new Dimension();
 
+    /**
+     * The resized image without watermark and canvas extension.
+     */
+    protected BufferedImage scaledImage;
+
     /**
      * Resized image position and size in the new page.
      */
@@ -77,6 +82,9 @@ public abstract class AbstractPage implements IPage {
      */
     protected Rectangle watermarkRect = new Rectangle();
 
+    @Autowired
+    protected ImageDecoder imageDecoder;
+
     @Autowired
     protected ConversionProperties.Watermark watermarkProp;
 
@@ -107,6 +115,22 @@ public abstract class AbstractPage implements IPage {
         this.size = size;
     }
 
+    public BufferedImage getScaledImage() {
+        return scaledImage;
+    }
+
+    /**
+     * Calculates the layout of the page from the header of the full resolution master image.
+     *
+     * @param header the master image header
+     * @return the size the master image is scaled to
+     */
+    public Dimension layout(ImageHeader header) {
+        imageSize = header.getDimension();
+        calcDimensions();
+        return imageRect.getSize();
+    }
+
     /**
      * Resize image and draw watermark onto it.
      *
@@ -114,18 +138,29 @@ public abstract class AbstractPage implements IPage {
      * @throws IOException on image file errors
      */
     public BufferedImage renderImage() throws IOException {
+        // the layout is calculated from the header of the full resolution image, so only the needed pixels are decoded
+        try (ImageDecoder.DecodedImage master = imageDecoder.decode(new File(imagePath), this::layout)) {
+            return renderImage(master.getImage());
+        }
+    }
 
-        BufferedImage image = ImageIO.read(new File(imagePath));
-        imageSize = new Dimension(image.getWidth(), image.getHeight());
-
-        calcDimensions();
+    /**
+     * Resize a decoded image and draw watermark onto it. The layout must be calculated before.
+     *
+     * @param source the master image in any resolution at least as large as the scaled image,
+     *               or the scaled image of a larger page of the same master
+     * @return the processed image
+     * @throws IOException on watermark file errors
+     */
+    public BufferedImage renderImage(BufferedImage source) throws IOException {
 
         // Resize image and convert to RGB (JPG can not save RGBA)
         // Use bilinear resize: quality OK and very fast
         MultiStepRescaleOp rescaleOp = new MultiStepRescaleOp(imageRect.width, imageRect.height,
             RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-        BufferedImage resizedImage = rescaleOp.filter(image,
+        scaledImage = rescaleOp.filter(source,
             new BufferedImage(imageRect.width, imageRect.height, BufferedImage.TYPE_INT_RGB));
+
         BufferedImage pageImage = new BufferedImage(pageSize.width, pageSize.height, BufferedImage.TYPE_INT_RGB);
         graphics = pageImage.createGraphics();
 
@@ -136,19 +171,11 @@ public abstract class AbstractPage implements IPage {
                 .mapToInt(Integer::parseInt).toArray();
             graphics.setColor(new Color(color[0], color[1], color[2]));
             graphics.fill(new Rectangle(pageSize.width, pageSize.height));
-
-            // Move image according to extend direction
-            if (StringUtils.containsIgnoreCase(watermarkProp.getGravity(), "west")) {
-                imageRect.x = canvasExtensionProp.getAddX();
-            }
-            if (StringUtils.containsIgnoreCase(watermarkProp.getGravity(), "north")) {
-                imageRect.y = canvasExtensionProp.getAddY();
-            }
         }
 
         // Draw the resized image on canvas
 
-        graphics.drawImage(resizedImage, imageRect.x, imageRect.y, null);
+        graphics.drawImage(scaledImage, imageRect.x, imageRect.y, null);
 
         // Draw Watermark
         if (isWatermarkEnabled()) {
@@ -156,10 +183,47 @@ public abstract class AbstractPage implements IPage {
         }
 
         graphics.dispose();
+        graphics = null;
 
         return pageImage;
     }
 
+    /**
+     * Describes all inputs of the rendered image: the master file, the size and the watermark settings.
+     * Two pages with the same description render the same image.
+     *
+     * @return the description
+     */
+    public String describeRendering() {
+        File masterFile = new File(imagePath);
+        StringBuilder description = new StringBuilder()
+            .append(masterFile.getAbsolutePath()).append('|')
+            .append(masterFile.lastModified()).append('|')
+            .append(masterFile.length()).append('|')
+            .append(size);
+        if (isWatermarkEnabled()) {
+            description.append("|watermark|").append(watermarkProp.getRenderMode())
+                .append('|').append(watermarkProp.getGravity())
+                .append('|').append(watermarkProp.getOffsetX()).append(',').append(watermarkProp.getOffsetY());
+            if ("text".equalsIgnoreCase(watermarkProp.getRenderMode())) {
+                description.append('|').append(textModeProp.getContent())
+                    .append('|').append(textModeProp.getFont())
+                    .append('|').append(textModeProp.getSize())
+                    .append('|').append(textModeProp.getColorRGB());
+            } else if ("image".equalsIgnoreCase(watermarkProp.getRenderMode())) {
+                description.append('|').append(imageModeProp.getPath())
+                    .append('|').append(new File(imageModeProp.getPath()).lastModified())
+                    .append('|').append(imageModeProp.getOpacity());
+            }
+            if (canvasExtensionProp.isEnabled()) {
+                description.append("|canvas|").append(canvasExtensionProp.getAddX())
+                    .append(',').append(canvasExtensionProp.getAddY())
+                    .append('|').append(canvasExtensionProp.getBackgroundColorRGB());
+            }
+        }
+        return description.toString();
+    }
+
     /**
      * Calculate image and page dimensions.
      */
@@ -192,6 +256,15 @@ public abstract class AbstractPage implements IPage {
             imageRect.width = (int)((float)width * imageScaling);
             pageSize.width = imageRect.width + widthOffset;
         }
+        if (isWatermarkEnabled() && canvasExtensionProp.isEnabled()) {
+            // Move image according to extend direction
+            if (StringUtils.containsIgnoreCase(watermarkProp.getGravity(), "west")) {
+                imageRect.x = canvasExtensionProp.getAddX();
+            }
+            if (StringUtils.containsIgnoreCase(watermarkProp.getGravity(), "north")) {
+                imageRect.y = canvasExtensionProp.getAddY();
+            }
+        }
     }
 
     /**
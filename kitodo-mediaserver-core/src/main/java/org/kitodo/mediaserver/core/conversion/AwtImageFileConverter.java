@@ -14,8 +14,10 @@ package org.kitodo.mediaserver.core.conversion;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -40,36 +42,91 @@ public class AwtImageFileConverter extends AbstractConverter {
     @Autowired
     private ObjectFactory<AwtImagePage> pageFactory;
 
+    @Autowired
+    private ImageDecoder imageDecoder;
+
     @Override
     public InputStream convert(TreeMap<Integer, Map<String, FileEntry>> pages, Map<String, Object> parameter) throws Exception {
         checkParams(pages, parameter, "derivativePath", "target_mime");
 
         int size = getConversionSize(parameter);
 
-        // if the cache file already exists, there is another thread already performing the conversion.
-        Map.Entry<File, Boolean> convertedFile = createDerivativeFile((String)parameter.get("derivativePath"));
-
-        if (!convertedFile.getValue()) {
-            try {
-                IDocument document = new AwtImageDocument();
-                IPage page = pageFactory.getObject();
-                page.setImagePath(pages.firstEntry().getValue().get("master").getFile().getAbsolutePath());
-                page.setSize(size);
-                document.getPages().add(page);
-                document.save(convertedFile.getKey().getAbsolutePath());
-            } catch (Exception e) {
-                convertedFile.getKey().delete();
-                throw e;
-            }
-        }
+        File convertedFile = getDerivativeFile((String)parameter.get("derivativePath"), target -> {
+            IDocument document = new AwtImageDocument();
+            IPage page = pageFactory.getObject();
+            page.setImagePath(pages.firstEntry().getValue().get("master").getFile().getAbsolutePath());
+            page.setSize(size);
+            document.getPages().add(page);
+            document.save(target.getAbsolutePath());
+        });
 
-        InputStream convertedInputStream = new FileInputStream(convertedFile.getKey());
+        InputStream convertedInputStream = new FileInputStream(convertedFile);
 
-        cleanDerivativeFile(convertedFile.getKey());
+        cleanDerivativeFile(convertedFile);
 
         return convertedInputStream;
     }
 
+    /**
+     * Converts a master image to several sizes. The master is decoded once, every size is scaled from the next larger one.
+     *
+     * @param pages a map (key=sorting order of files) of maps (key={master,fulltext,...}) with work files
+     * @param parameterList a map of parameter for every derivative
+     * @throws Exception by fatal errors
+     */
+    @Override
+    public void convertAll(TreeMap<Integer, Map<String, FileEntry>> pages, List<Map<String, Object>> parameterList) throws Exception {
+        List<Map<String, Object>> missing = new ArrayList<>();
+        for (Map<String, Object> parameter : parameterList) {
+            checkParams(pages, parameter, "derivativePath", "target_mime");
+            if (!isDerivativePresent((String)parameter.get("derivativePath"))) {
+                missing.add(parameter);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        missing.sort(Comparator.comparingInt((Map<String, Object> parameter) -> getConversionSize(parameter)).reversed());
+
+        File masterFile = pages.firstEntry().getValue().get("master").getFile();
+        List<AwtImagePage> imagePages = new ArrayList<>();
+        for (Map<String, Object> parameter : missing) {
+            AwtImagePage page = pageFactory.getObject();
+            page.setImagePath(masterFile.getAbsolutePath());
+            page.setSize(getConversionSize(parameter));
+            imagePages.add(page);
+        }
+
+        LOGGER.info("Converting " + masterFile + " to " + imagePages.size() + " sizes");
+        try (ImageDecoder.DecodedImage master = imageDecoder.decode(masterFile, header -> {
+            imagePages.forEach(page -> page.layout(header));
+            return imagePages.get(0).imageRect.getSize();
+        })) {
+            BufferedImage source = master.getImage();
+            for (int i = 0; i < imagePages.size(); i++) {
+                AwtImagePage page = imagePages.get(i);
+                page.page = page.renderImage(source);
+                source = page.getScaledImage();
+                File convertedFile = getDerivativeFile((String)missing.get(i).get("derivativePath"),
+                    target -> writeJpeg(page.getPage(), target));
+                cleanDerivativeFile(convertedFile);
+            }
+        }
+    }
+
+    /**
+     * Writes an image as JPEG file.
+     *
+     * @param image the image
+     * @param file the file to write
+     * @throws IOException if the image can't be written, also if there is no JPEG writer for the type of the image
+     */
+    static void writeJpeg(BufferedImage image, File file) throws IOException {
+        if (!ImageIO.write(image, "jpg", file)) {
+            throw new IOException("No JPEG writer for image type " + image.getType() + " found, could not write " + file);
+        }
+    }
+
     /**
      * A document representation using an image.
      */
@@ -90,7 +147,7 @@ public class AwtImageFileConverter extends AbstractConverter {
         @Override
         public void save(String path) throws Exception {
             pages.get(0).renderPage(this);
-            ImageIO.write((BufferedImage) pages.get(0).getPage(), "jpg", new File(path));
+            writeJpeg((BufferedImage) pages.get(0).getPage(), new File(path));
         }
     }
 
@@ -0,0 +1,134 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.conversion;
+
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registry of derivative conversions currently in progress.
+ *
+ * <p>The first request for a derivative file performs the conversion, all concurrent requests for the same file
+ * wait for that conversion and get its result. Requests for different files do not block each other.
+ */
+@Component
+public class ConversionRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConversionRegistry.class);
+
+    private final ConcurrentMap<String, CompletableFuture<File>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Writes a derivative file to its target.
+     */
+    @FunctionalInterface
+    public interface DerivativeWriter {
+
+        /**
+         * Writes the derivative.
+         *
+         * @param target the file to write to
+         * @throws Exception by fatal errors
+         */
+        void write(File target) throws Exception;
+    }
+
+    /**
+     * Checks if a derivative file is complete. Empty files, e.g. created but not written by an interrupted
+     * conversion, are not.
+     *
+     * @param file the derivative file
+     * @return true if the file exists and is not empty
+     */
+    public static boolean isComplete(File file) {
+        return file.isFile() && file.length() > 0;
+    }
+
+    /**
+     * Gets a derivative file. If the file does not exist yet or is empty, it is written by the given writer.
+     * If another thread is already writing the same file, this method waits for it to finish.
+     *
+     * @param target the derivative file
+     * @param writer the writer producing the file
+     * @return the complete derivative file
+     * @throws Exception if the conversion failed, also for all waiting requests
+     */
+    public File getOrConvert(File target, DerivativeWriter writer) throws Exception {
+        String key = target.getAbsolutePath();
+        CompletableFuture<File> future = new CompletableFuture<>();
+        CompletableFuture<File> running = inFlight.putIfAbsent(key, future);
+
+        if (running != null) {
+            LOGGER.debug("Waiting for running conversion of " + key);
+            return await(running);
+        }
+
+        try {
+            if (!isComplete(target)) {
+                writer.write(target);
+            }
+            future.complete(target);
+            return target;
+        } catch (Exception | Error e) {
+            // also errors like OutOfMemoryError, the waiting requests would never finish otherwise
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Waits for a running conversion of a derivative file, without starting one.
+     *
+     * @param target the derivative file
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return the complete derivative file, or null if no conversion of the file is running
+     * @throws TimeoutException if the conversion didn't finish in time
+     * @throws Exception if the conversion failed
+     */
+    public File awaitRunning(File target, long timeout, TimeUnit unit) throws Exception {
+        CompletableFuture<File> running = inFlight.get(target.getAbsolutePath());
+        if (running == null) {
+            return null;
+        }
+        LOGGER.debug("Waiting for running conversion of " + target.getAbsolutePath());
+        try {
+            return running.get(timeout, unit);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception)e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private File await(CompletableFuture<File> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception)e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.conversion;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.PostConstruct;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import org.kitodo.mediaserver.core.config.ConversionProperties;
+import org.kitodo.mediaserver.core.exceptions.HttpServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decodes master images within a global memory budget.
+ *
+ * <p>
+ * Before decoding, the size of the decoded pixels is estimated from the image header. This amount is reserved from
+ * the budget until the decoded image is closed. If the reservation is not possible in time, or the image would not
+ * fit into the budget at all, the image is decoded with a reduced resolution instead. If even that is not possible
+ * in time, the decode fails with a {@link HttpServiceUnavailableException}.
+ *
+ * <p>
+ * If the image is scaled down afterwards, fewer pixels are decoded, but still a few times the target size, so the
+ * scaler can average them.
+ */
+@Component
+@ManagedResource(objectName = "org.kitodo.mediaserver:type=ImageDecoder")
+public class ImageDecoder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ImageDecoder.class);
+
+    /**
+     * The budget is managed in units of this size in bytes.
+     */
+    private static final long UNIT = 1024;
+
+    /**
+     * A reduced resolution decode takes at least this part of the budget, even if less is available.
+     */
+    private static final int MIN_REDUCED_SHARE = 16;
+
+    /**
+     * Image formats that may contain reduced resolution versions of the image as further images.
+     */
+    private static final Set<String> MULTI_RESOLUTION_FORMATS = new HashSet<>(Arrays.asList("tif", "tiff"));
+
+    private static final int MAX_SUBFILES = 16;
+
+    private static final double ASPECT_RATIO_TOLERANCE = 0.02;
+
+    /**
+     * Source subsampling only reduces the image to about this multiple of the target size. Subsampling drops pixels,
+     * so the rest is left to the area-averaging scaler to avoid aliasing.
+     */
+    private static final int SUBSAMPLING_MARGIN = 3;
+
+    /**
+     * Decoded thumbnails are RGB images.
+     */
+    private static final int THUMBNAIL_BITS_PER_PIXEL = 32;
+
+    private ConversionProperties conversionProperties;
+
+    private Semaphore budget;
+
+    private int capacity;
+
+    private final AtomicLong decodes = new AtomicLong();
+    private final AtomicLong reducedDecodes = new AtomicLong();
+    private final AtomicLong reducedSourceDecodes = new AtomicLong();
+
+    @Autowired
+    public void setConversionProperties(ConversionProperties conversionProperties) {
+        this.conversionProperties = conversionProperties;
+    }
+
+    /**
+     * Initializes the budget. A budget of 0 uses half of the maximum heap size.
+     */
+    @PostConstruct
+    public void init() {
+        long bytes = conversionProperties.getDecodeMemoryBudget() * 1024L * 1024L;
+        if (bytes <= 0) {
+            bytes = Runtime.getRuntime().maxMemory() / 2;
+        }
+        capacity = (int) Math.min(Integer.MAX_VALUE, bytes / UNIT);
+        budget = new Semaphore(capacity, true);
+        LOGGER.info("Image decoding memory budget is " + bytes / 1024 / 1024 + " MB");
+    }
+
+    /**
+     * Decodes the first image of a file in full resolution. The returned image must be closed to release its memory
+     * reservation.
+     *
+     * @param file the image file
+     * @return the decoded image
+     * @throws IOException on read errors or if interrupted while waiting for memory
+     * @throws HttpServiceUnavailableException if there is not enough memory in time
+     */
+    public DecodedImage decode(File file) throws IOException {
+        return decode(file, null);
+    }
+
+    /**
+     * Decodes the first image of a file with the lowest resolution that is at least the target size. Reduced
+     * resolution subfiles (TIFF) and embedded thumbnails are used if they are large enough, otherwise the image is
+     * decoded with source subsampling. The returned image must be closed to release its memory reservation.
+     *
+     * @param file the image file
+     * @param targetSize calculates the size the image will be scaled to from the full resolution image header,
+     *                   null to decode the full resolution
+     * @return the decoded image
+     * @throws IOException on read errors or if interrupted while waiting for memory
+     * @throws HttpServiceUnavailableException if there is not enough memory in time
+     */
+    public DecodedImage decode(File file, Function<ImageHeader, Dimension> targetSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if (input == null) {
+                throw new IOException("Could not open image file '" + file + "'");
+            }
+            ImageReader reader = ImageHeader.getReader(input, file);
+            try {
+                reader.setInput(input, false, true);
+                ImageHeader header = ImageHeader.read(reader);
+                Source source = selectSource(reader, header, targetSize != null ? targetSize.apply(header) : null);
+                Reservation reservation = reserve(source, file);
+                try {
+                    BufferedImage image;
+                    if (source.thumbnail >= 0) {
+                        image = reader.readThumbnail(0, source.thumbnail);
+                    } else {
+                        ImageReadParam param = reader.getDefaultReadParam();
+                        if (reservation.subsampling > 1) {
+                            param.setSourceSubsampling(reservation.subsampling, reservation.subsampling, 0, 0);
+                        }
+                        image = reader.read(source.index, param);
+                    }
+                    decodes.incrementAndGet();
+                    return new DecodedImage(header, image, reservation.permits);
+                } catch (IOException | RuntimeException e) {
+                    budget.release(reservation.permits);
+                    throw e;
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Selects the smallest image, subfile or thumbnail of a file that is at least as large as the target.
+     */
+    private Source selectSource(ImageReader reader, ImageHeader header, Dimension target) throws IOException {
+        Source source = new Source(header, 0, -1, 1);
+        if (target == null || target.width <= 0 || target.height <= 0) {
+            return source;
+        }
+
+        // reduced resolution subfiles, the number of images is only read for formats where it is cheap to do so
+        if (MULTI_RESOLUTION_FORMATS.contains(reader.getFormatName().toLowerCase())) {
+            int images = Math.min(reader.getNumImages(true), MAX_SUBFILES);
+            for (int index = 1; index < images; index++) {
+                int width = reader.getWidth(index);
+                int height = reader.getHeight(index);
+                if (isReducedResolution(header, width, height, target) && width < source.header.getWidth()) {
+                    source = new Source(new ImageHeader(width, height, header.getBitsPerPixel()), index, -1, 1);
+                }
+            }
+        }
+
+        // embedded thumbnails
+        if (reader.readerSupportsThumbnails() && reader.hasThumbnails(0)) {
+            for (int thumbnail = 0; thumbnail < reader.getNumThumbnails(0); thumbnail++) {
+                int width = reader.getThumbnailWidth(0, thumbnail);
+                int height = reader.getThumbnailHeight(0, thumbnail);
+                if (isReducedResolution(header, width, height, target) && width < source.header.getWidth()) {
+                    source = new Source(new ImageHeader(width, height, THUMBNAIL_BITS_PER_PIXEL), 0, thumbnail, 1);
+                }
+            }
+        }
+
+        // subsampling, so that the decoded image is still a few times as large as the target
+        int subsampling = Math.max(1,
+            Math.min(source.header.getWidth() / target.width, source.header.getHeight() / target.height) / SUBSAMPLING_MARGIN);
+        if (source.thumbnail < 0 && subsampling > 1) {
+            source = new Source(source.header, source.index, -1, subsampling);
+        }
+        if (source.index > 0 || source.thumbnail >= 0 || source.subsampling > 1) {
+            reducedSourceDecodes.incrementAndGet();
+        }
+        return source;
+    }
+
+    /**
+     * Checks if an image is a reduced resolution version of the full image, which is at least as large as the target.
+     */
+    private boolean isReducedResolution(ImageHeader header, int width, int height, Dimension target) {
+        if (width < target.width || height < target.height) {
+            return false;
+        }
+        // the aspect ratio must be the same, otherwise it is another image like a color chart
+        double ratio = (double) header.getWidth() / header.getHeight();
+        return Math.abs((double) width / height - ratio) <= ratio * ASPECT_RATIO_TOLERANCE;
+    }
+
+    /**
+     * Reserves memory for decoding an image. Waits for the full size for the configured time, then falls back to
+     * the subsampling that fits into the currently available budget and waits for that for the configured time
+     * again. Thumbnails are small and can't be subsampled, so their reservation is always waited for.
+     */
+    private Reservation reserve(Source source, File file) throws IOException {
+        ImageHeader header = source.header;
+        int subsampling = source.subsampling;
+        int permits = toPermits(header.getDecodedSize(subsampling));
+        try {
+            if (source.thumbnail >= 0) {
+                budget.acquire(Math.min(permits, capacity));
+                return new Reservation(1, Math.min(permits, capacity));
+            }
+            while (permits > capacity) {
+                permits = toPermits(header.getDecodedSize(++subsampling));
+            }
+            if (subsampling == source.subsampling
+                    && budget.tryAcquire(permits, conversionProperties.getDecodeMemoryWait(), TimeUnit.SECONDS)) {
+                return new Reservation(subsampling, permits);
+            }
+            int available = Math.max(budget.availablePermits(), capacity / MIN_REDUCED_SHARE);
+            while (permits > available) {
+                permits = toPermits(header.getDecodedSize(++subsampling));
+            }
+            LOGGER.warn("Not enough memory to decode " + file + " (" + header.getWidth() + "x" + header.getHeight()
+                + "), decoding with subsampling " + subsampling);
+            if (!budget.tryAcquire(permits, conversionProperties.getDecodeMemoryWait(), TimeUnit.SECONDS)) {
+                throw new HttpServiceUnavailableException("Not enough memory to decode " + file + ", please retry later.");
+            }
+            reducedDecodes.incrementAndGet();
+            return new Reservation(subsampling, permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for memory to decode " + file);
+        }
+    }
+
+    private int toPermits(long bytes) {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (bytes + UNIT - 1) / UNIT));
+    }
+
+    @ManagedAttribute(description = "Memory budget for decoding images in bytes")
+    public long getCapacity() {
+        return capacity * UNIT;
+    }
+
+    @ManagedAttribute(description = "Memory currently reserved by decoded images in bytes")
+    public long getReserved() {
+        return (capacity - budget.availablePermits()) * UNIT;
+    }
+
+    @ManagedAttribute(description = "Number of decoded images")
+    public long getDecodes() {
+        return decodes.get();
+    }
+
+    @ManagedAttribute(description = "Number of images decoded with reduced resolution because of the memory budget")
+    public long getReducedDecodes() {
+        return reducedDecodes.get();
+    }
+
+    @ManagedAttribute(description = "Number of images decoded from a subfile, thumbnail or with subsampling for a smaller target")
+    public long getReducedSourceDecodes() {
+        return reducedSourceDecodes.get();
+    }
+
+    private static class Source {
+
+        private final ImageHeader header;
+        private final int index;
+        private final int thumbnail;
+        private final int subsampling;
+
+        Source(ImageHeader header, int index, int thumbnail, int subsampling) {
+            this.header = header;
+            this.index = index;
+            this.thumbnail = thumbnail;
+            this.subsampling = subsampling;
+        }
+    }
+
+    private static class Reservation {
+
+        private final int subsampling;
+        private final int permits;
+
+        Reservation(int subsampling, int permits) {
+            this.subsampling = subsampling;
+            this.permits = permits;
+        }
+    }
+
+    /**
+     * A decoded image holding a reservation of the memory budget until it is closed.
+     */
+    public class DecodedImage implements AutoCloseable {
+
+        private final ImageHeader header;
+        private final BufferedImage image;
+        private final int permits;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        DecodedImage(ImageHeader header, BufferedImage image, int permits) {
+            this.header = header;
+            this.image = image;
+            this.permits = permits;
+        }
+
+        /**
+         * Gets the header of the image, the dimensions are those of the full resolution image.
+         *
+         * @return the image header
+         */
+        public ImageHeader getHeader() {
+            return header;
+        }
+
+        /**
+         * Gets the decoded pixels, which may have a lower resolution than the image file.
+         *
+         * @return the image
+         */
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                budget.release(permits);
+            }
+        }
+    }
+}
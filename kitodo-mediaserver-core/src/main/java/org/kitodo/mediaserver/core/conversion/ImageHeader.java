@@ -0,0 +1,135 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.conversion;
+
+import java.awt.Dimension;
+import java.awt.image.SampleModel;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Dimensions and pixel layout of an image, read from the image header without decoding any pixels.
+ */
+public class ImageHeader {
+
+    private final int width;
+    private final int height;
+    private final int bitsPerPixel;
+
+    /**
+     * Creates an image header.
+     *
+     * @param width the width in pixels
+     * @param height the height in pixels
+     * @param bitsPerPixel the bits of all samples of a pixel
+     */
+    public ImageHeader(int width, int height, int bitsPerPixel) {
+        this.width = width;
+        this.height = height;
+        this.bitsPerPixel = bitsPerPixel;
+    }
+
+    /**
+     * Reads the header of the first image in a file.
+     *
+     * @param file the image file
+     * @return the image header
+     * @throws IOException if the file can't be read or has no supported image format
+     */
+    public static ImageHeader read(File file) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file)) {
+            if (input == null) {
+                throw new IOException("Could not open image file '" + file + "'");
+            }
+            ImageReader reader = getReader(input, file);
+            try {
+                reader.setInput(input, true, true);
+                return read(reader);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Reads the header of the first image of a reader. The input of the reader must be set.
+     *
+     * @param reader the image reader
+     * @return the image header
+     * @throws IOException on read errors
+     */
+    public static ImageHeader read(ImageReader reader) throws IOException {
+        ImageTypeSpecifier type = reader.getRawImageType(0);
+        if (type == null) {
+            Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+            type = types.hasNext() ? types.next() : null;
+        }
+        int bitsPerPixel = 32;
+        if (type != null) {
+            SampleModel sampleModel = type.getSampleModel();
+            bitsPerPixel = 0;
+            for (int sampleSize : sampleModel.getSampleSize()) {
+                bitsPerPixel += sampleSize;
+            }
+        }
+        return new ImageHeader(reader.getWidth(0), reader.getHeight(0), bitsPerPixel);
+    }
+
+    /**
+     * Gets a reader for an image stream.
+     *
+     * @param input the image stream
+     * @param file the image file, for error messages
+     * @return the first reader supporting the stream
+     * @throws IOException if there is no reader for the image format
+     */
+    static ImageReader getReader(ImageInputStream input, File file) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            throw new IOException("No image reader found for file '" + file + "'");
+        }
+        return readers.next();
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getBitsPerPixel() {
+        return bitsPerPixel;
+    }
+
+    public Dimension getDimension() {
+        return new Dimension(width, height);
+    }
+
+    /**
+     * Estimates the memory needed for the decoded pixels of the image.
+     *
+     * @param subsampling the source subsampling factor, 1 for the full image
+     * @return the size in bytes
+     */
+    public long getDecodedSize(int subsampling) {
+        long columns = (width + subsampling - 1) / subsampling;
+        long rows = (height + subsampling - 1) / subsampling;
+        return (columns * bitsPerPixel + 7) / 8 * rows;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.conversion;
+
+import org.kitodo.mediaserver.core.processors.ocr.OcrPage;
+
+/**
+ * A rendered PDF page, ready to be added to a document: the JPEG encoded page image and the OCR text.
+ */
+public class PageFragment {
+
+    private final int width;
+    private final int height;
+    private final byte[] jpegData;
+    private final OcrPage ocrPage;
+
+    /**
+     * Creates a page fragment.
+     *
+     * @param width the width of the page image
+     * @param height the height of the page image
+     * @param jpegData the JPEG encoded page image
+     * @param ocrPage the OCR text, may be null
+     */
+    public PageFragment(int width, int height, byte[] jpegData, OcrPage ocrPage) {
+        this.width = width;
+        this.height = height;
+        this.jpegData = jpegData;
+        this.ocrPage = ocrPage;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public byte[] getJpegData() {
+        return jpegData;
+    }
+
+    public OcrPage getOcrPage() {
+        return ocrPage;
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.conversion;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import org.apache.commons.lang3.StringUtils;
+import org.kitodo.mediaserver.core.config.ConversionProperties;
+import org.kitodo.mediaserver.core.processors.ocr.OcrPage;
+import org.kitodo.mediaserver.core.util.FileDeleter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+/**
+ * A file cache of rendered PDF pages.
+ *
+ * <p>
+ * A fragment consists of the encoded page image and the OCR text of the page, stored as {@code .jpg} and {@code .xml}
+ * file. Pages without OCR text get an empty {@code .xml} file, so a fragment missing its OCR file is rendered again
+ * instead of losing the text. Fragments are identified by a key
+ * describing all inputs of a page (master file, size, watermark settings and fulltext file), so a changed input
+ * results in a new fragment. Full PDF files and PDF files of some pages of a work are assembled from the same
+ * fragments, only missing fragments are rendered.
+ *
+ * <p>
+ * Fragments of changed pages are never read again. Like other cached files, fragments which were neither written nor
+ * read for some time are deleted by the cache clearing, reading a fragment sets the last access time of both files.
+ */
+@Component
+@ManagedResource(objectName = "org.kitodo.mediaserver:type=PageFragmentCache")
+public class PageFragmentCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PageFragmentCache.class);
+
+    private ConversionProperties.Pdf conversionPropertiesPdf;
+
+    private FileDeleter fileDeleter = new FileDeleter();
+
+    private JAXBContext jaxbContext;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public void setConversionPropertiesPdf(ConversionProperties.Pdf conversionPropertiesPdf) {
+        this.conversionPropertiesPdf = conversionPropertiesPdf;
+    }
+
+    @Autowired
+    public void setFileDeleter(FileDeleter fileDeleter) {
+        this.fileDeleter = fileDeleter;
+    }
+
+    /**
+     * Checks if the cache is configured.
+     *
+     * @return true if fragments are cached
+     */
+    public boolean isEnabled() {
+        return StringUtils.isNotBlank(conversionPropertiesPdf.getFragmentCachePath());
+    }
+
+    /**
+     * Creates the key of a fragment.
+     *
+     * @param description a description of all inputs of the page
+     * @return the key
+     */
+    public String getKey(String description) {
+        return DigestUtils.md5DigestAsHex(description.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Gets a fragment from the cache.
+     *
+     * @param key the key of the fragment
+     * @return the fragment or null if it is not cached or can't be read
+     */
+    public PageFragment get(String key) {
+        Path imagePath = getPath(key, ".jpg");
+        Path ocrPath = getPath(key, ".xml");
+        if (!Files.isRegularFile(imagePath) || !Files.isRegularFile(ocrPath)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        touch(imagePath);
+        touch(ocrPath);
+        try {
+            ImageHeader header = ImageHeader.read(imagePath.toFile());
+            byte[] jpegData = Files.readAllBytes(imagePath);
+            OcrPage ocrPage = null;
+            if (Files.size(ocrPath) > 0) {
+                ocrPage = (OcrPage) getJaxbContext().createUnmarshaller().unmarshal(ocrPath.toFile());
+            }
+            hits.incrementAndGet();
+            return new PageFragment(header.getWidth(), header.getHeight(), jpegData, ocrPage);
+        } catch (IOException | JAXBException e) {
+            LOGGER.warn("Could not read page fragment " + imagePath + ", rendering the page again", e);
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Adds a fragment to the cache. Errors are only logged, as the fragment was rendered anyway.
+     *
+     * @param key the key of the fragment
+     * @param fragment the fragment
+     */
+    public void put(String key, PageFragment fragment) {
+        try {
+            // the image is written last, so a fragment is complete as soon as its image exists
+            File ocrFile = createTempFile(key);
+            if (fragment.getOcrPage() != null) {
+                getJaxbContext().createMarshaller().marshal(fragment.getOcrPage(), ocrFile);
+            } else {
+                Files.createFile(ocrFile.toPath());
+            }
+            publish(ocrFile.toPath(), getPath(key, ".xml"));
+            File imageFile = createTempFile(key);
+            Files.write(imageFile.toPath(), fragment.getJpegData());
+            publish(imageFile.toPath(), getPath(key, ".jpg"));
+        } catch (IOException | JAXBException e) {
+            LOGGER.warn("Could not write page fragment " + key, e);
+        }
+    }
+
+    /**
+     * Gets the folder of the cache.
+     *
+     * @return the folder, null if the cache is disabled
+     */
+    public Path getFolder() {
+        return isEnabled() ? Paths.get(conversionPropertiesPdf.getFragmentCachePath()) : null;
+    }
+
+    /**
+     * Deletes the fragments which were neither written nor read for some time.
+     *
+     * @param age the time in seconds, null to delete all fragments
+     * @throws IOException on errors deleting files
+     */
+    public void deleteOld(Long age) throws IOException {
+        Path path = getFolder();
+        if (path != null && Files.isDirectory(path)) {
+            LOGGER.info("Deleting page fragments not used for " + age + " seconds from " + path);
+            fileDeleter.delete(path, age, true);
+        }
+    }
+
+    @ManagedAttribute(description = "Number of pages taken from the cache")
+    public long getHits() {
+        return hits.get();
+    }
+
+    @ManagedAttribute(description = "Number of pages not found in the cache")
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the path of a fragment file. Fragments are distributed to subfolders by the first characters of the key.
+     */
+    private Path getPath(String key, String suffix) {
+        return Paths.get(conversionPropertiesPdf.getFragmentCachePath(), key.substring(0, 2), key + suffix);
+    }
+
+    /**
+     * Sets the last access time of a fragment file, as file systems often don't update it on reads.
+     */
+    private void touch(Path path) {
+        try {
+            Files.getFileAttributeView(path, BasicFileAttributeView.class)
+                .setTimes(null, FileTime.fromMillis(System.currentTimeMillis()), null);
+        } catch (IOException e) {
+            LOGGER.debug("Could not set the access time of page fragment " + path + ": " + e);
+        }
+    }
+
+    private File createTempFile(String key) throws IOException {
+        Path folder = Files.createDirectories(getPath(key, "").getParent());
+        return folder.resolve("." + UUID.randomUUID() + ".tmp").toFile();
+    }
+
+    private void publish(Path tempFile, Path target) throws IOException {
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private synchronized JAXBContext getJaxbContext() throws JAXBException {
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(OcrPage.class);
+        }
+        return jaxbContext;
+    }
+}
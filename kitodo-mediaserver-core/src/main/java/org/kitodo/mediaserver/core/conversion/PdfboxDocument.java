@@ -17,6 +17,8 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDDocumentInformation;
@@ -36,6 +38,7 @@ import org.apache.xmpbox.schema.XMPBasicSchema;
 import org.kitodo.mediaserver.core.api.IPage;
 import org.kitodo.mediaserver.core.processors.Toc;
 import org.kitodo.mediaserver.core.processors.TocItem;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 /**
 * A PDF document.
@@ -45,6 +48,8 @@ public class PdfboxDocument extends AbstractDocument {
     private PDDocument document;
     private List<IPage> pages = new ArrayList<>();
     private Toc toc;
+    private AsyncTaskExecutor pageExecutor;
+    private int renderWindow = 1;
 
     public PDDocument getDocument() {
         return document;
@@ -63,6 +68,17 @@ public class PdfboxDocument extends AbstractDocument {
         this.toc = toc;
     }
 
+    /**
+     * Sets an executor to prepare pages in parallel.
+     *
+     * @param pageExecutor the executor
+     * @param renderWindow the maximum number of pages prepared in advance
+     */
+    public void setPageExecutor(AsyncTaskExecutor pageExecutor, int renderWindow) {
+        this.pageExecutor = pageExecutor;
+        this.renderWindow = Math.max(1, renderWindow);
+    }
+
     public PdfboxDocument(MemoryUsageSetting memoryUsageSetting) {
         document = new PDDocument(memoryUsageSetting);
     }
@@ -135,9 +151,8 @@ public class PdfboxDocument extends AbstractDocument {
         // Render all pages
         for (IPage page : pages) {
             ((PdfboxPage)page).setFont(font);
-            page.renderPage(this);
-            document.addPage((PDPage) page.getPage());
         }
+        renderPages();
 
         // Add table of content (PDF bookmarks)
         if (toc != null && toc.getTocItems() != null) {
@@ -149,6 +164,45 @@ public class PdfboxDocument extends AbstractDocument {
         document.close();
     }
 
+    /**
+     * Renders all pages and adds them to the document. If a page executor is set, the images and OCR texts of the
+     * next pages are prepared in parallel, while the pages are added to the document in order by this thread.
+     * The number of prepared pages not yet added to the document is limited by the render window.
+     */
+    private void renderPages() throws Exception {
+        List<Future<?>> preparations = new ArrayList<>();
+        try {
+            for (int i = 0; i < pages.size(); i++) {
+                if (pageExecutor != null) {
+                    while (preparations.size() < pages.size() && preparations.size() < i + renderWindow) {
+                        PdfboxPage next = (PdfboxPage) pages.get(preparations.size());
+                        preparations.add(pageExecutor.submit(() -> {
+                            next.prepare();
+                            return null;
+                        }));
+                    }
+                    awaitPreparation(preparations.get(i));
+                }
+                IPage page = pages.get(i);
+                page.renderPage(this);
+                document.addPage((PDPage) page.getPage());
+            }
+        } finally {
+            preparations.forEach(preparation -> preparation.cancel(true));
+        }
+    }
+
+    private void awaitPreparation(Future<?> preparation) throws Exception {
+        try {
+            preparation.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
     /**
      * Add table of content (PDF bookmarks).
      */
@@ -27,6 +27,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 /**
  * A converter to produce PDF files using Apache PDFBox package.
@@ -38,6 +40,10 @@ public class PdfboxFileConverter extends AbstractConverter {
     @Autowired
     private ObjectFactory<PdfboxPage> pageFactory;
 
+    @Autowired
+    @Qualifier("pageRenderExecutor")
+    private AsyncTaskExecutor pageRenderExecutor;
+
     @Override
     public InputStream convert(TreeMap<Integer, Map<String, FileEntry>> pages, Map<String, Object> parameter) throws Exception {
 
@@ -45,70 +51,77 @@ public class PdfboxFileConverter extends AbstractConverter {
 
         int size = getConversionSize(parameter);
 
-        // if the cache file already exists, there is another thread already performing the conversion.
-        Map.Entry<File, Boolean> convertedFile = createDerivativeFile((String)parameter.get("derivativePath"));
-
-        if (!convertedFile.getValue()) {
-            try {
-
-                // Set up memory usage settings for PDF conversion
-                File tmpDir = new File(System.getProperty("java.io.tmpdir"));
-                MemoryUsageSetting memoryUsageSetting = MemoryUsageSetting
+        File convertedFile = getDerivativeFile((String)parameter.get("derivativePath"), target -> {
+            // Set up memory usage settings for PDF conversion
+            File tmpDir = new File(System.getProperty("java.io.tmpdir"));
+            MemoryUsageSetting memoryUsageSetting;
+            if (pages.size() > conversionPropertiesPdf.getStreamingThreshold()) {
+                // large documents: images and page contents are written to the scratch file when a page is added,
+                // so the heap only holds the document structure
+                LOGGER.info("Using scratch file only for PDF with " + pages.size() + " pages");
+                memoryUsageSetting = MemoryUsageSetting.setupTempFileOnly().setTempDir(tmpDir);
+            } else {
+                memoryUsageSetting = MemoryUsageSetting
                     .setupMixed(conversionPropertiesPdf.getMaxMemory() * 1024 * 1024)
                     .setTempDir(tmpDir);
+            }
 
-                // Initialize PDF document
-                PdfboxDocument document = new PdfboxDocument(memoryUsageSetting);
+            // Initialize PDF document
+            PdfboxDocument document = new PdfboxDocument(memoryUsageSetting);
+            if (pages.size() > 1) {
+                document.setPageExecutor(pageRenderExecutor, conversionPropertiesPdf.getRenderWindow());
+            }
 
-                // Set ICC color profile (needed for PDF/A)
-                try {
-                    ICC_Profile iccProfile = ICC_Profile.getInstance(conversionPropertiesPdf.getIccProfile());
-                    document.setIccProfile(iccProfile);
-                } catch (Exception defaultEx) {
-                    throw new IllegalArgumentException("Could not load default ICC profile.", defaultEx);
-                }
+            // Set ICC color profile (needed for PDF/A)
+            try {
+                ICC_Profile iccProfile = ICC_Profile.getInstance(conversionPropertiesPdf.getIccProfile());
+                document.setIccProfile(iccProfile);
+            } catch (Exception defaultEx) {
+                throw new IllegalArgumentException("Could not load default ICC profile.", defaultEx);
+            }
 
-                // Set metadata
-                if (parameter.get("creationDate") != null) {
-                    SimpleDateFormat sdf = new SimpleDateFormat("yyyy-mm-dd", Locale.ENGLISH);
-                    Date date = sdf.parse((String)parameter.get("creationDate"));
-                    Calendar cal = Calendar.getInstance();
-                    cal.setTime(date);
-                    document.setProductionDate(cal);
-                }
-                if (parameter.get("authors") != null) {
-                    document.setAuthor((String)parameter.get("authors"));
-                }
-                document.setTitle((String)parameter.get("title"));
-                document.setToc((Toc)parameter.get("toc"));
-
-                // Set up all pages
-                for (Map<String, FileEntry> metsPage : pages.values()) {
-                    PdfboxPage page = pageFactory.getObject();
-                    page.setImagePath(metsPage.get("master").getFile().getAbsolutePath());
-                    page.setSize(size);
-
-                    // Add optional Fulltext file
-                    FileEntry fulltextEntry = metsPage.get("fulltext");
-                    if (fulltextEntry != null) {
-                        page.setFulltextPath(fulltextEntry.getFile().getAbsolutePath());
-                    }
-
-                    document.getPages().add(page);
+            // Set metadata
+            if (parameter.get("creationDate") != null) {
+                SimpleDateFormat sdf = new SimpleDateFormat("yyyy-mm-dd", Locale.ENGLISH);
+                Date date = sdf.parse((String)parameter.get("creationDate"));
+                Calendar cal = Calendar.getInstance();
+                cal.setTime(date);
+                document.setProductionDate(cal);
+            }
+            if (parameter.get("authors") != null) {
+                document.setAuthor((String)parameter.get("authors"));
+            }
+            document.setTitle((String)parameter.get("title"));
+            document.setToc((Toc)parameter.get("toc"));
+
+            // Set up all pages
+            for (Map<String, FileEntry> metsPage : pages.values()) {
+                PdfboxPage page = pageFactory.getObject();
+                page.setImagePath(metsPage.get("master").getFile().getAbsolutePath());
+                page.setSize(size);
+
+                // Add optional Fulltext file
+                FileEntry fulltextEntry = metsPage.get("fulltext");
+                if (fulltextEntry != null) {
+                    page.setFulltextPath(fulltextEntry.getFile().getAbsolutePath());
                 }
 
-                // Save PDF file
-                document.save(convertedFile.getKey().getAbsolutePath());
+                // Add optional JPEG derivative of the page to embed it without conversion
+                FileEntry jpegEntry = metsPage.get("jpeg");
+                if (jpegEntry != null) {
+                    page.setJpegPath(jpegEntry.getFile().getAbsolutePath());
+                }
 
-            } catch (Exception e) {
-                convertedFile.getKey().delete();
-                throw e;
+                document.getPages().add(page);
             }
-        }
 
-        InputStream convertedInputStream = new FileInputStream(convertedFile.getKey());
+            // Save PDF file
+            document.save(target.getAbsolutePath());
+        });
+
+        InputStream convertedInputStream = new FileInputStream(convertedFile);
 
-        cleanDerivativeFile(convertedFile.getKey());
+        cleanDerivativeFile(convertedFile);
 
         return convertedInputStream;
     }
@@ -12,16 +12,26 @@
 package org.kitodo.mediaserver.core.conversion;
 
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Paths;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
 import javax.validation.constraints.NotNull;
 import javax.xml.xpath.XPathExpressionException;
+import org.apache.pdfbox.cos.COSName;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
 import org.apache.pdfbox.pdmodel.graphics.state.RenderingMode;
 import org.kitodo.mediaserver.core.api.IDocument;
@@ -47,14 +57,25 @@ public class PdfboxPage extends AbstractPage {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(PdfboxPage.class);
 
+    private static final float JPEG_QUALITY = 0.75f;
+
     private PDPage page;
     private String fulltextPath;
+    private String jpegPath;
+    private boolean prepared;
+    private int imageWidth;
+    private int imageHeight;
+    private byte[] jpegData;
+    private OcrPage ocrPage;
     protected IOcrReader ocrReader;
     protected PDFont font;
 
     @Autowired
     protected ConversionProperties.Pdf conversionPropertiesPdf;
 
+    @Autowired
+    protected PageFragmentCache fragmentCache;
+
     @Override
     public PDPage getPage() {
         return page;
@@ -64,6 +85,10 @@ public class PdfboxPage extends AbstractPage {
         this.fulltextPath = fulltextPath;
     }
 
+    public void setJpegPath(String jpegPath) {
+        this.jpegPath = jpegPath;
+    }
+
     @Autowired
     public void setOcrReader(IOcrReader ocrReader) {
         this.ocrReader = ocrReader;
@@ -78,21 +103,102 @@ public class PdfboxPage extends AbstractPage {
         super.setImagePath(path);
     }
 
+    /**
+     * Renders the image and reads the OCR text of the page. This doesn't access the PDF document,
+     * so pages can be prepared in parallel before they are added to the document one after another.
+     *
+     * @throws Exception on image or OCR file errors
+     */
+    public void prepare() throws Exception {
+
+        String fragmentKey = null;
+        if (fragmentCache != null && fragmentCache.isEnabled()) {
+            fragmentKey = fragmentCache.getKey(describeRendering());
+            if (readFragment(fragmentKey)) {
+                prepared = true;
+                return;
+            }
+        }
+
+        if (!readJpegDerivative()) {
+            // Get processed image and encode it
+            try {
+                BufferedImage resizedImage = renderImage();
+                imageWidth = resizedImage.getWidth();
+                imageHeight = resizedImage.getHeight();
+                jpegData = encodeJpeg(resizedImage);
+            } finally {
+                // only the encoded image is kept until the page is added to the document
+                scaledImage = null;
+            }
+        }
+
+        // Read OCR text
+        if (conversionPropertiesPdf.isAddOcrText() && StringUtils.hasText(fulltextPath)) {
+            try {
+                ocrPage = ocrReader.read(Paths.get(fulltextPath));
+            } catch (Exception ex) {
+                LOGGER.warn("Could not read OCR text using fulltext file '" + fulltextPath + "'", ex);
+            }
+        }
+
+        if (fragmentKey != null) {
+            fragmentCache.put(fragmentKey, new PageFragment(imageWidth, imageHeight, jpegData, ocrPage));
+        }
+        prepared = true;
+    }
+
+    @Override
+    public String describeRendering() {
+        StringBuilder description = new StringBuilder(super.describeRendering())
+            .append("|pdf|").append(JPEG_QUALITY);
+        if (conversionPropertiesPdf.isAddOcrText() && StringUtils.hasText(fulltextPath)) {
+            description.append('|').append(fulltextPath).append('|').append(new File(fulltextPath).lastModified());
+        }
+        return description.toString();
+    }
+
+    /**
+     * Reads the rendered image and OCR text of the page from the fragment cache. The text layer is written again
+     * from the OCR text, as it depends on the font of the document.
+     *
+     * @param key the fragment key
+     * @return true if the fragment was read
+     * @throws IOException if the master image header can't be read
+     */
+    private boolean readFragment(String key) throws IOException {
+        PageFragment fragment = fragmentCache.get(key);
+        if (fragment == null) {
+            return false;
+        }
+        // the OCR text is positioned with the scaling of the master image
+        layout(ImageHeader.read(new File(imagePath)));
+        imageWidth = fragment.getWidth();
+        imageHeight = fragment.getHeight();
+        jpegData = fragment.getJpegData();
+        ocrPage = fragment.getOcrPage();
+        return true;
+    }
+
     @Override
     public void renderPage(IDocument document) throws Exception {
 
-        // Get processed image and initialize the page
-        BufferedImage resizedImage = renderImage();
-        page = new PDPage(new PDRectangle(resizedImage.getWidth(), resizedImage.getHeight()));
+        if (!prepared) {
+            prepare();
+        }
+
+        // Initialize the page
+        page = new PDPage(new PDRectangle(imageWidth, imageHeight));
 
         // Draw image on page
         PDDocument pdDocument = (PDDocument) document.getDocument();
-        PDImageXObject imageObj = JPEGFactory.createFromImage(pdDocument, resizedImage);
+        PDImageXObject imageObj = new PDImageXObject(pdDocument, new ByteArrayInputStream(jpegData), COSName.DCT_DECODE,
+            imageWidth, imageHeight, 8, PDDeviceRGB.INSTANCE);
         PDPageContentStream contentStream = new PDPageContentStream(pdDocument, page);
         contentStream.drawImage(imageObj, 0, 0);
 
         // Add OCR Text layer
-        if (conversionPropertiesPdf.isAddOcrText() && StringUtils.hasText(fulltextPath)) {
+        if (ocrPage != null) {
             try {
                 addOcrText(contentStream);
             } catch (Exception ex) {
@@ -101,6 +207,62 @@ public class PdfboxPage extends AbstractPage {
         }
 
         contentStream.close();
+
+        // the page data is in the document now
+        jpegData = null;
+        ocrPage = null;
+    }
+
+    /**
+     * Reads an existing JPEG derivative of the page to embed it without decoding. The derivative is only used if it
+     * has exactly the size of the page (so it was produced with the same size and watermark settings), is an RGB
+     * image and is not older than the master image.
+     *
+     * @return true if the derivative was read
+     */
+    private boolean readJpegDerivative() {
+        if (!StringUtils.hasText(jpegPath)) {
+            return false;
+        }
+        File jpegFile = new File(jpegPath);
+        File masterFile = new File(imagePath);
+        try {
+            if (!jpegFile.isFile() || jpegFile.lastModified() < masterFile.lastModified()) {
+                return false;
+            }
+            layout(ImageHeader.read(masterFile));
+            ImageHeader jpegHeader = ImageHeader.read(jpegFile);
+            if (jpegHeader.getWidth() != pageSize.width || jpegHeader.getHeight() != pageSize.height
+                    || jpegHeader.getBitsPerPixel() != 24) {
+                LOGGER.debug("JPEG derivative " + jpegPath + " doesn't match the page, rendering from master");
+                return false;
+            }
+            jpegData = Files.readAllBytes(jpegFile.toPath());
+            imageWidth = pageSize.width;
+            imageHeight = pageSize.height;
+            return true;
+        } catch (IOException e) {
+            LOGGER.warn("Could not read JPEG derivative " + jpegPath + ", rendering from master", e);
+            return false;
+        }
+    }
+
+    /**
+     * Encodes an image as JPEG with the same settings as {@link org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory}.
+     */
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(imageOutput);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
     }
 
     /**
@@ -115,9 +277,6 @@ public class PdfboxPage extends AbstractPage {
         // Make text invisible
         stream.setRenderingMode(RenderingMode.NEITHER);
 
-        // Get OCR text
-        OcrPage ocrPage = ocrReader.read(Paths.get(fulltextPath));
-
         float tx;
         float ty;
         float size = 12f;
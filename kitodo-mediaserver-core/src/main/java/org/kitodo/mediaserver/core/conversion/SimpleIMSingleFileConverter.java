@@ -68,7 +68,6 @@ public class SimpleIMSingleFileConverter extends AbstractConverter {
     public InputStream convert(TreeMap<Integer, Map<String, FileEntry>> pages, Map<String, Object> parameter) throws Exception {
 
         Notifier notifier = notifierFactory.getObject();
-        String message;
 
         checkParams(pages, parameter, "derivativePath", "target_mime");
 
@@ -77,42 +76,34 @@ public class SimpleIMSingleFileConverter extends AbstractConverter {
         boolean addWatermark = conversionPropertiesWatermark.isEnabled()
                                 && size >= conversionPropertiesWatermark.getMinSize();
 
-        // if the cache file already exists, there is another thread already performing the conversion.
-        Map.Entry<File, Boolean> convertedFile = createDerivativeFile((String)parameter.get("derivativePath"));
-
-        if (!convertedFile.getValue()) {
-            try {
-                IMOperation operation = new IMOperation();
-                operation.addImage(pages.get(0).get("master").getFile().getAbsolutePath());
-                operation.resize(size);
-
-                if (addWatermark) {
-                    try {
-                        watermarker.perform(operation, pages.get(0).get("master").getFile(), size);
-                    } catch (Exception e) {
-                        message = "Error creating watermark on file " + pages.get(0).get("master").getFile().getAbsolutePath() + ": " + e;
-                        LOGGER.error(message, e);
-                        notifier.addAndSend(message, "Conversion Error", fileserverProperties.getErrorNotificationEmail());
-                    }
+        File convertedFile = getDerivativeFile((String)parameter.get("derivativePath"), target -> {
+            IMOperation operation = new IMOperation();
+            operation.addImage(pages.get(0).get("master").getFile().getAbsolutePath());
+            operation.resize(size);
+
+            if (addWatermark) {
+                try {
+                    watermarker.perform(operation, pages.get(0).get("master").getFile(), size);
+                } catch (Exception e) {
+                    String message = "Error creating watermark on file "
+                        + pages.get(0).get("master").getFile().getAbsolutePath() + ": " + e;
+                    LOGGER.error(message, e);
+                    notifier.addAndSend(message, "Conversion Error", fileserverProperties.getErrorNotificationEmail());
                 }
-                operation.colorspace("RGB"); // Needed for firefox
-                operation.addImage(convertedFile.getKey().getAbsolutePath());
-
-                ImageCommand convertCmd = new ConvertCmd(conversionProperties.isUseGraphicsMagick());
+            }
+            operation.colorspace("RGB"); // Needed for firefox
+            operation.addImage(target.getAbsolutePath());
 
-                convertCmd.run(operation);
+            ImageCommand convertCmd = new ConvertCmd(conversionProperties.isUseGraphicsMagick());
 
-                LOGGER.info("Executed IM Operation: " + operation.toString());
+            convertCmd.run(operation);
 
-            } catch (Exception e) {
-                convertedFile.getKey().delete();
-                throw e;
-            }
-        }
+            LOGGER.info("Executed IM Operation: " + operation.toString());
+        });
 
-        InputStream convertedInputStream = new FileInputStream(convertedFile.getKey());
+        InputStream convertedInputStream = new FileInputStream(convertedFile);
 
-        cleanDerivativeFile(convertedFile.getKey());
+        cleanDerivativeFile(convertedFile);
 
         return convertedInputStream;
     }
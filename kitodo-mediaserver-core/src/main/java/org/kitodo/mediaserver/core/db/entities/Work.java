@@ -19,6 +19,8 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 
 /**
  * Entity for digitized works.
@@ -33,6 +35,8 @@ public class Work {
     private Instant indexTime;
     private Set<Collection> collections;
     private String allowedNetwork = "global";
+    private int generation;
+    private Instant updateTime;
 
     protected Work() {}
 
@@ -102,4 +106,36 @@ public class Work {
         this.allowedNetwork = allowedNetwork;
     }
 
+    /**
+     * Gets the import generation of the work. It is increased every time the work is (re-)imported.
+     *
+     * @return the import generation
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(int generation) {
+        this.generation = generation;
+    }
+
+    /**
+     * Gets the time of the last change of the work data. Other processes use it to detect changed works.
+     *
+     * @return the time of the last change
+     */
+    public Instant getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(Instant updateTime) {
+        this.updateTime = updateTime;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void markUpdated() {
+        updateTime = Instant.now();
+    }
+
 }
@@ -11,9 +11,12 @@
 
 package org.kitodo.mediaserver.core.db.repositories;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import org.kitodo.mediaserver.core.db.entities.Work;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
 /**
@@ -44,5 +47,23 @@ public interface WorkRepository extends PagingAndSortingRepository<Work, String>
      * @return a list of works.
      */
     List<Work> findByIdLike(String idPattern);
+
+    /**
+     * Finds the IDs of all works changed after a given time.
+     *
+     * @param time the time
+     * @return a list of work IDs
+     */
+    @Query("select w.id from Work w where w.updateTime > ?1")
+    List<String> findIdsUpdatedAfter(Instant time);
+
+    /**
+     * Finds which of the given works still exist.
+     *
+     * @param ids the IDs of the works
+     * @return the IDs of the existing works
+     */
+    @Query("select w.id from Work w where w.id in ?1")
+    List<String> findExistingIds(Collection<String> ids);
 }
 
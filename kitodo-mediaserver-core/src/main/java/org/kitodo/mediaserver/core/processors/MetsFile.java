@@ -0,0 +1,114 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.processors;
+
+import javax.xml.bind.annotation.XmlAttribute;
+
+/**
+ * A file of a METS file section.
+ */
+public class MetsFile {
+
+    private String id;
+    private String fileGrp;
+    private String url;
+    private String mimeType;
+    private Integer pageOrder;
+    private String checksum;
+    private String checksumType;
+
+    /**
+     * Creates an empty file entry.
+     */
+    public MetsFile() {
+    }
+
+    /**
+     * Creates a file entry.
+     *
+     * @param id the ID of the file
+     * @param fileGrp the USE attribute of the file group
+     * @param url the URL of the file
+     * @param mimeType the MIME type of the file
+     * @param pageOrder the order of the physical page containing the file, null if it belongs to no page
+     */
+    public MetsFile(String id, String fileGrp, String url, String mimeType, Integer pageOrder) {
+        this.id = id;
+        this.fileGrp = fileGrp;
+        this.url = url;
+        this.mimeType = mimeType;
+        this.pageOrder = pageOrder;
+    }
+
+    @XmlAttribute
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    @XmlAttribute
+    public String getFileGrp() {
+        return fileGrp;
+    }
+
+    public void setFileGrp(String fileGrp) {
+        this.fileGrp = fileGrp;
+    }
+
+    @XmlAttribute
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    @XmlAttribute
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    public void setMimeType(String mimeType) {
+        this.mimeType = mimeType;
+    }
+
+    @XmlAttribute
+    public Integer getPageOrder() {
+        return pageOrder;
+    }
+
+    public void setPageOrder(Integer pageOrder) {
+        this.pageOrder = pageOrder;
+    }
+
+    @XmlAttribute
+    public String getChecksum() {
+        return checksum;
+    }
+
+    public void setChecksum(String checksum) {
+        this.checksum = checksum;
+    }
+
+    @XmlAttribute
+    public String getChecksumType() {
+        return checksumType;
+    }
+
+    public void setChecksumType(String checksumType) {
+        this.checksumType = checksumType;
+    }
+}
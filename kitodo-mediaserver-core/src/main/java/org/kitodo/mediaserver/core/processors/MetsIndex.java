@@ -0,0 +1,195 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.processors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlTransient;
+
+/**
+ * The files, pages, table of content and work data of a METS file, read in one pass.
+ *
+ * <p>
+ * An index is not changed after it is read, so it may be shared by several threads.
+ */
+@XmlRootElement(name = "metsIndex")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class MetsIndex {
+
+    @XmlElement(name = "file")
+    private List<MetsFile> files = new ArrayList<>();
+
+    @XmlElement(name = "rootFileId")
+    private List<String> rootFileIds = new ArrayList<>();
+
+    @XmlElement(name = "toc")
+    private Toc toc;
+
+    @XmlElement(name = "workData")
+    private MetsWorkData workData = new MetsWorkData();
+
+    @XmlTransient
+    private Map<String, MetsFile> filesByUrl;
+
+    @XmlTransient
+    private Map<String, MetsFile> filesById;
+
+    @XmlTransient
+    private Map<String, List<MetsFile>> filesByFileGrp;
+
+    @XmlTransient
+    private TreeMap<Integer, Map<String, MetsFile>> pages;
+
+    /**
+     * Creates an empty index, used when reading an index from XML.
+     */
+    public MetsIndex() {
+        buildLookups();
+    }
+
+    /**
+     * Creates an index.
+     *
+     * @param files all files of the file section
+     * @param rootFileIds the IDs of the files linked to the whole work in the physical structure, in document order
+     * @param toc the table of content
+     * @param workData the descriptive data of the work
+     */
+    public MetsIndex(List<MetsFile> files, List<String> rootFileIds, Toc toc, MetsWorkData workData) {
+        this.files = files;
+        this.rootFileIds = rootFileIds;
+        this.toc = toc;
+        this.workData = workData;
+        buildLookups();
+    }
+
+    public List<MetsFile> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * Gets all files of a file group.
+     *
+     * @param fileGrp the USE attribute of the file group
+     * @return the files in document order, an empty list if there is no such group
+     */
+    public List<MetsFile> getFiles(String fileGrp) {
+        return filesByFileGrp.getOrDefault(fileGrp, Collections.emptyList());
+    }
+
+    public List<String> getRootFileIds() {
+        return Collections.unmodifiableList(rootFileIds);
+    }
+
+    public Toc getToc() {
+        return toc;
+    }
+
+    public MetsWorkData getWorkData() {
+        return workData;
+    }
+
+    /**
+     * Gets a file by its URL.
+     *
+     * @param url the URL of the file
+     * @return the file or null if there is no file with this URL
+     */
+    public MetsFile getFileByUrl(String url) {
+        return filesByUrl.get(url);
+    }
+
+    /**
+     * Gets a file by its ID.
+     *
+     * @param id the ID of the file
+     * @return the file or null if there is no file with this ID
+     */
+    public MetsFile getFileById(String id) {
+        return filesById.get(id);
+    }
+
+    /**
+     * Gets the physical order of all pages having files.
+     *
+     * @return the page orders in ascending order
+     */
+    public NavigableSet<Integer> getPageOrders() {
+        return Collections.unmodifiableNavigableSet(pages.navigableKeySet());
+    }
+
+    /**
+     * Gets the file of a page in a file group.
+     *
+     * @param pageOrder the physical order of the page
+     * @param fileGrp the USE attribute of the file group
+     * @return the file or null if the page has no file in this group
+     */
+    public MetsFile getPageFile(int pageOrder, String fileGrp) {
+        Map<String, MetsFile> pageFiles = pages.get(pageOrder);
+        return pageFiles != null ? pageFiles.get(fileGrp) : null;
+    }
+
+    /**
+     * Gets the URL of the file in a file group that belongs to the whole work, like the full PDF file. As in the
+     * XSLT readers, the last file linked to the physical root is used.
+     *
+     * @param fileGrp the USE attribute of the file group
+     * @return the URL or null if the last file of the physical root is not in this group
+     */
+    public String getWorkFileUrl(String fileGrp) {
+        if (rootFileIds.isEmpty()) {
+            return null;
+        }
+        MetsFile file = filesById.get(rootFileIds.get(rootFileIds.size() - 1));
+        return file != null && file.getFileGrp() != null && file.getFileGrp().equals(fileGrp) ? file.getUrl() : null;
+    }
+
+    /**
+     * Builds the lookup maps after reading the index from XML. Called by JAXB.
+     *
+     * @param unmarshaller the unmarshaller
+     * @param parent the parent object
+     */
+    public void afterUnmarshal(Unmarshaller unmarshaller, Object parent) {
+        buildLookups();
+    }
+
+    private void buildLookups() {
+        filesByUrl = new HashMap<>();
+        filesById = new HashMap<>();
+        filesByFileGrp = new LinkedHashMap<>();
+        pages = new TreeMap<>();
+        for (MetsFile file : files) {
+            // the first file wins, like in XSLT
+            if (file.getUrl() != null && !file.getUrl().isEmpty()) {
+                filesByUrl.putIfAbsent(file.getUrl(), file);
+            }
+            filesById.putIfAbsent(file.getId(), file);
+            filesByFileGrp.computeIfAbsent(file.getFileGrp(), key -> new ArrayList<>()).add(file);
+            if (file.getPageOrder() != null) {
+                pages.computeIfAbsent(file.getPageOrder(), key -> new HashMap<>()).putIfAbsent(file.getFileGrp(), file);
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.processors;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A binary file next to a METS file holding its index, so the index can be read without parsing XML.
+ *
+ * <p>
+ * The file stores the modification time and size of the METS file it was created from. It is only used as long as
+ * they match the METS file. Staleness is judged by these two values only, so a change of the METS file keeping both,
+ * e.g. within the time resolution of the file system, is not noticed. The file is read into a heap buffer, so it isn't
+ * locked on Windows and can be replaced by the next import.
+ *
+ * <p>
+ * Layout: a header (magic number, version, modification time and size of the METS file), a table of all distinct
+ * strings, then the files, the IDs of the root files, the work data and the table of content, referring to strings by
+ * their position in the table.
+ */
+public class MetsIndexFile {
+
+    private static final int MAGIC = 0x4B4D5349;
+    private static final int VERSION = 3;
+
+    private static final int NO_STRING = -1;
+    private static final int NO_NUMBER = Integer.MIN_VALUE;
+    private static final int NO_LIST = -1;
+
+    private MetsIndexFile() {
+    }
+
+    /**
+     * Gets the index file of a METS file.
+     *
+     * @param mets the METS file
+     * @return the index file, which may not exist
+     */
+    public static File getIndexFile(File mets) {
+        return new File(mets.getParentFile(), mets.getName().replaceFirst("(?i)\\.xml$", "") + ".index");
+    }
+
+    /**
+     * Checks if the index file of a METS file exists and was written from the current METS file.
+     *
+     * @param mets the METS file
+     * @return true if the index file can be used
+     */
+    public static boolean isCurrent(File mets) {
+        File indexFile = getIndexFile(mets);
+        if (!indexFile.isFile()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(24);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            return header.remaining() == 24 && hasCurrentHeader(header, mets);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads the index of a METS file from its index file.
+     *
+     * @param mets the METS file
+     * @return the index, null if there is no index file or it is older than the METS file
+     * @throws IOException if the index file can't be read or is invalid
+     */
+    public static MetsIndex read(File mets) throws IOException {
+        File indexFile = getIndexFile(mets);
+        if (!indexFile.isFile()) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(indexFile.toPath()));
+            if (buffer.remaining() < 24 || !hasCurrentHeader(buffer, mets)) {
+                return null;
+            }
+            return new Reader(buffer).readIndex();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Invalid METS index file " + indexFile, e);
+        }
+    }
+
+    /**
+     * Writes the index of a METS file to its index file. The file is replaced atomically.
+     *
+     * @param index the index of the METS file
+     * @param mets the METS file the index was read from
+     * @param metsLastModified the modification time of the METS file when the index was read
+     * @param metsLength the size of the METS file when the index was read
+     * @throws IOException if the file can't be written
+     */
+    public static void write(MetsIndex index, File mets, long metsLastModified, long metsLength) throws IOException {
+        Path target = getIndexFile(mets).toPath();
+        Path tempFile = target.resolveSibling("." + UUID.randomUUID() + ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(tempFile)) {
+                new Writer(index).write(output, metsLastModified, metsLength);
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Reads and checks the header.
+     */
+    private static boolean hasCurrentHeader(ByteBuffer header, File mets) {
+        return header.getInt() == MAGIC && header.getInt() == VERSION
+            && header.getLong() == mets.lastModified() && header.getLong() == mets.length();
+    }
+
+    /**
+     * Writes an index, collecting all strings first.
+     */
+    private static class Writer {
+
+        private final MetsIndex index;
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+
+        Writer(MetsIndex index) {
+            this.index = index;
+            for (MetsFile file : index.getFiles()) {
+                add(file.getId());
+                add(file.getFileGrp());
+                add(file.getUrl());
+                add(file.getMimeType());
+                add(file.getChecksum());
+                add(file.getChecksumType());
+            }
+            index.getRootFileIds().forEach(this::add);
+            for (List<String> values : getWorkDataLists(index.getWorkData())) {
+                values.forEach(this::add);
+            }
+            if (index.getToc() != null) {
+                addTocStrings(index.getToc().getTocItems());
+            }
+        }
+
+        void write(OutputStream outputStream, long metsLastModified, long metsLength) throws IOException {
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(metsLastModified);
+            output.writeLong(metsLength);
+
+            output.writeInt(strings.size());
+            for (String string : strings.keySet()) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(bytes.length);
+                output.write(bytes);
+            }
+
+            output.writeInt(index.getFiles().size());
+            for (MetsFile file : index.getFiles()) {
+                output.writeInt(indexOf(file.getId()));
+                output.writeInt(indexOf(file.getFileGrp()));
+                output.writeInt(indexOf(file.getUrl()));
+                output.writeInt(indexOf(file.getMimeType()));
+                output.writeInt(file.getPageOrder() != null ? file.getPageOrder() : NO_NUMBER);
+                output.writeInt(indexOf(file.getChecksum()));
+                output.writeInt(indexOf(file.getChecksumType()));
+            }
+
+            output.writeInt(index.getRootFileIds().size());
+            for (String rootFileId : index.getRootFileIds()) {
+                output.writeInt(indexOf(rootFileId));
+            }
+
+            for (List<String> values : getWorkDataLists(index.getWorkData())) {
+                writeStrings(output, values);
+            }
+
+            output.writeBoolean(index.getToc() != null);
+            if (index.getToc() != null) {
+                writeTocItems(output, index.getToc().getTocItems());
+            }
+            output.flush();
+        }
+
+        private static List<List<String>> getWorkDataLists(MetsWorkData workData) {
+            return Arrays.asList(workData.getWorkIds(), workData.getTitles(), workData.getHostIds(),
+                workData.getCollections(), workData.getDois());
+        }
+
+        private void writeStrings(DataOutputStream output, List<String> values) throws IOException {
+            output.writeInt(values.size());
+            for (String value : values) {
+                output.writeInt(indexOf(value));
+            }
+        }
+
+        private void add(String string) {
+            if (string != null) {
+                strings.putIfAbsent(string, strings.size());
+            }
+        }
+
+        private int indexOf(String string) {
+            return string != null ? strings.get(string) : NO_STRING;
+        }
+
+        private void addTocStrings(List<TocItem> items) {
+            if (items != null) {
+                for (TocItem item : items) {
+                    add(item.getId());
+                    add(item.getName());
+                    add(item.getType());
+                    addTocStrings(item.getChildren());
+                }
+            }
+        }
+
+        private void writeTocItems(DataOutputStream output, List<TocItem> items) throws IOException {
+            output.writeInt(items != null ? items.size() : NO_LIST);
+            if (items != null) {
+                for (TocItem item : items) {
+                    output.writeInt(indexOf(item.getId()));
+                    output.writeInt(indexOf(item.getName()));
+                    output.writeInt(indexOf(item.getType()));
+                    output.writeInt(item.getPageNumber() != null ? item.getPageNumber() : NO_NUMBER);
+                    writeTocItems(output, item.getChildren());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads an index from a buffer positioned after the header.
+     */
+    private static class Reader {
+
+        private final ByteBuffer buffer;
+        private String[] strings;
+
+        Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        MetsIndex readIndex() {
+            strings = new String[readCount(4)];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[readCount(1)];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            // every file has 7 values
+            int fileCount = readCount(28);
+            List<MetsFile> files = new ArrayList<>(fileCount);
+            for (int i = 0; i < fileCount; i++) {
+                MetsFile file = new MetsFile(readString(), readString(), readString(), readString(), readNumber());
+                file.setChecksum(readString());
+                file.setChecksumType(readString());
+                files.add(file);
+            }
+
+            List<String> rootFileIds = readStrings();
+            MetsWorkData workData = new MetsWorkData(readStrings(), readStrings(), readStrings(), readStrings(),
+                readStrings());
+
+            Toc toc = null;
+            if (buffer.get() != 0) {
+                toc = new Toc();
+                toc.setTocItems(readTocItems());
+            }
+            return new MetsIndex(files, rootFileIds, toc, workData);
+        }
+
+        /**
+         * Reads the number of elements of a list. Counts of a corrupt file which can't fit into the rest of the file
+         * are rejected before allocating the list.
+         */
+        private int readCount(int elementSize) {
+            int count = buffer.getInt();
+            if (count < 0 || count > buffer.remaining() / elementSize) {
+                throw new IndexOutOfBoundsException("Invalid count " + count + " before position " + buffer.position());
+            }
+            return count;
+        }
+
+        private String readString() {
+            int index = buffer.getInt();
+            return index != NO_STRING ? strings[index] : null;
+        }
+
+        private List<String> readStrings() {
+            int count = readCount(4);
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(readString());
+            }
+            return values;
+        }
+
+        private Integer readNumber() {
+            int number = buffer.getInt();
+            return number != NO_NUMBER ? number : null;
+        }
+
+        private List<TocItem> readTocItems() {
+            int position = buffer.position();
+            if (buffer.getInt() == NO_LIST) {
+                return null;
+            }
+            buffer.position(position);
+            // every item has 5 values
+            int count = readCount(20);
+            List<TocItem> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                TocItem item = new TocItem();
+                item.setId(readString());
+                item.setName(readString());
+                item.setType(readString());
+                item.setPageNumber(readNumber());
+                item.setChildren(readTocItems());
+                items.add(item);
+            }
+            return items;
+        }
+    }
+}
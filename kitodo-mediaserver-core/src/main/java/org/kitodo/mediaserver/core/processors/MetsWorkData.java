@@ -0,0 +1,137 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.processors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+
+/**
+ * The descriptive data of a work from a METS file: the identifiers, titles and collections of the work and the DOIs.
+ *
+ * <p>
+ * The data is read like getWorkData.xsl of the importer does: from the MODS section of the first logical root div
+ * (or of its first child, if the root has none), with the labels of the logical root divs as additional titles.
+ * Values are trimmed and distinct.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class MetsWorkData {
+
+    private static final String VALUE_SEPARATOR = " ; ";
+
+    @XmlElement(name = "workId")
+    private List<String> workIds = new ArrayList<>();
+
+    @XmlElement(name = "title")
+    private List<String> titles = new ArrayList<>();
+
+    @XmlElement(name = "hostId")
+    private List<String> hostIds = new ArrayList<>();
+
+    @XmlElement(name = "collection")
+    private List<String> collections = new ArrayList<>();
+
+    @XmlElement(name = "doi")
+    private List<String> dois = new ArrayList<>();
+
+    /**
+     * Creates empty work data, used when reading an index from XML.
+     */
+    public MetsWorkData() {
+    }
+
+    /**
+     * Creates work data.
+     *
+     * @param workIds the record identifiers
+     * @param titles the titles
+     * @param hostIds the record identifiers of the host works
+     * @param collections the collections
+     * @param dois the DOIs of all MODS sections
+     */
+    public MetsWorkData(List<String> workIds, List<String> titles, List<String> hostIds, List<String> collections,
+                        List<String> dois) {
+        this.workIds = workIds;
+        this.titles = titles;
+        this.hostIds = hostIds;
+        this.collections = collections;
+        this.dois = dois;
+    }
+
+    public List<String> getWorkIds() {
+        return distinct(workIds);
+    }
+
+    public List<String> getTitles() {
+        return distinct(titles);
+    }
+
+    public List<String> getHostIds() {
+        return distinct(hostIds);
+    }
+
+    public List<String> getCollections() {
+        return distinct(collections);
+    }
+
+    public List<String> getDois() {
+        return distinct(dois);
+    }
+
+    /**
+     * Gets the work id. Several ids are concatenated like by the XSLT work data reader.
+     *
+     * @return the work id or null if there is none
+     */
+    public String getWorkId() {
+        return join(getWorkIds());
+    }
+
+    /**
+     * Gets the title. Several titles are concatenated like by the XSLT work data reader.
+     *
+     * @return the title or null if there is none
+     */
+    public String getTitle() {
+        return join(getTitles());
+    }
+
+    /**
+     * Gets the id of the host work. Several ids are concatenated like by the XSLT work data reader.
+     *
+     * @return the id or null if there is none
+     */
+    public String getHostId() {
+        return join(getHostIds());
+    }
+
+    private static List<String> distinct(List<String> values) {
+        if (values == null) {
+            return Collections.emptyList();
+        }
+        return values.stream()
+            .filter(Objects::nonNull)
+            .map(String::trim)
+            .filter(value -> !value.isEmpty())
+            .distinct()
+            .collect(Collectors.toList());
+    }
+
+    private static String join(List<String> values) {
+        return values.isEmpty() ? null : String.join(VALUE_SEPARATOR, values);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.processors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.kitodo.mediaserver.core.exceptions.ValidationException;
+
+/**
+ * A range of pages of a work, given by the physical order of the first and the last page.
+ */
+public class PageRange {
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("^\\s*(\\d*)\\s*(-?)\\s*(\\d*)\\s*$");
+
+    private final int first;
+    private final int last;
+
+    /**
+     * Creates a page range.
+     *
+     * @param first the first page
+     * @param last the last page
+     */
+    public PageRange(int first, int last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Parses a page range like "12-40". The start or the end may be omitted ("12-", "-40") to select the pages from
+     * the first or to the last page, a single number selects one page. The end is limited to the last page.
+     *
+     * @param pages the page range
+     * @param lastPage the last page of the work
+     * @return the page range
+     * @throws ValidationException if the range is invalid or contains no pages of the work
+     */
+    public static PageRange parse(String pages, int lastPage) throws ValidationException {
+        Matcher matcher = RANGE_PATTERN.matcher(pages != null ? pages : "");
+        if (!matcher.matches() || matcher.group(1).isEmpty() && matcher.group(3).isEmpty()) {
+            throw new ValidationException("Invalid page range '" + pages + "'");
+        }
+        try {
+            int first = matcher.group(1).isEmpty() ? 1 : Integer.parseInt(matcher.group(1));
+            int last;
+            if (!matcher.group(3).isEmpty()) {
+                last = Integer.parseInt(matcher.group(3));
+            } else {
+                last = matcher.group(2).isEmpty() ? first : lastPage;
+            }
+            return validate(first, Math.min(last, lastPage), pages);
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Invalid page range '" + pages + "'", e);
+        }
+    }
+
+    /**
+     * Gets the pages of a section of the logical structure. A section starts on its first page and ends before the
+     * next section that is not part of it. As sections only have a first page, a page shared with the next section
+     * belongs to the next section only. Sections without a page, with a page number of null or 0 as given by the TOC
+     * readers, are skipped.
+     *
+     * @param toc the table of content
+     * @param sectionId the ID of the section
+     * @param lastPage the last page of the work
+     * @return the page range
+     * @throws ValidationException if the section doesn't exist or has no page
+     */
+    public static PageRange ofSection(Toc toc, String sectionId, int lastPage) throws ValidationException {
+        List<TocItem> items = new ArrayList<>();
+        if (toc != null) {
+            flatten(toc.getTocItems(), items);
+        }
+        for (int index = 0; index < items.size(); index++) {
+            TocItem item = items.get(index);
+            if (sectionId.equals(item.getId())) {
+                if (!hasPage(item)) {
+                    throw new ValidationException("Section '" + sectionId + "' has no pages");
+                }
+                int first = item.getPageNumber();
+                int last = lastPage;
+                for (int next = index + 1 + countDescendants(item); next < items.size(); next++) {
+                    if (hasPage(items.get(next))) {
+                        last = Math.max(first, items.get(next).getPageNumber() - 1);
+                        break;
+                    }
+                }
+                return validate(first, Math.min(last, lastPage), sectionId);
+            }
+        }
+        throw new ValidationException("Section '" + sectionId + "' not found");
+    }
+
+    public int getFirst() {
+        return first;
+    }
+
+    public int getLast() {
+        return last;
+    }
+
+    /**
+     * Checks if a page is part of the range.
+     *
+     * @param page the physical order of the page
+     * @return true if the page is in the range
+     */
+    public boolean contains(int page) {
+        return page >= first && page <= last;
+    }
+
+    /**
+     * Selects the pages of the range.
+     *
+     * @param pages all pages of the work by their physical order
+     * @param <T> the type of the page data
+     * @return the pages in the range
+     */
+    public <T> TreeMap<Integer, T> select(TreeMap<Integer, T> pages) {
+        return new TreeMap<>(pages.subMap(first, true, last, true));
+    }
+
+    /**
+     * Trims a table of content to the selected pages of the range. Items starting on a selected page are kept with
+     * the position of the page among the selected pages as page number, so pages of the range missing in the work
+     * don't shift the bookmarks. The children of items starting on other pages take their place.
+     *
+     * @param toc the table of content of the work
+     * @param selectedPages the pages of the range as returned by {@link #select(TreeMap)}
+     * @return a new table of content for the range
+     */
+    public Toc trim(Toc toc, SortedMap<Integer, ?> selectedPages) {
+        Toc trimmed = new Toc();
+        trimmed.setTocItems(trim(toc != null ? toc.getTocItems() : null, selectedPages));
+        return trimmed;
+    }
+
+    private List<TocItem> trim(List<TocItem> items, SortedMap<Integer, ?> selectedPages) {
+        List<TocItem> trimmed = new ArrayList<>();
+        if (items == null) {
+            return trimmed;
+        }
+        for (TocItem item : items) {
+            List<TocItem> children = trim(item.getChildren(), selectedPages);
+            if (hasPage(item) && contains(item.getPageNumber()) && selectedPages.containsKey(item.getPageNumber())) {
+                TocItem copy = new TocItem();
+                copy.setId(item.getId());
+                copy.setName(item.getName());
+                copy.setType(item.getType());
+                copy.setPageNumber(selectedPages.headMap(item.getPageNumber()).size() + 1);
+                copy.setChildren(children.isEmpty() ? null : children);
+                trimmed.add(copy);
+            } else {
+                trimmed.addAll(children);
+            }
+        }
+        return trimmed;
+    }
+
+    @Override
+    public String toString() {
+        return first + "-" + last;
+    }
+
+    private static PageRange validate(int first, int last, String source) throws ValidationException {
+        if (first < 1 || last < first) {
+            throw new ValidationException("Page range '" + source + "' contains no pages");
+        }
+        return new PageRange(first, last);
+    }
+
+    private static boolean hasPage(TocItem item) {
+        return item.getPageNumber() != null && item.getPageNumber() > 0;
+    }
+
+    private static void flatten(List<TocItem> items, List<TocItem> flat) {
+        if (items != null) {
+            for (TocItem item : items) {
+                flat.add(item);
+                flatten(item.getChildren(), flat);
+            }
+        }
+    }
+
+    private static int countDescendants(TocItem item) {
+        int count = 0;
+        if (item.getChildren() != null) {
+            for (TocItem child : item.getChildren()) {
+                count += 1 + countDescendants(child);
+            }
+        }
+        return count;
+    }
+}
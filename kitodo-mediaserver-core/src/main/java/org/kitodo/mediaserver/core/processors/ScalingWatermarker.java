@@ -13,11 +13,11 @@ package org.kitodo.mediaserver.core.processors;
 
 import java.awt.Color;
 import java.awt.Image;
-import java.awt.image.BufferedImage;
 import java.io.File;
 import javax.imageio.ImageIO;
 import org.im4java.core.IMOperation;
 import org.kitodo.mediaserver.core.config.ConversionProperties;
+import org.kitodo.mediaserver.core.conversion.ImageHeader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -76,9 +76,9 @@ public class ScalingWatermarker extends AbstractWatermarker {
         final Float scale = ((float) srcFileX / conversionPropertiesJpeg.getDefaultSize()) * 100;
 
         // Calculating the aspect ratio
-        BufferedImage masterFileImage = ImageIO.read(masterFile.getAbsoluteFile());
-        Integer masterFileX = masterFileImage.getWidth();
-        Integer masterFileY = masterFileImage.getHeight();
+        ImageHeader masterFileHeader = ImageHeader.read(masterFile.getAbsoluteFile());
+        Integer masterFileX = masterFileHeader.getWidth();
+        Integer masterFileY = masterFileHeader.getHeight();
         final Float aspectRatio = ((float) srcFileX * 100) / masterFileX;
         final Float srcFileY = (aspectRatio / 100) * masterFileY;
 
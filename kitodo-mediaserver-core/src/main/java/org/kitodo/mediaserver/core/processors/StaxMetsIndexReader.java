@@ -0,0 +1,397 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.processors;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.kitodo.mediaserver.core.api.IMetsIndexReader;
+
+/**
+ * Reads the index of a METS file in a single streaming pass using StAX.
+ *
+ * <p>
+ * The file section is read as it is, the links to pages, the table of content and the MODS section of the work are
+ * resolved by ID after the pass. The result is the same as of the {@link XsltMetsIndexReader}, but no intermediate XML
+ * document is created.
+ */
+public class StaxMetsIndexReader implements IMetsIndexReader {
+
+    private static final String METS_NS = "http://www.loc.gov/METS/";
+    private static final String XLINK_NS = "http://www.w3.org/1999/xlink";
+    private static final String MODS_NS = "http://www.loc.gov/mods/v3";
+
+    /**
+     * The path of the MODS root element in a dmdSec, innermost element first.
+     */
+    private static final String[] MODS_PATH = {"mods:mods", "xmlData", "mdWrap", "dmdSec"};
+
+    /**
+     * The dmdSec of the work if the logical structMap doesn't link one, like in getWorkData.xsl.
+     */
+    private static final String DEFAULT_DMDSEC_ID = "DMDLOG_0000";
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Reads a METS file.
+     *
+     * @param mets the METS file
+     * @return the index of the METS file
+     * @throws Exception on errors
+     */
+    @Override
+    public MetsIndex read(File mets) throws Exception {
+        Parser parser = new Parser();
+        try (InputStream input = Files.newInputStream(mets.toPath())) {
+            XMLStreamReader reader;
+            synchronized (INPUT_FACTORY) {
+                reader = INPUT_FACTORY.createXMLStreamReader(input);
+            }
+            try {
+                parser.parse(reader);
+            } finally {
+                reader.close();
+            }
+        }
+        return parser.createIndex();
+    }
+
+    /**
+     * The state of reading one METS file.
+     */
+    private static class Parser {
+
+        /**
+         * The local names of the open METS elements, the local names of MODS elements prefixed by "mods:" and an empty
+         * string for elements of other namespaces.
+         */
+        private final Deque<String> path = new ArrayDeque<>();
+
+        private final List<MetsFile> files = new ArrayList<>();
+        private final List<String> rootFileIds = new ArrayList<>();
+        private final Map<String, Integer> pageOrderByFileId = new HashMap<>();
+        private final Map<String, Integer> pageOrderByPhysId = new HashMap<>();
+        private final Map<String, String> physIdByLogId = new HashMap<>();
+        private final List<LogicalDiv> logicalRoots = new ArrayList<>();
+        private final Deque<LogicalDiv> logicalDivs = new ArrayDeque<>();
+        private final Map<String, ModsData> modsByDmdSecId = new HashMap<>();
+        private final List<String> dois = new ArrayList<>();
+
+        private String fileGrp;
+        private MetsFile file;
+        private String structMapType;
+        private int structMapDepth;
+        private boolean firstPhysicalRoot;
+        private boolean inFirstPhysicalRoot;
+        private Integer pageOrder;
+        private boolean topLevelStructMap;
+        private String rootDmdSecId;
+        private String childDmdSecId;
+
+        private String dmdSecId;
+        private boolean topLevelDmdSec;
+        private ModsData mods;
+        private boolean inHostItem;
+
+        /**
+         * The list to add the text of the current element to, null if the text isn't needed.
+         */
+        private List<String> textTarget;
+        private int textDepth;
+        private final StringBuilder text = new StringBuilder();
+
+        void parse(XMLStreamReader reader) throws XMLStreamException {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = getName(reader);
+                    startElement(reader, name);
+                    path.push(name);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    endElement(path.pop());
+                } else if (textTarget != null && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA
+                    || event == XMLStreamConstants.SPACE)) {
+                    text.append(reader.getText());
+                }
+            }
+        }
+
+        private static String getName(XMLStreamReader reader) {
+            if (METS_NS.equals(reader.getNamespaceURI())) {
+                return reader.getLocalName();
+            }
+            return MODS_NS.equals(reader.getNamespaceURI()) ? "mods:" + reader.getLocalName() : "";
+        }
+
+        private void startElement(XMLStreamReader reader, String name) {
+            int depth = path.size();
+            if (depth == 2 && "fileGrp".equals(name) && isPath("fileSec", "mets")) {
+                fileGrp = reader.getAttributeValue(null, "USE");
+            } else if (depth == 3 && "file".equals(name) && isPath("fileGrp", "fileSec", "mets")) {
+                file = new MetsFile(reader.getAttributeValue(null, "ID"), fileGrp, null,
+                    reader.getAttributeValue(null, "MIMETYPE"), null);
+                file.setChecksum(reader.getAttributeValue(null, "CHECKSUM"));
+                file.setChecksumType(reader.getAttributeValue(null, "CHECKSUMTYPE"));
+                files.add(file);
+            } else if (depth == 4 && "FLocat".equals(name) && file != null && file.getUrl() == null) {
+                file.setUrl(reader.getAttributeValue(XLINK_NS, "href"));
+            } else if ("structMap".equals(name)) {
+                structMapType = reader.getAttributeValue(null, "TYPE");
+                structMapDepth = depth;
+                topLevelStructMap = depth == 1 && isPath("mets");
+                firstPhysicalRoot = true;
+            } else if (structMapType != null && ("div".equals(name) || "fptr".equals(name))) {
+                startStructMapElement(reader, name, depth - structMapDepth);
+            } else if ("smLink".equals(name) && "structLink".equals(path.peek())) {
+                physIdByLogId.putIfAbsent(reader.getAttributeValue(XLINK_NS, "from"), reader.getAttributeValue(XLINK_NS, "to"));
+            } else if ("dmdSec".equals(name)) {
+                dmdSecId = reader.getAttributeValue(null, "ID");
+                topLevelDmdSec = depth == 1 && isPath("mets");
+            } else if (name.startsWith("mods:")) {
+                startModsElement(reader, name);
+            }
+        }
+
+        /**
+         * Handles a MODS element, collecting the work data of the dmdSec like getWorkData.xsl and the DOIs like
+         * getDoiFromMets.xsl.
+         */
+        private void startModsElement(XMLStreamReader reader, String name) {
+            if ("mods:mods".equals(name) && isPath("xmlData", "mdWrap", "dmdSec")) {
+                mods = dmdSecId != null ? modsByDmdSecId.computeIfAbsent(dmdSecId, key -> new ModsData()) : new ModsData();
+            } else if (mods == null) {
+                return;
+            } else if ("mods:title".equals(name) && isModsPath("mods:titleInfo")) {
+                captureText(mods.titles);
+            } else if ("mods:recordIdentifier".equals(name) && isModsPath("mods:recordInfo")) {
+                captureText(mods.workIds);
+            } else if ("mods:recordIdentifier".equals(name) && inHostItem && isModsPath("mods:recordInfo", "mods:relatedItem")) {
+                captureText(mods.hostIds);
+            } else if ("mods:relatedItem".equals(name) && isModsPath()) {
+                inHostItem = "host".equals(reader.getAttributeValue(null, "type"));
+            } else if ("mods:classification".equals(name) && isModsPath()
+                && "ivdcc".equals(reader.getAttributeValue(null, "authority"))) {
+                captureText(mods.collections);
+            } else if ("mods:identifier".equals(name) && topLevelDmdSec && isModsPath()
+                && "doi".equals(reader.getAttributeValue(null, "type"))) {
+                captureText(dois);
+            }
+        }
+
+        private void captureText(List<String> target) {
+            textTarget = target;
+            textDepth = path.size();
+            text.setLength(0);
+        }
+
+        /**
+         * Handles a div or fptr element in a structMap.
+         *
+         * @param level the level below the structMap element, 1 for the root div
+         */
+        private void startStructMapElement(XMLStreamReader reader, String name, int level) {
+            if ("PHYSICAL".equals(structMapType)) {
+                if ("div".equals(name) && level == 1) {
+                    inFirstPhysicalRoot = firstPhysicalRoot;
+                    firstPhysicalRoot = false;
+                } else if ("fptr".equals(name) && level == 2) {
+                    rootFileIds.add(reader.getAttributeValue(null, "FILEID"));
+                } else if ("div".equals(name) && level == 2) {
+                    pageOrder = parseOrder(reader.getAttributeValue(null, "ORDER"));
+                    if (inFirstPhysicalRoot) {
+                        pageOrderByPhysId.putIfAbsent(reader.getAttributeValue(null, "ID"), pageOrder);
+                    }
+                } else if ("fptr".equals(name) && level == 3 && pageOrder != null) {
+                    pageOrderByFileId.putIfAbsent(reader.getAttributeValue(null, "FILEID"), pageOrder);
+                }
+            } else if ("LOGICAL".equals(structMapType) && "div".equals(name) && level == logicalDivs.size() + 1) {
+                LogicalDiv div = new LogicalDiv(reader.getAttributeValue(null, "ID"), reader.getAttributeValue(null, "LABEL"),
+                    reader.getAttributeValue(null, "TYPE"));
+                String dmdId = reader.getAttributeValue(null, "DMDID");
+                if (topLevelStructMap && level == 1 && rootDmdSecId == null) {
+                    rootDmdSecId = dmdId;
+                } else if (topLevelStructMap && level == 2 && childDmdSecId == null) {
+                    childDmdSecId = dmdId;
+                }
+                if (logicalDivs.isEmpty()) {
+                    logicalRoots.add(div);
+                } else {
+                    logicalDivs.peek().children.add(div);
+                }
+                logicalDivs.push(div);
+            }
+        }
+
+        private void endElement(String name) {
+            int depth = path.size();
+            if (textTarget != null && depth == textDepth) {
+                textTarget.add(text.toString());
+                textTarget = null;
+            }
+            if ("file".equals(name) && depth == 3) {
+                file = null;
+            } else if ("fileGrp".equals(name) && depth == 2) {
+                fileGrp = null;
+            } else if ("structMap".equals(name) && depth == structMapDepth) {
+                structMapType = null;
+                logicalDivs.clear();
+            } else if (structMapType != null && "div".equals(name)) {
+                int level = depth - structMapDepth;
+                if ("PHYSICAL".equals(structMapType) && level == 2) {
+                    pageOrder = null;
+                } else if ("LOGICAL".equals(structMapType) && level == logicalDivs.size()) {
+                    logicalDivs.pop();
+                }
+            } else if ("mods:relatedItem".equals(name)) {
+                inHostItem = false;
+            } else if ("mods:mods".equals(name) && isPath("xmlData", "mdWrap", "dmdSec")) {
+                mods = null;
+            } else if ("dmdSec".equals(name)) {
+                dmdSecId = null;
+                topLevelDmdSec = false;
+            }
+        }
+
+        /**
+         * Checks the path of the current element below the MODS root element of a dmdSec.
+         *
+         * @param names the names of the elements between the MODS root element and the current element, innermost first
+         */
+        private boolean isModsPath(String... names) {
+            String[] fullPath = Arrays.copyOf(names, names.length + MODS_PATH.length);
+            System.arraycopy(MODS_PATH, 0, fullPath, names.length, MODS_PATH.length);
+            return isPath(fullPath);
+        }
+
+        private boolean isPath(String... names) {
+            int index = 0;
+            for (String element : path) {
+                if (index == names.length || !element.equals(names[index])) {
+                    return index == names.length;
+                }
+                index++;
+            }
+            return index == names.length;
+        }
+
+        MetsIndex createIndex() {
+            for (MetsFile metsFile : files) {
+                metsFile.setPageOrder(pageOrderByFileId.get(metsFile.getId()));
+            }
+
+            // like tocFromMets.xsl: the sections of all volumes of multivolume works, then of monographs
+            List<TocItem> tocItems = new ArrayList<>();
+            for (LogicalDiv root : logicalRoots) {
+                for (LogicalDiv volume : root.children) {
+                    if ("volume".equals(volume.type)) {
+                        addTocItems(volume.children, tocItems);
+                    }
+                }
+            }
+            for (LogicalDiv root : logicalRoots) {
+                if ("monograph".equals(root.type)) {
+                    addTocItems(root.children, tocItems);
+                }
+            }
+            Toc toc = new Toc();
+            toc.setTocItems(tocItems.isEmpty() ? null : tocItems);
+
+            return new MetsIndex(files, rootFileIds, toc, createWorkData());
+        }
+
+        private MetsWorkData createWorkData() {
+            String workDmdSecId = rootDmdSecId != null ? rootDmdSecId : childDmdSecId != null ? childDmdSecId
+                : DEFAULT_DMDSEC_ID;
+            ModsData workMods = modsByDmdSecId.getOrDefault(workDmdSecId, new ModsData());
+
+            List<String> titles = new ArrayList<>();
+            for (LogicalDiv root : logicalRoots) {
+                if (root.label != null) {
+                    titles.add(root.label);
+                }
+            }
+            titles.addAll(workMods.titles);
+            return new MetsWorkData(workMods.workIds, titles, workMods.hostIds, workMods.collections, dois);
+        }
+
+        private void addTocItems(List<LogicalDiv> divs, List<TocItem> tocItems) {
+            for (LogicalDiv div : divs) {
+                if (div.label == null && div.type == null) {
+                    continue;
+                }
+                TocItem item = new TocItem();
+                item.setId(div.id);
+                item.setName(div.label != null ? div.label : div.type);
+                item.setType(div.type);
+                // sections without a page get 0, like the empty attribute read by the XSLT reader
+                item.setPageNumber(pageOrderByPhysId.getOrDefault(physIdByLogId.get(div.id), 0));
+                List<TocItem> children = new ArrayList<>();
+                addTocItems(div.children, children);
+                item.setChildren(children.isEmpty() ? null : children);
+                tocItems.add(item);
+            }
+        }
+
+        private static Integer parseOrder(String order) {
+            try {
+                return order != null ? Integer.valueOf(order.trim()) : null;
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The work data of a MODS section.
+     */
+    private static class ModsData {
+
+        private final List<String> workIds = new ArrayList<>();
+        private final List<String> titles = new ArrayList<>();
+        private final List<String> hostIds = new ArrayList<>();
+        private final List<String> collections = new ArrayList<>();
+    }
+
+    /**
+     * A div of the logical structMap.
+     */
+    private static class LogicalDiv {
+
+        private final String id;
+        private final String label;
+        private final String type;
+        private final List<LogicalDiv> children = new ArrayList<>();
+
+        LogicalDiv(String id, String label, String type) {
+            this.id = id;
+            this.label = label;
+            this.type = type;
+        }
+    }
+}
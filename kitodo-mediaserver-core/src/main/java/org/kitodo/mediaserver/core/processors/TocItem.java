@@ -30,6 +30,11 @@ public class TocItem {
      */
     private String type;
 
+    /**
+     * The ID of the logical structure element in the METS file.
+     */
+    private String id;
+
     private Integer pageNumber;
     private List<TocItem> children;
 
@@ -51,6 +56,15 @@ public class TocItem {
         this.type = type;
     }
 
+    @XmlAttribute
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
     @XmlAttribute
     public Integer getPageNumber() {
         return pageNumber;
@@ -0,0 +1,88 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.processors;
+
+import java.io.File;
+import java.io.StringReader;
+import java.io.StringWriter;
+import javax.annotation.PostConstruct;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import org.kitodo.mediaserver.core.api.IMetsIndexReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Reads the index of a METS file using XSLT.
+ */
+public class XsltMetsIndexReader implements IMetsIndexReader {
+
+    private ClassPathResource xslt;
+
+    private XsltTemplates xsltTemplates = new XsltTemplates();
+
+    private JAXBContext jaxbContext;
+
+    public ClassPathResource getXslt() {
+        return xslt;
+    }
+
+    public void setXslt(ClassPathResource xslt) {
+        this.xslt = xslt;
+    }
+
+    @Autowired
+    public void setXsltTemplates(XsltTemplates xsltTemplates) {
+        this.xsltTemplates = xsltTemplates;
+    }
+
+    /**
+     * Compiles the stylesheet at startup.
+     *
+     * @throws Exception if the stylesheet is invalid
+     */
+    @PostConstruct
+    public void init() throws Exception {
+        if (xslt != null) {
+            xsltTemplates.compile(xslt);
+        }
+    }
+
+    /**
+     * Reads a METS file.
+     *
+     * @param mets the METS file
+     * @return the index of the METS file
+     * @throws Exception on errors
+     */
+    @Override
+    public MetsIndex read(File mets) throws Exception {
+
+        // Transform METS file to the index XML format
+        StringWriter stringWriter = new StringWriter();
+        xsltTemplates.transform(xslt, new StreamSource(mets), new StreamResult(stringWriter), null);
+
+        // Load index XML format into MetsIndex object
+        Unmarshaller jaxbUnmarshaller = getJaxbContext().createUnmarshaller();
+        return (MetsIndex)jaxbUnmarshaller.unmarshal(new StringReader(stringWriter.toString()));
+    }
+
+    private synchronized JAXBContext getJaxbContext() throws JAXBException {
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(MetsIndex.class);
+        }
+        return jaxbContext;
+    }
+}
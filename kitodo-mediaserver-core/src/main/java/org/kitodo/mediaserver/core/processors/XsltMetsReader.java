@@ -16,18 +16,19 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import javax.annotation.PostConstruct;
 import javax.naming.ConfigurationException;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
 import org.kitodo.mediaserver.core.api.IMetsReader;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 
 /**
@@ -37,10 +38,29 @@ public class XsltMetsReader implements IMetsReader {
 
     private ClassPathResource xslt;
 
+    private XsltTemplates xsltTemplates = new XsltTemplates();
+
     public void setXslt(ClassPathResource xslt) {
         this.xslt = xslt;
     }
 
+    @Autowired
+    public void setXsltTemplates(XsltTemplates xsltTemplates) {
+        this.xsltTemplates = xsltTemplates;
+    }
+
+    /**
+     * Compiles the stylesheet at startup.
+     *
+     * @throws Exception if the stylesheet is invalid
+     */
+    @PostConstruct
+    public void init() throws Exception {
+        if (xslt != null) {
+            xsltTemplates.compile(xslt);
+        }
+    }
+
     /**
      * Reads data from a mets file and returns it as a distinct list of strings.
      *
@@ -63,14 +83,14 @@ public class XsltMetsReader implements IMetsReader {
             throw new IllegalArgumentException("The mets file " + mets.getAbsolutePath() + " is not a file");
         }
 
-        TransformerFactory factory = TransformerFactory.newInstance();
-        Transformer transformer = factory.newTransformer(new StreamSource(xslt.getInputStream()));
-
+        Map<String, String> parameterMap = new LinkedHashMap<>();
         Arrays.stream(parameter)
-                .forEach(param -> transformer.setParameter(param.getKey(), param.getValue()));
+                .forEach(param -> parameterMap.put(param.getKey(), param.getValue()));
 
         StringWriter stringWriter = new StringWriter();
-        transformer.transform(new StreamSource(new FileReader(mets)), new StreamResult(stringWriter));
+        try (FileReader reader = new FileReader(mets)) {
+            xsltTemplates.transform(xslt, new StreamSource(reader), new StreamResult(stringWriter), parameterMap);
+        }
 
         String[] resultArray = stringWriter
                 .toString()
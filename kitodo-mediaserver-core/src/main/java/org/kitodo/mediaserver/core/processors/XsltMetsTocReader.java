@@ -11,19 +11,21 @@
 
 package org.kitodo.mediaserver.core.processors;
 
+import java.io.InputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import javax.annotation.PostConstruct;
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import org.kitodo.mediaserver.core.api.ITocReader;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 
 /**
@@ -33,6 +35,10 @@ public class XsltMetsTocReader implements ITocReader {
 
     private ClassPathResource xslt;
 
+    private XsltTemplates xsltTemplates = new XsltTemplates();
+
+    private JAXBContext jaxbContext;
+
     public ClassPathResource getXslt() {
         return xslt;
     }
@@ -41,6 +47,23 @@ public class XsltMetsTocReader implements ITocReader {
         this.xslt = xslt;
     }
 
+    @Autowired
+    public void setXsltTemplates(XsltTemplates xsltTemplates) {
+        this.xsltTemplates = xsltTemplates;
+    }
+
+    /**
+     * Compiles the stylesheet at startup.
+     *
+     * @throws Exception if the stylesheet is invalid
+     */
+    @PostConstruct
+    public void init() throws Exception {
+        if (xslt != null) {
+            xsltTemplates.compile(xslt);
+        }
+    }
+
     /**
      * Read the given file and return the parsed TOC.
      *
@@ -52,14 +75,22 @@ public class XsltMetsTocReader implements ITocReader {
     public Toc read(Path file) throws Exception {
 
         // Transform METS file to TOC XML format
-        Transformer transformer = TransformerFactory.newInstance().newTransformer(new StreamSource(xslt.getInputStream()));
         StringWriter stringWriter = new StringWriter();
-        Source source = new StreamSource(Files.newInputStream(file));
-        Result result = new StreamResult(stringWriter);
-        transformer.transform(source, result);
+        try (InputStream input = Files.newInputStream(file)) {
+            Source source = new StreamSource(input);
+            Result result = new StreamResult(stringWriter);
+            xsltTemplates.transform(xslt, source, result, null);
+        }
 
         // Load TOC XML format into Toc object
-        Unmarshaller jaxbUnmarshaller = JAXBContext.newInstance(Toc.class).createUnmarshaller();
+        Unmarshaller jaxbUnmarshaller = getJaxbContext().createUnmarshaller();
         return (Toc)jaxbUnmarshaller.unmarshal(new StringReader(stringWriter.toString()));
     }
+
+    private synchronized JAXBContext getJaxbContext() throws JAXBException {
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(Toc.class);
+        }
+        return jaxbContext;
+    }
 }
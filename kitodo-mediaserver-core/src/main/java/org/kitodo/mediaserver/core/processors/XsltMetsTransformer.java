@@ -16,16 +16,17 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.PostConstruct;
 import javax.naming.ConfigurationException;
 import javax.xml.transform.Result;
-import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import org.apache.commons.io.FileUtils;
 import org.kitodo.mediaserver.core.api.IMetsTransformer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 
 /**
@@ -35,6 +36,8 @@ public class XsltMetsTransformer implements IMetsTransformer {
 
     private ClassPathResource xslt;
 
+    private XsltTemplates xsltTemplates = new XsltTemplates();
+
     public void setXslt(ClassPathResource xslt) {
         this.xslt = xslt;
     }
@@ -43,6 +46,23 @@ public class XsltMetsTransformer implements IMetsTransformer {
         this.xslt = xslt;
     }
 
+    @Autowired
+    public void setXsltTemplates(XsltTemplates xsltTemplates) {
+        this.xsltTemplates = xsltTemplates;
+    }
+
+    /**
+     * Compiles the stylesheet at startup.
+     *
+     * @throws Exception if the stylesheet is invalid
+     */
+    @PostConstruct
+    public void init() throws Exception {
+        if (xslt != null) {
+            xsltTemplates.compile(xslt);
+        }
+    }
+
     @Override
     public void transform(File sourceMets, File destinationMets, Map.Entry<String, String>... parameter)
         throws ConfigurationException, IOException, TransformerException {
@@ -64,11 +84,9 @@ public class XsltMetsTransformer implements IMetsTransformer {
             throw new IllegalArgumentException("The destinationMets file " + destinationMets.getAbsolutePath() + " is not a file");
         }
 
-        TransformerFactory factory = TransformerFactory.newInstance();
-        Transformer transformer = factory.newTransformer(new StreamSource(xslt.getInputStream()));
-
+        Map<String, String> parameterMap = new LinkedHashMap<>();
         Arrays.stream(parameter)
-            .forEach(param -> transformer.setParameter(param.getKey(), param.getValue()));
+            .forEach(param -> parameterMap.put(param.getKey(), param.getValue()));
 
         Result result;
         StringWriter stringWriter = null;
@@ -81,7 +99,9 @@ public class XsltMetsTransformer implements IMetsTransformer {
             result = new StreamResult(destinationMets);
         }
 
-        transformer.transform(new StreamSource(new FileReader(sourceMets)), result);
+        try (FileReader reader = new FileReader(sourceMets)) {
+            xsltTemplates.transform(xslt, new StreamSource(reader), result, parameterMap);
+        }
 
         if (stringWriter != null) {
             FileUtils.writeStringToFile(destinationMets, stringWriter.toString(), "utf-8");
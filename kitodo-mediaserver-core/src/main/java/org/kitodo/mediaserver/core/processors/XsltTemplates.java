@@ -0,0 +1,156 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.processors;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * A registry of compiled XSLT stylesheets.
+ *
+ * <p>
+ * Each stylesheet is compiled once to thread-safe {@link Templates}. A transformation only creates a lightweight
+ * {@link Transformer} from them. The XSLT readers compile their stylesheets at startup, so errors in stylesheets
+ * are found early.
+ */
+@Component
+@ManagedResource(objectName = "org.kitodo.mediaserver:type=XsltTemplates")
+public class XsltTemplates {
+
+    private final TransformerFactory factory = TransformerFactory.newInstance();
+
+    private final ConcurrentMap<String, Stylesheet> stylesheets = new ConcurrentHashMap<>();
+
+    private final AtomicLong compilations = new AtomicLong();
+
+    /**
+     * Gets the compiled stylesheet, compiling it on first use.
+     *
+     * @param xslt the stylesheet
+     * @return the compiled stylesheet
+     * @throws TransformerException if the stylesheet is invalid
+     * @throws IOException if the stylesheet can't be read
+     */
+    public Templates compile(Resource xslt) throws TransformerException, IOException {
+        return getStylesheet(xslt).templates;
+    }
+
+    /**
+     * Transforms a source with a stylesheet.
+     *
+     * @param xslt the stylesheet
+     * @param source the source document
+     * @param result the result of the transformation
+     * @param parameter stylesheet parameter, may be null
+     * @throws TransformerException on transformation errors
+     * @throws IOException if the stylesheet can't be read
+     */
+    public void transform(Resource xslt, Source source, Result result, Map<String, String> parameter)
+            throws TransformerException, IOException {
+        Stylesheet stylesheet = getStylesheet(xslt);
+        Transformer transformer = stylesheet.templates.newTransformer();
+        if (parameter != null) {
+            parameter.forEach(transformer::setParameter);
+        }
+        long start = System.nanoTime();
+        try {
+            transformer.transform(source, result);
+        } finally {
+            stylesheet.transformations.increment();
+            stylesheet.nanos.add(System.nanoTime() - start);
+        }
+    }
+
+    @ManagedAttribute(description = "Number of compiled stylesheets")
+    public long getCompilations() {
+        return compilations.get();
+    }
+
+    /**
+     * Describes the number and time of transformations of each compiled stylesheet.
+     *
+     * @return a line per stylesheet
+     */
+    @ManagedAttribute(description = "Transformations and their total and average time per stylesheet")
+    public String[] getStatistics() {
+        return stylesheets.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .map(entry -> {
+                long count = entry.getValue().transformations.sum();
+                long nanos = entry.getValue().nanos.sum();
+                return entry.getKey() + ": " + count + " transformations, " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms"
+                    + (count > 0 ? String.format(Locale.ENGLISH, ", %.2f ms average", nanos / 1e6 / count) : "");
+            })
+            .toArray(String[]::new);
+    }
+
+    private Stylesheet getStylesheet(Resource xslt) throws TransformerException, IOException {
+        String key = xslt.getDescription();
+        Stylesheet stylesheet = stylesheets.get(key);
+        if (stylesheet != null) {
+            return stylesheet;
+        }
+        // the factory isn't thread-safe, and a stylesheet must not be compiled twice
+        synchronized (factory) {
+            stylesheet = stylesheets.get(key);
+            if (stylesheet == null) {
+                try (InputStream input = xslt.getInputStream()) {
+                    stylesheet = new Stylesheet(factory.newTemplates(new StreamSource(input, getSystemId(xslt))));
+                }
+                compilations.incrementAndGet();
+                stylesheets.put(key, stylesheet);
+            }
+            return stylesheet;
+        }
+    }
+
+    /**
+     * Gets the location of a stylesheet to resolve imported stylesheets relative to it.
+     */
+    private String getSystemId(Resource xslt) {
+        try {
+            return xslt.getURL().toExternalForm();
+        } catch (IOException e) {
+            // stylesheets without a location can't import other stylesheets, but work otherwise
+            return null;
+        }
+    }
+
+    private static class Stylesheet {
+
+        private final Templates templates;
+        private final LongAdder transformations = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+
+        Stylesheet(Templates templates) {
+            this.templates = templates;
+        }
+    }
+}
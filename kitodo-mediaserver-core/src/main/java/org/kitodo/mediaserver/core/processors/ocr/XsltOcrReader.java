@@ -18,15 +18,17 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.PostConstruct;
 import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 import javax.xml.transform.Result;
 import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 import org.kitodo.mediaserver.core.api.IOcrReader;
+import org.kitodo.mediaserver.core.processors.XsltTemplates;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 
 /**
@@ -36,10 +38,31 @@ public class XsltOcrReader implements IOcrReader {
 
     private Map<String, ClassPathResource> formats = new HashMap<>();
 
+    private XsltTemplates xsltTemplates = new XsltTemplates();
+
+    private JAXBContext jaxbContext;
+
     public Map<String, ClassPathResource> getFormats() {
         return formats;
     }
 
+    @Autowired
+    public void setXsltTemplates(XsltTemplates xsltTemplates) {
+        this.xsltTemplates = xsltTemplates;
+    }
+
+    /**
+     * Compiles the stylesheets of all formats at startup.
+     *
+     * @throws Exception if a stylesheet is invalid
+     */
+    @PostConstruct
+    public void init() throws Exception {
+        for (ClassPathResource xslt : formats.values()) {
+            xsltTemplates.compile(xslt);
+        }
+    }
+
     @Override
     public OcrPage read(Path file) throws Exception {
 
@@ -63,16 +86,22 @@ public class XsltOcrReader implements IOcrReader {
         }
 
         // Transform OCR file to generic format
-        Transformer transformer = TransformerFactory.newInstance().newTransformer(new StreamSource(xslt.getInputStream()));
         StringWriter stringWriter = new StringWriter();
         Source source = new StreamSource(new StringReader(ocrContent));
 
         //Source source = new StreamSource(Files.newBufferedReader(file, StandardCharsets.UTF_8));
         Result result = new StreamResult(stringWriter);
-        transformer.transform(source, result);
+        xsltTemplates.transform(xslt, source, result, null);
 
         // Load OCR generic format into page object
-        Unmarshaller jaxbUnmarshaller = JAXBContext.newInstance(OcrPage.class).createUnmarshaller();
+        Unmarshaller jaxbUnmarshaller = getJaxbContext().createUnmarshaller();
         return (OcrPage) jaxbUnmarshaller.unmarshal(new StringReader(stringWriter.toString()));
     }
+
+    private synchronized JAXBContext getJaxbContext() throws JAXBException {
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(OcrPage.class);
+        }
+        return jaxbContext;
+    }
 }
@@ -156,7 +156,7 @@ public class ActionService {
      * @return the action instance bean
      * @throws Exception if there is no such bean or the bean is no IAction implementation
      */
-    private IAction getActionInstance(String actionName) throws Exception {
+    public IAction getActionInstance(String actionName) throws Exception {
         Object actionInstance;
 
         // Does the action bean exist?
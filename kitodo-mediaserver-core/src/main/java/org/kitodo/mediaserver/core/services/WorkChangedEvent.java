@@ -0,0 +1,31 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.services;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published when the data of a work was changed or the work was deleted.
+ */
+public class WorkChangedEvent extends ApplicationEvent {
+
+    private final String workId;
+
+    public WorkChangedEvent(Object source, String workId) {
+        super(source);
+        this.workId = workId;
+    }
+
+    public String getWorkId() {
+        return workId;
+    }
+}
@@ -22,6 +22,7 @@ import org.kitodo.mediaserver.core.db.specifications.WorkJpaSpecification;
 import org.kitodo.mediaserver.core.exceptions.WorkNotFoundException;
 import org.kitodo.mediaserver.core.processors.Operator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -36,6 +37,8 @@ public class WorkService {
 
     private ActionService actionService;
 
+    private ApplicationEventPublisher eventPublisher;
+
     public WorkRepository getWorkRepository() {
         return workRepository;
     }
@@ -45,6 +48,11 @@ public class WorkService {
         this.workRepository = workRepository;
     }
 
+    @Autowired
+    public void setEventPublisher(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
     @Autowired
     public void setActionService(ActionService actionService) {
         this.actionService = actionService;
@@ -100,6 +108,7 @@ public class WorkService {
      */
     public void updateWork(Work work) {
         workRepository.save(work);
+        eventPublisher.publishEvent(new WorkChangedEvent(this, work.getId()));
     }
 
     /**
@@ -139,5 +148,6 @@ public class WorkService {
      */
     public void deleteWork(Work work) {
         workRepository.delete(work);
+        eventPublisher.publishEvent(new WorkChangedEvent(this, work.getId()));
     }
 }
@@ -48,8 +48,9 @@ public class FileDeleter {
 
     /**
      * Deletes all files in a path (and empty folders) that are older than given time.
+     * A file is considered as old if it was neither modified nor accessed since then.
      * @param path path to a directory which should be cleared
-     * @param age timespam since last modified in seconds
+     * @param age timespam since last modified or accessed in seconds
      * @param keepRoot whether to keep the root folder or not
      * @throws IOException on access errors
      */
@@ -74,8 +75,9 @@ public class FileDeleter {
 
             @Override
             public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                // check the modified date and delete if older than limit
-                if (age == null || attrs.lastModifiedTime().toInstant().isBefore(limit)) {
+                // check the modified and accessed date and delete if older than limit
+                if (age == null || (attrs.lastModifiedTime().toInstant().isBefore(limit)
+                        && attrs.lastAccessTime().toInstant().isBefore(limit))) {
                     Files.deleteIfExists(file);
                 }
                 return FileVisitResult.CONTINUE;
@@ -15,10 +15,11 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.client.methods.CloseableHttpResponse;
@@ -30,6 +31,8 @@ import org.kitodo.mediaserver.core.config.FileserverProperties;
 import org.kitodo.mediaserver.core.config.MetsProperties;
 import org.kitodo.mediaserver.core.conversion.FileEntry;
 import org.kitodo.mediaserver.core.db.entities.Work;
+import org.kitodo.mediaserver.core.processors.MetsFile;
+import org.kitodo.mediaserver.core.processors.MetsIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.AbstractEnvironment;
 import org.springframework.core.env.EnumerablePropertySource;
@@ -163,6 +166,23 @@ public class MediaServerUtils {
 
     }
 
+    /**
+     * Gets a derivative file of a work using an URL. Preproduced derivatives in the work folder are preferred to
+     * derivatives in the fileserver cache.
+     *
+     * @param work the work
+     * @param url the url of the derivative
+     * @return the file, which may not exist
+     */
+    public File getDerivativeFileFromUrl(Work work, String url) {
+        File workFile = getWorkFileFromUrl(work, url, fileserverProperties.getRootUrl());
+        if (workFile.isFile() || url.startsWith("file://")) {
+            return workFile;
+        }
+        return new File(fileserverProperties.getCachePath(),
+            work.getId() + StringUtils.substringAfter(url, fileserverProperties.getRootUrl() + work.getId()));
+    }
+
     /**
      * Gets an internal path to a file of a given work from a url using work id as separator.
      *
@@ -189,41 +209,58 @@ public class MediaServerUtils {
     }
 
     /**
-     * Create a page map from METS results that may be used for conversion.
+     * Create a page map from a METS index that may be used for conversion.
      *
-     * @param metsResult the result map from the MetsResultParser
-     * @return a TreeMap with all files of the work
+     * @param index the index of the METS file
+     * @param work the work
+     * @param requestUrl if set, only the page containing the file with this URL is selected and its MIME type is the
+     *                   target MIME type; otherwise all pages are selected
+     * @param jpegFileGrp if set, the JPEG files of the pages in this file group are added
+     * @return a TreeMap with the selected files of the work, empty if the requested URL is not found
      */
-    public TreeMap<Integer, Map<String, FileEntry>> parseMetsFilesResult(Map<String, String> metsResult, Work work) {
-        return metsResult.entrySet().stream()
-            .collect(Collectors.toMap(
-                // key of Map
-                entry -> Integer.parseInt(entry.getKey()),
-                // value of Map
-                entry -> {
-                    String[] parts = entry.getValue().split("\\|", -1);
-                    Map<String, FileEntry> files = new HashMap<>();
-                    if (StringUtils.isNotBlank(parts[0])) {
-                        FileEntry fileEntry = new FileEntry();
-                        fileEntry.setFile(getWorkFileFromUrl(work, parts[0], fileserverProperties.getRootUrl()));
-                        fileEntry.setMimeType(parts[1]);
-                        files.put("master", fileEntry);
-                    }
-                    if (StringUtils.isNotBlank(parts[3])) {
-                        FileEntry fileEntry = new FileEntry();
-                        fileEntry.setFile(getWorkFileFromUrl(work, parts[3], fileserverProperties.getRootUrl()));
-                        files.put("fulltext", fileEntry);
-                    }
-                    if (StringUtils.isNotBlank(parts[2])) {
-                        FileEntry fileEntry = new FileEntry();
-                        fileEntry.setMimeType(parts[2]);
-                        files.put("target", fileEntry);
-                    }
-                    return files;
-                },
-                (oldValue, newValue) -> newValue,
-                TreeMap::new
-            ));
+    public TreeMap<Integer, Map<String, FileEntry>> getPages(MetsIndex index, Work work, String requestUrl, String jpegFileGrp) {
+        TreeMap<Integer, Map<String, FileEntry>> pages = new TreeMap<>();
+        Collection<Integer> pageOrders = index.getPageOrders();
+        String targetMime = null;
+        if (StringUtils.isNotEmpty(requestUrl)) {
+            MetsFile requestFile = index.getFileByUrl(requestUrl);
+            if (requestFile == null || requestFile.getPageOrder() == null) {
+                return pages;
+            }
+            pageOrders = Collections.singleton(requestFile.getPageOrder());
+            targetMime = requestFile.getMimeType();
+        }
+
+        for (int pageOrder : pageOrders) {
+            Map<String, FileEntry> files = new HashMap<>();
+            MetsFile master = index.getPageFile(pageOrder, metsProperties.getOriginalFileGrp());
+            if (master != null && StringUtils.isNotBlank(master.getUrl())) {
+                FileEntry fileEntry = new FileEntry();
+                fileEntry.setFile(getWorkFileFromUrl(work, master.getUrl(), fileserverProperties.getRootUrl()));
+                fileEntry.setMimeType(master.getMimeType());
+                files.put("master", fileEntry);
+            }
+            MetsFile fulltext = index.getPageFile(pageOrder, metsProperties.getFulltextFileGrp());
+            if (fulltext != null && StringUtils.isNotBlank(fulltext.getUrl())) {
+                FileEntry fileEntry = new FileEntry();
+                fileEntry.setFile(getWorkFileFromUrl(work, fulltext.getUrl(), fileserverProperties.getRootUrl()));
+                files.put("fulltext", fileEntry);
+            }
+            if (StringUtils.isNotBlank(targetMime)) {
+                FileEntry fileEntry = new FileEntry();
+                fileEntry.setMimeType(targetMime);
+                files.put("target", fileEntry);
+            }
+            MetsFile jpeg = StringUtils.isNotEmpty(jpegFileGrp) ? index.getPageFile(pageOrder, jpegFileGrp) : null;
+            if (jpeg != null && StringUtils.isNotBlank(jpeg.getUrl())) {
+                FileEntry fileEntry = new FileEntry();
+                fileEntry.setFile(getDerivativeFileFromUrl(work, jpeg.getUrl()));
+                fileEntry.setMimeType("image/jpeg");
+                files.put("jpeg", fileEntry);
+            }
+            pages.put(pageOrder, files);
+        }
+        return pages;
     }
 
     /**
@@ -0,0 +1,274 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import org.kitodo.mediaserver.core.api.IMetsIndexReader;
+import org.kitodo.mediaserver.core.config.MetsProperties;
+import org.kitodo.mediaserver.core.db.entities.Work;
+import org.kitodo.mediaserver.core.processors.MetsIndex;
+import org.kitodo.mediaserver.core.processors.MetsIndexFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * A bounded in-memory cache of METS indexes, so the METS file of a work is parsed only once for all requests and
+ * actions.
+ *
+ * <p>
+ * Indexes are cached by the identity of the METS file in the file system, so an index read by the importer is still
+ * found after the work folder was moved to its final place. The least recently used indexes are removed first. An
+ * index is read again if the METS file was replaced, modified or changed in size. Indexes are read from the binary
+ * index file next to the METS file (see {@link MetsIndexFile}) if it is up to date, so a restarted fileserver doesn't
+ * need to parse the METS files again. Concurrent misses for the same METS file read it only once and all get this
+ * index.
+ */
+@Component
+@ManagedResource(objectName = "org.kitodo.mediaserver:type=MetsIndexCache")
+public class MetsIndexCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetsIndexCache.class);
+
+    private IMetsIndexReader metsIndexReader;
+
+    private MetsProperties metsProperties;
+
+    private MediaServerUtils mediaServerUtils;
+
+    private final Map<Object, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ConcurrentMap<Object, CompletableFuture<MetsIndex>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidated = new AtomicLong();
+    private final AtomicLong indexFileReads = new AtomicLong();
+
+    @Autowired
+    public void setMetsIndexReader(IMetsIndexReader metsIndexReader) {
+        this.metsIndexReader = metsIndexReader;
+    }
+
+    @Autowired
+    public void setMetsProperties(MetsProperties metsProperties) {
+        this.metsProperties = metsProperties;
+    }
+
+    @Autowired
+    public void setMediaServerUtils(MediaServerUtils mediaServerUtils) {
+        this.mediaServerUtils = mediaServerUtils;
+    }
+
+    /**
+     * Gets the index of the METS file of a work.
+     *
+     * @param work the work
+     * @return the index
+     * @throws Exception if the METS file is not found or can't be read
+     */
+    public MetsIndex getIndex(Work work) throws Exception {
+        return getIndex(mediaServerUtils.getMetsFileForWork(work));
+    }
+
+    /**
+     * Gets the index of a METS file, e.g. of a work being imported.
+     *
+     * @param metsFile the METS file
+     * @return the index
+     * @throws Exception if the METS file can't be read
+     */
+    public MetsIndex getIndex(File metsFile) throws Exception {
+        if (metsProperties.getIndexCacheSize() <= 0) {
+            return readIndex(metsFile);
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(metsFile.toPath(), BasicFileAttributes.class);
+        // file systems without file keys fall back to the path, so moved files are read again
+        Object key = attributes.fileKey() != null ? attributes.fileKey() : metsFile.getAbsolutePath();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        long length = attributes.size();
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null) {
+                if (entry.isValid(lastModified, length)) {
+                    hits.incrementAndGet();
+                    return entry.index;
+                }
+                entries.remove(key);
+                invalidated.incrementAndGet();
+            }
+        }
+
+        misses.incrementAndGet();
+        CompletableFuture<MetsIndex> future = new CompletableFuture<>();
+        CompletableFuture<MetsIndex> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            // another thread may have cached the index just before
+            MetsIndex index = getCached(key, lastModified, length);
+            if (index == null) {
+                index = readIndex(metsFile);
+            }
+
+            // don't cache an index of a file that was changed while reading
+            if (metsFile.lastModified() == lastModified && metsFile.length() == length) {
+                synchronized (entries) {
+                    entries.put(key, new CacheEntry(index, lastModified, length));
+                    while (entries.size() > metsProperties.getIndexCacheSize()) {
+                        entries.remove(entries.keySet().iterator().next());
+                    }
+                }
+            }
+            future.complete(index);
+            return index;
+        } catch (Exception | Error e) {
+            // also errors like OutOfMemoryError, the waiting requests would never finish otherwise
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Writes the index file next to the METS file of a work, unless it is up to date. Index files are only written if
+     * enabled by {@code mets.indexFiles}.
+     *
+     * @param work the work
+     * @throws Exception if the METS file can't be read or the index file can't be written
+     */
+    public void writeIndexFile(Work work) throws Exception {
+        File metsFile = mediaServerUtils.getMetsFileForWork(work);
+        if (!metsProperties.isIndexFiles() || MetsIndexFile.isCurrent(metsFile)) {
+            return;
+        }
+        // the index file gets the state of the METS file before reading, so it is never newer than its content
+        long lastModified = metsFile.lastModified();
+        long length = metsFile.length();
+        MetsIndexFile.write(getIndex(metsFile), metsFile, lastModified, length);
+        LOGGER.debug("Wrote METS index file for work " + work.getId());
+    }
+
+    /**
+     * Removes all indexes from the cache.
+     */
+    @ManagedOperation(description = "Removes all indexes from the cache")
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidated.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    @ManagedAttribute(description = "Number of indexes taken from the cache")
+    public long getHits() {
+        return hits.get();
+    }
+
+    @ManagedAttribute(description = "Number of indexes not found in the cache")
+    public long getMisses() {
+        return misses.get();
+    }
+
+    @ManagedAttribute(description = "Number of indexes read from index files instead of METS files")
+    public long getIndexFileReads() {
+        return indexFileReads.get();
+    }
+
+    @ManagedAttribute(description = "Number of indexes removed because the METS file changed")
+    public long getInvalidated() {
+        return invalidated.get();
+    }
+
+    /**
+     * Gets the number of cached indexes.
+     *
+     * @return the number of cached indexes
+     */
+    @ManagedAttribute(description = "Number of cached indexes")
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Reads the index from the index file if it is up to date, otherwise from the METS file.
+     */
+    private MetsIndex readIndex(File metsFile) throws Exception {
+        if (metsProperties.isIndexFiles()) {
+            try {
+                MetsIndex index = MetsIndexFile.read(metsFile);
+                if (index != null) {
+                    indexFileReads.incrementAndGet();
+                    return index;
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Could not read METS index file, reading " + metsFile + ": " + e);
+            }
+        }
+        return metsIndexReader.read(metsFile);
+    }
+
+    private MetsIndex getCached(Object key, long lastModified, long length) {
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            return entry != null && entry.isValid(lastModified, length) ? entry.index : null;
+        }
+    }
+
+    private static MetsIndex await(CompletableFuture<MetsIndex> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception)e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static class CacheEntry {
+
+        private final MetsIndex index;
+        private final long lastModified;
+        private final long length;
+
+        CacheEntry(MetsIndex index, long lastModified, long length) {
+            this.index = index;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        boolean isValid(long lastModified, long length) {
+            return this.lastModified == lastModified && this.length == length;
+        }
+    }
+}
@@ -0,0 +1 @@
+ALTER TABLE `work` ADD COLUMN `generation` INT NOT NULL DEFAULT 0;
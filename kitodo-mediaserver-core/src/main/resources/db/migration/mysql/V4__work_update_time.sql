@@ -0,0 +1,2 @@
+ALTER TABLE `work` ADD COLUMN `update_time` DATETIME(6);
+CREATE INDEX `idx_work_update_time` ON `work` (`update_time`);
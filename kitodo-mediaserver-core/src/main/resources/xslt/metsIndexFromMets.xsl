@@ -0,0 +1,111 @@
+<?xml version="1.0" encoding="utf-8"?>
+<!--
+  ~ (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+  ~
+  ~ This file is part of the Kitodo project.
+  ~
+  ~ It is licensed under GNU General Public License version 3 or later.
+  ~
+  ~ For the full copyright and license information, please read the
+  ~ LICENSE file that was distributed with this source code.
+  -->
+
+<xsl:stylesheet version="1.0" xmlns:xsl="http://www.w3.org/1999/XSL/Transform"
+                xmlns:mets="http://www.loc.gov/METS/"
+                xmlns:xlink="http://www.w3.org/1999/xlink"
+                xmlns:mods="http://www.loc.gov/mods/v3">
+
+    <!-- the table of content is read by the imported stylesheet -->
+    <xsl:import href="tocFromMets.xsl"/>
+
+    <xsl:output indent="no"/>
+
+    <!--
+    Reads all files, pages, the table of content and the work data of a METS file in one pass.
+
+    Output must be like:
+    <metsIndex>
+        <rootFileId>FILE_0001_DOWNLOAD</rootFileId>
+        <file id="FILE_0001_ORIGINAL" fileGrp="ORIGINAL" url="http://..." mimeType="image/tiff" pageOrder="1"/>
+        ...
+        <workData>
+            <workId>BV002570873_1</workId>
+            <title>...</title>
+            <hostId>BV002570873</hostId>
+            <collection>...</collection>
+            <doi>...</doi>
+        </workData>
+        <toc>
+            ...
+        </toc>
+    </metsIndex>
+    -->
+
+    <xsl:key name="pageByFileId" match="mets:structMap[@TYPE='PHYSICAL']/mets:div/mets:div" use="mets:fptr/@FILEID"/>
+
+    <!-- the dmdSec of the work, like in getWorkData.xsl -->
+    <xsl:variable name="dmdsec_id">
+        <xsl:choose>
+            <xsl:when test="/mets:mets/mets:structMap[@TYPE='LOGICAL']/mets:div/@DMDID">
+                <xsl:value-of select="/mets:mets/mets:structMap[@TYPE='LOGICAL']/mets:div/@DMDID"/>
+            </xsl:when>
+            <xsl:when test="/mets:mets/mets:structMap[@TYPE='LOGICAL']/mets:div/mets:div/@DMDID">
+                <xsl:value-of select="/mets:mets/mets:structMap[@TYPE='LOGICAL']/mets:div/mets:div/@DMDID"/>
+            </xsl:when>
+            <xsl:otherwise>
+                <xsl:text>DMDLOG_0000</xsl:text>
+            </xsl:otherwise>
+        </xsl:choose>
+    </xsl:variable>
+
+    <xsl:variable name="mods" select="//mets:dmdSec[@ID=$dmdsec_id]/mets:mdWrap/mets:xmlData/mods:mods"/>
+
+    <xsl:template match="/">
+        <metsIndex>
+            <!-- files of the whole work, like the full PDF file -->
+            <xsl:for-each select="/mets:mets/mets:structMap[@TYPE='PHYSICAL']/mets:div/mets:fptr">
+                <rootFileId><xsl:value-of select="@FILEID"/></rootFileId>
+            </xsl:for-each>
+
+            <xsl:for-each select="/mets:mets/mets:fileSec/mets:fileGrp/mets:file">
+                <file id="{@ID}" fileGrp="{../@USE}" url="{mets:FLocat/@xlink:href}" mimeType="{@MIMETYPE}">
+                    <xsl:if test="@CHECKSUM">
+                        <xsl:attribute name="checksum"><xsl:value-of select="@CHECKSUM"/></xsl:attribute>
+                    </xsl:if>
+                    <xsl:if test="@CHECKSUMTYPE">
+                        <xsl:attribute name="checksumType"><xsl:value-of select="@CHECKSUMTYPE"/></xsl:attribute>
+                    </xsl:if>
+                    <xsl:variable name="page" select="key('pageByFileId', @ID)[1]"/>
+                    <xsl:if test="$page">
+                        <xsl:attribute name="pageOrder"><xsl:value-of select="$page/@ORDER"/></xsl:attribute>
+                    </xsl:if>
+                </file>
+            </xsl:for-each>
+
+            <workData>
+                <xsl:for-each select="$mods/mods:recordInfo/mods:recordIdentifier">
+                    <workId><xsl:value-of select="."/></workId>
+                </xsl:for-each>
+                <xsl:for-each select="//mets:structMap[@TYPE='LOGICAL']/mets:div/@LABEL">
+                    <title><xsl:value-of select="."/></title>
+                </xsl:for-each>
+                <xsl:for-each select="$mods/mods:titleInfo/mods:title">
+                    <title><xsl:value-of select="."/></title>
+                </xsl:for-each>
+                <xsl:for-each select="$mods/mods:relatedItem[@type='host']/mods:recordInfo/mods:recordIdentifier">
+                    <hostId><xsl:value-of select="."/></hostId>
+                </xsl:for-each>
+                <xsl:for-each select="$mods/mods:classification[@authority='ivdcc']">
+                    <collection><xsl:value-of select="."/></collection>
+                </xsl:for-each>
+                <!-- DOIs of all MODS sections, like in getDoiFromMets.xsl -->
+                <xsl:for-each select="/mets:mets/mets:dmdSec/mets:mdWrap/mets:xmlData/mods:mods/mods:identifier[@type='doi']">
+                    <doi><xsl:value-of select="."/></doi>
+                </xsl:for-each>
+            </workData>
+
+            <xsl:apply-imports/>
+        </metsIndex>
+    </xsl:template>
+
+</xsl:stylesheet>
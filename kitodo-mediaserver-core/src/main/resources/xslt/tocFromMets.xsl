@@ -19,7 +19,7 @@
     <!--
     Output must be like:
     <toc>
-        <tocItem name="xyz" type="chapter" pageNumber="123">
+        <tocItem id="LOG_0001" name="xyz" type="chapter" pageNumber="123">
             <tocItem name="abc" type="..." pageNumber="456"/>
             ...
         <tocItem>
@@ -55,6 +55,7 @@
                 <xsl:value-of select="//mets:structLink/mets:smLink[@xlink:from=$logId][1]/@xlink:to"/>
             </xsl:variable>
 
+            <xsl:attribute name="id"><xsl:value-of select="@ID"/></xsl:attribute>
             <xsl:attribute name="name">
                 <xsl:choose>
                     <xsl:when test="@LABEL">
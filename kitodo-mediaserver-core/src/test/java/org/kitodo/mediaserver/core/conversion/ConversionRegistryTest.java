@@ -0,0 +1,179 @@
+package org.kitodo.mediaserver.core.conversion;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the conversion registry.
+ */
+public class ConversionRegistryTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ConversionRegistry conversionRegistry;
+
+    @Before
+    public void init() {
+        conversionRegistry = new ConversionRegistry();
+    }
+
+    @Test
+    public void concurrentRequestsShareOneConversion() throws Exception {
+        // given
+        File target = new File(temporaryFolder.getRoot(), "derivative.jpg");
+        AtomicInteger conversions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        // when
+        List<Future<File>> results = new ArrayList<>();
+        results.add(executor.submit(() -> conversionRegistry.getOrConvert(target, file -> {
+            conversions.incrementAndGet();
+            started.countDown();
+            release.await();
+            Files.write(file.toPath(), "converted".getBytes());
+        })));
+        started.await();
+        for (int i = 0; i < 3; i++) {
+            results.add(executor.submit(() -> conversionRegistry.getOrConvert(target, file -> conversions.incrementAndGet())));
+        }
+        release.countDown();
+
+        // then
+        for (Future<File> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(target);
+        }
+        assertThat(conversions.get()).isEqualTo(1);
+        assertThat(target).hasContent("converted");
+        executor.shutdown();
+    }
+
+    @Test
+    public void errorIsPassedToWaitingRequests() throws Exception {
+        // given
+        File target = new File(temporaryFolder.getRoot(), "derivative.jpg");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // when
+        Future<File> first = executor.submit(() -> conversionRegistry.getOrConvert(target, file -> {
+            started.countDown();
+            release.await();
+            throw new OutOfMemoryError("Java heap space");
+        }));
+        started.await();
+        Future<File> second = executor.submit(() -> conversionRegistry.getOrConvert(target, file -> {
+            throw new IllegalStateException("must not convert");
+        }));
+        Thread.sleep(100);
+        release.countDown();
+
+        // then
+        assertThatThrownBy(() -> first.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(OutOfMemoryError.class);
+        assertThatThrownBy(() -> second.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        executor.shutdown();
+    }
+
+    @Test
+    public void existingFileIsNotConvertedAgain() throws Exception {
+        // given
+        File target = temporaryFolder.newFile("derivative.jpg");
+        Files.write(target.toPath(), "converted".getBytes());
+        AtomicInteger conversions = new AtomicInteger();
+
+        // when
+        File result = conversionRegistry.getOrConvert(target, file -> conversions.incrementAndGet());
+
+        // then
+        assertThat(result).isEqualTo(target);
+        assertThat(conversions.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void emptyFileIsConvertedAgain() throws Exception {
+        // given
+        File target = temporaryFolder.newFile("derivative.jpg");
+        AtomicInteger conversions = new AtomicInteger();
+
+        // when
+        File result = conversionRegistry.getOrConvert(target, file -> {
+            conversions.incrementAndGet();
+            Files.write(file.toPath(), "converted".getBytes());
+        });
+
+        // then
+        assertThat(result).hasContent("converted");
+        assertThat(conversions.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void failedConversionIsRetriedByNextRequest() throws Exception {
+        // given
+        File target = new File(temporaryFolder.getRoot(), "derivative.jpg");
+
+        // when
+        assertThatThrownBy(() -> conversionRegistry.getOrConvert(target, file -> {
+            throw new IllegalStateException("conversion failed");
+        })).isInstanceOf(IllegalStateException.class);
+        File result = conversionRegistry.getOrConvert(target, file -> Files.write(file.toPath(), "converted".getBytes()));
+
+        // then
+        assertThat(result).hasContent("converted");
+    }
+
+    @Test
+    public void awaitRunningReturnsNullWithoutConversion() throws Exception {
+        // given
+        File target = new File(temporaryFolder.getRoot(), "derivative.jpg");
+
+        // when
+        File result = conversionRegistry.awaitRunning(target, 1, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result).isNull();
+    }
+
+    @Test
+    public void awaitRunningWaitsForRunningConversion() throws Exception {
+        // given
+        File target = new File(temporaryFolder.getRoot(), "derivative.jpg");
+        CountDownLatch started = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.submit(() -> conversionRegistry.getOrConvert(target, file -> {
+            started.countDown();
+            Thread.sleep(500);
+            Files.write(file.toPath(), "converted".getBytes());
+        }));
+        started.await();
+
+        // when
+        assertThatThrownBy(() -> conversionRegistry.awaitRunning(target, 10, TimeUnit.MILLISECONDS))
+            .isInstanceOf(TimeoutException.class);
+        File result = conversionRegistry.awaitRunning(target, 10, TimeUnit.SECONDS);
+
+        // then
+        assertThat(result).isEqualTo(target);
+        assertThat(target).hasContent("converted");
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,176 @@
+package org.kitodo.mediaserver.core.conversion;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitodo.mediaserver.core.config.ConversionProperties;
+import org.kitodo.mediaserver.core.exceptions.HttpServiceUnavailableException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the image decoder.
+ */
+public class ImageDecoderTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ImageDecoder imageDecoder;
+
+    private ConversionProperties conversionProperties;
+
+    private File imageFile;
+
+    @Before
+    public void init() throws Exception {
+        imageFile = temporaryFolder.newFile("master.png");
+        ImageIO.write(new BufferedImage(600, 400, BufferedImage.TYPE_3BYTE_BGR), "png", imageFile);
+
+        conversionProperties = new ConversionProperties();
+        conversionProperties.setDecodeMemoryBudget(1);
+        conversionProperties.setDecodeMemoryWait(0);
+
+        imageDecoder = new ImageDecoder();
+        imageDecoder.setConversionProperties(conversionProperties);
+        imageDecoder.init();
+    }
+
+    @Test
+    public void readsHeaderWithoutDecoding() throws Exception {
+        // when
+        ImageHeader header = ImageHeader.read(imageFile);
+
+        // then
+        assertThat(header.getWidth()).isEqualTo(600);
+        assertThat(header.getHeight()).isEqualTo(400);
+        assertThat(header.getBitsPerPixel()).isEqualTo(24);
+        assertThat(header.getDecodedSize(1)).isEqualTo(600 * 400 * 3);
+        assertThat(header.getDecodedSize(2)).isEqualTo(300 * 200 * 3);
+    }
+
+    @Test
+    public void reservesMemoryUntilClosed() throws Exception {
+        // when
+        ImageDecoder.DecodedImage image = imageDecoder.decode(imageFile);
+        long reserved = imageDecoder.getReserved();
+        image.close();
+
+        // then
+        assertThat(image.getImage().getWidth()).isEqualTo(600);
+        assertThat(reserved).isEqualTo(704L * 1024);
+        assertThat(imageDecoder.getReserved()).isEqualTo(0);
+    }
+
+    @Test
+    public void reducesResolutionIfMemoryIsExhausted() throws Exception {
+        // when
+        try (ImageDecoder.DecodedImage first = imageDecoder.decode(imageFile);
+             ImageDecoder.DecodedImage second = imageDecoder.decode(imageFile)) {
+
+            // then
+            assertThat(first.getImage().getWidth()).isEqualTo(600);
+            assertThat(second.getImage().getWidth()).isEqualTo(300);
+            assertThat(second.getHeader().getWidth()).isEqualTo(600);
+            assertThat(imageDecoder.getReducedDecodes()).isEqualTo(1);
+        }
+        assertThat(imageDecoder.getReserved()).isEqualTo(0);
+    }
+
+    @Test
+    public void failsIfReducedResolutionDoesNotFitInTime() throws Exception {
+        // given
+        List<ImageDecoder.DecodedImage> images = new ArrayList<>();
+
+        // when
+        try {
+            assertThatThrownBy(() -> {
+                for (int i = 0; i < 100; i++) {
+                    images.add(imageDecoder.decode(imageFile));
+                }
+            }).isInstanceOf(HttpServiceUnavailableException.class);
+        } finally {
+            for (ImageDecoder.DecodedImage image : images) {
+                image.close();
+            }
+        }
+
+        // then
+        assertThat(images.size()).isGreaterThan(2).isLessThan(100);
+        assertThat(imageDecoder.getReserved()).isEqualTo(0);
+    }
+
+    @Test
+    public void reducesResolutionOfImagesLargerThanTheBudget() throws Exception {
+        // given
+        File largeFile = temporaryFolder.newFile("large.png");
+        ImageIO.write(new BufferedImage(1000, 1000, BufferedImage.TYPE_3BYTE_BGR), "png", largeFile);
+
+        // when
+        try (ImageDecoder.DecodedImage image = imageDecoder.decode(largeFile)) {
+
+            // then
+            assertThat(image.getImage().getWidth()).isEqualTo(500);
+            assertThat(imageDecoder.getReserved()).isLessThanOrEqualTo(imageDecoder.getCapacity());
+        }
+    }
+
+    @Test
+    public void decodesOnlyPixelsNeededForTargetSize() throws Exception {
+        // when
+        try (ImageDecoder.DecodedImage image = imageDecoder.decode(imageFile, header -> new Dimension(50, 33))) {
+
+            // then
+            assertThat(image.getImage().getWidth()).isEqualTo(150);
+            assertThat(image.getHeader().getWidth()).isEqualTo(600);
+            assertThat(imageDecoder.getReducedSourceDecodes()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void keepsPixelsForScalingToTargetSize() throws Exception {
+        // when
+        try (ImageDecoder.DecodedImage image = imageDecoder.decode(imageFile, header -> new Dimension(150, 100))) {
+
+            // then
+            assertThat(image.getImage().getWidth()).isEqualTo(600);
+            assertThat(imageDecoder.getReducedSourceDecodes()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void decodesReducedResolutionSubfile() throws Exception {
+        // given
+        File tiffFile = temporaryFolder.newFile("master.tif");
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("tiff").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(tiffFile)) {
+            writer.setOutput(output);
+            writer.prepareWriteSequence(null);
+            writer.writeToSequence(new IIOImage(new BufferedImage(600, 400, BufferedImage.TYPE_3BYTE_BGR), null, null), null);
+            writer.writeToSequence(new IIOImage(new BufferedImage(300, 200, BufferedImage.TYPE_3BYTE_BGR), null, null), null);
+            writer.writeToSequence(new IIOImage(new BufferedImage(100, 100, BufferedImage.TYPE_3BYTE_BGR), null, null), null);
+            writer.endWriteSequence();
+        } finally {
+            writer.dispose();
+        }
+
+        // when
+        try (ImageDecoder.DecodedImage image = imageDecoder.decode(tiffFile, header -> new Dimension(200, 133))) {
+
+            // then
+            assertThat(image.getImage().getWidth()).isEqualTo(300);
+            assertThat(image.getHeader().getWidth()).isEqualTo(600);
+        }
+    }
+}
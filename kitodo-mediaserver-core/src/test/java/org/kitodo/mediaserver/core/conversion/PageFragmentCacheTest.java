@@ -0,0 +1,159 @@
+package org.kitodo.mediaserver.core.conversion;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
+import javax.imageio.ImageIO;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitodo.mediaserver.core.config.ConversionProperties;
+import org.kitodo.mediaserver.core.processors.ocr.OcrLine;
+import org.kitodo.mediaserver.core.processors.ocr.OcrPage;
+import org.kitodo.mediaserver.core.processors.ocr.OcrParagraph;
+import org.kitodo.mediaserver.core.processors.ocr.OcrWord;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the PDF page fragment cache.
+ */
+public class PageFragmentCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private PageFragmentCache fragmentCache;
+
+    private ConversionProperties.Pdf conversionPropertiesPdf;
+
+    private byte[] jpegData;
+
+    @Before
+    public void init() throws Exception {
+        conversionPropertiesPdf = new ConversionProperties.Pdf();
+        conversionPropertiesPdf.setFragmentCachePath(temporaryFolder.getRoot().getAbsolutePath());
+
+        fragmentCache = new PageFragmentCache();
+        fragmentCache.setConversionPropertiesPdf(conversionPropertiesPdf);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(60, 40, BufferedImage.TYPE_INT_RGB), "jpg", output);
+        jpegData = output.toByteArray();
+    }
+
+    @Test
+    public void isDisabledWithoutPath() {
+        // given
+        conversionPropertiesPdf.setFragmentCachePath("");
+
+        // then
+        assertThat(fragmentCache.isEnabled()).isFalse();
+    }
+
+    @Test
+    public void returnsNullForMissingFragment() {
+        // when
+        PageFragment fragment = fragmentCache.get(fragmentCache.getKey("missing"));
+
+        // then
+        assertThat(fragment).isNull();
+        assertThat(fragmentCache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void returnsStoredFragment() {
+        // given
+        OcrWord word = new OcrWord("Kitodo");
+        word.x = 10;
+        word.width = 30;
+        OcrLine line = new OcrLine();
+        line.words.add(word);
+        OcrParagraph paragraph = new OcrParagraph();
+        paragraph.lines.add(line);
+        OcrPage ocrPage = new OcrPage();
+        ocrPage.paragraphs.add(paragraph);
+        String key = fragmentCache.getKey("master.tif|1000");
+
+        // when
+        fragmentCache.put(key, new PageFragment(60, 40, jpegData, ocrPage));
+        PageFragment fragment = fragmentCache.get(key);
+
+        // then
+        assertThat(fragment).isNotNull();
+        assertThat(fragment.getWidth()).isEqualTo(60);
+        assertThat(fragment.getHeight()).isEqualTo(40);
+        assertThat(fragment.getJpegData()).isEqualTo(jpegData);
+        assertThat(fragment.getOcrPage().paragraphs.get(0).lines.get(0).words.get(0).word).isEqualTo("Kitodo");
+        assertThat(fragment.getOcrPage().paragraphs.get(0).lines.get(0).words.get(0).width).isEqualTo(30);
+        assertThat(fragmentCache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void storesFragmentWithoutOcrText() {
+        // given
+        String key = fragmentCache.getKey("master.tif|500");
+
+        // when
+        fragmentCache.put(key, new PageFragment(60, 40, jpegData, null));
+        PageFragment fragment = fragmentCache.get(key);
+
+        // then
+        assertThat(fragment.getOcrPage()).isNull();
+        assertThat(temporaryFolder.getRoot().toPath().resolve(key.substring(0, 2)).toFile().list())
+            .containsExactlyInAnyOrder(key + ".jpg", key + ".xml");
+    }
+
+    @Test
+    public void returnsNullForFragmentWithoutOcrFile() throws Exception {
+        // given
+        String key = fragmentCache.getKey("master.tif|1000");
+        fragmentCache.put(key, new PageFragment(60, 40, jpegData, new OcrPage()));
+
+        // when
+        Files.delete(getPath(key, ".xml"));
+        PageFragment fragment = fragmentCache.get(key);
+
+        // then
+        assertThat(fragment).isNull();
+        assertThat(fragmentCache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void deletesUnusedFragments() throws Exception {
+        // given
+        String unused = fragmentCache.getKey("master.tif|1000");
+        String used = fragmentCache.getKey("master.tif|2000");
+        String fresh = fragmentCache.getKey("master.tif|3000");
+        fragmentCache.put(unused, new PageFragment(60, 40, jpegData, null));
+        fragmentCache.put(used, new PageFragment(60, 40, jpegData, null));
+        setOld(unused);
+        setOld(used);
+        fragmentCache.get(used);
+        fragmentCache.put(fresh, new PageFragment(60, 40, jpegData, null));
+
+        // when
+        fragmentCache.deleteOld(3600L);
+
+        // then
+        assertThat(fragmentCache.get(unused)).isNull();
+        assertThat(getPath(used, ".xml")).exists();
+        assertThat(fragmentCache.get(used)).isNotNull();
+        assertThat(fragmentCache.get(fresh)).isNotNull();
+        assertThat(temporaryFolder.getRoot()).exists();
+    }
+
+    private void setOld(String key) throws Exception {
+        FileTime old = FileTime.fromMillis(System.currentTimeMillis() - 86400000L);
+        Files.getFileAttributeView(getPath(key, ".jpg"), BasicFileAttributeView.class).setTimes(old, old, null);
+        Files.getFileAttributeView(getPath(key, ".xml"), BasicFileAttributeView.class).setTimes(old, old, null);
+    }
+
+    private Path getPath(String key, String suffix) {
+        return temporaryFolder.getRoot().toPath().resolve(key.substring(0, 2)).resolve(key + suffix);
+    }
+}
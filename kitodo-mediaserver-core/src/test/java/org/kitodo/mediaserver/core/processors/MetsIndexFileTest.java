@@ -0,0 +1,100 @@
+package org.kitodo.mediaserver.core.processors;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.ResourceUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the binary METS index file.
+ */
+public class MetsIndexFileTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File metsFile;
+
+    private MetsIndex index;
+
+    @Before
+    public void init() throws Exception {
+        metsFile = temporaryFolder.newFile("BV037808438.xml");
+        Files.copy(ResourceUtils.getFile("classpath:mets/BV037808438.xml").toPath(), metsFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+        index = new StaxMetsIndexReader().read(metsFile);
+    }
+
+    @Test
+    public void readsWrittenIndex() throws Exception {
+        // when
+        MetsIndexFile.write(index, metsFile, metsFile.lastModified(), metsFile.length());
+        MetsIndex read = MetsIndexFile.read(metsFile);
+
+        // then
+        assertThat(MetsIndexFile.getIndexFile(metsFile).getName()).isEqualTo("BV037808438.index");
+        assertThat(MetsIndexFile.isCurrent(metsFile)).isTrue();
+        assertThat(read.getFiles()).usingFieldByFieldElementComparator().isEqualTo(index.getFiles());
+        assertThat(read.getRootFileIds()).isEqualTo(index.getRootFileIds());
+        assertThat(read.getWorkFileUrl("DOWNLOAD")).isEqualTo("http://localhost:8980/files/BV037808438/BV037808438.pdf");
+        assertThat(PageRange.ofSection(read.getToc(), "LOG_0006", 217).toString()).isEqualTo("21-72");
+        assertThat(read.getToc().getTocItems()).usingElementComparatorIgnoringFields("children")
+            .isEqualTo(index.getToc().getTocItems());
+        assertThat(read.getWorkData().getWorkId()).isEqualTo(index.getWorkData().getWorkId()).isNotNull();
+        assertThat(read.getWorkData().getTitles()).isEqualTo(index.getWorkData().getTitles());
+    }
+
+    @Test
+    public void ignoresIndexOfChangedMetsFile() throws Exception {
+        // given
+        MetsIndexFile.write(index, metsFile, metsFile.lastModified(), metsFile.length());
+
+        // when
+        metsFile.setLastModified(metsFile.lastModified() + 10000);
+
+        // then
+        assertThat(MetsIndexFile.isCurrent(metsFile)).isFalse();
+        assertThat(MetsIndexFile.read(metsFile)).isNull();
+    }
+
+    @Test
+    public void returnsNullWithoutIndexFile() throws Exception {
+        assertThat(MetsIndexFile.isCurrent(metsFile)).isFalse();
+        assertThat(MetsIndexFile.read(metsFile)).isNull();
+    }
+
+    @Test
+    public void rejectsCorruptCounts() throws Exception {
+        // given
+        MetsIndexFile.write(index, metsFile, metsFile.lastModified(), metsFile.length());
+
+        // when
+        writeStringCount(-5);
+
+        // then
+        assertThatThrownBy(() -> MetsIndexFile.read(metsFile)).isInstanceOf(IOException.class);
+
+        // when
+        writeStringCount(Integer.MAX_VALUE);
+
+        // then
+        assertThatThrownBy(() -> MetsIndexFile.read(metsFile)).isInstanceOf(IOException.class);
+    }
+
+    private void writeStringCount(int count) throws Exception {
+        // the number of strings follows the header of 24 bytes
+        try (RandomAccessFile file = new RandomAccessFile(MetsIndexFile.getIndexFile(metsFile), "rw")) {
+            file.seek(24);
+            file.writeInt(count);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.kitodo.mediaserver.core.processors;
+
+import java.util.Arrays;
+import java.util.TreeMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitodo.mediaserver.core.exceptions.ValidationException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.ResourceUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for page ranges.
+ */
+public class PageRangeTest {
+
+    private Toc toc;
+
+    @Before
+    public void init() throws Exception {
+        XsltMetsTocReader tocReader = new XsltMetsTocReader();
+        tocReader.setXslt(new ClassPathResource("xslt/tocFromMets.xsl"));
+        toc = tocReader.read(ResourceUtils.getFile("classpath:mets/BV037808438.xml").toPath());
+    }
+
+    @Test
+    public void parsesRanges() throws Exception {
+        assertThat(PageRange.parse("12-40", 100).toString()).isEqualTo("12-40");
+        assertThat(PageRange.parse("12", 100).toString()).isEqualTo("12-12");
+        assertThat(PageRange.parse("12-", 100).toString()).isEqualTo("12-100");
+        assertThat(PageRange.parse("-40", 100).toString()).isEqualTo("1-40");
+        assertThat(PageRange.parse("90-120", 100).toString()).isEqualTo("90-100");
+    }
+
+    @Test(expected = ValidationException.class)
+    public void rejectsInvalidRange() throws Exception {
+        PageRange.parse("12-a", 100);
+    }
+
+    @Test(expected = ValidationException.class)
+    public void rejectsRangeWithoutPages() throws Exception {
+        PageRange.parse("120-130", 100);
+    }
+
+    @Test
+    public void getsPagesOfSection() throws Exception {
+        assertThat(PageRange.ofSection(toc, "LOG_0006", 217).toString()).isEqualTo("21-72");
+        assertThat(PageRange.ofSection(toc, "LOG_0007", 217).toString()).isEqualTo("21-26");
+    }
+
+    @Test(expected = ValidationException.class)
+    public void rejectsUnknownSection() throws Exception {
+        PageRange.ofSection(toc, "LOG_9999", 217);
+    }
+
+    @Test
+    public void rejectsSectionWithoutPageFromStaxReader() throws Exception {
+        // given
+        Toc staxToc = new StaxMetsIndexReader().read(ResourceUtils.getFile("classpath:mets/BV024625242.xml")).getToc();
+
+        // then
+        assertThat(staxToc.getTocItems()).extracting(TocItem::getPageNumber).containsOnly(0);
+        assertThatThrownBy(() -> PageRange.ofSection(staxToc, "LOG_0005", 100))
+            .isInstanceOf(ValidationException.class)
+            .hasMessageContaining("has no pages");
+        assertThat(new PageRange(1, 100).trim(staxToc, pages(100)).getTocItems()).isEmpty();
+    }
+
+    @Test
+    public void skipsNextSectionWithoutPage() throws Exception {
+        // given
+        TocItem pageless = new StaxMetsIndexReader().read(ResourceUtils.getFile("classpath:mets/BV024625242.xml"))
+            .getToc().getTocItems().get(3);
+        Toc sections = new Toc();
+        sections.setTocItems(Arrays.asList(tocItem("LOG_A", 3), pageless, tocItem("LOG_B", 10)));
+
+        // when
+        PageRange range = PageRange.ofSection(sections, "LOG_A", 20);
+
+        // then
+        assertThat(range.toString()).isEqualTo("3-9");
+        assertThat(range.trim(sections, range.select(pages(20))).getTocItems()).extracting(TocItem::getId).containsExactly("LOG_A");
+    }
+
+    @Test
+    public void selectsPages() {
+        // given
+        TreeMap<Integer, String> pages = new TreeMap<>();
+        for (int page = 1; page <= 10; page++) {
+            pages.put(page, "page " + page);
+        }
+
+        // when
+        TreeMap<Integer, String> selected = new PageRange(3, 5).select(pages);
+
+        // then
+        assertThat(selected.keySet()).containsExactly(3, 4, 5);
+    }
+
+    @Test
+    public void trimsTableOfContent() throws Exception {
+        // given
+        PageRange range = PageRange.ofSection(toc, "LOG_0006", 217);
+
+        // when
+        Toc trimmed = range.trim(toc, range.select(pages(217)));
+
+        // then
+        assertThat(trimmed.getTocItems()).hasSize(1);
+        TocItem section = trimmed.getTocItems().get(0);
+        assertThat(section.getId()).isEqualTo("LOG_0006");
+        assertThat(section.getPageNumber()).isEqualTo(1);
+        assertThat(section.getChildren()).extracting(TocItem::getPageNumber).containsExactly(1, 7, 10, 16, 19, 26, 34, 48);
+    }
+
+    @Test
+    public void movesChildrenOfItemsStartingBeforeRange() throws Exception {
+        // given
+        PageRange range = new PageRange(25, 40);
+
+        // when
+        Toc trimmed = range.trim(toc, range.select(pages(217)));
+
+        // then
+        assertThat(trimmed.getTocItems()).extracting(TocItem::getId).containsExactly("LOG_0008", "LOG_0009", "LOG_0010", "LOG_0011");
+        assertThat(trimmed.getTocItems()).extracting(TocItem::getPageNumber).containsExactly(3, 6, 12, 15);
+    }
+
+    @Test
+    public void numbersBookmarksBySelectedPages() {
+        // given
+        Toc sections = new Toc();
+        sections.setTocItems(Arrays.asList(tocItem("LOG_A", 3), tocItem("LOG_B", 5), tocItem("LOG_C", 7)));
+        TreeMap<Integer, String> pages = pages(10);
+        pages.remove(4);
+        pages.remove(5);
+        PageRange range = new PageRange(3, 8);
+
+        // when
+        Toc trimmed = range.trim(sections, range.select(pages));
+
+        // then
+        assertThat(trimmed.getTocItems()).extracting(TocItem::getId).containsExactly("LOG_A", "LOG_C");
+        assertThat(trimmed.getTocItems()).extracting(TocItem::getPageNumber).containsExactly(1, 3);
+    }
+
+    private static TreeMap<Integer, String> pages(int lastPage) {
+        TreeMap<Integer, String> pages = new TreeMap<>();
+        for (int page = 1; page <= lastPage; page++) {
+            pages.put(page, "page " + page);
+        }
+        return pages;
+    }
+
+    private static TocItem tocItem(String id, int pageNumber) {
+        TocItem item = new TocItem();
+        item.setId(id);
+        item.setName(id);
+        item.setPageNumber(pageNumber);
+        return item;
+    }
+}
@@ -0,0 +1,98 @@
+package org.kitodo.mediaserver.core.processors;
+
+import java.io.File;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.ResourceUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Unit tests for reading the index of a METS file using StAX.
+ */
+public class StaxMetsIndexReaderTest {
+
+    private StaxMetsIndexReader staxReader;
+
+    private XsltMetsIndexReader xsltReader;
+
+    @Before
+    public void init() {
+        staxReader = new StaxMetsIndexReader();
+        xsltReader = new XsltMetsIndexReader();
+        xsltReader.setXslt(new ClassPathResource("xslt/metsIndexFromMets.xsl"));
+    }
+
+    @Test
+    public void readsFilesPagesAndToc() throws Exception {
+        // when
+        MetsIndex index = staxReader.read(ResourceUtils.getFile("classpath:mets/BV037808438.xml"));
+
+        // then
+        assertThat(index.getFiles()).hasSize(1520);
+        assertThat(index.getPageOrders()).hasSize(217);
+        assertThat(index.getPageFile(21, "PRESENTATION").getUrl())
+            .isEqualTo("http://localhost:8980/files/BV037808438/rauselem_BV037808438_tif/rauselem_bv037808438_0021.tif");
+        assertThat(index.getPageFile(21, "PRESENTATION").getMimeType()).isEqualTo("image/tif");
+        assertThat(index.getWorkFileUrl("DOWNLOAD")).isEqualTo("http://localhost:8980/files/BV037808438/BV037808438.pdf");
+        assertThat(PageRange.ofSection(index.getToc(), "LOG_0006", 217).toString()).isEqualTo("21-72");
+    }
+
+    @Test
+    public void readsWorkData() throws Exception {
+        // when
+        MetsWorkData workData = staxReader.read(ResourceUtils.getFile("classpath:mets/doiTestMets.xml")).getWorkData();
+
+        // then
+        assertThat(workData.getWorkId()).isEqualTo("UA123");
+        assertThat(workData.getTitle()).isEqualTo("Flugblatt ; Flugblatt über die Gärten");
+        assertThat(workData.getHostId()).isEqualTo("UA");
+        assertThat(workData.getCollections()).containsExactly("Flugblätter", "Gartenbau");
+        assertThat(workData.getDois()).containsExactly("10.1234/UA123", "10.1234/UA123.1");
+    }
+
+    @Test
+    public void readsChecksums() throws Exception {
+        // when
+        MetsIndex index = staxReader.read(ResourceUtils.getFile("classpath:mets/doiTestMets.xml"));
+
+        // then
+        assertThat(index.getFiles("ORIGINAL")).extracting(MetsFile::getChecksum, MetsFile::getChecksumType)
+            .containsExactly(tuple("0cc175b9c0f1b6a831c399e269772661", "MD5"));
+    }
+
+    @Test
+    public void readsSameIndexAsXslt() throws Exception {
+        for (String name : new String[] {"BV037808438.xml", "BV024625242.xml", "flugblattTestMets.xml", "doiTestMets.xml"}) {
+            // given
+            File mets = ResourceUtils.getFile("classpath:mets/" + name);
+
+            // when
+            MetsIndex stax = staxReader.read(mets);
+            MetsIndex xslt = xsltReader.read(mets);
+
+            // then
+            assertThat(stax.getFiles()).usingFieldByFieldElementComparator().isEqualTo(xslt.getFiles());
+            assertThat(stax.getPageOrders()).isEqualTo(xslt.getPageOrders());
+            assertThat(stax.getWorkFileUrl("DOWNLOAD")).isEqualTo(xslt.getWorkFileUrl("DOWNLOAD"));
+            assertSameTocItems(stax.getToc().getTocItems(), xslt.getToc().getTocItems());
+            assertThat(stax.getWorkData()).isEqualToComparingOnlyGivenFields(xslt.getWorkData(),
+                "workIds", "titles", "hostIds", "collections", "dois");
+        }
+    }
+
+    private void assertSameTocItems(List<TocItem> actual, List<TocItem> expected) {
+        if (expected == null) {
+            assertThat(actual).isNull();
+            return;
+        }
+        assertThat(actual).hasSameSizeAs(expected);
+        for (int index = 0; index < expected.size(); index++) {
+            assertThat(actual.get(index)).isEqualToIgnoringGivenFields(expected.get(index), "children");
+            assertSameTocItems(actual.get(index).getChildren(), expected.get(index).getChildren());
+        }
+    }
+}
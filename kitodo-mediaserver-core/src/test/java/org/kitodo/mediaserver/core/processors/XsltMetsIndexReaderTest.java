@@ -0,0 +1,63 @@
+package org.kitodo.mediaserver.core.processors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.ResourceUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for reading the index of a METS file using XSLT.
+ */
+public class XsltMetsIndexReaderTest {
+
+    private MetsIndex index;
+
+    @Before
+    public void init() throws Exception {
+        XsltMetsIndexReader metsIndexReader = new XsltMetsIndexReader();
+        metsIndexReader.setXslt(new ClassPathResource("xslt/metsIndexFromMets.xsl"));
+        index = metsIndexReader.read(ResourceUtils.getFile("classpath:mets/BV037808438.xml"));
+    }
+
+    @Test
+    public void readsFilesAndPages() {
+        // when
+        MetsFile master = index.getPageFile(21, "PRESENTATION");
+
+        // then
+        assertThat(index.getFiles()).hasSize(1520);
+        assertThat(index.getPageOrders()).hasSize(217);
+        assertThat(index.getPageOrders().first()).isEqualTo(1);
+        assertThat(master.getId()).isEqualTo("FILE_0021_PRESENTATION");
+        assertThat(master.getMimeType()).isEqualTo("image/tif");
+        assertThat(master.getUrl())
+            .isEqualTo("http://localhost:8980/files/BV037808438/rauselem_BV037808438_tif/rauselem_bv037808438_0021.tif");
+        assertThat(index.getPageFile(21, "FULLTEXT").getId()).isEqualTo("FILE_0021_FULLTEXT");
+        assertThat(index.getPageFile(21, "UNKNOWN")).isNull();
+    }
+
+    @Test
+    public void findsFilesByUrlAndGroup() {
+        // when
+        MetsFile file = index.getFileByUrl(
+            "http://localhost:8980/files/BV037808438/rauselem_BV037808438_xml/rauselem_bv037808438_0021.xml");
+
+        // then
+        assertThat(file.getPageOrder()).isEqualTo(21);
+        assertThat(file.getFileGrp()).isEqualTo("FULLTEXT");
+        assertThat(index.getFileById("FILE_0021_FULLTEXT")).isSameAs(file);
+        assertThat(index.getFiles("FULLTEXT")).hasSize(217).contains(file);
+        assertThat(index.getFiles("UNKNOWN")).isEmpty();
+    }
+
+    @Test
+    public void readsWorkFileAndToc() {
+        // then
+        assertThat(index.getWorkFileUrl("DOWNLOAD")).isEqualTo("http://localhost:8980/files/BV037808438/BV037808438.pdf");
+        assertThat(index.getWorkFileUrl("PRESENTATION")).isNull();
+        assertThat(index.getFileById("FILE_FULLPDF_DOWNLOAD").getPageOrder()).isNull();
+        assertThat(index.getToc().getTocItems()).extracting(TocItem::getId).contains("LOG_0006");
+    }
+}
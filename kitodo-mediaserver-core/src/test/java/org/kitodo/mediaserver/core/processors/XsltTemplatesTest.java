@@ -0,0 +1,47 @@
+package org.kitodo.mediaserver.core.processors;
+
+import java.io.File;
+import java.io.StringWriter;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.ResourceUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the registry of compiled stylesheets.
+ */
+public class XsltTemplatesTest {
+
+    private XsltTemplates xsltTemplates;
+
+    private File metsFile;
+
+    @Before
+    public void init() throws Exception {
+        xsltTemplates = new XsltTemplates();
+        metsFile = ResourceUtils.getFile("classpath:mets/BV037808438.xml");
+    }
+
+    @Test
+    public void compilesStylesheetOnce() throws Exception {
+        // given
+        ClassPathResource xslt = new ClassPathResource("xslt/tocFromMets.xsl");
+
+        // when
+        StringWriter first = new StringWriter();
+        xsltTemplates.transform(xslt, new StreamSource(metsFile), new StreamResult(first), null);
+        StringWriter second = new StringWriter();
+        xsltTemplates.transform(new ClassPathResource("xslt/tocFromMets.xsl"), new StreamSource(metsFile),
+            new StreamResult(second), null);
+
+        // then
+        assertThat(xsltTemplates.getCompilations()).isEqualTo(1);
+        assertThat(second.toString()).isEqualTo(first.toString()).contains("LOG_0006");
+        assertThat(xsltTemplates.getStatistics()).hasSize(1);
+        assertThat(xsltTemplates.getStatistics()[0]).contains("tocFromMets.xsl").contains("2 transformations");
+    }
+}
@@ -3,22 +3,21 @@ package org.kitodo.mediaserver.core.util;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.hamcrest.Matchers.allOf;
-import static org.hamcrest.Matchers.anything;
-import static org.hamcrest.Matchers.hasEntry;
-import static org.hamcrest.Matchers.hasProperty;
-import static org.hamcrest.Matchers.is;
-import static org.hamcrest.Matchers.not;
-import static org.hamcrest.Matchers.nullValue;
 import org.junit.Before;
 import org.junit.Test;
 import org.kitodo.mediaserver.core.config.FileserverProperties;
+import org.kitodo.mediaserver.core.config.MetsProperties;
 import org.kitodo.mediaserver.core.conversion.FileEntry;
 import org.kitodo.mediaserver.core.db.entities.Work;
+import org.kitodo.mediaserver.core.processors.MetsFile;
+import org.kitodo.mediaserver.core.processors.MetsIndex;
+import org.kitodo.mediaserver.core.processors.MetsWorkData;
 
 /**
  * Tests for the utilities.
@@ -141,90 +140,45 @@ public class MediaServerUtilsTest {
     }
 
     @Test
-    public void parseMetsFilesResult() {
+    public void getPagesFromMetsIndex() {
         // given
         FileserverProperties fileserverProperties = new FileserverProperties();
         fileserverProperties.setRootUrl("http://a/");
+        fileserverProperties.setCachePath("/cache");
         mediaServerUtils.setFileserverProperties(fileserverProperties);
-
-        Map<String, String> metsResult = new HashMap<>();
-        metsResult.put("1", "http://a/UA123/image1.tif|image/tiff|image/jpeg|http://a/UA123/fulltext1.xml");
-        metsResult.put("2", "http://a/UA123/image2.tif|image/tiff|image/jpeg|http://a/UA123/fulltext2.xml");
-        metsResult.put("3", "http://a/UA123/image3.tif|image/tiff||http://a/UA123/fulltext3.xml");
-        metsResult.put("4", "http://a/UA123/image4.tif|image/tiff||");
+        MetsProperties metsProperties = new MetsProperties();
+        metsProperties.setOriginalFileGrp("ORIGINAL");
+        metsProperties.setFulltextFileGrp("FULLTEXT");
+        mediaServerUtils.setMetsProperties(metsProperties);
+
+        MetsIndex index = new MetsIndex(Arrays.asList(
+            new MetsFile("IMG1", "ORIGINAL", "http://a/UA123/image1.tif", "image/tiff", 1),
+            new MetsFile("TXT1", "FULLTEXT", "http://a/UA123/fulltext1.xml", "application/xml", 1),
+            new MetsFile("JPG1", "MAX", "http://a/UA123/jpeg/max/image1.jpg", "image/jpeg", 1),
+            new MetsFile("IMG2", "ORIGINAL", "http://a/UA123/image2.tif", "image/tiff", 2),
+            new MetsFile("JPG2", "MAX", "http://a/UA123/jpeg/max/image2.jpg", "image/jpeg", 2),
+            new MetsFile("PDF", "DOWNLOAD", "http://a/UA123/UA123.pdf", "application/pdf", null)
+        ), Collections.singletonList("PDF"), null, new MetsWorkData());
 
         Work work = new Work("UA123", "Flugblatt");
         work.setPath("/srv/path/UA123");
 
         // when
-        TreeMap<Integer, Map<String, FileEntry>> pages = mediaServerUtils.parseMetsFilesResult(metsResult, work);
-
-        //then
-        assertThat(pages).isNotNull().hasSize(4);
-
-        org.hamcrest.MatcherAssert.assertThat(pages, allOf(
-            hasEntry(
-                is(1),
-                allOf(
-                    hasEntry(is("master"), allOf(
-                        hasProperty("file", hasProperty("path", is("/srv/path/UA123/image1.tif"))),
-                        hasProperty("mimeType", is("image/tiff"))
-                    )),
-                    hasEntry(is("fulltext"), allOf(
-                        hasProperty("file", hasProperty("path", is("/srv/path/UA123/fulltext1.xml"))),
-                        hasProperty("mimeType", is(nullValue()))
-                    )),
-                    hasEntry(is("target"), allOf(
-                        hasProperty("file", is(nullValue())),
-                        hasProperty("mimeType", is("image/jpeg"))
-                    ))
-                )
-            ),
-            hasEntry(
-                is(2),
-                allOf(
-                    hasEntry(is("master"), allOf(
-                        hasProperty("file", hasProperty("path", is("/srv/path/UA123/image2.tif"))),
-                        hasProperty("mimeType", is("image/tiff"))
-                    )),
-                    hasEntry(is("fulltext"), allOf(
-                        hasProperty("file", hasProperty("path", is("/srv/path/UA123/fulltext2.xml"))),
-                        hasProperty("mimeType", is(nullValue()))
-                    )),
-                    hasEntry(is("target"), allOf(
-                        hasProperty("file", is(nullValue())),
-                        hasProperty("mimeType", is("image/jpeg"))
-                    ))
-                )
-            ),
-            hasEntry(
-                is(3),
-                allOf(
-                    hasEntry(is("master"), allOf(
-                        hasProperty("file", hasProperty("path", is("/srv/path/UA123/image3.tif"))),
-                        hasProperty("mimeType", is("image/tiff"))
-                    )),
-                    hasEntry(is("fulltext"), allOf(
-                        hasProperty("file", hasProperty("path", is("/srv/path/UA123/fulltext3.xml"))),
-                        hasProperty("mimeType", is(nullValue()))
-                    )),
-                    not(hasEntry(is("target"), anything()))
-                )
-            ),
-            hasEntry(
-                is(4),
-                allOf(
-                    hasEntry(is("master"), allOf(
-                        hasProperty("file", hasProperty("path", is("/srv/path/UA123/image4.tif"))),
-                        hasProperty("mimeType", is("image/tiff"))
-                    )),
-                    not(hasEntry(is("fulltext"), anything())),
-                    not(hasEntry(is("target"), anything()))
-                )
-            )
-        ));
-
+        TreeMap<Integer, Map<String, FileEntry>> pages = mediaServerUtils.getPages(index, work, null, "MAX");
+        TreeMap<Integer, Map<String, FileEntry>> requested = mediaServerUtils.getPages(index, work,
+            "http://a/UA123/jpeg/max/image2.jpg", null);
+
+        // then
+        assertThat(pages.keySet()).containsExactly(1, 2);
+        assertThat(pages.get(1).get("master").getFile().getPath()).isEqualTo("/srv/path/UA123/image1.tif");
+        assertThat(pages.get(1).get("master").getMimeType()).isEqualTo("image/tiff");
+        assertThat(pages.get(1).get("fulltext").getFile().getPath()).isEqualTo("/srv/path/UA123/fulltext1.xml");
+        assertThat(pages.get(1).get("jpeg").getFile().getPath()).isEqualTo("/cache/UA123/jpeg/max/image1.jpg");
+        assertThat(pages.get(1)).doesNotContainKey("target");
+        assertThat(pages.get(2)).doesNotContainKey("fulltext");
+        assertThat(requested.keySet()).containsExactly(2);
+        assertThat(requested.get(2).get("target").getMimeType()).isEqualTo("image/jpeg");
+        assertThat(requested.get(2)).doesNotContainKey("jpeg");
+        assertThat(mediaServerUtils.getPages(index, work, "http://a/UA123/UA123.pdf", null)).isEmpty();
     }
-
-
 }
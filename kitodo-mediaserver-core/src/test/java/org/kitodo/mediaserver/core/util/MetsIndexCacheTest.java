@@ -0,0 +1,235 @@
+package org.kitodo.mediaserver.core.util;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitodo.mediaserver.core.api.IMetsIndexReader;
+import org.kitodo.mediaserver.core.config.MetsProperties;
+import org.kitodo.mediaserver.core.processors.MetsIndex;
+import org.kitodo.mediaserver.core.processors.MetsIndexFile;
+import org.kitodo.mediaserver.core.processors.StaxMetsIndexReader;
+import org.kitodo.mediaserver.core.processors.XsltMetsIndexReader;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.ResourceUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the METS index cache.
+ */
+public class MetsIndexCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MetsIndexCache metsIndexCache;
+
+    private MetsProperties metsProperties;
+
+    private File metsFile;
+
+    @Before
+    public void init() throws Exception {
+        XsltMetsIndexReader metsIndexReader = new XsltMetsIndexReader();
+        metsIndexReader.setXslt(new ClassPathResource("xslt/metsIndexFromMets.xsl"));
+
+        metsProperties = new MetsProperties();
+        metsProperties.setIndexCacheSize(2);
+
+        metsIndexCache = new MetsIndexCache();
+        metsIndexCache.setMetsIndexReader(metsIndexReader);
+        metsIndexCache.setMetsProperties(metsProperties);
+
+        metsFile = temporaryFolder.newFile("BV037808438.xml");
+        Files.copy(ResourceUtils.getFile("classpath:mets/BV037808438.xml").toPath(), metsFile.toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    @Test
+    public void returnsCachedIndex() throws Exception {
+        // when
+        MetsIndex first = metsIndexCache.getIndex(metsFile);
+        MetsIndex second = metsIndexCache.getIndex(metsFile);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(metsIndexCache.getMisses()).isEqualTo(1);
+        assertThat(metsIndexCache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void readsChangedMetsFileAgain() throws Exception {
+        // given
+        MetsIndex first = metsIndexCache.getIndex(metsFile);
+
+        // when
+        metsFile.setLastModified(metsFile.lastModified() - 10000);
+        MetsIndex second = metsIndexCache.getIndex(metsFile);
+
+        // then
+        assertThat(second).isNotSameAs(first);
+        assertThat(metsIndexCache.getInvalidated()).isEqualTo(1);
+        assertThat(metsIndexCache.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void returnsCachedIndexOfMovedFile() throws Exception {
+        // given
+        MetsIndex first = metsIndexCache.getIndex(metsFile);
+        File movedFile = new File(temporaryFolder.newFolder("work"), metsFile.getName());
+
+        // when
+        Files.move(metsFile.toPath(), movedFile.toPath());
+        MetsIndex second = metsIndexCache.getIndex(movedFile);
+
+        // then
+        assertThat(second).isSameAs(first);
+        assertThat(metsIndexCache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void removesLeastRecentlyUsedIndex() throws Exception {
+        // given
+        File work2 = temporaryFolder.newFile("work2.xml");
+        File work3 = temporaryFolder.newFile("work3.xml");
+        Files.copy(metsFile.toPath(), work2.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        Files.copy(metsFile.toPath(), work3.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        // when
+        metsIndexCache.getIndex(metsFile);
+        metsIndexCache.getIndex(work2);
+        metsIndexCache.getIndex(metsFile);
+        metsIndexCache.getIndex(work3);
+        metsIndexCache.getIndex(metsFile);
+
+        // then
+        assertThat(metsIndexCache.getSize()).isEqualTo(2);
+        assertThat(metsIndexCache.getHits()).isEqualTo(2);
+        assertThat(metsIndexCache.getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    public void readsIndexEveryTimeIfDisabled() throws Exception {
+        // given
+        metsProperties.setIndexCacheSize(0);
+
+        // when
+        MetsIndex first = metsIndexCache.getIndex(metsFile);
+        MetsIndex second = metsIndexCache.getIndex(metsFile);
+
+        // then
+        assertThat(second).isNotSameAs(first);
+        assertThat(metsIndexCache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void readsIndexFromIndexFile() throws Exception {
+        // given
+        metsProperties.setIndexFiles(true);
+        MetsIndexFile.write(new StaxMetsIndexReader().read(metsFile), metsFile, metsFile.lastModified(), metsFile.length());
+
+        // when
+        MetsIndex index = metsIndexCache.getIndex(metsFile);
+
+        // then
+        assertThat(metsIndexCache.getIndexFileReads()).isEqualTo(1);
+        assertThat(index.getPageOrders()).hasSize(217);
+    }
+
+    @Test
+    public void readsMetsFileIfIndexFileIsCorrupt() throws Exception {
+        // given
+        metsProperties.setIndexFiles(true);
+        MetsIndexFile.write(new StaxMetsIndexReader().read(metsFile), metsFile, metsFile.lastModified(), metsFile.length());
+        try (RandomAccessFile indexFile = new RandomAccessFile(MetsIndexFile.getIndexFile(metsFile), "rw")) {
+            indexFile.seek(24);
+            indexFile.writeInt(-5);
+        }
+
+        // when
+        MetsIndex index = metsIndexCache.getIndex(metsFile);
+
+        // then
+        assertThat(metsIndexCache.getIndexFileReads()).isEqualTo(0);
+        assertThat(index.getPageOrders()).hasSize(217);
+    }
+
+    @Test
+    public void readsIndexOnceForConcurrentMisses() throws Exception {
+        // given
+        MetsIndex index = new StaxMetsIndexReader().read(metsFile);
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger reads = new AtomicInteger();
+        IMetsIndexReader blockingReader = file -> {
+            reads.incrementAndGet();
+            reading.countDown();
+            release.await();
+            return index;
+        };
+        metsIndexCache.setMetsIndexReader(blockingReader);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // when
+            Future<MetsIndex> first = executor.submit(() -> metsIndexCache.getIndex(metsFile));
+            assertThat(reading.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<MetsIndex> second = executor.submit(() -> metsIndexCache.getIndex(metsFile));
+            while (metsIndexCache.getMisses() < 2) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            // then
+            assertThat(first.get(10, TimeUnit.SECONDS)).isSameAs(index);
+            assertThat(second.get(10, TimeUnit.SECONDS)).isSameAs(index);
+            assertThat(reads.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void errorIsPassedToConcurrentMisses() throws Exception {
+        // given
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IMetsIndexReader failingReader = file -> {
+            reading.countDown();
+            release.await();
+            throw new OutOfMemoryError("Java heap space");
+        };
+        metsIndexCache.setMetsIndexReader(failingReader);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // when
+            Future<MetsIndex> first = executor.submit(() -> metsIndexCache.getIndex(metsFile));
+            assertThat(reading.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<MetsIndex> second = executor.submit(() -> metsIndexCache.getIndex(metsFile));
+            while (metsIndexCache.getMisses() < 2) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            // then
+            assertThatThrownBy(() -> first.get(10, TimeUnit.SECONDS)).hasCauseInstanceOf(OutOfMemoryError.class);
+            assertThatThrownBy(() -> second.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
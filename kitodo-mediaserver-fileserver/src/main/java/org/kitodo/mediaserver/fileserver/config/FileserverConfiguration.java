@@ -11,10 +11,14 @@
 
 package org.kitodo.mediaserver.fileserver.config;
 
+import org.kitodo.mediaserver.core.config.FileserverProperties;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 
 /**
@@ -27,4 +31,26 @@ import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 @ComponentScan({"org.kitodo.mediaserver.core", "org.kitodo.mediaserver.local"})
 public class FileserverConfiguration {
 
+    private FileserverProperties fileserverProperties;
+
+    @Autowired
+    public void setFileserverProperties(FileserverProperties fileserverProperties) {
+        this.fileserverProperties = fileserverProperties;
+    }
+
+    /**
+     * Executor for on-demand conversions. It limits the number of parallel conversions and of waiting requests.
+     *
+     * @return an executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor conversionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("conversion-");
+        executor.setCorePoolSize(fileserverProperties.getMaxConversions());
+        executor.setMaxPoolSize(fileserverProperties.getMaxConversions());
+        executor.setQueueCapacity(fileserverProperties.getConversionQueueSize());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
 }
@@ -11,35 +11,51 @@
 
 package org.kitodo.mediaserver.fileserver.controller;
 
-import inet.ipaddr.IPAddress;
-import inet.ipaddr.IPAddressString;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileTime;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.kitodo.mediaserver.core.api.IAction;
 import org.kitodo.mediaserver.core.api.INotifier;
+import org.kitodo.mediaserver.core.api.IPageSelectionAction;
 import org.kitodo.mediaserver.core.config.FileserverProperties;
+import org.kitodo.mediaserver.core.conversion.ConversionRegistry;
 import org.kitodo.mediaserver.core.db.entities.Work;
-import org.kitodo.mediaserver.core.db.repositories.WorkRepository;
+import org.kitodo.mediaserver.core.exceptions.HttpBadRequestException;
 import org.kitodo.mediaserver.core.exceptions.HttpForbiddenException;
 import org.kitodo.mediaserver.core.exceptions.HttpNotFoundException;
+import org.kitodo.mediaserver.core.exceptions.HttpServiceUnavailableException;
+import org.kitodo.mediaserver.core.exceptions.ValidationException;
 import org.kitodo.mediaserver.core.services.ActionService;
+import org.kitodo.mediaserver.fileserver.util.AllowedNetworkMatcher;
+import org.kitodo.mediaserver.fileserver.util.FileSender;
+import org.kitodo.mediaserver.fileserver.util.WorkCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.context.request.ServletWebRequest;
 
 /**
  * A controller responsible for delivering files, if necessary converting from a master file.
@@ -56,18 +72,26 @@ public class FileController {
 
     private FileserverProperties fileserverProperties;
 
-    private WorkRepository workRepository;
+    private WorkCache workCache;
 
     private ActionService actionService;
 
+    private FileSender fileSender;
+
+    private AllowedNetworkMatcher allowedNetworkMatcher;
+
+    private AsyncTaskExecutor conversionExecutor;
+
+    private ConversionRegistry conversionRegistry;
+
     @Autowired
     public void setFileserverProperties(FileserverProperties fileserverProperties) {
         this.fileserverProperties = fileserverProperties;
     }
 
     @Autowired
-    public void setWorkRepository(WorkRepository workRepository) {
-        this.workRepository = workRepository;
+    public void setWorkCache(WorkCache workCache) {
+        this.workCache = workCache;
     }
 
     @Autowired
@@ -75,6 +99,26 @@ public class FileController {
         this.actionService = actionService;
     }
 
+    @Autowired
+    public void setFileSender(FileSender fileSender) {
+        this.fileSender = fileSender;
+    }
+
+    @Autowired
+    public void setConversionExecutor(@Qualifier("conversionExecutor") AsyncTaskExecutor conversionExecutor) {
+        this.conversionExecutor = conversionExecutor;
+    }
+
+    @Autowired
+    public void setConversionRegistry(ConversionRegistry conversionRegistry) {
+        this.conversionRegistry = conversionRegistry;
+    }
+
+    @Autowired
+    public void setAllowedNetworkMatcher(AllowedNetworkMatcher allowedNetworkMatcher) {
+        this.allowedNetworkMatcher = allowedNetworkMatcher;
+    }
+
     @Autowired
     private ObjectFactory<INotifier> notifierFactory;
 
@@ -85,24 +129,30 @@ public class FileController {
      * Delivers a file if present. If not present, the file is produced from a master file using the
      * information in the METS-file of the work.
      *
+     * <p>
+     * PDF files with the request parameter {@code pages} (e.g. "12-40") or {@code section} (the ID of a logical
+     * structure element) contain only these pages of the work and are produced by the page selection action.
+     *
      * @param workId the id of the work read from the path
      * @param request the http request
      * @param response the http response
      * @throws HttpForbiddenException if disabling is configured and the work is disabled
      * @throws HttpNotFoundException if the file is not found and couldn't be produced
+     * @throws HttpBadRequestException if the requested pages or section are invalid
+     * @throws HttpServiceUnavailableException if the file must be produced but there are too many conversions in progress
      */
     @GetMapping(value = "${fileserver.filePathPattern}")
     public void getFile(
             @PathVariable("workId") String workId,
             HttpServletRequest request,
             HttpServletResponse response)
-            throws HttpForbiddenException, HttpNotFoundException {
+            throws HttpForbiddenException, HttpNotFoundException, HttpBadRequestException, HttpServiceUnavailableException {
 
         INotifier notifier = notifierFactory.getObject();
         String message;
 
         Work work;
-        Optional<Work> optionalWork = workRepository.findById(workId);
+        Optional<Work> optionalWork = workCache.getWork(workId);
 
         String completePath = request.getRequestURL().toString();
         String derivativePath = StringUtils.substringAfter(completePath, workId);
@@ -110,6 +160,7 @@ public class FileController {
 
         // Allow Cross-Origin Resource Sharing
         response.addHeader("Access-Control-Allow-Origin", "*");
+        response.addHeader("Access-Control-Expose-Headers", "Accept-Ranges, Content-Length, Content-Range");
 
         if (!optionalWork.isPresent()) {
             message = "Work with id " + workId + " not found";
@@ -119,19 +170,10 @@ public class FileController {
         } else {
             work = optionalWork.get();
 
-            // get remote IP address. Use header set by proxy (Kitodo.Presentation)
-            String senderIp = request.getHeader("X-Forwarded-For");
-            if (senderIp == null) {
-                // X-Forwarded-For header does not exist. Use default remote address instead.
-                senderIp = request.getRemoteAddr();
-            }
-
             // if no network is set, grant access for everyone
             if (!StringUtils.isEmpty(work.getAllowedNetwork())) {
 
-                // get allowed subnets for this work
-                List<String> subnets = fileserverProperties.getAllowedNetworks().get(work.getAllowedNetwork());
-                if (subnets == null) {
+                if (!allowedNetworkMatcher.hasNetwork(work.getAllowedNetwork())) {
                     message = "Work with id '" + workId
                         + "' has an invalid allowedNetwork: '" + work.getAllowedNetwork() + "'";
                     LOGGER.error(message);
@@ -141,7 +183,7 @@ public class FileController {
                 }
 
                 // if work is disabled and request is not on METS/MODS, block the request
-                if (!isAllowedIpAddress(senderIp, subnets) && !StringUtils.endsWith(derivativePath, workId + ".xml")) {
+                if (!isAllowedIpAddress(request, work.getAllowedNetwork()) && !StringUtils.endsWith(derivativePath, workId + ".xml")) {
                     if ((new File(fileserverProperties.getDisabledWorkImagePath()).isFile())) {
                         workDisallowed = true;
                     } else {
@@ -167,29 +209,38 @@ public class FileController {
         }
 
 
+        ServletWebRequest webRequest = new ServletWebRequest(request, response);
+        int generation = workDisallowed ? 0 : work.getGeneration();
+
         InputStream inputStream = null;
         try {
-            if (derivative.isFile()) {
+            if (!workDisallowed && isPageSelection(request, derivativePath)) {
+                sendPageSelection(work, derivativePath, request, response, notifier);
+                return;
+            }
 
-                // Perform a touch on the file to set last accessed time
-                if (usingCache) {
-                    try {
-                        FileUtils.touch(derivative);
-                    } catch (IOException e) {
-                        message = "Error executing touch on cached file " + workId + derivativePath + ": " + e;
-                        LOGGER.error(message, e);
-                        notifier.addAndSend(message, "Touch error, workId " + workId + ", path " + derivativePath,
-                            fileserverProperties.getErrorNotificationEmail());
-                    }
+            // an empty cached file is not a finished derivative, it is converted again
+            if (usingCache ? ConversionRegistry.isComplete(derivative) : derivative.isFile()) {
+
+                setCacheControl(response, derivativePath, work, workDisallowed);
+
+                // Answer conditional requests without delivering the file
+                if (isNotModified(derivative, generation, webRequest)) {
+                    LOGGER.debug("File " + completePath + " not modified");
+                    return;
                 }
 
-                inputStream = new FileInputStream(derivative);
-                //response.setContentType(); TODO
+                if (usingCache) {
+                    touchCachedFile(derivative, workId, derivativePath, notifier);
+                }
 
                 message = "Delivering already present file " + completePath + " from location "
                         + derivative.getAbsolutePath();
                 LOGGER.info(message);
 
+                fileSender.send(derivative, request, response);
+                return;
+
             } else {
 
                 message = "The requested file " + completePath + " allegedly located at "
@@ -197,31 +248,47 @@ public class FileController {
                 LOGGER.info(message);
 
                 //call conversion handler to produce the file
-                try {
-                    Map<String, String> parameterMap = new HashMap<>();
-                    parameterMap.put("derivativePath", workId + derivativePath);
-                    parameterMap.put("requestUrl", completePath);
+                Map<String, String> parameterMap = new HashMap<>();
+                parameterMap.put("derivativePath", workId + derivativePath);
+                parameterMap.put("requestUrl", completePath);
 
-                    inputStream = (InputStream) actionService.performImmediately(
-                            work,
-                            fileserverProperties.getConvertAction(),
-                            parameterMap);
+                try {
+                    // a running conversion of the same file is awaited without taking a place of the conversion executor
+                    if (!usingCache || !awaitRunningConversion(derivative, response)) {
+                        inputStream = (InputStream) convert(work, fileserverProperties.getConvertAction(), parameterMap, response);
+                    }
 
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new HttpNotFoundException("Interrupted while converting the file.", e);
                 } catch (Exception e) {
-                    message = "Error trying to convert the file " + workId + derivativePath + ": " + e
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    checkServiceUnavailable(cause, response);
+                    message = "Error trying to convert the file " + workId + derivativePath + ": " + cause
                         + "\nUser-Agent: " + request.getHeader("User-Agent");
-                    LOGGER.error(message, e);
+                    LOGGER.error(message, cause);
                     notifier.addAndSend(message, "Conversion Error, workId " + workId, fileserverProperties.getErrorNotificationEmail());
                 }
             }
 
-            if (inputStream == null) {
+            if (inputStream == null && !(usingCache && ConversionRegistry.isComplete(derivative))) {
                 throw new HttpNotFoundException("File not found and could not be converted.");
             }
 
-            IOUtils.copy(inputStream, response.getOutputStream());
-            inputStream.close();
-            response.getOutputStream().close();
+            setCacheControl(response, derivativePath, work, workDisallowed);
+
+            // a cached conversion result can be delivered like any present file, including ranges
+            if (derivative.isFile()) {
+                if (inputStream != null) {
+                    inputStream.close();
+                }
+                if (isNotModified(derivative, generation, webRequest)) {
+                    return;
+                }
+                fileSender.send(derivative, request, response);
+            } else {
+                fileSender.send(inputStream, derivative.getName(), response);
+            }
         } catch (IOException e) {
             message = "Fileserver IO error for " + workId + derivativePath + ": " + e;
             LOGGER.error(message, e);
@@ -237,26 +304,291 @@ public class FileController {
     }
 
     /**
-     * Check if an IP address is allowed to access a work.
+     * Checks if some pages or a section of a work are requested as PDF file.
+     *
+     * @param request the http request
+     * @param derivativePath the requested path inside the work
+     * @return true if the page selection action must be used
+     */
+    private boolean isPageSelection(HttpServletRequest request, String derivativePath) {
+        return StringUtils.endsWithIgnoreCase(derivativePath, ".pdf")
+            && (StringUtils.isNotBlank(request.getParameter("pages")) || StringUtils.isNotBlank(request.getParameter("section")));
+    }
+
+    /**
+     * Delivers a PDF file containing some pages or a section of a work. Present full PDF files can't be used,
+     * so the file is produced by the page selection action, which caches it by its page range. A cached file is
+     * delivered without a conversion, like any present file.
+     *
+     * @param work the work
+     * @param derivativePath the requested path inside the work
+     * @param request the http request
+     * @param response the http response
+     * @param notifier the notifier for conversion errors
+     * @throws HttpBadRequestException if the requested pages or section are invalid
+     * @throws HttpNotFoundException if the file couldn't be produced
+     * @throws HttpServiceUnavailableException if there are too many conversions in progress
+     * @throws IOException if the file couldn't be delivered
+     */
+    private void sendPageSelection(Work work, String derivativePath, HttpServletRequest request, HttpServletResponse response,
+                                   INotifier notifier)
+            throws HttpBadRequestException, HttpNotFoundException, HttpServiceUnavailableException, IOException {
+
+        Map<String, String> parameterMap = new HashMap<>();
+        parameterMap.put("derivativePath", work.getId() + derivativePath);
+        parameterMap.put("requestUrl", request.getRequestURL().toString());
+        if (StringUtils.isNotBlank(request.getParameter("pages"))) {
+            parameterMap.put("pages", request.getParameter("pages"));
+        }
+        if (StringUtils.isNotBlank(request.getParameter("section"))) {
+            parameterMap.put("section", request.getParameter("section"));
+        }
+
+        File cachedFile = null;
+        InputStream inputStream = null;
+        try {
+            cachedFile = getCachedPageSelection(work, parameterMap);
+            if (cachedFile == null || !ConversionRegistry.isComplete(cachedFile) && !awaitRunningConversion(cachedFile, response)) {
+                inputStream = (InputStream) convert(work, fileserverProperties.getPageSelectionAction(), parameterMap, response);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpNotFoundException("Interrupted while converting the file.", e);
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            if (cause instanceof ValidationException) {
+                throw new HttpBadRequestException(cause.getMessage());
+            }
+            checkServiceUnavailable(cause, response);
+            String message = "Error trying to convert the pages of " + work.getId() + derivativePath + ": " + cause
+                + "\nUser-Agent: " + request.getHeader("User-Agent");
+            LOGGER.error(message, cause);
+            notifier.addAndSend(message, "Conversion Error, workId " + work.getId(), fileserverProperties.getErrorNotificationEmail());
+            throw new HttpNotFoundException("File could not be converted.");
+        }
+
+        setCacheControl(response, derivativePath, work, false);
+
+        if (cachedFile != null && ConversionRegistry.isComplete(cachedFile)) {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+            if (isNotModified(cachedFile, work.getGeneration(), new ServletWebRequest(request, response))) {
+                return;
+            }
+            touchCachedFile(cachedFile, work.getId(), derivativePath, notifier);
+            fileSender.send(cachedFile, request, response);
+        } else if (inputStream != null) {
+            fileSender.send(inputStream, derivativePath, response);
+        } else {
+            throw new HttpNotFoundException("File could not be converted.");
+        }
+    }
+
+    /**
+     * Gets the cached file of a page selection, without producing it.
      *
-     * @param senderIp The IP address to check
-     * @param subnets The allowed IP subnet
+     * @param work the work
+     * @param parameterMap the parameter of the page selection action
+     * @return the file in the cache, or null if the page selection action doesn't cache files
+     * @throws Exception if the requested pages are invalid or the METS file can't be read
      */
-    private boolean isAllowedIpAddress(String senderIp, List<String> subnets) {
-        IPAddress ipnet;
-        for (String subnet : subnets) {
-            try {
-                ipnet = new IPAddressString(subnet).getAddress();
-                if (ipnet.contains(new IPAddressString(senderIp).getAddress())) {
-                    return true;
+    private File getCachedPageSelection(Work work, Map<String, String> parameterMap) throws Exception {
+        if (!fileserverProperties.isCaching()) {
+            return null;
+        }
+        IAction action = actionService.getActionInstance(fileserverProperties.getPageSelectionAction());
+        if (!(action instanceof IPageSelectionAction)) {
+            return null;
+        }
+        String path = ((IPageSelectionAction) action).getDerivativePath(work, new HashMap<>(parameterMap));
+        return new File(fileserverProperties.getCachePath(), path);
+    }
+
+    /**
+     * Sets the last accessed time of a cached file, so it is not removed by the cache clearing.
+     * The modification time is kept, it is part of the ETag.
+     *
+     * @param file the cached file
+     * @param workId the id of the work
+     * @param derivativePath the requested path inside the work
+     * @param notifier the notifier for errors
+     */
+    private void touchCachedFile(File file, String workId, String derivativePath, INotifier notifier) {
+        try {
+            Files.getFileAttributeView(file.toPath(), BasicFileAttributeView.class)
+                .setTimes(null, FileTime.fromMillis(System.currentTimeMillis()), null);
+        } catch (IOException e) {
+            String message = "Error executing touch on cached file " + workId + derivativePath + ": " + e;
+            LOGGER.error(message, e);
+            notifier.addAndSend(message, "Touch error, workId " + workId + ", path " + derivativePath,
+                fileserverProperties.getErrorNotificationEmail());
+        }
+    }
+
+    /**
+     * Waits for a conversion of a cached file started by another request.
+     *
+     * @param derivative the cached file
+     * @param response the http response
+     * @return true if the file was converted and can be delivered, false if no conversion of the file is running
+     * @throws Exception if the running conversion failed
+     * @throws HttpServiceUnavailableException if the conversion didn't finish within the conversion timeout
+     */
+    private boolean awaitRunningConversion(File derivative, HttpServletResponse response) throws Exception {
+        try {
+            File converted = conversionRegistry.awaitRunning(derivative, fileserverProperties.getConversionTimeout(), TimeUnit.SECONDS);
+            return converted != null && ConversionRegistry.isComplete(converted);
+        } catch (TimeoutException e) {
+            throw serviceUnavailable("Conversion of " + derivative.getName() + " takes too long, please retry later.", response);
+        }
+    }
+
+    /**
+     * Converts a file on the conversion executor and waits for the result. If the executor is saturated, the request
+     * is rejected with 503 Service Unavailable, so request threads stay available for delivering present files.
+     * Requests waiting longer than the conversion timeout are rejected the same way. The conversion is not cancelled,
+     * so its file is cached anyway.
+     *
+     * @param work the work
+     * @param action the name of the convert action bean
+     * @param parameterMap the parameter of the convert action
+     * @param response the http response
+     * @return the result of the convert action
+     * @throws InterruptedException if the request was interrupted while waiting
+     * @throws ExecutionException if the conversion failed
+     * @throws HttpServiceUnavailableException if there are too many conversions in progress or the conversion takes too long
+     */
+    private Object convert(Work work, String action, Map<String, String> parameterMap, HttpServletResponse response)
+            throws InterruptedException, ExecutionException, HttpServiceUnavailableException {
+        CompletableFuture<Object> conversion = new CompletableFuture<>();
+        try {
+            conversionExecutor.execute(() -> {
+                try {
+                    conversion.complete(actionService.performImmediately(work, action, parameterMap));
+                } catch (Throwable e) {
+                    // also errors, the request would wait until the timeout otherwise
+                    conversion.completeExceptionally(e);
                 }
-            } catch (Exception ex) {
-                LOGGER.warn("Could not verify source IP address authorization for '"
-                    + senderIp + "' on subnet '" + subnet + "'", ex);
+            });
+        } catch (TaskRejectedException e) {
+            LOGGER.warn("Too many conversions in progress, rejecting conversion of " + parameterMap.get("derivativePath"));
+            throw serviceUnavailable("Too many conversions in progress, please retry later.", response);
+        }
+
+        try {
+            return conversion.get(fileserverProperties.getConversionTimeout(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("Conversion of " + parameterMap.get("derivativePath") + " takes too long, rejecting the request");
+            // nobody reads the result anymore
+            conversion.thenAccept(result -> {
+                if (result instanceof InputStream) {
+                    IOUtils.closeQuietly((InputStream) result);
+                }
+            });
+            throw serviceUnavailable("Conversion takes too long, please retry later.", response);
+        }
+    }
+
+    /**
+     * Creates the exception for a 503 Service Unavailable response and sets the {@code Retry-After} header.
+     *
+     * @param message the message of the exception
+     * @param response the http response
+     * @return the exception to throw
+     */
+    private HttpServiceUnavailableException serviceUnavailable(String message, HttpServletResponse response) {
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(fileserverProperties.getConversionRetryAfter()));
+        return new HttpServiceUnavailableException(message);
+    }
+
+    /**
+     * Rejects the request with 503 Service Unavailable if a conversion failed because of missing resources,
+     * e.g. memory for decoding images, instead of reporting a conversion error.
+     *
+     * @param cause the error of the conversion
+     * @param response the http response
+     * @throws HttpServiceUnavailableException if the error or one of its causes is one
+     */
+    private void checkServiceUnavailable(Throwable cause, HttpServletResponse response) throws HttpServiceUnavailableException {
+        int index = ExceptionUtils.indexOfThrowable(cause, HttpServiceUnavailableException.class);
+        if (index >= 0) {
+            HttpServiceUnavailableException unavailable = (HttpServiceUnavailableException) ExceptionUtils.getThrowables(cause)[index];
+            LOGGER.warn("Conversion rejected: " + unavailable.getMessage());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(fileserverProperties.getConversionRetryAfter()));
+            throw unavailable;
+        }
+    }
+
+    /**
+     * Sets the validators (ETag and Last-Modified) of a file and checks if the client already has the current version.
+     * The ETag depends on the modification time, the size and the import generation of the work.
+     *
+     * @param file the file to deliver
+     * @param generation the import generation of the work
+     * @param webRequest the request and response
+     * @return true if a 304 Not Modified response was set and the file must not be delivered
+     */
+    private boolean isNotModified(File file, int generation, ServletWebRequest webRequest) {
+        long lastModified = file.lastModified();
+        String etag = "\"" + Integer.toHexString(generation) + "-" + Long.toHexString(lastModified)
+            + "-" + Long.toHexString(file.length()) + "\"";
+        return webRequest.checkNotModified(etag, lastModified);
+    }
+
+    /**
+     * Sets the Cache-Control header according to the first matching policy.
+     * Files of works with restricted access may only be cached privately and the placeholder of disabled works
+     * must not be cached at all.
+     *
+     * @param response the http response
+     * @param derivativePath the requested path inside the work
+     * @param work the work
+     * @param workDisallowed true if the placeholder of a disabled work is delivered
+     */
+    private void setCacheControl(HttpServletResponse response, String derivativePath, Work work, boolean workDisallowed) {
+        if (workDisallowed) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            return;
+        }
+        if (fileserverProperties.getCacheControl() == null) {
+            return;
+        }
+        for (FileserverProperties.CacheControlPolicy policy : fileserverProperties.getCacheControl()) {
+            if (policy.matches(derivativePath)) {
+                String value = policy.getValue();
+                boolean restricted = StringUtils.isNotEmpty(work.getAllowedNetwork())
+                    && !StringUtils.equals(work.getAllowedNetwork(), "global");
+                if (restricted && StringUtils.isNotEmpty(value) && !value.contains("no-store")) {
+                    value = "private, " + value.replaceAll("(?i)\\bpublic\\b,?\\s*", "");
+                }
+                if (StringUtils.isNotEmpty(value)) {
+                    response.setHeader(HttpHeaders.CACHE_CONTROL, value);
+                }
+                return;
             }
         }
-        LOGGER.info("Source IP address '" + senderIp + "' is not part of allowedNetwork with subnets '"
-            + String.join(",", subnets) + "'");
+    }
+
+    /**
+     * Check if the sender of a request is allowed to access a work.
+     *
+     * @param request the http request
+     * @param network the allowed network of the work
+     */
+    private boolean isAllowedIpAddress(HttpServletRequest request, String network) {
+        // get remote IP address. Use header set by proxy (Kitodo.Presentation)
+        String senderIp = allowedNetworkMatcher.getSenderIp(request);
+        byte[] address = allowedNetworkMatcher.parseAddress(senderIp);
+        if (address == null) {
+            LOGGER.warn("Could not verify source IP address authorization for '" + senderIp + "': invalid address");
+            return false;
+        }
+        if (allowedNetworkMatcher.isAllowed(network, address)) {
+            return true;
+        }
+        LOGGER.info("Source IP address '" + senderIp + "' is not part of allowedNetwork '" + network + "' with subnets '"
+            + String.join(",", fileserverProperties.getAllowedNetworks().get(network)) + "'");
         return false;
     }
 }
@@ -0,0 +1,293 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.fileserver.util;
+
+import inet.ipaddr.IPAddress;
+import inet.ipaddr.IPAddressString;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import javax.naming.ConfigurationException;
+import javax.servlet.http.HttpServletRequest;
+import org.apache.commons.lang3.StringUtils;
+import org.kitodo.mediaserver.core.config.FileserverProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Checks IP addresses against the configured allowed networks.
+ *
+ * <p>
+ * The subnets of every network are compiled into prefix tries for IPv4 and IPv6 at startup, so a lookup only walks
+ * the bits of the address. An invalid subnet fails the startup. If the allowed networks are replaced later, e.g.
+ * by rebinding the configuration properties, the tries are compiled again on the next lookup. Invalid subnets are
+ * then only logged and the previous networks are kept.
+ *
+ * <p>
+ * Clients with IPv4-mapped IPv6 addresses ({@code ::ffff:a.b.c.d}) are checked as IPv4 clients. Configured subnets
+ * inside {@code ::ffff:0:0/96} are compiled into the IPv4 trie as well, and IPv6 subnets covering the whole mapped
+ * range (like {@code ::/0}) allow all IPv4 clients, so these subnets still match the clients they matched as IPv6.
+ */
+@Component
+public class AllowedNetworkMatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AllowedNetworkMatcher.class);
+
+    private static final IPAddress IPV4_MAPPED = new IPAddressString("::ffff:0:0/96").getAddress();
+    private static final int IPV4_MAPPED_PREFIX_LENGTH = 96;
+
+    private FileserverProperties fileserverProperties;
+
+    private volatile Networks networks = new Networks(null, Collections.emptyMap());
+
+    @Autowired
+    public void setFileserverProperties(FileserverProperties fileserverProperties) {
+        this.fileserverProperties = fileserverProperties;
+    }
+
+    /**
+     * Compiles the allowed networks.
+     *
+     * @throws ConfigurationException if a subnet is invalid
+     */
+    @PostConstruct
+    public void init() throws ConfigurationException {
+        Map<String, List<String>> allowedNetworks = fileserverProperties.getAllowedNetworks();
+        networks = new Networks(allowedNetworks, compile(allowedNetworks));
+    }
+
+    /**
+     * Checks if a network is configured.
+     *
+     * @param network the name of the network
+     * @return true if the network exists
+     */
+    public boolean hasNetwork(String network) {
+        return getNetworks().containsKey(network);
+    }
+
+    /**
+     * Checks if an address is part of a network.
+     *
+     * @param network the name of the network
+     * @param address the address bytes, 4 bytes for IPv4 or 16 bytes for IPv6
+     * @return true if the address is part of one of the subnets of the network
+     */
+    public boolean isAllowed(String network, byte[] address) {
+        Tries tries = getNetworks().get(network);
+        if (tries == null || address == null) {
+            return false;
+        }
+        return (address.length == 4 ? tries.ipVersionFour : tries.ipVersionSix).contains(address);
+    }
+
+    /**
+     * Gets the address of the client sending a request. If the request was forwarded by a proxy (Kitodo.Presentation),
+     * the last address of the X-Forwarded-For header is used, as this one was added by the proxy itself.
+     *
+     * @param request the http request
+     * @return the client address
+     */
+    public String getSenderIp(HttpServletRequest request) {
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (StringUtils.isBlank(forwardedFor)) {
+            // X-Forwarded-For header does not exist. Use default remote address instead.
+            return request.getRemoteAddr();
+        }
+        return StringUtils.substringAfterLast("," + forwardedFor, ",").trim();
+    }
+
+    /**
+     * Parses an IP address. IPv4 addresses mapped to IPv6 are converted to IPv4.
+     *
+     * @param ip the address string
+     * @return the address bytes, null if the string is no valid address
+     */
+    public byte[] parseAddress(String ip) {
+        IPAddress address = new IPAddressString(ip).getAddress();
+        if (address == null) {
+            return null;
+        }
+        if (address.isIPv6() && address.isIPv4Convertible()) {
+            address = address.toIPv4();
+        }
+        return address.getBytes();
+    }
+
+    /**
+     * Gets the compiled networks, compiling them again if the configured networks were replaced.
+     */
+    private Map<String, Tries> getNetworks() {
+        Map<String, List<String>> allowedNetworks = fileserverProperties.getAllowedNetworks();
+        Networks current = networks;
+        if (current.source != allowedNetworks) {
+            synchronized (this) {
+                current = networks;
+                if (current.source != allowedNetworks) {
+                    try {
+                        current = new Networks(allowedNetworks, compile(allowedNetworks));
+                    } catch (ConfigurationException e) {
+                        LOGGER.error("Keeping the previous allowed networks: " + e.getMessage());
+                        current = new Networks(allowedNetworks, current.tries);
+                    }
+                    networks = current;
+                }
+            }
+        }
+        return current.tries;
+    }
+
+    private static Map<String, Tries> compile(Map<String, List<String>> allowedNetworks) throws ConfigurationException {
+        Map<String, Tries> networks = new HashMap<>();
+        if (allowedNetworks != null) {
+            for (Map.Entry<String, List<String>> network : allowedNetworks.entrySet()) {
+                PrefixTrie.Builder ipVersionFour = new PrefixTrie.Builder();
+                PrefixTrie.Builder ipVersionSix = new PrefixTrie.Builder();
+                for (String subnet : network.getValue()) {
+                    IPAddress range = new IPAddressString(subnet.trim()).getAddress();
+                    if (range == null) {
+                        throw new ConfigurationException("Invalid subnet '" + subnet + "' of allowedNetwork '" + network.getKey() + "'");
+                    }
+                    for (IPAddress block : range.getLower().spanWithPrefixBlocks(range.getUpper())) {
+                        Integer prefixLength = block.getNetworkPrefixLength();
+                        int length = prefixLength != null ? prefixLength : block.getBitCount();
+                        if (block.isIPv4()) {
+                            ipVersionFour.add(block.getBytes(), length);
+                        } else {
+                            ipVersionSix.add(block.getBytes(), length);
+                            addMappedIpVersionFour(block, length, ipVersionFour);
+                        }
+                    }
+                }
+                networks.put(network.getKey(), new Tries(ipVersionFour.build(), ipVersionSix.build()));
+            }
+        }
+        LOGGER.info("Compiled allowed networks " + networks.keySet());
+        return networks;
+    }
+
+    /**
+     * Adds the IPv4 addresses mapped into an IPv6 block, as IPv4-mapped clients are checked as IPv4.
+     */
+    private static void addMappedIpVersionFour(IPAddress block, int length, PrefixTrie.Builder ipVersionFour) {
+        if (length <= IPV4_MAPPED_PREFIX_LENGTH && block.contains(IPV4_MAPPED)) {
+            ipVersionFour.add(new byte[4], 0);
+        } else if (length > IPV4_MAPPED_PREFIX_LENGTH && IPV4_MAPPED.contains(block)) {
+            ipVersionFour.add(Arrays.copyOfRange(block.getBytes(), 12, 16), length - IPV4_MAPPED_PREFIX_LENGTH);
+        }
+    }
+
+    /**
+     * The compiled networks with the configured networks they were compiled from.
+     */
+    private static class Networks {
+
+        private final Map<String, List<String>> source;
+        private final Map<String, Tries> tries;
+
+        Networks(Map<String, List<String>> source, Map<String, Tries> tries) {
+            this.source = source;
+            this.tries = tries;
+        }
+    }
+
+    private static class Tries {
+
+        private final PrefixTrie ipVersionFour;
+        private final PrefixTrie ipVersionSix;
+
+        Tries(PrefixTrie ipVersionFour, PrefixTrie ipVersionSix) {
+            this.ipVersionFour = ipVersionFour;
+            this.ipVersionSix = ipVersionSix;
+        }
+    }
+
+    /**
+     * An immutable binary trie of address prefixes. Node 0 is the root, a child index of 0 means there is no child.
+     */
+    private static class PrefixTrie {
+
+        private final int[] zero;
+        private final int[] one;
+        private final boolean[] terminal;
+
+        PrefixTrie(int[] zero, int[] one, boolean[] terminal) {
+            this.zero = zero;
+            this.one = one;
+            this.terminal = terminal;
+        }
+
+        /**
+         * Checks if the address starts with one of the prefixes.
+         */
+        boolean contains(byte[] address) {
+            int node = 0;
+            for (int bit = 0; bit < address.length * 8; bit++) {
+                if (terminal[node]) {
+                    return true;
+                }
+                node = ((address[bit >> 3] >> (7 - (bit & 7))) & 1) == 0 ? zero[node] : one[node];
+                if (node == 0) {
+                    return false;
+                }
+            }
+            return terminal[node];
+        }
+
+        static class Builder {
+
+            private final List<int[]> nodes = new ArrayList<>();
+            private final List<Boolean> terminals = new ArrayList<>();
+
+            Builder() {
+                newNode();
+            }
+
+            void add(byte[] prefix, int length) {
+                int node = 0;
+                for (int bit = 0; bit < length && !terminals.get(node); bit++) {
+                    int value = (prefix[bit >> 3] >> (7 - (bit & 7))) & 1;
+                    if (nodes.get(node)[value] == 0) {
+                        nodes.get(node)[value] = newNode();
+                    }
+                    node = nodes.get(node)[value];
+                }
+                terminals.set(node, true);
+            }
+
+            PrefixTrie build() {
+                int size = nodes.size();
+                int[] zero = new int[size];
+                int[] one = new int[size];
+                boolean[] terminal = new boolean[size];
+                for (int i = 0; i < size; i++) {
+                    zero[i] = nodes.get(i)[0];
+                    one[i] = nodes.get(i)[1];
+                    terminal[i] = terminals.get(i);
+                }
+                return new PrefixTrie(zero, one, terminal);
+            }
+
+            private int newNode() {
+                nodes.add(new int[2]);
+                terminals.add(false);
+                return nodes.size() - 1;
+            }
+        }
+    }
+}
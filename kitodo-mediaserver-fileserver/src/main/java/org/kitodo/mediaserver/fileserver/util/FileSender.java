@@ -0,0 +1,219 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.fileserver.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes files to a http response.
+ *
+ * <p>
+ * Supports single and multiple byte ranges (RFC 7233) including If-Range. Files are sent using the sendfile support of the servlet
+ * container if available, otherwise using {@link FileChannel#transferTo}.
+ */
+@Component
+public class FileSender {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSender.class);
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Sends a file, or the requested ranges of it.
+     *
+     * @param file the file to send
+     * @param request the http request
+     * @param response the http response
+     * @throws IOException on read or write errors
+     */
+    public void send(File file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length = file.length();
+        MediaType mediaType = getMediaType(file.getName());
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        List<HttpRange> ranges = isRangeApplicable(file, request, response) ? getRanges(request) : Collections.emptyList();
+        if (ranges.isEmpty()) {
+            response.setContentType(mediaType.toString());
+            sendRange(file, 0, length, request, response);
+            return;
+        }
+
+        // unsatisfiable ranges are skipped, only if none is left the request fails
+        List<long[]> positions = new ArrayList<>();
+        for (HttpRange range : ranges) {
+            try {
+                long start = range.getRangeStart(length);
+                long end = range.getRangeEnd(length);
+                if (start < length && start <= end) {
+                    positions.add(new long[]{start, end});
+                }
+            } catch (IllegalArgumentException e) {
+                LOGGER.debug("Skipping unsatisfiable range " + range + ": " + e.getMessage());
+            }
+        }
+        if (positions.isEmpty()) {
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+        if (positions.size() == 1) {
+            long[] position = positions.get(0);
+            response.setContentType(mediaType.toString());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, contentRange(position, length));
+            sendRange(file, position[0], position[1] + 1, request, response);
+            return;
+        }
+
+        String boundary = UUID.randomUUID().toString();
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+        OutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            for (long[] position : positions) {
+                out.write(("\r\n--" + boundary + "\r\n"
+                    + HttpHeaders.CONTENT_TYPE + ": " + mediaType + "\r\n"
+                    + HttpHeaders.CONTENT_RANGE + ": " + contentRange(position, length) + "\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+                transfer(channel, position[0], position[1] + 1, target);
+            }
+            out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+        out.close();
+    }
+
+    /**
+     * Sends a stream, e.g. the result of a conversion. Ranges are not supported for streams.
+     *
+     * @param inputStream the stream to send
+     * @param fileName the file name used to detect the content type
+     * @param response the http response
+     * @throws IOException on read or write errors
+     */
+    public void send(InputStream inputStream, String fileName, HttpServletResponse response) throws IOException {
+        response.setContentType(getMediaType(fileName).toString());
+        try {
+            IOUtils.copy(inputStream, response.getOutputStream());
+        } finally {
+            inputStream.close();
+        }
+        response.getOutputStream().close();
+    }
+
+    /**
+     * Gets the media type of a file by its name.
+     *
+     * @param fileName the file name
+     * @return the media type, application/octet-stream if unknown
+     */
+    public MediaType getMediaType(String fileName) {
+        return MediaTypeFactory.getMediaType(fileName).orElse(MediaType.APPLICATION_OCTET_STREAM);
+    }
+
+    /**
+     * Checks the If-Range header. Ranges are only applicable if the client has the current version of the file.
+     */
+    private boolean isRangeApplicable(File file, HttpServletRequest request, HttpServletResponse response) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // only strong validators are allowed
+            return ifRange.equals(response.getHeader(HttpHeaders.ETAG));
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == file.lastModified() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private List<HttpRange> getRanges(HttpServletRequest request) {
+        try {
+            return HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+        } catch (IllegalArgumentException e) {
+            // an invalid range header is ignored and the whole file is sent
+            LOGGER.info("Ignoring invalid range header '" + request.getHeader(HttpHeaders.RANGE) + "': " + e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private String contentRange(long[] position, long length) {
+        return "bytes " + position[0] + "-" + position[1] + "/" + length;
+    }
+
+    /**
+     * Sends a part of a file as whole response body.
+     *
+     * @param start first byte, inclusive
+     * @param end last byte, exclusive
+     */
+    private void sendRange(File file, long start, long end, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        response.setContentLengthLong(end - start);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // the servlet container sends the file after the request was processed
+            request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+
+        OutputStream out = response.getOutputStream();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            transfer(channel, start, end, Channels.newChannel(out));
+        }
+        out.close();
+    }
+
+    private void transfer(FileChannel channel, long start, long end, WritableByteChannel target) throws IOException {
+        long position = start;
+        while (position < end) {
+            long transferred = channel.transferTo(position, end - position, target);
+            if (transferred <= 0) {
+                throw new IOException("Could not transfer file content at position " + position);
+            }
+            position += transferred;
+        }
+    }
+}
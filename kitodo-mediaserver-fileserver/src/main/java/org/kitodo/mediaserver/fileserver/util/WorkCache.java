@@ -0,0 +1,262 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.fileserver.util;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.kitodo.mediaserver.core.config.FileserverProperties;
+import org.kitodo.mediaserver.core.db.entities.Work;
+import org.kitodo.mediaserver.core.db.repositories.WorkRepository;
+import org.kitodo.mediaserver.core.services.WorkChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * A bounded in-memory cache of work data for delivering files.
+ *
+ * <p>
+ * Cached works are detached copies without collections. Entries expire after a configured time and are invalidated
+ * when the work is changed by this process (see {@link WorkChangedEvent}). Changes made by other processes (importer,
+ * other fileserver nodes) are detected by polling the update time of works in the database. Works deleted by other
+ * processes are detected by polling which of the cached works still exist.
+ */
+@Component
+public class WorkCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkCache.class);
+
+    /**
+     * Changes are polled with this overlap in seconds to tolerate clock differences between the processes.
+     */
+    private static final long CLOCK_TOLERANCE = 60;
+
+    /**
+     * Maximum number of IDs checked for existence with one query.
+     */
+    private static final int EXISTENCE_BATCH_SIZE = 500;
+
+    private WorkRepository workRepository;
+
+    private FileserverProperties.WorkCache workCacheProperties;
+
+    private final Map<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong invalidated = new AtomicLong();
+    private final AtomicLong modifications = new AtomicLong();
+
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private volatile long nextPoll;
+    private volatile Instant lastPoll = Instant.now();
+
+    @Autowired
+    public void setWorkRepository(WorkRepository workRepository) {
+        this.workRepository = workRepository;
+    }
+
+    @Autowired
+    public void setWorkCacheProperties(FileserverProperties.WorkCache workCacheProperties) {
+        this.workCacheProperties = workCacheProperties;
+    }
+
+    /**
+     * Gets a work from the cache or from the database.
+     *
+     * @param id the id of the work
+     * @return a copy of the work data, empty if the work does not exist
+     */
+    public Optional<Work> getWork(String id) {
+        if (workCacheProperties.getMaxSize() <= 0) {
+            return workRepository.findById(id);
+        }
+
+        pollChanges();
+
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            CacheEntry entry = entries.get(id);
+            if (entry != null) {
+                if (now - entry.loadTime < workCacheProperties.getTtl() * 1000) {
+                    hits.incrementAndGet();
+                    return Optional.of(entry.work);
+                }
+                entries.remove(id);
+                expired.incrementAndGet();
+            }
+        }
+
+        misses.incrementAndGet();
+        long modificationsBeforeLoad = modifications.get();
+        Optional<Work> work = workRepository.findById(id).map(this::copy);
+
+        // don't cache data which might have been invalidated while loading
+        if (work.isPresent() && modificationsBeforeLoad == modifications.get()) {
+            synchronized (entries) {
+                entries.put(id, new CacheEntry(work.get(), now));
+                while (entries.size() > workCacheProperties.getMaxSize()) {
+                    entries.remove(entries.keySet().iterator().next());
+                }
+            }
+        }
+        return work;
+    }
+
+    /**
+     * Removes a work from the cache.
+     *
+     * @param id the id of the work
+     */
+    public void invalidate(String id) {
+        modifications.incrementAndGet();
+        synchronized (entries) {
+            if (entries.remove(id) != null) {
+                invalidated.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Removes a changed work from the cache.
+     *
+     * @param event the event
+     */
+    @EventListener
+    public void onWorkChanged(WorkChangedEvent event) {
+        invalidate(event.getWorkId());
+    }
+
+    /**
+     * Removes all works from the cache.
+     */
+    public void invalidateAll() {
+        modifications.incrementAndGet();
+        synchronized (entries) {
+            invalidated.addAndGet(entries.size());
+            entries.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getExpired() {
+        return expired.get();
+    }
+
+    public long getInvalidated() {
+        return invalidated.get();
+    }
+
+    /**
+     * Gets the number of cached works.
+     *
+     * @return the number of cached works
+     */
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Gets a summary of the cache statistics.
+     *
+     * @return the statistics
+     */
+    public String getStatistics() {
+        return "size=" + getSize() + ", hits=" + getHits() + ", misses=" + getMisses()
+            + ", expired=" + getExpired() + ", invalidated=" + getInvalidated();
+    }
+
+    /**
+     * Invalidates works changed or deleted by other processes. Runs at most once per poll interval, by only one thread.
+     */
+    private void pollChanges() {
+        long now = System.currentTimeMillis();
+        if (now < nextPoll || !polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            nextPoll = now + workCacheProperties.getPollInterval() * 1000;
+            Instant pollTime = Instant.ofEpochMilli(now);
+            List<String> changedIds = workRepository.findIdsUpdatedAfter(lastPoll.minusSeconds(CLOCK_TOLERANCE));
+            changedIds.forEach(this::invalidate);
+            List<String> deletedIds = findDeletedIds();
+            deletedIds.forEach(this::invalidate);
+            lastPoll = pollTime;
+            LOGGER.debug("Work cache: " + changedIds.size() + " changed works, " + deletedIds.size() + " deleted works, "
+                + getStatistics());
+        } catch (Exception e) {
+            LOGGER.warn("Could not poll changed works, invalidating the work cache: " + e);
+            invalidateAll();
+        } finally {
+            polling.set(false);
+        }
+    }
+
+    /**
+     * Finds the cached works which don't exist in the database anymore.
+     */
+    private List<String> findDeletedIds() {
+        List<String> cachedIds;
+        synchronized (entries) {
+            cachedIds = new ArrayList<>(entries.keySet());
+        }
+        List<String> deletedIds = new ArrayList<>();
+        for (int start = 0; start < cachedIds.size(); start += EXISTENCE_BATCH_SIZE) {
+            List<String> batch = cachedIds.subList(start, Math.min(start + EXISTENCE_BATCH_SIZE, cachedIds.size()));
+            Set<String> existingIds = new HashSet<>(workRepository.findExistingIds(batch));
+            batch.stream().filter(id -> !existingIds.contains(id)).forEach(deletedIds::add);
+        }
+        return deletedIds;
+    }
+
+    private Work copy(Work work) {
+        Work copy = new Work(work.getId(), work.getTitle());
+        copy.setPath(work.getPath());
+        copy.setHostId(work.getHostId());
+        copy.setIndexTime(work.getIndexTime());
+        copy.setAllowedNetwork(work.getAllowedNetwork());
+        copy.setGeneration(work.getGeneration());
+        copy.setUpdateTime(work.getUpdateTime());
+        return copy;
+    }
+
+    private static class CacheEntry {
+
+        private final Work work;
+        private final long loadTime;
+
+        CacheEntry(Work work, long loadTime) {
+            this.work = work;
+            this.loadTime = loadTime;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.kitodo.mediaserver.fileserver.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.naming.ConfigurationException;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitodo.mediaserver.core.config.FileserverProperties;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for checking addresses against the allowed networks.
+ */
+public class AllowedNetworkMatcherTest {
+
+    private FileserverProperties fileserverProperties;
+
+    private AllowedNetworkMatcher matcher;
+
+    @Before
+    public void init() throws Exception {
+        Map<String, List<String>> networks = new LinkedHashMap<>();
+        networks.put("global", Arrays.asList("0.0.0.0/0", "::/0"));
+        networks.put("disabled", Arrays.asList("0.0.0.0/32", "::/128"));
+        networks.put("host", Arrays.asList("192.168.1.7/32", "2001:db8::7/128"));
+        networks.put("campus", Arrays.asList("10.0.0.0/8", " 10.20.0.0/16", "2001:db8::/32", "2001:db8:1::/48"));
+        networks.put("range", Arrays.asList("172.16.0.5-9"));
+        networks.put("mapped", Arrays.asList("::ffff:192.168.0.0/112"));
+        networks.put("sixOnly", Arrays.asList("::/0"));
+
+        fileserverProperties = new FileserverProperties();
+        fileserverProperties.setAllowedNetworks(networks);
+        matcher = new AllowedNetworkMatcher();
+        matcher.setFileserverProperties(fileserverProperties);
+        matcher.init();
+    }
+
+    @Test
+    public void knowsConfiguredNetworks() {
+        assertThat(matcher.hasNetwork("global")).isTrue();
+        assertThat(matcher.hasNetwork("campus")).isTrue();
+        assertThat(matcher.hasNetwork("unknown")).isFalse();
+        assertThat(matcher.isAllowed("unknown", matcher.parseAddress("10.1.2.3"))).isFalse();
+    }
+
+    @Test
+    public void zeroPrefixAllowsEveryone() {
+        assertThat(isAllowed("global", "0.0.0.0")).isTrue();
+        assertThat(isAllowed("global", "255.255.255.255")).isTrue();
+        assertThat(isAllowed("global", "::1")).isTrue();
+        assertThat(isAllowed("global", "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff")).isTrue();
+    }
+
+    @Test
+    public void fullPrefixMatchesSingleAddress() {
+        assertThat(isAllowed("host", "192.168.1.7")).isTrue();
+        assertThat(isAllowed("host", "192.168.1.6")).isFalse();
+        assertThat(isAllowed("host", "192.168.1.8")).isFalse();
+        assertThat(isAllowed("host", "2001:db8::7")).isTrue();
+        assertThat(isAllowed("host", "2001:db8::8")).isFalse();
+    }
+
+    @Test
+    public void disabledNetworkAllowsOnlyUnspecifiedAddresses() {
+        assertThat(isAllowed("disabled", "192.168.1.7")).isFalse();
+        assertThat(isAllowed("disabled", "2001:db8::7")).isFalse();
+        assertThat(isAllowed("disabled", "0.0.0.0")).isTrue();
+        assertThat(isAllowed("disabled", "::")).isTrue();
+    }
+
+    @Test
+    public void overlappingSubnetsMatchTheWiderOne() {
+        assertThat(isAllowed("campus", "10.20.30.40")).isTrue();
+        assertThat(isAllowed("campus", "10.99.0.1")).isTrue();
+        assertThat(isAllowed("campus", "11.0.0.1")).isFalse();
+        assertThat(isAllowed("campus", "2001:db8:1::1")).isTrue();
+        assertThat(isAllowed("campus", "2001:db8:ffff::1")).isTrue();
+        assertThat(isAllowed("campus", "2001:db9::1")).isFalse();
+    }
+
+    @Test
+    public void addressRangesAreSplitIntoBlocks() {
+        assertThat(isAllowed("range", "172.16.0.4")).isFalse();
+        assertThat(isAllowed("range", "172.16.0.5")).isTrue();
+        assertThat(isAllowed("range", "172.16.0.8")).isTrue();
+        assertThat(isAllowed("range", "172.16.0.9")).isTrue();
+        assertThat(isAllowed("range", "172.16.0.10")).isFalse();
+    }
+
+    @Test
+    public void versionsDoNotMatchEachOther() {
+        assertThat(isAllowed("campus", "::a00:1")).isFalse();
+        assertThat(isAllowed("host", "::ffff:192.168.1.8")).isFalse();
+    }
+
+    @Test
+    public void mappedClientsAreCheckedAsVersionFour() {
+        assertThat(matcher.parseAddress("::ffff:10.1.2.3")).hasSize(4);
+        assertThat(isAllowed("campus", "::ffff:10.1.2.3")).isTrue();
+        assertThat(isAllowed("host", "::ffff:192.168.1.7")).isTrue();
+    }
+
+    @Test
+    public void mappedSubnetsStillMatch() {
+        assertThat(isAllowed("mapped", "::ffff:192.168.3.4")).isTrue();
+        assertThat(isAllowed("mapped", "192.168.3.4")).isTrue();
+        assertThat(isAllowed("mapped", "::ffff:192.169.3.4")).isFalse();
+        assertThat(isAllowed("sixOnly", "::ffff:8.8.8.8")).isTrue();
+    }
+
+    @Test
+    public void invalidAddressIsNotAllowed() {
+        assertThat(matcher.parseAddress("not an address")).isNull();
+        assertThat(matcher.isAllowed("global", null)).isFalse();
+    }
+
+    @Test
+    public void malformedSubnetFailsStartup() {
+        fileserverProperties.getAllowedNetworks().put("broken", Arrays.asList("10.0.0.0/8", "10.0.0.300/8"));
+        AllowedNetworkMatcher broken = new AllowedNetworkMatcher();
+        broken.setFileserverProperties(fileserverProperties);
+
+        assertThatThrownBy(broken::init)
+            .isInstanceOf(ConfigurationException.class)
+            .hasMessageContaining("10.0.0.300/8")
+            .hasMessageContaining("broken");
+    }
+
+    @Test
+    public void compilesReplacedNetworks() {
+        // given
+        Map<String, List<String>> networks = new LinkedHashMap<>();
+        networks.put("campus", Arrays.asList("172.16.0.0/12"));
+
+        // when
+        fileserverProperties.setAllowedNetworks(networks);
+
+        // then
+        assertThat(matcher.hasNetwork("host")).isFalse();
+        assertThat(isAllowed("campus", "172.20.1.2")).isTrue();
+        assertThat(isAllowed("campus", "10.1.2.3")).isFalse();
+    }
+
+    @Test
+    public void keepsNetworksIfReplacedOnesAreInvalid() {
+        // given
+        Map<String, List<String>> networks = new LinkedHashMap<>();
+        networks.put("campus", Arrays.asList("10.0.0.300/8"));
+
+        // when
+        fileserverProperties.setAllowedNetworks(networks);
+
+        // then
+        assertThat(matcher.hasNetwork("host")).isTrue();
+        assertThat(isAllowed("campus", "10.1.2.3")).isTrue();
+    }
+
+    @Test
+    public void usesRemoteAddressWithoutProxy() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("192.168.1.7");
+
+        assertThat(matcher.getSenderIp(request)).isEqualTo("192.168.1.7");
+    }
+
+    @Test
+    public void usesLastForwardedAddress() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("127.0.0.1");
+        request.addHeader("X-Forwarded-For", "10.1.2.3, 172.16.0.1 ,192.168.1.7");
+
+        assertThat(matcher.getSenderIp(request)).isEqualTo("192.168.1.7");
+    }
+
+    @Test
+    public void usesSingleForwardedAddress() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("127.0.0.1");
+        request.addHeader("X-Forwarded-For", "2001:db8::7");
+
+        assertThat(matcher.getSenderIp(request)).isEqualTo("2001:db8::7");
+    }
+
+    @Test
+    public void ignoresBlankForwardedHeader() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr("192.168.1.7");
+        request.addHeader("X-Forwarded-For", " ");
+
+        assertThat(matcher.getSenderIp(request)).isEqualTo("192.168.1.7");
+    }
+
+    private boolean isAllowed(String network, String ip) {
+        return matcher.isAllowed(network, matcher.parseAddress(ip));
+    }
+}
@@ -0,0 +1,275 @@
+package org.kitodo.mediaserver.fileserver.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for sending files and byte ranges.
+ */
+public class FileSenderTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FileSender fileSender;
+
+    private File file;
+
+    private MockHttpServletRequest request;
+
+    private MockHttpServletResponse response;
+
+    @Before
+    public void init() throws Exception {
+        fileSender = new FileSender();
+        file = temporaryFolder.newFile("content.txt");
+        Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.US_ASCII));
+        request = new MockHttpServletRequest();
+        response = new MockHttpServletResponse();
+    }
+
+    @Test
+    public void sendsWholeFile() throws Exception {
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).isEqualTo("text/plain");
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+        assertThat(response.getContentLengthLong()).isEqualTo(20);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void sendsSingleRange() throws Exception {
+        // given
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/20");
+        assertThat(response.getContentLengthLong()).isEqualTo(4);
+        assertThat(response.getContentAsString()).isEqualTo("2345");
+    }
+
+    @Test
+    public void sendsSuffixRange() throws Exception {
+        // given
+        request.addHeader(HttpHeaders.RANGE, "bytes=-4");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 16-19/20");
+        assertThat(response.getContentAsString()).isEqualTo("ghij");
+    }
+
+    @Test
+    public void limitsRangeToEndOfFile() throws Exception {
+        // given
+        request.addHeader(HttpHeaders.RANGE, "bytes=15-100");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 15-19/20");
+        assertThat(response.getContentAsString()).isEqualTo("fghij");
+    }
+
+    @Test
+    public void sendsMultipleRangesAsMultipart() throws Exception {
+        // given
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-1,10-12");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).startsWith("multipart/byteranges; boundary=");
+        String boundary = response.getContentType().substring(response.getContentType().indexOf('=') + 1);
+        assertThat(response.getContentAsString()).isEqualTo(
+            "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 0-1/20\r\n\r\n01"
+            + "\r\n--" + boundary + "\r\nContent-Type: text/plain\r\nContent-Range: bytes 10-12/20\r\n\r\nabc"
+            + "\r\n--" + boundary + "--\r\n");
+    }
+
+    @Test
+    public void sendsOverlappingRangesAsRequested() throws Exception {
+        // given
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-6,4-8");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString())
+            .contains("Content-Range: bytes 2-6/20\r\n\r\n23456\r\n")
+            .contains("Content-Range: bytes 4-8/20\r\n\r\n45678\r\n");
+    }
+
+    @Test
+    public void skipsUnsatisfiableRanges() throws Exception {
+        // given
+        request.addHeader(HttpHeaders.RANGE, "bytes=30-40,5-6");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentType()).isEqualTo("text/plain");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 5-6/20");
+        assertThat(response.getContentAsString()).isEqualTo("56");
+    }
+
+    @Test
+    public void rejectsOnlyUnsatisfiableRanges() throws Exception {
+        // given
+        request.addHeader(HttpHeaders.RANGE, "bytes=20-30,40-");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(416);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */20");
+    }
+
+    @Test
+    public void ignoresInvalidRangeHeader() throws Exception {
+        // given
+        request.addHeader(HttpHeaders.RANGE, "bytes=5-2");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void sendsRangeForCurrentEtag() throws Exception {
+        // given
+        response.setHeader(HttpHeaders.ETAG, "\"1-abc-14\"");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"1-abc-14\"");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("0123");
+    }
+
+    @Test
+    public void sendsWholeFileForStaleEtag() throws Exception {
+        // given
+        response.setHeader(HttpHeaders.ETAG, "\"1-abc-14\"");
+        request.addHeader(HttpHeaders.IF_RANGE, "\"1-abb-14\"");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void sendsWholeFileForWeakEtag() throws Exception {
+        // given
+        response.setHeader(HttpHeaders.ETAG, "\"1-abc-14\"");
+        request.addHeader(HttpHeaders.IF_RANGE, "W/\"1-abc-14\"");
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void sendsRangeForCurrentDate() throws Exception {
+        // given
+        request.addHeader(HttpHeaders.IF_RANGE, file.lastModified());
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("0123");
+    }
+
+    @Test
+    public void sendsWholeFileForStaleDate() throws Exception {
+        // given
+        request.addHeader(HttpHeaders.IF_RANGE, file.lastModified() - 60000);
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    public void passesRangeToSendfile() throws Exception {
+        // given
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        request.addHeader(HttpHeaders.RANGE, "bytes=4-9");
+
+        // when
+        fileSender.send(file, request, response);
+
+        // then
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentLengthLong()).isEqualTo(6);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(file.getCanonicalPath());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(4L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(10L);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    public void sendsStream() throws Exception {
+        // when
+        fileSender.send(new ByteArrayInputStream(CONTENT.getBytes(StandardCharsets.US_ASCII)), "content.pdf", response);
+
+        // then
+        assertThat(response.getContentType()).isEqualTo("application/pdf");
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+}
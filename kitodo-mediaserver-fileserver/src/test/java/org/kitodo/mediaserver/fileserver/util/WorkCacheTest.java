@@ -0,0 +1,156 @@
+package org.kitodo.mediaserver.fileserver.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Optional;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitodo.mediaserver.core.config.FileserverProperties;
+import org.kitodo.mediaserver.core.db.entities.Work;
+import org.kitodo.mediaserver.core.db.repositories.WorkRepository;
+import org.kitodo.mediaserver.core.services.WorkChangedEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the work cache.
+ */
+public class WorkCacheTest {
+
+    private WorkCache workCache;
+
+    private WorkRepository workRepository;
+
+    private FileserverProperties.WorkCache workCacheProperties;
+
+    @Before
+    public void init() {
+        Work work = new Work("work1", "Title");
+        work.setPath("/works/work1");
+        work.setGeneration(2);
+
+        workRepository = mock(WorkRepository.class);
+        when(workRepository.findById("work1")).thenReturn(Optional.of(work));
+        when(workRepository.findById("unknown")).thenReturn(Optional.empty());
+        when(workRepository.findIdsUpdatedAfter(any())).thenReturn(Collections.emptyList());
+        when(workRepository.findExistingIds(any())).thenAnswer(invocation -> new ArrayList<>((Collection<?>) invocation.getArgument(0)));
+
+        workCacheProperties = new FileserverProperties.WorkCache();
+        workCacheProperties.setMaxSize(10);
+        workCacheProperties.setTtl(300);
+        workCacheProperties.setPollInterval(300);
+
+        workCache = new WorkCache();
+        workCache.setWorkRepository(workRepository);
+        workCache.setWorkCacheProperties(workCacheProperties);
+    }
+
+    @Test
+    public void cachesLoadedWork() {
+        // when
+        Optional<Work> first = workCache.getWork("work1");
+        Optional<Work> second = workCache.getWork("work1");
+
+        // then
+        assertThat(first).isPresent();
+        assertThat(second.get().getPath()).isEqualTo("/works/work1");
+        assertThat(second.get().getGeneration()).isEqualTo(2);
+        assertThat(workCache.getMisses()).isEqualTo(1);
+        assertThat(workCache.getHits()).isEqualTo(1);
+        verify(workRepository, times(1)).findById("work1");
+    }
+
+    @Test
+    public void doesNotCacheUnknownWork() {
+        // when
+        workCache.getWork("unknown");
+        Optional<Work> work = workCache.getWork("unknown");
+
+        // then
+        assertThat(work).isEmpty();
+        assertThat(workCache.getSize()).isEqualTo(0);
+        verify(workRepository, times(2)).findById("unknown");
+    }
+
+    @Test
+    public void reloadsWorkAfterChangeEvent() {
+        // given
+        workCache.getWork("work1");
+
+        // when
+        workCache.onWorkChanged(new WorkChangedEvent(this, "work1"));
+        workCache.getWork("work1");
+
+        // then
+        assertThat(workCache.getInvalidated()).isEqualTo(1);
+        verify(workRepository, times(2)).findById("work1");
+    }
+
+    @Test
+    public void reloadsExpiredWork() {
+        // given
+        workCacheProperties.setTtl(0);
+
+        // when
+        workCache.getWork("work1");
+        workCache.getWork("work1");
+
+        // then
+        assertThat(workCache.getExpired()).isEqualTo(1);
+        verify(workRepository, times(2)).findById("work1");
+    }
+
+    @Test
+    public void invalidatesWorksChangedByOtherProcesses() {
+        // given
+        when(workRepository.findIdsUpdatedAfter(any())).thenReturn(Collections.singletonList("work1"));
+        workCacheProperties.setPollInterval(0);
+        workCache.getWork("work1");
+
+        // when
+        workCache.getWork("work1");
+
+        // then
+        assertThat(workCache.getHits()).isEqualTo(0);
+        verify(workRepository, times(2)).findById("work1");
+    }
+
+    @Test
+    public void invalidatesWorksDeletedByOtherProcesses() {
+        // given
+        workCacheProperties.setPollInterval(0);
+        workCache.getWork("work1");
+
+        // when
+        doReturn(Collections.emptyList()).when(workRepository).findExistingIds(any());
+        when(workRepository.findById("work1")).thenReturn(Optional.empty());
+        Optional<Work> work = workCache.getWork("work1");
+
+        // then
+        assertThat(work).isEmpty();
+        assertThat(workCache.getInvalidated()).isEqualTo(1);
+        assertThat(workCache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void isBoundedInSize() {
+        // given
+        workCacheProperties.setMaxSize(1);
+        Work work2 = new Work("work2", "Title 2");
+        when(workRepository.findById("work2")).thenReturn(Optional.of(work2));
+
+        // when
+        workCache.getWork("work1");
+        workCache.getWork("work2");
+
+        // then
+        assertThat(workCache.getSize()).isEqualTo(1);
+    }
+}
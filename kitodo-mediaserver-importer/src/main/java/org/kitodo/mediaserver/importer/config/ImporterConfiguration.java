@@ -12,7 +12,6 @@
 package org.kitodo.mediaserver.importer.config;
 
 import org.kitodo.mediaserver.core.api.IDataReader;
-import org.kitodo.mediaserver.core.api.IMetsReader;
 import org.kitodo.mediaserver.core.api.IReadResultParser;
 import org.kitodo.mediaserver.core.config.ConversionProperties;
 import org.kitodo.mediaserver.core.config.ImporterProperties;
@@ -20,6 +19,7 @@ import org.kitodo.mediaserver.core.processors.SimpleList2MapParser;
 import org.kitodo.mediaserver.core.processors.XsltMetsReader;
 import org.kitodo.mediaserver.importer.api.IImportValidation;
 import org.kitodo.mediaserver.importer.api.IMetsValidation;
+import org.kitodo.mediaserver.importer.processors.MetsIndexWorkDataReader;
 import org.kitodo.mediaserver.importer.processors.WorkDataReader;
 import org.kitodo.mediaserver.importer.validators.FileOccurrenceValidation;
 import org.kitodo.mediaserver.importer.validators.ImportDataAndFilesValidation;
@@ -30,6 +30,8 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.StringUtils;
 
 /**
  * Spring configuration of the importer module.
@@ -46,10 +48,64 @@ public class ImporterConfiguration {
     @Autowired
     private ConversionProperties conversionProperties;
 
+    /**
+     * Executor to import several works in parallel, used if {@code importer.importThreads} is greater than 1.
+     *
+     * @return the executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importExecutor() {
+        int threads = Math.max(1, importerProperties.getImportThreads());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("import-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    /**
+     * Executor to check the files of imported works in parallel. It is shared by all imports, so the number of
+     * parallel file system accesses is limited by {@code importer.validationThreads}.
+     *
+     * @return the executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor validationExecutor() {
+        int threads = Math.max(1, importerProperties.getValidationThreads());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("validation-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setDaemon(true);
+        return executor;
+    }
+
+    /**
+     * Executor to copy the files of works in parallel if a work is moved to another file system.
+     *
+     * @return the executor
+     */
+    @Bean
+    public ThreadPoolTaskExecutor moveExecutor() {
+        int threads = Math.max(1, importerProperties.getMoveThreads());
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("move-");
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setDaemon(true);
+        return executor;
+    }
+
     @Bean
     public IMetsValidation fileOccurrenceValidaton() {
         FileOccurrenceValidation fileOccurrenceValidation = new FileOccurrenceValidation();
-        fileOccurrenceValidation.setMetsUrlReader(fileUrlReader());
+        // file URLs are taken from the METS index, unless a stylesheet is configured
+        if (StringUtils.hasText(importerProperties.getFileUrlReaderXsl())) {
+            XsltMetsReader fileUrlReader = new XsltMetsReader();
+            fileUrlReader.setXslt(new ClassPathResource(importerProperties.getFileUrlReaderXsl()));
+            fileOccurrenceValidation.setMetsUrlReader(fileUrlReader);
+        }
         return fileOccurrenceValidation;
     }
 
@@ -60,28 +116,20 @@ public class ImporterConfiguration {
         return importValidation;
     }
 
-    @Bean
-    public IMetsReader fileUrlReader() {
-        XsltMetsReader xsltMetsReader = new XsltMetsReader();
-        xsltMetsReader.setXslt(new ClassPathResource(importerProperties.getFileUrlReaderXsl()));
-        return xsltMetsReader;
-    }
-
     @Bean
     public IDataReader workDataReader() {
+        // the work data is taken from the METS index, unless a stylesheet is configured
+        if (!StringUtils.hasText(importerProperties.getWorkDataReaderXsl())) {
+            return new MetsIndexWorkDataReader();
+        }
+        XsltMetsReader workDataMetsReader = new XsltMetsReader();
+        workDataMetsReader.setXslt(new ClassPathResource(importerProperties.getWorkDataReaderXsl()));
         WorkDataReader workDataReader = new WorkDataReader();
-        workDataReader.setMetsReader(workDataMetsReader());
+        workDataReader.setMetsReader(workDataMetsReader);
         workDataReader.setReadResultParser(workDataResultParser());
         return workDataReader;
     }
 
-    @Bean
-    public IMetsReader workDataMetsReader() {
-        XsltMetsReader workDataMetsReader = new XsltMetsReader();
-        workDataMetsReader.setXslt(new ClassPathResource(importerProperties.getWorkDataReaderXsl()));
-        return workDataMetsReader;
-    }
-
     @Bean
     public IReadResultParser workDataResultParser() {
         SimpleList2MapParser workDataResultParser = new SimpleList2MapParser();
@@ -0,0 +1,260 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.importer.control;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.apache.commons.io.FilenameUtils;
+import org.kitodo.mediaserver.core.config.ImporterProperties;
+import org.kitodo.mediaserver.importer.util.ImporterUtils;
+import org.kitodo.mediaserver.importer.util.WorkPackage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Watches the hotfolder and imports works shortly after they arrived.
+ *
+ * <p>
+ * All directories in the hotfolder are watched for changes. The time of the last change is kept for each entry of
+ * the hotfolder. A work is imported when its METS file is there and none of its files was changed for
+ * {@code importer.watchSettleTime} seconds, so works still being copied are not imported. The scheduled import still
+ * lists the whole hotfolder and imports works missed by the watcher.
+ */
+@Component
+public class HotfolderWatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HotfolderWatcher.class);
+
+    private ImporterProperties importerProperties;
+    private ImporterUtils importerUtils;
+    private ImporterFlowControl importerFlowControl;
+
+    private WatchService watchService;
+    private Path hotfolder;
+    private Thread thread;
+
+    private final Map<WatchKey, Path> watchedDirs = new ConcurrentHashMap<>();
+
+    /**
+     * The time of the last change of each entry of the hotfolder, by name.
+     */
+    private final TreeMap<String, Long> lastChanges = new TreeMap<>();
+
+    @Autowired
+    public void setImporterProperties(ImporterProperties importerProperties) {
+        this.importerProperties = importerProperties;
+    }
+
+    @Autowired
+    public void setImporterUtils(ImporterUtils importerUtils) {
+        this.importerUtils = importerUtils;
+    }
+
+    @Autowired
+    public void setImporterFlowControl(ImporterFlowControl importerFlowControl) {
+        this.importerFlowControl = importerFlowControl;
+    }
+
+    /**
+     * Starts watching the hotfolder in a background thread. All works already in the hotfolder are handled like
+     * new works.
+     *
+     * @throws IOException if the hotfolder can't be watched
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            return;
+        }
+        hotfolder = Paths.get(importerProperties.getHotfolderPath()).toAbsolutePath();
+        watchService = FileSystems.getDefault().newWatchService();
+        watchAll(System.currentTimeMillis());
+
+        thread = new Thread(this::watch, "hotfolder-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        LOGGER.info("Watching hotfolder " + hotfolder);
+    }
+
+    /**
+     * Stops watching the hotfolder and waits for the watcher thread to end. A running import is interrupted.
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (thread == null) {
+            return;
+        }
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOGGER.warn("Error closing the hotfolder watcher: " + e);
+        }
+        thread.interrupt();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Checks if a directory is watched, for tests.
+     *
+     * @param dir the directory
+     * @return true if changes of the directory are recorded
+     */
+    boolean isWatched(Path dir) {
+        return watchedDirs.containsValue(dir.toAbsolutePath());
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(1, TimeUnit.SECONDS);
+                long now = System.currentTimeMillis();
+                boolean overflow = false;
+                while (key != null) {
+                    overflow |= handleEvents(key, now);
+                    key = watchService.poll();
+                }
+                if (overflow) {
+                    // events were lost, so all works are handled like new works
+                    LOGGER.info("Too many changes in the hotfolder, checking all works");
+                    watchAll(now);
+                }
+
+                List<WorkPackage> workPackages = takeSettledWorkPackages(now);
+                if (!workPackages.isEmpty()) {
+                    LOGGER.info("Importing works from hotfolder watcher: " + workPackages);
+                    try {
+                        importerFlowControl.importWorks(workPackages);
+                    } catch (Exception e) {
+                        LOGGER.error("A severe error occurred during import: " + e, e);
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOGGER.info("Stopped watching hotfolder " + hotfolder);
+        } catch (Exception e) {
+            LOGGER.error("Hotfolder watcher stopped due to an error: " + e, e);
+        }
+    }
+
+    /**
+     * Records the changes of a watched directory and watches new directories.
+     *
+     * @return true if events were lost
+     */
+    boolean handleEvents(WatchKey key, long now) throws IOException {
+        boolean overflow = false;
+        Path dir = watchedDirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                overflow = true;
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            Path relativePath = hotfolder.relativize(path);
+            if (!relativePath.toString().isEmpty()) {
+                lastChanges.put(relativePath.getName(0).toString(), now);
+            }
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                watchTree(path);
+            }
+        }
+        // the key is invalid if the directory was moved away, e.g. by the import
+        if (!key.reset()) {
+            watchedDirs.remove(key);
+        }
+        return overflow;
+    }
+
+    /**
+     * Watches all directories of the hotfolder and handles all entries like new ones.
+     */
+    private void watchAll(long now) throws IOException {
+        watchTree(hotfolder);
+        File[] entries = hotfolder.toFile().listFiles();
+        for (File entry : entries != null ? entries : new File[0]) {
+            lastChanges.put(entry.getName(), now);
+        }
+    }
+
+    private void watchTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                watchedDirs.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE), dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                // the file may have been moved away meanwhile
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Finds the works whose files weren't changed for the settle time and removes their entries. Settled entries
+     * without METS file are removed, too, they are checked again on their next change.
+     */
+    private List<WorkPackage> takeSettledWorkPackages(long now) throws Exception {
+        long settleTime = TimeUnit.SECONDS.toMillis(importerProperties.getWatchSettleTime());
+        List<WorkPackage> workPackages = new ArrayList<>();
+        for (String name : new ArrayList<>(lastChanges.keySet())) {
+            Long lastChange = lastChanges.get(name);
+            if (lastChange == null || now - lastChange < settleTime) {
+                continue;
+            }
+            String workId = "xml".equals(FilenameUtils.getExtension(name)) ? FilenameUtils.removeExtension(name) : name;
+            // all entries of a work with the METS file directly in the hotfolder start with the work id
+            boolean settled = lastChanges.subMap(workId, workId + Character.MAX_VALUE).entrySet().stream()
+                .filter(entry -> ImporterUtils.belongsToWork(entry.getKey(), workId))
+                .allMatch(entry -> now - entry.getValue() >= settleTime);
+            if (!settled) {
+                continue;
+            }
+            WorkPackage workPackage = importerUtils.findWorkPackage(workId);
+            lastChanges.remove(name);
+            if (workPackage != null) {
+                lastChanges.remove(workPackage.getMetsFile().getName());
+                workPackage.getDirectories().forEach(dir -> lastChanges.remove(dir.getName()));
+                workPackages.add(workPackage);
+            }
+        }
+        return workPackages;
+    }
+}
@@ -13,15 +13,26 @@ package org.kitodo.mediaserver.importer.control;
 
 import java.io.File;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import javax.persistence.EntityManager;
 import org.apache.commons.io.FileExistsException;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.kitodo.mediaserver.core.api.IAction;
 import org.kitodo.mediaserver.core.api.IDataReader;
@@ -32,15 +43,21 @@ import org.kitodo.mediaserver.core.db.entities.Work;
 import org.kitodo.mediaserver.core.services.ActionService;
 import org.kitodo.mediaserver.core.services.WorkService;
 import org.kitodo.mediaserver.core.util.FileDeleter;
+import org.kitodo.mediaserver.core.util.MetsIndexCache;
 import org.kitodo.mediaserver.core.util.Notifier;
 import org.kitodo.mediaserver.importer.api.IImportValidation;
 import org.kitodo.mediaserver.importer.api.IWorkChecker;
 import org.kitodo.mediaserver.importer.exceptions.ImporterException;
 import org.kitodo.mediaserver.importer.util.ImporterUtils;
+import org.kitodo.mediaserver.importer.util.WorkGenerations;
+import org.kitodo.mediaserver.importer.util.WorkMover;
+import org.kitodo.mediaserver.importer.util.WorkPackage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Component;
 
 /**
@@ -66,12 +83,28 @@ public class ImporterFlowControl {
     private IAction cacheDeleteAction;
     private IAction viewerIndexingAction;
     private EntityManager entityManager;
+    private MetsIndexCache metsIndexCache;
+    private AsyncTaskExecutor importExecutor;
+    private WorkMover workMover;
+    private WorkGenerations workGenerations;
+
+    private final Object databaseLock = new Object();
 
     @Autowired
     public void setImporterUtils(ImporterUtils importerUtils) {
         this.importerUtils = importerUtils;
     }
 
+    @Autowired
+    public void setWorkMover(WorkMover workMover) {
+        this.workMover = workMover;
+    }
+
+    @Autowired
+    public void setWorkGenerations(WorkGenerations workGenerations) {
+        this.workGenerations = workGenerations;
+    }
+
     @Autowired
     public void setImporterProperties(ImporterProperties importerProperties) {
         this.importerProperties = importerProperties;
@@ -127,34 +160,179 @@ public class ImporterFlowControl {
         this.entityManager = entityManager;
     }
 
+    @Autowired
+    public void setMetsIndexCache(MetsIndexCache metsIndexCache) {
+        this.metsIndexCache = metsIndexCache;
+    }
+
+    @Autowired
+    public void setImportExecutor(@Qualifier("importExecutor") AsyncTaskExecutor importExecutor) {
+        this.importExecutor = importExecutor;
+    }
+
 
     /**
      * Controls the importer algorithm.
      *
+     * <p>
+     * If {@code importer.importThreads} is greater than 1, several works are imported in parallel. Each work is
+     * imported and rolled back on its own, works with the same id are imported one after the other. The messages
+     * of all works are collected in the error and report notifications.
+     *
      * @throws Exception if a severe error occurs
      */
     public void importWorks() throws Exception {
+        importWorks(null);
+    }
+
+    /**
+     * Imports works of the hotfolder. Only one import runs at a time, e.g. the scheduled import waits for the
+     * import of the hotfolder watcher.
+     *
+     * @param workPackages the works to import, e.g. found by the hotfolder watcher, or null to import all works
+     *                     found in the hotfolder, including works that arrive during the import
+     * @throws Exception if a severe error occurs
+     */
+    public synchronized void importWorks(List<WorkPackage> workPackages) throws Exception {
+
+        // Delete replaced generations of earlier imports whose retention time is over, also if generations were
+        // switched off since.
+        workGenerations.collect();
 
         File workDir;
-        File mets;
         Notifier errorNotifier = notifierFactory.getObject();
         Notifier reportNotifier = notifierFactory.getObject();
 
         List<String> incompleteDirectories = new ArrayList<>();
+        Deque<WorkPackage> queue = new ArrayDeque<>();
+        if (workPackages != null) {
+            queue.addAll(workPackages);
+        }
 
-        LOGGER.info("Looking for works to import in folder " + importerProperties.getHotfolderPath());
+        int importThreads = Math.max(1, importerProperties.getImportThreads());
+        CompletionService<WorkImport> imports = importThreads > 1 ? new ExecutorCompletionService<>(importExecutor) : null;
+        ConcurrentMap<String, Lock> workLocks = new ConcurrentHashMap<>();
+        Map<Future<WorkImport>, String> runningWorks = new HashMap<>();
+        int runningImports = 0;
+        ImporterException rollbackError = null;
+
+        LOGGER.info("Looking for works to import in folder " + importerProperties.getHotfolderPath()
+                + (imports != null ? " using " + importThreads + " threads" : ""));
 
         // Get a work from the hotfolder and move it to the import-in-progress-folder. Make sure that this set
         // of files is in a subdirectory named as the XML file with the mets-mods-data.
-        while ((workDir = importerUtils.getWorkPackage(incompleteDirectories)) != null) {
+        while (rollbackError == null && (workDir = nextWorkPackage(queue, workPackages == null, incompleteDirectories)) != null) {
+            if (imports == null) {
+                rollbackError = addResult(importWorkSafely(workDir, workLocks), errorNotifier, reportNotifier);
+            } else {
+                File packageDir = workDir;
+                runningWorks.put(imports.submit(() -> importWorkSafely(packageDir, workLocks)), packageDir.getName());
+                runningImports++;
+                // Don't take more works from the hotfolder than can be imported at once.
+                if (runningImports == importThreads) {
+                    rollbackError = addResult(takeResult(imports, runningWorks), errorNotifier, reportNotifier);
+                    runningImports--;
+                }
+            }
+        }
+
+        // Wait for the works still being imported, even if a rollback failed.
+        for (; runningImports > 0; runningImports--) {
+            ImporterException error = addResult(takeResult(imports, runningWorks), errorNotifier, reportNotifier);
+            if (rollbackError == null) {
+                rollbackError = error;
+            }
+        }
 
-            LOGGER.info("Starting import of work " + workDir.getName());
+        if (rollbackError != null) {
+            errorNotifier.addAndSend(rollbackError.getMessage(), "Import Rollback Error", importerProperties.getErrorNotificationEmail());
+            // works imported in parallel before the rollback failed are reported anyway
+            if (!StringUtils.isEmpty(reportNotifier.getCollectedNotification())) {
+                reportNotifier.send("Report: Import Action", importerProperties.getReportNotificationEmail());
+            }
+            throw rollbackError;
+        }
+
+        LOGGER.info("Nothing (more) to import.");
+
+        if (!StringUtils.isEmpty(errorNotifier.getCollectedNotification())) {
+            errorNotifier.send("Error: Import Action", importerProperties.getErrorNotificationEmail());
+        }
+
+        if (!incompleteDirectories.isEmpty()) {
+            String message = "The following directories were incomplete (no mets file found) and thus not imported: "
+                    + incompleteDirectories;
+            LOGGER.info(message);
+            reportNotifier.add(message);
+        }
+        reportNotifier.send("Report: Import Action", importerProperties.getReportNotificationEmail());
+    }
+
+    /**
+     * Moves the next work of the queue to the import-in-progress-folder. The hotfolder is only listed again when the
+     * queue is empty, not for every work.
+     *
+     * @param queue the works found in the hotfolder
+     * @param scan whether to list the hotfolder if the queue is empty
+     * @param incompleteDirectories the directories without METS file found so far
+     * @return the directory of the work in the import-in-progress-folder, null if there are no more works
+     */
+    private File nextWorkPackage(Deque<WorkPackage> queue, boolean scan, List<String> incompleteDirectories) throws Exception {
+        while (true) {
+            if (queue.isEmpty() && scan) {
+                queue.addAll(importerUtils.findWorkPackages(incompleteDirectories));
+            }
+            if (queue.isEmpty()) {
+                return null;
+            }
+            // works may have been moved away since they were found
+            File workDir = importerUtils.getWorkPackage(queue.poll());
+            if (workDir != null) {
+                return workDir;
+            }
+        }
+    }
+
+    /**
+     * Imports a work like {@link #importWork(File, ConcurrentMap)}. An unexpected exception is added to the errors of
+     * the work and stops the import like a failed rollback, as the state of the work is unknown.
+     *
+     * @param workDir the directory of the work in the import-in-progress-folder
+     * @param workLocks the locks of the works being imported, by work id
+     * @return the messages for the notifications and the error if the import or the rollback failed unexpectedly
+     */
+    private WorkImport importWorkSafely(File workDir, ConcurrentMap<String, Lock> workLocks) {
+        try {
+            return importWork(workDir, workLocks);
+        } catch (RuntimeException e) {
+            return unexpectedError(workDir.getName(), e);
+        }
+    }
+
+    /**
+     * Imports a work from the import-in-progress-folder, performing a rollback on errors.
+     *
+     * @param workDir the directory of the work in the import-in-progress-folder
+     * @param workLocks the locks of the works being imported, by work id
+     * @return the messages for the notifications and the error if the rollback failed
+     */
+    private WorkImport importWork(File workDir, ConcurrentMap<String, Lock> workLocks) {
+
+        WorkImport result = new WorkImport();
+        File mets;
+        Lock workLock = null;
 
-            Path tempOldWorkFiles = null;
-            Work presentWork = null;
-            Work newWork = null;
-            boolean importSuccessful = true;
+        LOGGER.info("Starting import of work " + workDir.getName());
 
+        Path tempOldWorkFiles = null;
+        File generationDir = null;
+        Path previousGeneration = null;
+        boolean published = false;
+        Work presentWork = null;
+        Work newWork = null;
+        boolean importSuccessful = true;
+
+        try {
             try {
                 // Get the mets file
                 mets = new File(workDir, workDir.getName() + ".xml");
@@ -168,6 +346,10 @@ public class ImporterFlowControl {
                 // Read the work data from the mets/mods file.
                 newWork = workDataReader.read(mets);
 
+                // Works with the same id are imported one after the other.
+                workLock = workLocks.computeIfAbsent(String.valueOf(newWork.getId()), id -> new ReentrantLock());
+                workLock.lock();
+
                 //check that naming of folder and mets.xml concedes with workId, otherwise rename
                 if (!StringUtils.equals(newWork.getId(), workDir.getName())) {
                     LOGGER.info("Id of work to import: " + newWork.getId() + " is different from the mets file name "
@@ -194,70 +376,118 @@ public class ImporterFlowControl {
                 // and if there are identifiers associated to another work.
                 presentWork = workChecker.check(newWork);
 
-                // If the work is already present, it should be replaced.
-                if (presentWork != null) {
+                newWork.setGeneration(presentWork != null ? presentWork.getGeneration() + 1 : 1);
 
-                    LOGGER.info("Work " + newWork.getId() + " already present, replacing");
+                if (workGenerations.isEnabled()) {
+                    if (presentWork != null) {
+                        LOGGER.info("Work " + newWork.getId() + " already present, replacing with generation " + newWork.getGeneration());
+                    }
+
+                    // Stage the new generation completely, while the present work is still delivered.
+                    if (presentWork == null && Files.exists(Paths.get(newWork.getPath()), LinkOption.NOFOLLOW_LINKS)) {
+                        throw new ImporterException("Work directory '" + newWork.getPath() + "' already exists but there is no DB entry "
+                            + "for workId='" + newWork.getId() + "'. Not importing work from '" + workDir + "'");
+                    }
+                    File stagedDir = workGenerations.getGenerationDir(newWork.getId(), newWork.getGeneration());
+                    LOGGER.debug("Move from='" + workDir + "' to='" + stagedDir + "'");
+                    workMover.moveDirectory(workDir, stagedDir);
+                    generationDir = stagedDir;
+
+                    // Switch the work path to the new generation at once.
+                    previousGeneration = workGenerations.publish(newWork, presentWork != null ? presentWork.getGeneration() : 0);
+                    published = true;
+                    workDir = new File(newWork.getPath());
 
                     // Files created and cached by the fileserver must be deleted.
-                    cacheDeleteAction.perform(presentWork, null);
-
-                    // Move old work files to a temporary folder.
-                    if (new File(presentWork.getPath()).isDirectory()) {
-                        tempOldWorkFiles = Paths.get(importerProperties.getTempWorkFolderPath(), presentWork.getId());
-                        LOGGER.debug("Move from='" + presentWork.getPath() + "' to='" + tempOldWorkFiles + "'");
-                        FileUtils.moveDirectory(
-                            new File(presentWork.getPath()),
-                            tempOldWorkFiles.toFile()
+                    if (presentWork != null) {
+                        cacheDeleteAction.perform(presentWork, null);
+                    }
+                } else {
+                    // If the work is already present, it should be replaced.
+                    if (presentWork != null) {
+
+                        LOGGER.info("Work " + newWork.getId() + " already present, replacing");
+
+                        // Files created and cached by the fileserver must be deleted.
+                        cacheDeleteAction.perform(presentWork, null);
+
+                        // Move old work files to a temporary folder. A work imported with generations is converted
+                        // to a directory: its current generation is moved and the link is removed.
+                        Path presentPath = Paths.get(presentWork.getPath());
+                        Path presentDir = workGenerations.getWorkDir(presentPath);
+                        if (Files.isDirectory(presentDir)) {
+                            tempOldWorkFiles = Paths.get(importerProperties.getTempWorkFolderPath(), presentWork.getId());
+                            LOGGER.debug("Move from='" + presentDir + "' to='" + tempOldWorkFiles + "'");
+                            workMover.moveDirectory(
+                                presentDir.toFile(),
+                                tempOldWorkFiles.toFile()
+                            );
+                            if (!presentDir.equals(presentPath)) {
+                                Files.delete(presentPath);
+                            }
+                        } else {
+                            LOGGER.warn("The alleged root path " + presentWork.getPath() + " of the already present work "
+                                    + presentWork.getId() + " is not a directory. Old files cannot be moved "
+                                    + "to temporary folder");
+                        }
+                    }
+
+                    // Move work files to the production root.
+                    try {
+                        LOGGER.debug("Move from='" + workDir + "' to='" + newWork.getPath() + "'");
+                        workMover.moveDirectory(
+                            workDir,
+                            new File(newWork.getPath())
                         );
-                    } else {
-                        LOGGER.warn("The alleged root path " + presentWork.getPath() + " of the already present work "
-                                + presentWork.getId() + " is not a directory. Old files cannot be moved "
-                                + "to temporary folder");
+                    } catch (FileExistsException ex) {
+                        String message = "Work directory '" + newWork.getPath() + "' already exists but there is no DB entry for workId='"
+                            + newWork.getId() + "'. Not importing work from '" + workDir + "'";
+                        throw new ImporterException(message, ex);
                     }
+                    workDir = new File(newWork.getPath());
                 }
 
-                // Move work files to the production root.
-                try {
-                    LOGGER.debug("Move from='" + workDir + "' to='" + newWork.getPath() + "'");
-                    FileUtils.moveDirectory(
-                        workDir,
-                        new File(newWork.getPath())
-                    );
-                } catch (FileExistsException ex) {
-                    String message = "Work directory '" + newWork.getPath() + "' already exists but there is no DB entry for workId='"
-                        + newWork.getId() + "'. Not importing work from '" + workDir + "'";
-                    throw new ImporterException(message, ex);
+                // Insert the work data into the database, updating if old data present.
+                // Works share collections, so parallel imports write one after the other.
+                synchronized (databaseLock) {
+                    workService.updateWork(newWork);
+
+                    if (presentWork != null) {
+                        // Set allowedNetwork according to presentWork and keep comment
+                        ActionData networkActionData = actionService.getLastPerformedAction(presentWork, "setAllowedNetworkAction");
+                        if (networkActionData == null) {
+                            newWork.setAllowedNetwork(presentWork.getAllowedNetwork());
+                            workService.updateWork(newWork);
+                        } else {
+                            workService.setAllowedNetwork(
+                                newWork,
+                                presentWork.getAllowedNetwork(),
+                                networkActionData.getParameter().getOrDefault("comment", ""),
+                                Boolean.parseBoolean(networkActionData.getParameter().getOrDefault("reduceMets", ""))
+                            );
+                        }
+                    }
                 }
-                workDir = new File(newWork.getPath());
 
-                // Insert the work data into the database, updating if old data present.
-                workService.updateWork(newWork);
+                writeMetsIndexFile(newWork);
 
-                if (presentWork != null) {
-                    // Set allowedNetwork according to presentWork and keep comment
-                    ActionData networkActionData = actionService.getLastPerformedAction(presentWork, "setAllowedNetworkAction");
-                    if (networkActionData == null) {
-                        newWork.setAllowedNetwork(presentWork.getAllowedNetwork());
-                        workService.updateWork(newWork);
-                    } else {
-                        workService.setAllowedNetwork(
-                            newWork,
-                            presentWork.getAllowedNetwork(),
-                            networkActionData.getParameter().getOrDefault("comment", ""),
-                            Boolean.parseBoolean(networkActionData.getParameter().getOrDefault("reduceMets", ""))
-                        );
+                // The replaced generation is deleted when requests reading it are finished.
+                if (previousGeneration != null) {
+                    try {
+                        workGenerations.retire(newWork.getId(), previousGeneration);
+                    } catch (Exception e) {
+                        LOGGER.warn("Could not retire generation " + previousGeneration + " of work " + newWork.getId() + ": " + e);
                     }
                 }
 
                 LOGGER.info("Finished import of work " + workDir.getName());
-                reportNotifier.add("Imported work: " + newWork.getId());
-                reportNotifier.add("  Title info: " + newWork.getTitle());
-                reportNotifier.add("  Collections: " + newWork.getCollections());
+                result.report.add("Imported work: " + newWork.getId());
+                result.report.add("  Title info: " + newWork.getTitle());
+                result.report.add("  Collections: " + newWork.getCollections());
                 if (StringUtils.isNotBlank(newWork.getHostId())) {
-                    reportNotifier.add("  Host id: " + newWork.getHostId());
+                    result.report.add("  Host id: " + newWork.getHostId());
                 }
-                reportNotifier.add("");
+                result.report.add("");
 
             } catch (Exception e) {
 
@@ -267,18 +497,20 @@ public class ImporterFlowControl {
                 String message = "An error occurred importing work " + workDir.getName()
                         + ", performing rollback. Error: " + e;
                 LOGGER.error(message, e);
-                errorNotifier.add(message);
+                result.errors.add(message);
 
                 // Delete work from DB if it is already saved
                 // Attention: em.contains() will not find detached entities
                 if (newWork != null && newWork.getId() != null && entityManager.contains(newWork)) {
                     try {
                         LOGGER.info("Rollback: deleting database entry for work " + workDir.getName());
-                        workService.deleteWork(newWork);
+                        synchronized (databaseLock) {
+                            workService.deleteWork(newWork);
+                        }
                     } catch (Exception rollbackExc) {
                         message = "An error occurred during rollback of work " + workDir.getName() + ": " + rollbackExc;
                         LOGGER.error(message, rollbackExc);
-                        errorNotifier.add(message);
+                        result.errors.add(message);
                         rollbackSuccessful = false;
                     }
                 }
@@ -287,13 +519,20 @@ public class ImporterFlowControl {
                     try {
                         // restore old work in database
                         LOGGER.info("Rollback: restoring old work data for work " + presentWork.getId());
-                        workService.updateWork(presentWork);
+                        synchronized (databaseLock) {
+                            workService.updateWork(presentWork);
+                        }
 
                         // restore old work files
                         if (tempOldWorkFiles != null) {
                             LOGGER.info("Rollback: restoring old files for work " + presentWork.getId());
                             LOGGER.debug("Move from='" + tempOldWorkFiles + "' to='" + presentWork.getPath() + "'");
-                            FileUtils.moveDirectory(
+                            // the link of a work converted from generations, if it wasn't removed
+                            Path presentPath = Paths.get(presentWork.getPath());
+                            if (Files.isSymbolicLink(presentPath) && !Files.exists(presentPath)) {
+                                Files.delete(presentPath);
+                            }
+                            workMover.moveDirectory(
                                 tempOldWorkFiles.toFile(),
                                 new File(presentWork.getPath())
                             );
@@ -301,18 +540,32 @@ public class ImporterFlowControl {
                     } catch (Exception rollbackExc) {
                         message = "An error occurred during rollback of work " + workDir.getName() + ": " + rollbackExc;
                         LOGGER.error(message, rollbackExc);
-                        errorNotifier.add(message);
+                        result.errors.add(message);
+                        rollbackSuccessful = false;
+                    }
+                }
+
+                if (published) {
+                    try {
+                        // switch back to the present generation
+                        LOGGER.info("Rollback: restoring the previous generation of work " + newWork.getId());
+                        workGenerations.restore(newWork, previousGeneration);
+                    } catch (Exception rollbackExc) {
+                        message = "An error occurred during rollback of work " + workDir.getName() + ": " + rollbackExc;
+                        LOGGER.error(message, rollbackExc);
+                        result.errors.add(message);
                         rollbackSuccessful = false;
                     }
                 }
 
                 try {
                     // move import files to error folder
+                    File importedDir = generationDir != null ? generationDir : workDir;
                     LOGGER.info("Rollback: moving all files for work " + workDir.getName() + " to error folder.");
-                    LOGGER.debug("Move from='" + workDir + "' to='" + new File(importerProperties.getErrorFolderPath(),
+                    LOGGER.debug("Move from='" + importedDir + "' to='" + new File(importerProperties.getErrorFolderPath(),
                         workDir.getName() + "_" + LocalDateTime.now()) + "'");
-                    FileUtils.moveDirectory(
-                        workDir,
+                    workMover.moveDirectory(
+                        importedDir,
                         new File(importerProperties.getErrorFolderPath(), workDir.getName() + "_" + LocalDateTime.now())
                     );
                 } catch (Exception rollbackExc) {
@@ -323,8 +576,8 @@ public class ImporterFlowControl {
                 if (!rollbackSuccessful) {
                     message = "The rollback during import of work " + workDir.getName() + " failed. "
                             + "Interrupting import process.";
-                    errorNotifier.addAndSend(message,"Import Rollback Error", importerProperties.getErrorNotificationEmail());
-                    throw new ImporterException(message);
+                    result.rollbackError = new ImporterException(message);
+                    return result;
                 }
             }
 
@@ -340,6 +593,9 @@ public class ImporterFlowControl {
                     LOGGER.info("Performing actions before indexing work " + workDir.getName());
                     performActions(importerProperties.getActionsBeforeIndexing(), newWork, false);
 
+                    // Actions may have changed the mets file
+                    writeMetsIndexFile(newWork);
+
                     // Perform indexing of the work
                     if (importerProperties.isIndexWorkAfterImport()) {
                         LOGGER.info("Triggering indexing of work " + newWork.getId());
@@ -353,7 +609,7 @@ public class ImporterFlowControl {
                         } catch (Exception e) {
                             String message = "Error indexing " + newWork.getId() + ": " + e + ". Actions after indexing not performed";
                             LOGGER.error(message, e);
-                            errorNotifier.add(message);
+                            result.errors.add(message);
                         }
                     }
 
@@ -365,25 +621,76 @@ public class ImporterFlowControl {
                             + ". The import itself was successfully performed not all the subsequent actions."
                             + " The work has probably not been indexed. Error: " + e;
                     LOGGER.error(message, e);
-                    errorNotifier.add(message);
+                    result.errors.add(message);
                 }
             }
+        } finally {
+            if (workLock != null) {
+                workLock.unlock();
+            }
         }
-        LOGGER.info("Nothing (more) to import.");
+        return result;
+    }
 
-        if (!StringUtils.isEmpty(errorNotifier.getCollectedNotification())) {
-            errorNotifier.send("Error: Import Action", importerProperties.getErrorNotificationEmail());
+    /**
+     * Waits for the next finished import of the parallel imports. An import that failed with an error is returned as
+     * result with this error, so the results of all other imports are still collected and notified.
+     *
+     * @throws InterruptedException if the importer was interrupted while waiting
+     */
+    private WorkImport takeResult(CompletionService<WorkImport> imports, Map<Future<WorkImport>, String> runningWorks)
+            throws InterruptedException {
+        Future<WorkImport> future = imports.take();
+        String workName = runningWorks.remove(future);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return unexpectedError(workName, e.getCause());
         }
+    }
 
-        if (!incompleteDirectories.isEmpty()) {
-            String message = "The following directories were incomplete (no mets file found) and thus not imported: "
-                    + incompleteDirectories;
-            LOGGER.info(message);
-            reportNotifier.add(message);
+    private WorkImport unexpectedError(String workName, Throwable error) {
+        WorkImport result = new WorkImport();
+        String message = "An unexpected error occurred importing work " + workName + ": " + error
+                + ". The work may be incomplete, interrupting import process.";
+        LOGGER.error(message, error);
+        result.errors.add(message);
+        result.rollbackError = new ImporterException(message);
+        return result;
+    }
+
+    /**
+     * Adds the messages of an imported work to the notifications.
+     *
+     * @return the error if the rollback of the work failed, otherwise null
+     */
+    private ImporterException addResult(WorkImport result, Notifier errorNotifier, Notifier reportNotifier) {
+        result.errors.forEach(errorNotifier::add);
+        result.report.forEach(reportNotifier::add);
+        return result.rollbackError;
+    }
+
+    /**
+     * Writes the index file of the mets file, so the fileserver doesn't need to parse the mets file.
+     * The fileserver reads the mets file if the index file is missing, so errors don't affect the import.
+     */
+    private void writeMetsIndexFile(Work work) {
+        try {
+            metsIndexCache.writeIndexFile(work);
+        } catch (Exception e) {
+            LOGGER.warn("Could not write the mets index file of work " + work.getId() + ": " + e);
         }
-        reportNotifier.send("Report: Import Action", importerProperties.getReportNotificationEmail());
     }
 
+    /**
+     * Performs or requests the configured actions of a work.
+     *
+     * <p>
+     * Requests are stored one after the other like the other database updates of parallel imports. Performed actions
+     * run in parallel for different works, as they may convert files for a long time; actions writing to the
+     * database, like {@code setAllowedNetworkAction}, should be requested instead if {@code importer.importThreads}
+     * is greater than 1.
+     */
     private void performActions(List<Map<String, Map<String, String>>> actionList, Work work, boolean request) throws Exception {
         for (Map<String, Map<String, String>> actionMap : actionList) {
             if (actionMap.keySet() == null || actionMap.keySet().size() != 1) {
@@ -395,7 +702,9 @@ public class ImporterFlowControl {
 
                     if (request) {
                         LOGGER.info("Requesting " + message);
-                        actionService.request(work, action, actionMap.get(action));
+                        synchronized (databaseLock) {
+                            actionService.request(work, action, actionMap.get(action));
+                        }
                     } else {
                         LOGGER.info("Performing " + message);
                         actionService.performImmediately(work, action, actionMap.get(action));
@@ -405,4 +714,13 @@ public class ImporterFlowControl {
         }
     }
 
+    /**
+     * The result of importing one work: the messages for the notifications and the error if the rollback failed.
+     */
+    private static class WorkImport {
+
+        private final List<String> errors = new ArrayList<>();
+        private final List<String> report = new ArrayList<>();
+        private ImporterException rollbackError;
+    }
 }
@@ -0,0 +1,61 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.importer.processors;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.kitodo.mediaserver.core.api.IDataReader;
+import org.kitodo.mediaserver.core.db.entities.Collection;
+import org.kitodo.mediaserver.core.db.entities.Work;
+import org.kitodo.mediaserver.core.processors.MetsWorkData;
+import org.kitodo.mediaserver.core.util.MetsIndexCache;
+import org.springframework.beans.factory.annotation.Autowired;
+
+
+/**
+ * Converts a mets file to a work instance, using the METS index.
+ * The index is cached, so the validators and actions of the import use it without reading the mets file again.
+ */
+public class MetsIndexWorkDataReader implements IDataReader {
+
+    private MetsIndexCache metsIndexCache;
+
+    @Autowired
+    public void setMetsIndexCache(MetsIndexCache metsIndexCache) {
+        this.metsIndexCache = metsIndexCache;
+    }
+
+    /**
+     * Reads the work data from the index of a mets file and converts it to a work instance.
+     *
+     * @param mets the mets file
+     * @return a Work object
+     */
+    @Override
+    public Work read(File mets) throws Exception {
+        MetsWorkData workData = metsIndexCache.getIndex(mets).getWorkData();
+
+        Work work = new Work(workData.getWorkId(), workData.getTitle());
+        work.setHostId(workData.getHostId());
+        List<String> collections = workData.getCollections();
+        if (!collections.isEmpty()) {
+            Set<Collection> collectionSet = collections.stream()
+                .map(Collection::new)
+                .collect(Collectors.toSet());
+            work.setCollections(collectionSet);
+        }
+
+        return work;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.importer.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+
+/**
+ * Calculates checksums of files as given in the CHECKSUMTYPE attribute of METS files.
+ *
+ * <p>
+ * Files are read sequentially through a small buffer, so large files don't need memory of their size.
+ */
+public final class FileChecksums {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private FileChecksums() {
+    }
+
+    /**
+     * Checks if a checksum type is supported.
+     *
+     * @param checksumType the CHECKSUMTYPE of a METS file, like "MD5" or "SHA-256"
+     * @return true if checksums of this type can be calculated
+     */
+    public static boolean isSupported(String checksumType) {
+        return checksumType != null && newDigest(checksumType) != null;
+    }
+
+    /**
+     * Calculates the checksum of a file.
+     *
+     * @param file the file
+     * @param checksumType the CHECKSUMTYPE of a METS file, like "MD5" or "SHA-256"
+     * @return the checksum as lower case hex string
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the checksum type is not supported
+     */
+    public static String calculate(Path file, String checksumType) throws IOException {
+        Digest digest = checksumType != null ? newDigest(checksumType) : null;
+        if (digest == null) {
+            throw new IllegalArgumentException("Unsupported checksum type " + checksumType);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return digest.toHex();
+    }
+
+    /**
+     * Checks if a file has the expected checksum. Hex digits are compared case-insensitively.
+     *
+     * @param file the file
+     * @param checksumType the CHECKSUMTYPE of a METS file
+     * @param checksum the expected checksum
+     * @return true if the checksum matches
+     * @throws IOException if the file can't be read
+     * @throws IllegalArgumentException if the checksum type is not supported
+     */
+    public static boolean matches(Path file, String checksumType, String checksum) throws IOException {
+        return calculate(file, checksumType).equalsIgnoreCase(checksum.trim());
+    }
+
+    private static Digest newDigest(String checksumType) {
+        switch (checksumType.trim().toUpperCase(Locale.ENGLISH)) {
+            case "MD5":
+            case "SHA-1":
+            case "SHA-256":
+            case "SHA-384":
+            case "SHA-512":
+                try {
+                    MessageDigest messageDigest = MessageDigest.getInstance(checksumType.trim().toUpperCase(Locale.ENGLISH));
+                    return new Digest() {
+                        @Override
+                        public void update(ByteBuffer buffer) {
+                            messageDigest.update(buffer);
+                        }
+
+                        @Override
+                        public String toHex() {
+                            StringBuilder hex = new StringBuilder();
+                            for (byte b : messageDigest.digest()) {
+                                hex.append(String.format("%02x", b));
+                            }
+                            return hex.toString();
+                        }
+                    };
+                } catch (NoSuchAlgorithmException e) {
+                    return null;
+                }
+            case "CRC32":
+                CRC32 crc = new CRC32();
+                return new Digest() {
+                    @Override
+                    public void update(ByteBuffer buffer) {
+                        crc.update(buffer);
+                    }
+
+                    @Override
+                    public String toHex() {
+                        return String.format("%08x", crc.getValue());
+                    }
+                };
+            case "ADLER-32":
+                Adler32 adler = new Adler32();
+                return new Digest() {
+                    @Override
+                    public void update(ByteBuffer buffer) {
+                        adler.update(buffer);
+                    }
+
+                    @Override
+                    public String toHex() {
+                        return String.format("%08x", adler.getValue());
+                    }
+                };
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * A message digest or a checksum.
+     */
+    private interface Digest {
+
+        void update(ByteBuffer buffer);
+
+        String toHex();
+    }
+}
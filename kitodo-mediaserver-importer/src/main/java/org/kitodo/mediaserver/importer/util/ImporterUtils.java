@@ -13,15 +13,16 @@ package org.kitodo.mediaserver.importer.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.filefilter.FalseFileFilter;
-import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.kitodo.mediaserver.core.config.ImporterProperties;
 import org.kitodo.mediaserver.importer.exceptions.ImporterException;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -34,96 +35,174 @@ import org.springframework.stereotype.Component;
 public class ImporterUtils {
 
     private ImporterProperties importerProperties;
+    private WorkMover workMover;
 
     @Autowired
     public void setImporterProperties(ImporterProperties importerProperties) {
         this.importerProperties = importerProperties;
     }
 
+    @Autowired
+    public void setWorkMover(WorkMover workMover) {
+        this.workMover = workMover;
+    }
+
     /**
-     * Searches the import hotfolder for a new work to import. If a work is found, it is moved to a subdirectory of
-     * the import-in-progress folder.
+     * Searches the import hotfolder for works to import, listing the hotfolder once.
      *
      * <p>
-     * Checks first if there are xml files directly in the hotfolder. If so, it is assumed that this is a METS/MODS
-     * file, and this file and all directories with the xml file name as prefix are moved into a new subfolder in the
-     * importing directory.
+     * Xml files directly in the hotfolder are assumed to be METS/MODS files. All directories named like the xml file,
+     * optionally followed by a separator and a suffix (see {@link #belongsToWork(String, String)}), belong to the same
+     * work. These works come first.
      *
      * <p>
-     * If no xml file is found, the first directory found is copied to the importing directory, assuming this is a
-     * process folder for the complete work. However, directories with no METS xml are ignored.
+     * Other directories are assumed to be process folders for a complete work, if they contain a METS xml file of
+     * the same name. Directories with no METS xml are ignored and added to the incomplete directories.
+     *
+     * @param incompleteDirectories the names of the incomplete directories found so far, which are not checked again
+     * @return the works to import in the order to import them
+     * @throws ImporterException if the hotfolder is not a directory
+     */
+    public List<WorkPackage> findWorkPackages(List<String> incompleteDirectories) throws ImporterException {
+        File hotfolder = getHotfolder();
+
+        List<File> xmlFiles = new ArrayList<>();
+        TreeMap<String, File> dirs = new TreeMap<>();
+        File[] entries = hotfolder.listFiles();
+        for (File entry : entries != null ? entries : new File[0]) {
+            if (entry.isDirectory()) {
+                dirs.put(entry.getName(), entry);
+            } else if ("xml".equals(FilenameUtils.getExtension(entry.getName()))) {
+                xmlFiles.add(entry);
+            }
+        }
+        xmlFiles.sort(Comparator.comparing(File::getName));
+
+        List<WorkPackage> workPackages = new ArrayList<>();
+        Set<String> packedDirs = new HashSet<>();
+        for (File xmlFile : xmlFiles) {
+            String workId = FilenameUtils.removeExtension(xmlFile.getName());
+            List<File> workDirs = getWorkDirs(dirs, workId);
+            workDirs.forEach(dir -> packedDirs.add(dir.getName()));
+            workPackages.add(new WorkPackage(workId, xmlFile, workDirs));
+        }
+
+        for (File dir : dirs.values()) {
+            if (packedDirs.contains(dir.getName()) || incompleteDirectories.contains(dir.getName())) {
+                continue;
+            }
+            // Check that the directory contains a mets file, otherwise the export might not yet be complete.
+            File mets = new File(dir, dir.getName() + ".xml");
+            if (mets.exists()) {
+                workPackages.add(new WorkPackage(dir.getName(), mets, Collections.singletonList(dir)));
+            } else {
+                incompleteDirectories.add(dir.getName());
+            }
+        }
+        return workPackages;
+    }
+
+    /**
+     * Checks if a single work is complete in the hotfolder, without listing the whole hotfolder unless the METS file
+     * is directly in the hotfolder.
+     *
+     * @param workId the name of the METS file without extension, or the name of the directory
+     * @return the work to import or null if there is no METS file
+     * @throws ImporterException if the hotfolder is not a directory
+     */
+    public WorkPackage findWorkPackage(String workId) throws ImporterException {
+        File hotfolder = getHotfolder();
+
+        File xmlFile = new File(hotfolder, workId + ".xml");
+        if (xmlFile.isFile()) {
+            File[] dirs = hotfolder.listFiles((parent, name) -> belongsToWork(name, workId));
+            List<File> workDirs = Arrays.stream(dirs != null ? dirs : new File[0])
+                    .filter(File::isDirectory)
+                    .sorted(Comparator.comparing(File::getName))
+                    .collect(Collectors.toList());
+            return new WorkPackage(workId, xmlFile, workDirs);
+        }
+
+        File dir = new File(hotfolder, workId);
+        File mets = new File(dir, workId + ".xml");
+        if (mets.isFile()) {
+            return new WorkPackage(workId, mets, Collections.singletonList(dir));
+        }
+        return null;
+    }
+
+    /**
+     * Moves a work from the hotfolder to a subdirectory of the import-in-progress folder.
      *
-     * @return the directory with the work to import, null if no work is found.
+     * @param workPackage the work found in the hotfolder
+     * @return the directory with the work to import, null if the work is no longer in the hotfolder
      * @throws Exception if a severe error occurs.
      */
-    public File getWorkPackage(List<String> incompleteDirectories) throws Exception {
-        File hotfolder = new File(importerProperties.getHotfolderPath());
+    public File getWorkPackage(WorkPackage workPackage) throws Exception {
+        File hotfolder = getHotfolder();
         File importingFolder  = new File(importerProperties.getImportingFolderPath());
 
-        if (hotfolder == null || !hotfolder.isDirectory()) {
-            throw new ImporterException("The hotfolder '" + importerProperties.getHotfolderPath()
-                    + "' is not a directory, please check your configuration");
-        }
         if (importingFolder == null) {
             throw new ImporterException("The import-in-progress folder '" + importerProperties.getImportingFolderPath()
                     + "' is not defined, please check your configuration");
         }
         importingFolder.mkdirs();
 
-        // At first, check for an xml file direct under the hotfolder
-        Optional<File> optionalXmlFile = FileUtils
-                .listFiles(hotfolder, new String[] {"xml"}, false)
-                .stream()
-                .findFirst();
-
-        if (optionalXmlFile.isPresent()) {
-            File xmlFile = optionalXmlFile.get();
-            String workId = FilenameUtils.removeExtension(xmlFile.getName());
+        File xmlFile = workPackage.getMetsFile();
+        if (hotfolder.equals(xmlFile.getParentFile())) {
+            if (!xmlFile.isFile()) {
+                return null;
+            }
 
-            File importWorkDir = new File(importingFolder, workId);
+            File importWorkDir = new File(importingFolder, workPackage.getName());
             importWorkDir.mkdirs();
 
             moveFile(xmlFile, importWorkDir);
 
-            Collection<File> dirs = FileUtils
-                    .listFilesAndDirs(
-                            hotfolder,
-                            FalseFileFilter.FALSE,
-                            new WildcardFileFilter(workId + "*"))
-                    .stream()
-                    .filter(dir -> !dir.equals(hotfolder))
-                    .collect(Collectors.toList());
-
-            for (File dir : dirs) {
-                moveDir(dir, importWorkDir);
+            for (File dir : workPackage.getDirectories()) {
+                if (dir.isDirectory()) {
+                    moveDir(dir, importWorkDir);
+                }
             }
 
             return importWorkDir;
         }
 
-        // If there is no xml file directly under the hotfolder, check for a directory
-        boolean thereIsStillHopeForCompleteDirectories = true;
-        while (thereIsStillHopeForCompleteDirectories) {
-            Optional<File> optionalDir = Arrays.stream(hotfolder.listFiles(File::isDirectory))
-                    .filter(dir -> !incompleteDirectories.contains(dir.getName()))
-                    .findFirst();
-
-            if (optionalDir.isPresent()) {
-                File dir = optionalDir.get();
-                // Check that the directory contains a mets file, otherwise the export might not yet be complete.
-                File mets = new File(dir, dir.getName() + ".xml");
-                if (mets.exists()) {
-                    moveDir(optionalDir.get(), importingFolder);
-                    return new File(importingFolder, optionalDir.get().getName());
-                } else {
-                    incompleteDirectories.add(dir.getName());
-                }
-            } else {
-                thereIsStillHopeForCompleteDirectories = false;
-            }
+        File dir = workPackage.getDirectories().get(0);
+        if (!xmlFile.exists()) {
+            return null;
         }
+        moveDir(dir, importingFolder);
+        return new File(importingFolder, dir.getName());
+    }
 
-        return null;
+    private File getHotfolder() throws ImporterException {
+        File hotfolder = new File(importerProperties.getHotfolderPath());
+        if (!hotfolder.isDirectory()) {
+            throw new ImporterException("The hotfolder '" + importerProperties.getHotfolderPath()
+                    + "' is not a directory, please check your configuration");
+        }
+        return hotfolder;
+    }
+
+    /**
+     * Checks if an entry of the hotfolder belongs to a work with the METS file directly in the hotfolder. Its name is
+     * the work id, optionally followed by a character other than a letter or digit and a suffix, e.g.
+     * {@code abc1_tif} or {@code abc1.xml} for the work {@code abc1}, but not {@code abc10}.
+     *
+     * @param name the name of the entry
+     * @param workId the id of the work
+     * @return true if the entry belongs to the work
+     */
+    public static boolean belongsToWork(String name, String workId) {
+        return name.startsWith(workId)
+            && (name.length() == workId.length() || !Character.isLetterOrDigit(name.charAt(workId.length())));
+    }
+
+    private static List<File> getWorkDirs(TreeMap<String, File> dirs, String workId) {
+        return dirs.subMap(workId, workId + Character.MAX_VALUE).values().stream()
+            .filter(dir -> belongsToWork(dir.getName(), workId))
+            .collect(Collectors.toList());
     }
 
     /**
@@ -136,14 +215,14 @@ public class ImporterUtils {
      */
     private void moveDir(File dir, File targetParentDir) throws ImporterException {
         try {
-            FileUtils.moveDirectory(
+            workMover.moveDirectory(
                     dir,
                     new File(targetParentDir, dir.getName()));
         } catch (IOException e) {
             // If an error occurs, try to move the directory to the error folder.
             try {
                 File errorFolder = new File(importerProperties.getErrorFolderPath());
-                FileUtils.moveDirectory(
+                workMover.moveDirectory(
                         dir,
                         new File(errorFolder, dir.getName()));
             } catch (Exception e1) {
@@ -164,14 +243,14 @@ public class ImporterUtils {
      */
     private void moveFile(File file, File targetParentDir) throws ImporterException {
         try {
-            FileUtils.moveFile(
+            workMover.moveFile(
                     file,
                     new File(targetParentDir, file.getName()));
         } catch (IOException e) {
             // If an error occurs, try to move the file to the error folder.
             try {
                 File errorFolder  = new File(importerProperties.getErrorFolderPath());
-                FileUtils.moveFile(
+                workMover.moveFile(
                         file,
                         new File(errorFolder, file.getName()));
             } catch (Exception e1) {
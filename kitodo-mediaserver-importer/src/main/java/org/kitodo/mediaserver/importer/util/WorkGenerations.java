@@ -0,0 +1,257 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.importer.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import org.apache.commons.io.FileUtils;
+import org.kitodo.mediaserver.core.api.IAction;
+import org.kitodo.mediaserver.core.config.ImporterProperties;
+import org.kitodo.mediaserver.core.db.entities.Work;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Versioned work directories, used if {@code importer.workGenerations} is set.
+ *
+ * <p>
+ * Each import of a work is moved to its own generation directory {@code .generations/<workId>.<generation>} in the
+ * work files folder. The work path {@code <workId>} is a symbolic link to the current generation. A new generation
+ * is published by replacing the link with a single rename, so the fileserver always finds a complete work.
+ *
+ * <p>
+ * Replaced generations are retired: a marker file in the folder {@code .retired} of the temporary work folder
+ * records them. They are deleted after {@code importer.generationRetention} seconds, when requests reading the old
+ * files are finished. Derivatives cached from the old files in the meantime are deleted with them.
+ */
+@Component
+public class WorkGenerations {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkGenerations.class);
+
+    private static final String GENERATIONS_FOLDER = ".generations";
+    private static final String RETIRED_FOLDER = ".retired";
+
+    private ImporterProperties importerProperties;
+    private IAction cacheDeleteAction;
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    public void setImporterProperties(ImporterProperties importerProperties) {
+        this.importerProperties = importerProperties;
+    }
+
+    @Autowired
+    public void setCacheDeleteAction(IAction cacheDeleteAction) {
+        this.cacheDeleteAction = cacheDeleteAction;
+    }
+
+    @Autowired(required = false)
+    public void setTaskScheduler(TaskScheduler taskScheduler) {
+        this.taskScheduler = taskScheduler;
+    }
+
+    public boolean isEnabled() {
+        return importerProperties.isWorkGenerations();
+    }
+
+    /**
+     * Gets the directory of a generation of a work.
+     *
+     * @param workId the id of the work
+     * @param generation the generation
+     * @return the generation directory, which may not exist
+     */
+    public File getGenerationDir(String workId, int generation) {
+        return Paths.get(importerProperties.getWorkFilesPath(), GENERATIONS_FOLDER, workId + "." + generation).toFile();
+    }
+
+    /**
+     * Gets the directory with the files of a work. It is the current generation if the work path is a symbolic link,
+     * e.g. for a work imported with generations before they were switched off.
+     *
+     * @param workPath the work path
+     * @return the directory the work path links to, or the work path itself
+     * @throws IOException if the link can't be read
+     */
+    public Path getWorkDir(Path workPath) throws IOException {
+        return Files.isSymbolicLink(workPath) ? resolve(workPath) : workPath;
+    }
+
+    /**
+     * Makes a generation the current one of a work with a single rename of the work path.
+     *
+     * <p>
+     * If the work path is a directory from an import without generations, it is moved to the directory of the
+     * previous generation first. Only in this case the work is missing for the time between the two renames.
+     *
+     * @param work the work with its path and the new generation
+     * @param previousGeneration the generation of the present work, used for a work path which is a directory
+     * @return the directory of the previous generation, null if there was none
+     * @throws IOException if the generation can't be published
+     */
+    public Path publish(Work work, int previousGeneration) throws IOException {
+        Path workPath = Paths.get(work.getPath());
+        Path generationDir = getGenerationDir(work.getId(), work.getGeneration()).toPath();
+        Path previous = null;
+
+        Path link = createLink(workPath, generationDir);
+        boolean movedDirectory = false;
+        try {
+            if (Files.isSymbolicLink(workPath)) {
+                previous = resolve(workPath);
+            } else if (Files.isDirectory(workPath, LinkOption.NOFOLLOW_LINKS)) {
+                previous = getGenerationDir(work.getId(), previousGeneration).toPath();
+                if (Files.exists(previous, LinkOption.NOFOLLOW_LINKS)) {
+                    throw new IOException("Can't move work directory " + workPath + ", " + previous + " already exists");
+                }
+                Files.move(workPath, previous);
+                movedDirectory = true;
+            }
+            replace(link, workPath);
+        } catch (IOException e) {
+            if (movedDirectory && !Files.exists(workPath, LinkOption.NOFOLLOW_LINKS)) {
+                try {
+                    Files.move(previous, workPath);
+                } catch (IOException e1) {
+                    e.addSuppressed(e1);
+                }
+            }
+            throw e;
+        } finally {
+            Files.deleteIfExists(link);
+        }
+        LOGGER.info("Published generation " + work.getGeneration() + " of work " + work.getId());
+        return previous;
+    }
+
+    /**
+     * Makes a previous generation the current one again, on rollback of a published generation.
+     *
+     * @param work the work with its path
+     * @param previous the directory of the previous generation, null to remove the work path
+     * @throws IOException if the work path can't be changed
+     */
+    public void restore(Work work, Path previous) throws IOException {
+        Path workPath = Paths.get(work.getPath());
+        if (previous == null) {
+            if (Files.isSymbolicLink(workPath)) {
+                Files.delete(workPath);
+            }
+            return;
+        }
+        Path link = createLink(workPath, previous);
+        try {
+            replace(link, workPath);
+        } finally {
+            Files.deleteIfExists(link);
+        }
+    }
+
+    /**
+     * Records a replaced generation for deletion after the retention time.
+     *
+     * @param workId the id of the work
+     * @param generationDir the directory of the replaced generation
+     * @throws IOException if the marker file can't be written
+     */
+    public void retire(String workId, Path generationDir) throws IOException {
+        Path retiredFolder = Files.createDirectories(Paths.get(importerProperties.getTempWorkFolderPath(), RETIRED_FOLDER));
+        Path marker = retiredFolder.resolve(workId + "." + UUID.randomUUID());
+        Files.write(marker, Arrays.asList(workId, generationDir.toAbsolutePath().toString()), StandardCharsets.UTF_8);
+
+        if (taskScheduler != null) {
+            long delay = (importerProperties.getGenerationRetention() + 1) * 1000L;
+            taskScheduler.schedule(this::collect, new Date(System.currentTimeMillis() + delay));
+        }
+    }
+
+    /**
+     * Deletes the retired generations whose retention time is over. It never deletes a current generation.
+     */
+    public synchronized void collect() {
+        Path retiredFolder = Paths.get(importerProperties.getTempWorkFolderPath(), RETIRED_FOLDER);
+        if (!Files.isDirectory(retiredFolder)) {
+            return;
+        }
+        long expired = System.currentTimeMillis() - importerProperties.getGenerationRetention() * 1000L;
+        try (DirectoryStream<Path> markers = Files.newDirectoryStream(retiredFolder)) {
+            for (Path marker : markers) {
+                if (Files.getLastModifiedTime(marker).toMillis() < expired) {
+                    collect(marker);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not list retired generations in " + retiredFolder + ": " + e);
+        }
+    }
+
+    private void collect(Path marker) {
+        try {
+            List<String> lines = Files.readAllLines(marker, StandardCharsets.UTF_8);
+            if (lines.size() >= 2) {
+                String workId = lines.get(0);
+                Path generationDir = Paths.get(lines.get(1));
+                Path workPath = Paths.get(importerProperties.getWorkFilesPath(), workId);
+                if (Files.exists(workPath) && Files.exists(generationDir) && Files.isSameFile(workPath, generationDir)) {
+                    LOGGER.warn("Retired generation " + generationDir + " is the current one of work " + workId + ", keeping it");
+                } else {
+                    FileUtils.deleteDirectory(generationDir.toFile());
+                    // derivatives produced from the old files while it was retired; this clears the whole derivative
+                    // cache of the work a second time after the import, so derivatives of the new generation requested
+                    // in the meantime are produced again
+                    cacheDeleteAction.perform(new Work(workId, null), null);
+                    LOGGER.info("Deleted retired generation " + generationDir + " of work " + workId);
+                }
+            }
+            Files.delete(marker);
+        } catch (Exception e) {
+            LOGGER.warn("Could not delete retired generation of " + marker + ": " + e);
+        }
+    }
+
+    /**
+     * Creates a symbolic link to a generation next to the work path, relative to the work files folder.
+     */
+    private static Path createLink(Path workPath, Path generationDir) throws IOException {
+        Path parent = workPath.toAbsolutePath().getParent();
+        Path link = parent.resolve("." + workPath.getFileName() + "." + UUID.randomUUID() + ".link");
+        return Files.createSymbolicLink(link, parent.relativize(generationDir.toAbsolutePath()));
+    }
+
+    private static void replace(Path link, Path workPath) throws IOException {
+        try {
+            Files.move(link, workPath, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(link, workPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static Path resolve(Path link) throws IOException {
+        return link.toAbsolutePath().getParent().resolve(Files.readSymbolicLink(link)).normalize();
+    }
+}
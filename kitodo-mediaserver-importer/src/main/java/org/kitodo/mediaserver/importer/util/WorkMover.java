@@ -0,0 +1,323 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.importer.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileStore;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.FileExistsException;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves work directories between the hotfolder, the importing folder, the work files folder and the temporary and
+ * error folders.
+ *
+ * <p>
+ * If source and target are on the same file system, a directory is renamed, which takes the same time for any size.
+ * Whether two folders share a file system is determined once per pair of parent folders. Otherwise, or if the rename
+ * fails, the files are copied in parallel on the move executor with {@link FileChannel#transferTo}, so the kernel can
+ * copy them without passing the data through the JVM. The source is deleted after all files are copied; if copying
+ * fails or is incomplete, the partial copy is deleted and the source is kept. Modification times of files and
+ * directories are kept.
+ */
+@Component
+@ManagedResource(objectName = "org.kitodo.mediaserver:type=WorkMover")
+public class WorkMover {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WorkMover.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private AsyncTaskExecutor moveExecutor;
+
+    private final ConcurrentMap<String, Boolean> renamable = new ConcurrentHashMap<>();
+
+    private final AtomicLong renames = new AtomicLong();
+    private final AtomicLong copies = new AtomicLong();
+    private final AtomicLong copiedFiles = new AtomicLong();
+    private final AtomicLong copiedBytes = new AtomicLong();
+    private final AtomicLong copyNanos = new AtomicLong();
+
+    @Autowired(required = false)
+    public void setMoveExecutor(@Qualifier("moveExecutor") AsyncTaskExecutor moveExecutor) {
+        this.moveExecutor = moveExecutor;
+    }
+
+    /**
+     * Moves a directory. The parent directories of the target are created.
+     *
+     * @param source the directory to move
+     * @param target the new directory, must not exist
+     * @throws IOException if the directory can't be moved, a {@link FileExistsException} if the target exists
+     */
+    public void moveDirectory(File source, File target) throws IOException {
+        if (!source.isDirectory()) {
+            throw new IOException("Source '" + source + "' is not a directory");
+        }
+        if (target.exists()) {
+            throw new FileExistsException("Destination '" + target + "' already exists");
+        }
+        File targetParent = target.getAbsoluteFile().getParentFile();
+        Files.createDirectories(targetParent.toPath());
+
+        String key = source.getAbsoluteFile().getParent() + File.pathSeparator + targetParent;
+        if (renamable.computeIfAbsent(key, k -> isSameFileStore(source.getAbsoluteFile().getParentFile(), targetParent))) {
+            try {
+                Files.move(source.toPath(), target.toPath());
+                renames.incrementAndGet();
+                return;
+            } catch (FileAlreadyExistsException e) {
+                throw new FileExistsException("Destination '" + target + "' already exists");
+            } catch (IOException e) {
+                // e.g. different mounts of the same file system, don't try again for these folders
+                LOGGER.info("Could not rename " + source + " to " + target + ", copying instead: " + e);
+                renamable.put(key, false);
+            }
+        }
+        copyDirectory(source.toPath(), target.toPath());
+        FileUtils.deleteDirectory(source);
+    }
+
+    /**
+     * Moves a single file. The parent directories of the target are created.
+     *
+     * @param source the file to move
+     * @param target the new file, must not exist
+     * @throws IOException if the file can't be moved
+     */
+    public void moveFile(File source, File target) throws IOException {
+        if (target.exists()) {
+            throw new FileExistsException("Destination '" + target + "' already exists");
+        }
+        Files.createDirectories(target.getAbsoluteFile().getParentFile().toPath());
+        // renames on the same file system, copies and deletes otherwise
+        Files.move(source.toPath(), target.toPath());
+    }
+
+    @ManagedAttribute(description = "Number of directories moved by renaming")
+    public long getRenames() {
+        return renames.get();
+    }
+
+    @ManagedAttribute(description = "Number of directories moved by copying")
+    public long getCopies() {
+        return copies.get();
+    }
+
+    @ManagedAttribute(description = "Number of copied files")
+    public long getCopiedFiles() {
+        return copiedFiles.get();
+    }
+
+    @ManagedAttribute(description = "Number of copied bytes")
+    public long getCopiedBytes() {
+        return copiedBytes.get();
+    }
+
+    /**
+     * Gets the average throughput of copied directories.
+     *
+     * @return the throughput in MB/s
+     */
+    @ManagedAttribute(description = "Average throughput of copied directories in MB/s")
+    public double getCopyThroughput() {
+        return getThroughput(copiedBytes.get(), copyNanos.get());
+    }
+
+    private static boolean isSameFileStore(File sourceParent, File targetParent) {
+        try {
+            FileStore sourceStore = Files.getFileStore(sourceParent.toPath());
+            FileStore targetStore = Files.getFileStore(targetParent.toPath());
+            return sourceStore.equals(targetStore);
+        } catch (IOException e) {
+            // let the rename decide
+            return true;
+        }
+    }
+
+    /**
+     * Copies a directory tree, the files in parallel. The partial copy is deleted on errors.
+     */
+    private void copyDirectory(Path source, Path target) throws IOException {
+        long start = System.nanoTime();
+        List<Path> files = new ArrayList<>();
+        List<Path> dirs = new ArrayList<>();
+        try {
+            Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attributes) throws IOException {
+                    Files.createDirectory(target.resolve(source.relativize(dir).toString()));
+                    dirs.add(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    files.add(file);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+
+            long bytes = 0;
+            if (moveExecutor == null) {
+                for (Path file : files) {
+                    bytes += copyFile(file, target.resolve(source.relativize(file).toString()));
+                }
+            } else {
+                bytes = copyFilesInParallel(source, target, files);
+            }
+
+            // copying the files changed the modification times of the directories
+            for (Path dir : dirs) {
+                Files.setLastModifiedTime(target.resolve(source.relativize(dir).toString()), Files.getLastModifiedTime(dir));
+            }
+
+            final long nanos = System.nanoTime() - start;
+            copies.incrementAndGet();
+            copiedFiles.addAndGet(files.size());
+            copiedBytes.addAndGet(bytes);
+            copyNanos.addAndGet(nanos);
+            LOGGER.info(String.format(Locale.ENGLISH, "Copied %d files (%d MB) from %s to %s in %d ms, %.1f MB/s",
+                files.size(), bytes / (1024 * 1024), source, target, TimeUnit.NANOSECONDS.toMillis(nanos),
+                getThroughput(bytes, nanos)));
+        } catch (IOException | RuntimeException e) {
+            FileUtils.deleteQuietly(target.toFile());
+            throw e;
+        }
+    }
+
+    private long copyFilesInParallel(Path source, Path target, List<Path> files) throws IOException {
+        List<Future<Long>> results = new ArrayList<>(files.size());
+        for (Path file : files) {
+            Path targetFile = target.resolve(source.relativize(file).toString());
+            results.add(moveExecutor.submit(() -> copyFile(file, targetFile)));
+        }
+        long bytes = 0;
+        try {
+            for (Future<Long> result : results) {
+                bytes += result.get();
+            }
+            return bytes;
+        } catch (InterruptedException e) {
+            cancel(results);
+            Thread.currentThread().interrupt();
+            throw new IOException("Copying " + source + " was interrupted", e);
+        } catch (ExecutionException e) {
+            cancel(results);
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Cancels the remaining copies and waits for the running ones, so the partial copy can be deleted.
+     */
+    private static void cancel(List<Future<Long>> results) {
+        results.forEach(result -> result.cancel(false));
+        for (Future<Long> result : results) {
+            try {
+                if (!result.isCancelled()) {
+                    result.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                // the first error is reported
+            }
+        }
+    }
+
+    /**
+     * Copies a file with its modification time.
+     *
+     * @return the size of the file
+     */
+    private static long copyFile(Path source, Path target) throws IOException {
+        long size;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            size = transfer(in, out);
+        }
+        Files.setLastModifiedTime(target, Files.getLastModifiedTime(source));
+        return size;
+    }
+
+    /**
+     * Copies the content of a channel. If {@link FileChannel#transferTo} stops before the end, e.g. on some network
+     * file systems, the rest is copied through a buffer.
+     *
+     * @param in the channel to copy
+     * @param out the channel to write to
+     * @return the number of copied bytes
+     * @throws IOException if the channel can't be copied completely
+     */
+    static long transfer(FileChannel in, FileChannel out) throws IOException {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+            long transferred = in.transferTo(position, size - position, out);
+            if (transferred <= 0) {
+                break;
+            }
+            position += transferred;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        while (position < size) {
+            buffer.clear();
+            int read = in.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            position += read;
+        }
+
+        if (position < size) {
+            throw new IOException("Copied only " + position + " of " + size + " bytes");
+        }
+        return position;
+    }
+
+    private static double getThroughput(long bytes, long nanos) {
+        return nanos > 0 ? bytes / (1024.0 * 1024.0) / (nanos / 1e9) : 0;
+    }
+}
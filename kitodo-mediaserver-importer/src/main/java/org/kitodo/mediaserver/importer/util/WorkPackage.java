@@ -0,0 +1,60 @@
+/*
+ * (c) Kitodo. Key to digital objects e. V. <contact@kitodo.org>
+ *
+ * This file is part of the Kitodo project.
+ *
+ * It is licensed under GNU General Public License version 3 or later.
+ *
+ * For the full copyright and license information, please read the
+ * LICENSE file that was distributed with this source code.
+ */
+
+package org.kitodo.mediaserver.importer.util;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A work to import found in the hotfolder: a METS file with the directories of its files.
+ *
+ * <p>
+ * The METS file is either directly in the hotfolder, then all directories with its name as prefix belong to the
+ * work. Or it is in a directory of the same name, which contains the whole work.
+ */
+public class WorkPackage {
+
+    private final String name;
+    private final File metsFile;
+    private final List<File> directories;
+
+    /**
+     * Creates a work package.
+     *
+     * @param name the name of the METS file without extension
+     * @param metsFile the METS file
+     * @param directories the directories belonging to the work
+     */
+    public WorkPackage(String name, File metsFile, List<File> directories) {
+        this.name = name;
+        this.metsFile = metsFile;
+        this.directories = directories;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public File getMetsFile() {
+        return metsFile;
+    }
+
+    public List<File> getDirectories() {
+        return Collections.unmodifiableList(directories);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -12,22 +12,41 @@
 package org.kitodo.mediaserver.importer.validators;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
 import org.kitodo.mediaserver.core.api.IMetsReader;
 import org.kitodo.mediaserver.core.config.ImporterProperties;
 import org.kitodo.mediaserver.core.exceptions.ValidationException;
+import org.kitodo.mediaserver.core.processors.MetsFile;
 import org.kitodo.mediaserver.core.util.MediaServerUtils;
+import org.kitodo.mediaserver.core.util.MetsIndexCache;
 import org.kitodo.mediaserver.importer.api.IMetsValidation;
+import org.kitodo.mediaserver.importer.util.FileChecksums;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 /**
  * A validator for imported files.
+ *
+ * <p>
+ * The files are checked in parallel on the validation executor. If {@code importer.validateChecksums} is set, files
+ * with a CHECKSUM attribute in the METS file are read and their checksum is compared. Checksums are only known from
+ * the METS file index, so they are not verified if the file URLs are read with {@code importer.fileUrlReaderXsl}.
  */
 public class FileOccurrenceValidation implements IMetsValidation {
 
@@ -37,6 +56,10 @@ public class FileOccurrenceValidation implements IMetsValidation {
     private IMetsReader metsUrlReader;
     private MediaServerUtils mediaServerUtils;
     private ImporterProperties importerProperties;
+    private MetsIndexCache metsIndexCache;
+    private AsyncTaskExecutor validationExecutor;
+
+    private final Set<String> unsupportedChecksumTypes = ConcurrentHashMap.newKeySet();
 
     public void setMetsUrlReader(IMetsReader metsUrlReader) {
         this.metsUrlReader = metsUrlReader;
@@ -52,8 +75,19 @@ public class FileOccurrenceValidation implements IMetsValidation {
         this.importerProperties = importerProperties;
     }
 
+    @Autowired
+    public void setMetsIndexCache(MetsIndexCache metsIndexCache) {
+        this.metsIndexCache = metsIndexCache;
+    }
+
+    @Autowired(required = false)
+    public void setValidationExecutor(@Qualifier("validationExecutor") AsyncTaskExecutor validationExecutor) {
+        this.validationExecutor = validationExecutor;
+    }
+
     /**
      * Checks that all files of a certain file group in a mets file are present at import.
+     * The files are taken from the METS index, or their URLs are read with the METS reader if one is set.
      *
      * @param mets the mets file
      * @throws ValidationException if the validation fails
@@ -63,30 +97,122 @@ public class FileOccurrenceValidation implements IMetsValidation {
 
         mediaServerUtils.checkForRequiredParameter(parameter, "fileGrpId", "workId");
 
-        List<String> urls;
-        List<String> missingFiles = new ArrayList<>();
+        List<MetsFile> files;
 
         try {
-            urls = metsUrlReader.read(mets, new AbstractMap.SimpleEntry<>("fileGrpId", parameter.get("fileGrpId")));
+            if (metsUrlReader != null) {
+                files = metsUrlReader.read(mets, new AbstractMap.SimpleEntry<>("fileGrpId", parameter.get("fileGrpId"))).stream()
+                    .map(url -> new MetsFile(null, parameter.get("fileGrpId"), url, null, null))
+                    .collect(Collectors.toList());
+            } else {
+                Set<String> urls = new HashSet<>();
+                files = metsIndexCache.getIndex(mets).getFiles(parameter.get("fileGrpId")).stream()
+                    .filter(file -> StringUtils.isNotEmpty(file.getUrl()) && urls.add(file.getUrl()))
+                    .collect(Collectors.toList());
+            }
         } catch (Exception e) {
             throw new ValidationException("Validation failed due to unexpected error: " + e, e);
         }
 
-        // For each file, check if it is in the import, if not, add it to a list of missing files.
-        for (String url : urls) {
+        // Check each file, in parallel if there is an executor, and collect the missing and corrupt files.
+        List<Callable<FileError>> checks = new ArrayList<>(files.size());
+        for (MetsFile file : files) {
             Path internalPath = mediaServerUtils.getInternalPathFromUrl(
-                    url,
+                    file.getUrl(),
                     importerProperties.getImportingFolderPath(),
                     parameter.get("workId")
             );
+            checks.add(() -> checkFile(internalPath, file));
+        }
 
-            if (!internalPath.toFile().exists()) {
-                missingFiles.add(internalPath.toString());
+        List<String> missingFiles = new ArrayList<>();
+        List<String> corruptFiles = new ArrayList<>();
+        for (FileError error : runChecks(checks)) {
+            if (error != null) {
+                (error.missing ? missingFiles : corruptFiles).add(error.path);
             }
         }
 
         if (!missingFiles.isEmpty()) {
             throw new ValidationException("The following files are missing: " + missingFiles);
         }
+        if (!corruptFiles.isEmpty()) {
+            throw new ValidationException("The following files don't match their checksum: " + corruptFiles);
+        }
+    }
+
+    /**
+     * Runs the checks of all files and returns their results in the same order.
+     */
+    private List<FileError> runChecks(List<Callable<FileError>> checks) throws ValidationException {
+        List<FileError> errors = new ArrayList<>(checks.size());
+        if (validationExecutor == null) {
+            for (Callable<FileError> check : checks) {
+                try {
+                    errors.add(check.call());
+                } catch (Exception e) {
+                    throw new ValidationException("Validation failed due to unexpected error: " + e, e);
+                }
+            }
+            return errors;
+        }
+
+        List<Future<FileError>> results = checks.stream().map(validationExecutor::submit).collect(Collectors.toList());
+        try {
+            for (Future<FileError> result : results) {
+                errors.add(result.get());
+            }
+            return errors;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValidationException("Validation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new ValidationException("Validation failed due to unexpected error: " + e.getCause(), e.getCause());
+        } finally {
+            results.forEach(result -> result.cancel(true));
+        }
+    }
+
+    /**
+     * Checks a single file.
+     *
+     * @return null if the file is valid
+     */
+    private FileError checkFile(Path internalPath, MetsFile file) {
+        if (!internalPath.toFile().exists()) {
+            return new FileError(internalPath, true);
+        }
+        if (!importerProperties.isValidateChecksums() || StringUtils.isEmpty(file.getChecksum())) {
+            return null;
+        }
+        if (!FileChecksums.isSupported(file.getChecksumType())) {
+            if (unsupportedChecksumTypes.add(String.valueOf(file.getChecksumType()))) {
+                LOGGER.warn("Checksums of type " + file.getChecksumType() + " are not supported and not validated");
+            }
+            return null;
+        }
+        try {
+            if (FileChecksums.matches(internalPath, file.getChecksumType(), file.getChecksum())) {
+                return null;
+            }
+            LOGGER.debug("Checksum of " + internalPath + " doesn't match " + file.getChecksumType() + " " + file.getChecksum());
+        } catch (IOException e) {
+            LOGGER.warn("Could not calculate the checksum of " + internalPath + ": " + e);
+        }
+        return new FileError(internalPath, false);
+    }
+
+    /**
+     * A missing or corrupt file.
+     */
+    private static class FileError {
+
+        private final String path;
+        private final boolean missing;
+
+        FileError(Path path, boolean missing) {
+            this.path = path.toString();
+            this.missing = missing;
+        }
     }
 }
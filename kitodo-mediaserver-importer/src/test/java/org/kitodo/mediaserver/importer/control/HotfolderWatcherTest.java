@@ -0,0 +1,134 @@
+package org.kitodo.mediaserver.importer.control;
+
+import java.io.File;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitodo.mediaserver.core.config.ImporterProperties;
+import org.kitodo.mediaserver.importer.util.ImporterUtils;
+import org.kitodo.mediaserver.importer.util.WorkMover;
+import org.kitodo.mediaserver.importer.util.WorkPackage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the hotfolder watcher.
+ */
+public class HotfolderWatcherTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private HotfolderWatcher hotfolderWatcher;
+
+    private ImporterFlowControl importerFlowControl;
+
+    private File hotfolder;
+
+    @Before
+    public void init() throws Exception {
+        hotfolder = temporaryFolder.newFolder("hotfolder");
+
+        ImporterProperties importerProperties = new ImporterProperties();
+        importerProperties.setHotfolderPath(hotfolder.getAbsolutePath());
+        importerProperties.setWatchSettleTime(1);
+
+        ImporterUtils importerUtils = new ImporterUtils();
+        importerUtils.setImporterProperties(importerProperties);
+        importerUtils.setWorkMover(new WorkMover());
+
+        importerFlowControl = mock(ImporterFlowControl.class);
+
+        hotfolderWatcher = new HotfolderWatcher();
+        hotfolderWatcher.setImporterProperties(importerProperties);
+        hotfolderWatcher.setImporterUtils(importerUtils);
+        hotfolderWatcher.setImporterFlowControl(importerFlowControl);
+    }
+
+    @After
+    public void stop() {
+        hotfolderWatcher.stop();
+    }
+
+    @Test
+    public void importsWorkAfterSettleTime() throws Exception {
+        // given
+        new File(hotfolder, "work1.xml").createNewFile();
+        new File(hotfolder, "work1_tif").mkdir();
+
+        // when
+        hotfolderWatcher.start();
+
+        // then
+        verify(importerFlowControl, timeout(10000)).importWorks(argThat(workPackages -> hasWork(workPackages, "work1")));
+    }
+
+    @Test
+    public void waitsForChangingWork() throws Exception {
+        // given
+        new File(hotfolder, "work1.xml").createNewFile();
+        File tifDir = new File(hotfolder, "work1_tif");
+        tifDir.mkdir();
+        hotfolderWatcher.start();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            new File(tifDir, i + ".tif").createNewFile();
+            Thread.sleep(200);
+        }
+
+        // then
+        verify(importerFlowControl, never()).importWorks(anyList());
+        verify(importerFlowControl, timeout(10000)).importWorks(argThat(workPackages -> hasWork(workPackages, "work1")));
+    }
+
+    @Test
+    public void watchesNewSubdirectories() throws Exception {
+        // given
+        hotfolderWatcher.start();
+
+        // when
+        File subdir = new File(hotfolder, "work1/images/tif");
+        subdir.mkdirs();
+
+        // then
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!hotfolderWatcher.isWatched(subdir.toPath()) && System.currentTimeMillis() < end) {
+            Thread.sleep(50);
+        }
+        assertThat(hotfolderWatcher.isWatched(subdir.toPath())).isTrue();
+    }
+
+    @Test
+    public void reportsLostEvents() throws Exception {
+        // given
+        WatchEvent<?> overflow = mock(WatchEvent.class);
+        doReturn(StandardWatchEventKinds.OVERFLOW).when(overflow).kind();
+        WatchKey key = mock(WatchKey.class);
+        doReturn(Collections.singletonList(overflow)).when(key).pollEvents();
+        when(key.reset()).thenReturn(true);
+
+        // then
+        assertThat(hotfolderWatcher.handleEvents(key, System.currentTimeMillis())).isTrue();
+    }
+
+    private static boolean hasWork(List<WorkPackage> workPackages, String name) {
+        return workPackages != null && workPackages.stream().anyMatch(workPackage -> name.equals(workPackage.getName()));
+    }
+}
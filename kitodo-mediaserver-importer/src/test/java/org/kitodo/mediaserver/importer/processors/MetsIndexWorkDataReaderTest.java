@@ -0,0 +1,81 @@
+package org.kitodo.mediaserver.importer.processors;
+
+import java.io.File;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitodo.mediaserver.core.config.MetsProperties;
+import org.kitodo.mediaserver.core.db.entities.Collection;
+import org.kitodo.mediaserver.core.db.entities.Work;
+import org.kitodo.mediaserver.core.processors.SimpleList2MapParser;
+import org.kitodo.mediaserver.core.processors.StaxMetsIndexReader;
+import org.kitodo.mediaserver.core.processors.XsltMetsReader;
+import org.kitodo.mediaserver.core.util.MetsIndexCache;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.ResourceUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+
+/**
+ * Unit tests for the work data reader using the METS index.
+ */
+public class MetsIndexWorkDataReaderTest {
+
+    private MetsIndexWorkDataReader metsIndexWorkDataReader = new MetsIndexWorkDataReader();
+    private WorkDataReader xsltWorkDataReader = new WorkDataReader();
+
+    @Before
+    public void init() {
+        MetsProperties metsProperties = new MetsProperties();
+        metsProperties.setIndexCacheSize(10);
+        MetsIndexCache metsIndexCache = new MetsIndexCache();
+        metsIndexCache.setMetsIndexReader(new StaxMetsIndexReader());
+        metsIndexCache.setMetsProperties(metsProperties);
+        metsIndexWorkDataReader.setMetsIndexCache(metsIndexCache);
+
+        XsltMetsReader xsltMetsReader = new XsltMetsReader();
+        xsltMetsReader.setXslt(new ClassPathResource("xslt/getWorkData.xsl"));
+        SimpleList2MapParser readResultParser = new SimpleList2MapParser();
+        readResultParser.setMapSeparator(":");
+        xsltWorkDataReader.setMetsReader(xsltMetsReader);
+        xsltWorkDataReader.setReadResultParser(readResultParser);
+    }
+
+    @Test
+    public void generatesWorkObjectWithCompleteData() throws Exception {
+        // given
+        File testMetsFile  = ResourceUtils.getFile("classpath:metsfiles/singleIdentifierMets.xml");
+
+        // when
+        Work workData = metsIndexWorkDataReader.read(testMetsFile);
+
+        // then
+        assertThat(workData.getId()).isEqualTo("BV002570873_1");
+        assertThat(workData.getTitle()).isEqualTo("Jg. 1.1886 ; illustrierte Wochenschrift für Gärtner, Gartenliebhaber und Landwirte ; 1");
+        assertThat(workData.getHostId()).isEqualTo("BV002570873");
+        assertThat(workData.getCollections()).extracting(Collection::getName)
+            .containsExactly("Deutsche Gartenbaubibliothek#Periodika (Gartentexte digital)");
+    }
+
+    @Test
+    public void readsSameWorkDataAsXslt() throws Exception {
+        for (File testMetsFile : ResourceUtils.getFile("classpath:metsfiles").listFiles()) {
+            // when
+            Work actual = metsIndexWorkDataReader.read(testMetsFile);
+            Work expected = xsltWorkDataReader.read(testMetsFile);
+
+            // then
+            assertThat(actual.getId()).as(testMetsFile.getName()).isEqualTo(expected.getId());
+            assertThat(actual.getTitle()).as(testMetsFile.getName()).isEqualTo(expected.getTitle());
+            assertThat(actual.getHostId()).as(testMetsFile.getName()).isEqualTo(expected.getHostId());
+            assertThat(getCollectionNames(actual)).as(testMetsFile.getName()).isEqualTo(getCollectionNames(expected));
+        }
+    }
+
+    private static Set<String> getCollectionNames(Work work) {
+        return work.getCollections() == null ? null
+            : work.getCollections().stream().map(Collection::getName).collect(Collectors.toSet());
+    }
+}
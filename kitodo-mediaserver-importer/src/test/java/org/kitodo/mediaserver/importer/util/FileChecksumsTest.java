@@ -0,0 +1,52 @@
+package org.kitodo.mediaserver.importer.util;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Random;
+import javax.xml.bind.DatatypeConverter;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the checksums of imported files.
+ */
+public class FileChecksumsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void calculatesChecksumsOfSmallFile() throws Exception {
+        // given
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), "a".getBytes("UTF-8"));
+
+        // then
+        assertThat(FileChecksums.calculate(file.toPath(), "MD5")).isEqualTo("0cc175b9c0f1b6a831c399e269772661");
+        assertThat(FileChecksums.calculate(file.toPath(), "sha-1")).isEqualTo("86f7e437faa5a7fce15d1ddcb9eaeaea377667b8");
+        assertThat(FileChecksums.calculate(file.toPath(), "CRC32")).isEqualTo("e8b7be43");
+        assertThat(FileChecksums.calculate(file.toPath(), "Adler-32")).isEqualTo("00620062");
+        assertThat(FileChecksums.matches(file.toPath(), "MD5", "0CC175B9C0F1B6A831C399E269772661")).isTrue();
+        assertThat(FileChecksums.isSupported("HAVAL")).isFalse();
+    }
+
+    @Test
+    public void calculatesChecksumOfMappedFile() throws Exception {
+        // given
+        byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(42).nextBytes(content);
+        File file = temporaryFolder.newFile();
+        Files.write(file.toPath(), content);
+
+        // when
+        String checksum = FileChecksums.calculate(file.toPath(), "SHA-256");
+
+        // then
+        String expected = DatatypeConverter.printHexBinary(MessageDigest.getInstance("SHA-256").digest(content));
+        assertThat(checksum).isEqualToIgnoringCase(expected);
+    }
+}
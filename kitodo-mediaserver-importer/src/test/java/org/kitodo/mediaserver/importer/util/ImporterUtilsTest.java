@@ -0,0 +1,108 @@
+package org.kitodo.mediaserver.importer.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitodo.mediaserver.core.config.ImporterProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for finding and moving works in the hotfolder.
+ */
+public class ImporterUtilsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ImporterUtils importerUtils;
+
+    private File hotfolder;
+
+    private File importingFolder;
+
+    @Before
+    public void init() throws Exception {
+        hotfolder = temporaryFolder.newFolder("hotfolder");
+        importingFolder = temporaryFolder.newFolder("importing");
+
+        ImporterProperties importerProperties = new ImporterProperties();
+        importerProperties.setHotfolderPath(hotfolder.getAbsolutePath());
+        importerProperties.setImportingFolderPath(importingFolder.getAbsolutePath());
+        importerProperties.setErrorFolderPath(temporaryFolder.newFolder("error").getAbsolutePath());
+
+        importerUtils = new ImporterUtils();
+        importerUtils.setImporterProperties(importerProperties);
+        importerUtils.setWorkMover(new WorkMover());
+    }
+
+    @Test
+    public void findsWorkPackagesInOneScan() throws Exception {
+        // given
+        new File(hotfolder, "work1.xml").createNewFile();
+        new File(hotfolder, "work1_tif").mkdir();
+        new File(hotfolder, "work1_ocr").mkdir();
+        File work2 = new File(hotfolder, "work2");
+        work2.mkdir();
+        new File(work2, "work2.xml").createNewFile();
+        new File(hotfolder, "incomplete").mkdir();
+        List<String> incompleteDirectories = new ArrayList<>();
+
+        // when
+        List<WorkPackage> workPackages = importerUtils.findWorkPackages(incompleteDirectories);
+
+        // then
+        assertThat(workPackages).extracting(WorkPackage::getName).containsExactly("work1", "work2");
+        assertThat(workPackages.get(0).getDirectories()).extracting(File::getName).containsExactly("work1_ocr", "work1_tif");
+        assertThat(incompleteDirectories).containsExactly("incomplete");
+    }
+
+    @Test
+    public void findsOnlyDirectoriesOfWork() throws Exception {
+        // given
+        new File(hotfolder, "work1.xml").createNewFile();
+        new File(hotfolder, "work1_tif").mkdir();
+        new File(hotfolder, "work10.xml").createNewFile();
+        new File(hotfolder, "work10_tif").mkdir();
+
+        // when
+        List<WorkPackage> workPackages = importerUtils.findWorkPackages(new ArrayList<>());
+
+        // then
+        assertThat(workPackages).extracting(WorkPackage::getName).containsExactly("work1", "work10");
+        assertThat(workPackages.get(0).getDirectories()).extracting(File::getName).containsExactly("work1_tif");
+        assertThat(workPackages.get(1).getDirectories()).extracting(File::getName).containsExactly("work10_tif");
+        assertThat(importerUtils.findWorkPackage("work1").getDirectories()).extracting(File::getName).containsExactly("work1_tif");
+    }
+
+    @Test
+    public void movesWorkPackageToImportingFolder() throws Exception {
+        // given
+        new File(hotfolder, "work1.xml").createNewFile();
+        new File(hotfolder, "work1_tif").mkdir();
+        WorkPackage workPackage = importerUtils.findWorkPackage("work1");
+
+        // when
+        File workDir = importerUtils.getWorkPackage(workPackage);
+
+        // then
+        assertThat(workDir).isEqualTo(new File(importingFolder, "work1"));
+        assertThat(new File(workDir, "work1.xml")).isFile();
+        assertThat(new File(workDir, "work1_tif")).isDirectory();
+        assertThat(hotfolder.list()).isEmpty();
+        assertThat(importerUtils.getWorkPackage(workPackage)).isNull();
+    }
+
+    @Test
+    public void findsNoWorkPackageWithoutMetsFile() throws Exception {
+        // given
+        new File(hotfolder, "work1").mkdir();
+
+        // then
+        assertThat(importerUtils.findWorkPackage("work1")).isNull();
+    }
+}
@@ -0,0 +1,179 @@
+package org.kitodo.mediaserver.importer.util;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitodo.mediaserver.core.api.IAction;
+import org.kitodo.mediaserver.core.config.ImporterProperties;
+import org.kitodo.mediaserver.core.db.entities.Work;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for versioned work directories.
+ */
+public class WorkGenerationsTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private WorkGenerations workGenerations;
+
+    private ImporterProperties importerProperties;
+
+    private IAction cacheDeleteAction;
+
+    private File workFiles;
+
+    private Work work;
+
+    @Before
+    public void init() throws Exception {
+        workFiles = temporaryFolder.newFolder("files");
+        importerProperties = new ImporterProperties();
+        importerProperties.setWorkFilesPath(workFiles.getAbsolutePath());
+        importerProperties.setTempWorkFolderPath(temporaryFolder.newFolder("import_temp").getAbsolutePath());
+        importerProperties.setWorkGenerations(true);
+        cacheDeleteAction = mock(IAction.class);
+
+        workGenerations = new WorkGenerations();
+        workGenerations.setImporterProperties(importerProperties);
+        workGenerations.setCacheDeleteAction(cacheDeleteAction);
+
+        work = new Work("UA123", "Title");
+        work.setPath(new File(workFiles, "UA123").getAbsolutePath());
+    }
+
+    @Test
+    public void publishesGenerations() throws Exception {
+        // given
+        stageGeneration(1, "first");
+        stageGeneration(2, "second");
+
+        // when
+        work.setGeneration(1);
+        Path first = workGenerations.publish(work, 0);
+        assertThat(new File(work.getPath(), "UA123.xml")).hasContent("first");
+        work.setGeneration(2);
+        Path second = workGenerations.publish(work, 1);
+
+        // then
+        assertThat(first).isNull();
+        assertThat(second).isEqualTo(workGenerations.getGenerationDir("UA123", 1).toPath());
+        assertThat(Files.isSymbolicLink(new File(work.getPath()).toPath())).isTrue();
+        assertThat(new File(work.getPath(), "UA123.xml")).hasContent("second");
+        assertThat(workFiles.list()).containsExactlyInAnyOrder("UA123", ".generations");
+    }
+
+    @Test
+    public void findsDirectoryOfLinkedWork() throws Exception {
+        // given
+        stageGeneration(1, "first");
+        work.setGeneration(1);
+        workGenerations.publish(work, 0);
+        File plainWork = new File(workFiles, "UA456");
+        plainWork.mkdir();
+
+        // then
+        assertThat(workGenerations.getWorkDir(new File(work.getPath()).toPath()))
+            .isEqualTo(workGenerations.getGenerationDir("UA123", 1).toPath());
+        assertThat(workGenerations.getWorkDir(plainWork.toPath())).isEqualTo(plainWork.toPath());
+    }
+
+    @Test
+    public void replacesWorkDirectoryWithoutGenerations() throws Exception {
+        // given
+        new File(work.getPath()).mkdir();
+        write(new File(work.getPath(), "UA123.xml"), "old");
+        stageGeneration(4, "new");
+        work.setGeneration(4);
+
+        // when
+        Path previous = workGenerations.publish(work, 3);
+
+        // then
+        assertThat(previous).isEqualTo(workGenerations.getGenerationDir("UA123", 3).toPath());
+        assertThat(previous.resolve("UA123.xml")).hasContent("old");
+        assertThat(new File(work.getPath(), "UA123.xml")).hasContent("new");
+    }
+
+    @Test
+    public void restoresPreviousGeneration() throws Exception {
+        // given
+        stageGeneration(1, "first");
+        stageGeneration(2, "second");
+        work.setGeneration(1);
+        workGenerations.publish(work, 0);
+        work.setGeneration(2);
+        Path previous = workGenerations.publish(work, 1);
+
+        // when
+        workGenerations.restore(work, previous);
+
+        // then
+        assertThat(new File(work.getPath(), "UA123.xml")).hasContent("first");
+    }
+
+    @Test
+    public void collectsRetiredGenerationsAfterRetention() throws Exception {
+        // given
+        stageGeneration(1, "first");
+        stageGeneration(2, "second");
+        work.setGeneration(1);
+        workGenerations.publish(work, 0);
+        work.setGeneration(2);
+        Path previous = workGenerations.publish(work, 1);
+        importerProperties.setGenerationRetention(600);
+        workGenerations.retire("UA123", previous);
+
+        // when
+        workGenerations.collect();
+
+        // then
+        assertThat(previous).exists();
+
+        // when
+        importerProperties.setGenerationRetention(-1);
+        workGenerations.collect();
+
+        // then
+        assertThat(previous).doesNotExist();
+        assertThat(new File(work.getPath(), "UA123.xml")).hasContent("second");
+        verify(cacheDeleteAction).perform(any(Work.class), isNull());
+    }
+
+    @Test
+    public void keepsCurrentGeneration() throws Exception {
+        // given
+        stageGeneration(1, "first");
+        work.setGeneration(1);
+        workGenerations.publish(work, 0);
+        importerProperties.setGenerationRetention(-1);
+        workGenerations.retire("UA123", workGenerations.getGenerationDir("UA123", 1).toPath());
+
+        // when
+        workGenerations.collect();
+
+        // then
+        assertThat(new File(work.getPath(), "UA123.xml")).hasContent("first");
+    }
+
+    private void stageGeneration(int generation, String content) throws Exception {
+        File dir = workGenerations.getGenerationDir("UA123", generation);
+        dir.mkdirs();
+        write(new File(dir, "UA123.xml"), content);
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
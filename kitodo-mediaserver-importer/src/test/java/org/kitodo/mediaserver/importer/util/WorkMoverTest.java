@@ -0,0 +1,166 @@
+package org.kitodo.mediaserver.importer.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import org.apache.commons.io.FileExistsException;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for moving work directories.
+ */
+public class WorkMoverTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private WorkMover workMover;
+
+    private File workDir;
+
+    @Before
+    public void init() throws Exception {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.initialize();
+        workMover = new WorkMover();
+        workMover.setMoveExecutor(executor);
+
+        workDir = temporaryFolder.newFolder("work1");
+        new File(workDir, "work1_tif").mkdir();
+        write(new File(workDir, "work1.xml"), "mets");
+        write(new File(workDir, "work1_tif/image1.tif"), "image");
+    }
+
+    @Test
+    public void renamesOnSameFileSystem() throws Exception {
+        // given
+        File target = new File(temporaryFolder.getRoot(), "files/work1");
+
+        // when
+        workMover.moveDirectory(workDir, target);
+
+        // then
+        assertThat(workDir).doesNotExist();
+        assertThat(new File(target, "work1_tif/image1.tif")).hasContent("image");
+        assertThat(workMover.getRenames()).isEqualTo(1);
+        assertThat(workMover.getCopies()).isZero();
+    }
+
+    @Test
+    public void doesNotReplaceExistingTarget() throws Exception {
+        // given
+        File target = temporaryFolder.newFolder("work2");
+
+        // then
+        assertThatThrownBy(() -> workMover.moveDirectory(workDir, target)).isInstanceOf(FileExistsException.class);
+        assertThat(new File(workDir, "work1.xml")).exists();
+    }
+
+    @Test
+    public void copiesToOtherFileSystem() throws Exception {
+        // given
+        Path otherFileSystem = Paths.get("/dev/shm");
+        assumeTrue(Files.isDirectory(otherFileSystem) && Files.isWritable(otherFileSystem)
+            && !Files.getFileStore(otherFileSystem).equals(Files.getFileStore(workDir.toPath())));
+        File target = Files.createTempDirectory(otherFileSystem, "workMoverTest").resolve("work1").toFile();
+        long lastModified = new File(workDir, "work1.xml").lastModified();
+
+        try {
+            // when
+            workMover.moveDirectory(workDir, target);
+
+            // then
+            assertThat(workDir).doesNotExist();
+            assertThat(new File(target, "work1.xml")).hasContent("mets");
+            assertThat(new File(target, "work1.xml").lastModified()).isEqualTo(lastModified);
+            assertThat(new File(target, "work1_tif/image1.tif")).hasContent("image");
+            assertThat(workMover.getCopies()).isEqualTo(1);
+            assertThat(workMover.getCopiedFiles()).isEqualTo(2);
+            assertThat(workMover.getCopiedBytes()).isEqualTo(9);
+        } finally {
+            FileUtils.deleteQuietly(target.getParentFile());
+        }
+    }
+
+    @Test
+    public void failsOnShortTransfer() throws Exception {
+        // given
+        FileChannel in = mock(FileChannel.class);
+        FileChannel out = mock(FileChannel.class);
+        when(in.size()).thenReturn(100L);
+        when(in.transferTo(anyLong(), anyLong(), any())).thenReturn(40L, 0L);
+        when(in.read(any(ByteBuffer.class), anyLong())).thenReturn(-1);
+
+        // then
+        assertThatThrownBy(() -> WorkMover.transfer(in, out)).isInstanceOf(IOException.class).hasMessageContaining("40 of 100");
+    }
+
+    @Test
+    public void copiesRestAfterShortTransfer() throws Exception {
+        // given
+        File source = new File(workDir, "work1_tif/image1.tif");
+        File target = temporaryFolder.newFile();
+        try (FileChannel realIn = FileChannel.open(source.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.WRITE)) {
+            FileChannel in = mock(FileChannel.class);
+            when(in.size()).thenReturn(realIn.size());
+            when(in.transferTo(anyLong(), anyLong(), any())).thenReturn(0L);
+            when(in.read(any(ByteBuffer.class), anyLong()))
+                .thenAnswer(invocation -> realIn.read(invocation.getArgument(0), invocation.getArgument(1)));
+
+            // when
+            long copied = WorkMover.transfer(in, out);
+
+            // then
+            assertThat(copied).isEqualTo(5);
+        }
+        assertThat(target).hasContent("image");
+    }
+
+    @Test
+    public void keepsModificationTimesOfDirectories() throws Exception {
+        // given
+        Path otherFileSystem = Paths.get("/dev/shm");
+        assumeTrue(Files.isDirectory(otherFileSystem) && Files.isWritable(otherFileSystem)
+            && !Files.getFileStore(otherFileSystem).equals(Files.getFileStore(workDir.toPath())));
+        File target = Files.createTempDirectory(otherFileSystem, "workMoverTest").resolve("work1").toFile();
+        File tifDir = new File(workDir, "work1_tif");
+        tifDir.setLastModified(1000000000000L);
+        workDir.setLastModified(1100000000000L);
+
+        try {
+            // when
+            workMover.moveDirectory(workDir, target);
+
+            // then
+            assertThat(new File(target, "work1_tif").lastModified()).isEqualTo(1000000000000L);
+            assertThat(target.lastModified()).isEqualTo(1100000000000L);
+        } finally {
+            FileUtils.deleteQuietly(target.getParentFile());
+        }
+    }
+
+    private static void write(File file, String content) throws Exception {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}
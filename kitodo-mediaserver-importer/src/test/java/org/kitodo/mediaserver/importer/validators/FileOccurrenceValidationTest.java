@@ -0,0 +1,125 @@
+package org.kitodo.mediaserver.importer.validators;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitodo.mediaserver.core.config.ImporterProperties;
+import org.kitodo.mediaserver.core.config.MetsProperties;
+import org.kitodo.mediaserver.core.exceptions.ValidationException;
+import org.kitodo.mediaserver.core.processors.StaxMetsIndexReader;
+import org.kitodo.mediaserver.core.util.MediaServerUtils;
+import org.kitodo.mediaserver.core.util.MetsIndexCache;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the validation of imported files.
+ */
+public class FileOccurrenceValidationTest {
+
+    private static final String METS = "<mets:mets xmlns:mets=\"http://www.loc.gov/METS/\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">"
+        + "<mets:fileSec><mets:fileGrp USE=\"ORIGINAL\">"
+        + "<mets:file ID=\"IMG1\" MIMETYPE=\"image/tiff\" CHECKSUM=\"0CC175B9C0F1B6A831C399E269772661\" CHECKSUMTYPE=\"MD5\">"
+        + "<mets:FLocat LOCTYPE=\"URL\" xlink:href=\"http://localhost/files/UA123/image1.tif\"/></mets:file>"
+        + "<mets:file ID=\"IMG2\" MIMETYPE=\"image/tiff\" CHECKSUM=\"71beeff9\" CHECKSUMTYPE=\"CRC32\">"
+        + "<mets:FLocat LOCTYPE=\"URL\" xlink:href=\"http://localhost/files/UA123/image2.tif\"/></mets:file>"
+        + "</mets:fileGrp></mets:fileSec></mets:mets>";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FileOccurrenceValidation validation;
+
+    private ImporterProperties importerProperties;
+
+    private File workDir;
+
+    private File metsFile;
+
+    private Map<String, String> parameter = new HashMap<>();
+
+    @Before
+    public void init() throws Exception {
+        File importingFolder = temporaryFolder.newFolder("importing");
+        workDir = new File(importingFolder, "UA123");
+        workDir.mkdir();
+        metsFile = new File(workDir, "UA123.xml");
+        Files.write(metsFile.toPath(), METS.getBytes(StandardCharsets.UTF_8));
+        write("image1.tif", "a");
+        write("image2.tif", "b");
+
+        importerProperties = new ImporterProperties();
+        importerProperties.setImportingFolderPath(importingFolder.getAbsolutePath());
+        importerProperties.setValidateChecksums(true);
+
+        MetsProperties metsProperties = new MetsProperties();
+        metsProperties.setIndexCacheSize(10);
+        MetsIndexCache metsIndexCache = new MetsIndexCache();
+        metsIndexCache.setMetsIndexReader(new StaxMetsIndexReader());
+        metsIndexCache.setMetsProperties(metsProperties);
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.initialize();
+
+        validation = new FileOccurrenceValidation();
+        validation.setMediaServerUtils(new MediaServerUtils());
+        validation.setImporterProperties(importerProperties);
+        validation.setMetsIndexCache(metsIndexCache);
+        validation.setValidationExecutor(executor);
+
+        parameter.put("fileGrpId", "ORIGINAL");
+        parameter.put("workId", "UA123");
+    }
+
+    @Test
+    public void acceptsFilesWithMatchingChecksums() {
+        assertThatCode(() -> validation.validate(metsFile, parameter)).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void rejectsMissingFile() {
+        // given
+        new File(workDir, "image2.tif").delete();
+
+        // then
+        assertThatThrownBy(() -> validation.validate(metsFile, parameter))
+            .isInstanceOf(ValidationException.class)
+            .hasMessageContaining("missing")
+            .hasMessageContaining("image2.tif");
+    }
+
+    @Test
+    public void rejectsCorruptFile() throws Exception {
+        // given
+        write("image1.tif", "x");
+
+        // then
+        assertThatThrownBy(() -> validation.validate(metsFile, parameter))
+            .isInstanceOf(ValidationException.class)
+            .hasMessageContaining("checksum")
+            .hasMessageContaining("image1.tif");
+    }
+
+    @Test
+    public void ignoresChecksumsIfNotEnabled() throws Exception {
+        // given
+        write("image1.tif", "x");
+        importerProperties.setValidateChecksums(false);
+
+        // then
+        assertThatCode(() -> validation.validate(metsFile, parameter)).doesNotThrowAnyException();
+    }
+
+    private void write(String name, String content) throws Exception {
+        Files.write(new File(workDir, name).toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+}